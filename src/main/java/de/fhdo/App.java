@@ -1,19 +1,33 @@
 package de.fhdo;
 
+import de.fhdo.config.HouseConfigStreamLoader;
 import de.fhdo.gui.MainFrame;
+import de.fhdo.service.HouseContext;
+import de.fhdo.service.SnapshotManager;
 import de.fhdo.service.SystemMonitor;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.swing.*;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * Desktop entry point. Servers without a display use {@link HeadlessApp}.
+ */
 @Slf4j
 public class App {
+
     public static void main(String[] args) {
-        SystemMonitor monitor = SystemMonitor.getInstance();
-        monitor.startMonitoring();
+        CompletableFuture.runAsync(HouseConfigStreamLoader::warmUp);
+
+        HouseContext context = HouseContext.getDefault();
+        SnapshotManager snapshotManager = Bootstrap.restoreState(context);
+
+        SystemMonitor monitor = context.getSystemMonitor();
+        Bootstrap.startMonitoring(context);
+        Bootstrap.startApi(context);
 
         SwingUtilities.invokeLater(() -> {
-            MainFrame frame = new MainFrame(monitor);
+            MainFrame frame = new MainFrame(monitor, snapshotManager);
             frame.setVisible(true);
         });
     }
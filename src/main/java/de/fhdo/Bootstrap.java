@@ -0,0 +1,107 @@
+package de.fhdo;
+
+import de.fhdo.api.HouseApiServer;
+import de.fhdo.model.Tariff;
+import de.fhdo.service.EnergyLedger;
+import de.fhdo.service.HouseContext;
+import de.fhdo.service.SnapshotManager;
+import de.fhdo.service.StateJournal;
+import de.fhdo.service.SystemMonitor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup steps shared by the desktop and the headless entry point. Nothing in here touches AWT.
+ */
+@Slf4j
+final class Bootstrap {
+    static final Path SNAPSHOT_FILE = Paths.get("data", "house.snapshot");
+    static final Path JOURNAL_DIR = Paths.get("data", "journal");
+    static final Path LEDGER_FILE = Paths.get("data", "energy.ledger");
+    /** Port of the local HTTP API; a negative value disables it. */
+    static final int API_PORT = Integer.getInteger("smarthouse.api.port", HouseApiServer.DEFAULT_PORT);
+    /** Whether devices are shed by priority when demand exceeds supply. */
+    static final boolean LOAD_SHEDDING = Boolean.parseBoolean(System.getProperty("smarthouse.loadShedding", "true"));
+    /** Grid tariff such as {@code 0.32;22:00-06:00=0.14}; batteries are charged on a schedule when set. */
+    static final String TARIFF = System.getProperty("smarthouse.tariff");
+
+    private Bootstrap() {
+    }
+
+    /**
+     * Restores the last snapshot, journal and energy ledger into the context, attaches the journal and
+     * starts periodic snapshots and ledger saves.
+     */
+    static SnapshotManager restoreState(HouseContext context) {
+        StateJournal journal = openJournal();
+        SnapshotManager snapshotManager = new SnapshotManager(SNAPSHOT_FILE, context, journal);
+        try {
+            if (snapshotManager.restoreSnapshot()) {
+                log.info("Restored house state from {}", SNAPSHOT_FILE);
+            }
+            if (journal != null) {
+                journal.start();
+                context.setJournal(journal);
+            }
+        } catch (IOException e) {
+            log.error("Failed to restore snapshot {}", SNAPSHOT_FILE, e);
+        }
+        snapshotManager.startPeriodicSnapshots(30, TimeUnit.SECONDS);
+
+        EnergyLedger ledger = context.getSystemMonitor().getEnergyLedger();
+        try {
+            ledger.restore(LEDGER_FILE);
+        } catch (IOException e) {
+            log.error("Failed to restore energy ledger {}, starting a new one", LEDGER_FILE, e);
+        }
+        ledger.startPeriodicSaves(LEDGER_FILE, 60, TimeUnit.SECONDS);
+        return snapshotManager;
+    }
+
+    /**
+     * Starts the system monitor together with the controllers it drives.
+     */
+    static void startMonitoring(HouseContext context) {
+        SystemMonitor monitor = context.getSystemMonitor();
+        monitor.getLoadSheddingController().setEnabled(LOAD_SHEDDING);
+        if (TARIFF != null) {
+            try {
+                monitor.getChargingScheduler().setTariff(Tariff.parse(TARIFF));
+                monitor.getChargingScheduler().setEnabled(true);
+            } catch (IllegalArgumentException e) {
+                log.error("Ignoring tariff {}, batteries are charged without a schedule", TARIFF, e);
+            }
+        }
+        monitor.startMonitoring();
+    }
+
+    /**
+     * @return the running server, or null if the API is disabled or could not start
+     */
+    static HouseApiServer startApi(HouseContext context) {
+        if (API_PORT < 0) {
+            return null;
+        }
+        try {
+            HouseApiServer server = new HouseApiServer(context, API_PORT);
+            server.start();
+            return server;
+        } catch (IOException e) {
+            log.error("Failed to start the HTTP API on port {}, running without it", API_PORT, e);
+            return null;
+        }
+    }
+
+    private static StateJournal openJournal() {
+        try {
+            return new StateJournal(JOURNAL_DIR, StateJournal.FsyncPolicy.INTERVAL, 1000);
+        } catch (IOException e) {
+            log.error("Failed to open journal {}, running without it", JOURNAL_DIR, e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package de.fhdo;
+
+import de.fhdo.api.HouseApiServer;
+import de.fhdo.config.HouseConfig;
+import de.fhdo.model.Battery;
+import de.fhdo.service.ConfigWatcher;
+import de.fhdo.service.DeviceManager;
+import de.fhdo.service.EnergyManager;
+import de.fhdo.service.EnergyTotals;
+import de.fhdo.service.HouseContext;
+import de.fhdo.service.SnapshotManager;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entry point for servers without a display. Runs the house with the monitor, the charging engine and
+ * the HTTP API, and reports status through the logs only. No AWT or Swing class is ever loaded.
+ * <pre>
+ * java -cp ... de.fhdo.HeadlessApp [--watch] [config.yml]
+ * </pre>
+ * The configuration is applied as a diff on top of the restored state, so a restart keeps running
+ * devices and battery charge. With {@code --watch} later edits of the file are applied live.
+ */
+@Slf4j
+public final class HeadlessApp {
+    private static final long STATUS_INTERVAL_SECONDS = 60;
+
+    private HeadlessApp() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        long start = System.nanoTime();
+        System.setProperty("java.awt.headless", "true");
+
+        boolean watch = false;
+        Path configFile = null;
+        for (String arg : args) {
+            if (arg.equals("--watch")) {
+                watch = true;
+            } else {
+                configFile = Paths.get(arg);
+            }
+        }
+
+        HouseContext context = HouseContext.getDefault();
+        SnapshotManager snapshotManager = Bootstrap.restoreState(context);
+        ConfigWatcher watcher = null;
+        if (configFile != null && applyConfiguration(context, configFile) && watch) {
+            watcher = watchConfiguration(context, configFile);
+        }
+
+        startCharging(context.getEnergyManager());
+        Bootstrap.startMonitoring(context);
+        HouseApiServer api = Bootstrap.startApi(context);
+
+        ScheduledExecutorService statusLogger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "status-logger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        statusLogger.scheduleAtFixedRate(() -> logStatus(context), STATUS_INTERVAL_SECONDS, STATUS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        ConfigWatcher runningWatcher = watcher;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            log.info("Shutting down");
+            statusLogger.shutdown();
+            if (runningWatcher != null) {
+                runningWatcher.close();
+            }
+            if (api != null) {
+                api.close();
+            }
+            snapshotManager.shutdown();
+            context.shutdown();
+            stopped.countDown();
+        }, "shutdown"));
+
+        log.info("Headless house started in {} ms", (System.nanoTime() - start) / 1_000_000);
+        logStatus(context);
+        stopped.await();
+    }
+
+    private static boolean applyConfiguration(HouseContext context, Path configFile) {
+        if (!Files.isRegularFile(configFile)) {
+            log.error("Configuration file {} does not exist, starting with the restored state only", configFile);
+            return false;
+        }
+        try {
+            context.reconcileConfiguration(HouseConfig.loadFromFile(configFile.toString()));
+            return true;
+        } catch (IOException e) {
+            log.error("Failed to load configuration {}, starting with the restored state only", configFile, e);
+            return false;
+        }
+    }
+
+    private static ConfigWatcher watchConfiguration(HouseContext context, Path configFile) {
+        try {
+            ConfigWatcher watcher = new ConfigWatcher(configFile, context, diff -> log.info("Applied configuration changes: {}", diff));
+            watcher.start();
+            return watcher;
+        } catch (IOException e) {
+            log.error("Failed to watch configuration {}", configFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * Nobody is there to press "Start Charging", so every battery with room left charges from the
+     * active sources.
+     */
+    private static void startCharging(EnergyManager energyManager) {
+        for (Battery battery : energyManager.getAllBatteries()) {
+            if (!battery.isCharging() && battery.getCurrentCharge() < battery.getCapacity()) {
+                energyManager.startCharging(battery.getId());
+            }
+        }
+    }
+
+    private static void logStatus(HouseContext context) {
+        DeviceManager deviceManager = context.getDeviceManager();
+        EnergyManager energyManager = context.getEnergyManager();
+        EnergyTotals totals = energyManager.getCurrentTotals();
+        log.info("Status: consumption {} units from {} active devices, generation {} units, battery charge {}/{} units with {} charging",
+                String.format("%.2f", deviceManager.getCurrentTotalConsumption()),
+                deviceManager.getDevicesByState(true).size(),
+                String.format("%.2f", totals.getGeneration()),
+                String.format("%.2f", totals.getBatteryCharge()),
+                String.format("%.2f", totals.getBatteryCapacity()),
+                energyManager.getBatteriesByState(true).size());
+    }
+}
@@ -0,0 +1,506 @@
+package de.fhdo.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.fhdo.model.Battery;
+import de.fhdo.model.BatterySnapshot;
+import de.fhdo.model.Device;
+import de.fhdo.model.DeviceSnapshot;
+import de.fhdo.model.Energy;
+import de.fhdo.model.EnergySnapshot;
+import de.fhdo.service.DeviceManager;
+import de.fhdo.service.EnergyLedger;
+import de.fhdo.service.EnergyManager;
+import de.fhdo.service.EnergyTotals;
+import de.fhdo.service.HouseContext;
+import de.fhdo.service.LedgerEntry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embedded HTTP/JSON interface to a house, bound to the loopback interface.
+ * <pre>
+ * GET    /api/devices                 list devices
+ * POST   /api/devices                 add a device {"name", "type", "power", "priority"}
+ * GET    /api/devices/{id}            one device
+ * PUT    /api/devices/{id}            update name, type, power and priority
+ * DELETE /api/devices/{id}            remove a device
+ * POST   /api/devices/{id}/toggle     switch a device on or off
+ *
+ * /api/energies   the same for energy sources {"name", "type", "output"}
+ * /api/batteries  the same for batteries {"name", "capacity", "maxChargeRate", "currentCharge"},
+ *                 where toggle starts or stops charging
+ *
+ * GET    /api/totals                  consumption, generation and battery totals
+ * GET    /api/totals/stream           the totals as server-sent events whenever they change
+ * GET    /api/snapshot                every entity plus the totals
+ * GET    /api/ledger                  energy ledger accounts by kind, in unit-hours
+ * GET    /api/ledger/{kind}/{id}      one account with its hourly and daily rollups; kind is
+ *                                     device_consumed, source_supplied, battery_charged or
+ *                                     battery_discharged
+ * </pre>
+ * Requests are handled on a fixed pool of worker threads. Streams do not hold a worker: they are fed
+ * by the managers' publishers and only write when a client has taken the previous update.
+ */
+@Slf4j
+public class HouseApiServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_THREADS = 16;
+    private static final String JSON = "application/json";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final ObjectWriter WRITER = MAPPER.writer();
+    private static final ObjectReader DEVICE_READER = MAPPER.readerFor(DeviceRequest.class);
+    private static final ObjectReader ENERGY_READER = MAPPER.readerFor(EnergyRequest.class);
+    private static final ObjectReader BATTERY_READER = MAPPER.readerFor(BatteryRequest.class);
+    /** Returned by a route that has already started a response and keeps it open. */
+    private static final Object STREAMING = new Object();
+
+    private final DeviceManager deviceManager;
+    private final EnergyManager energyManager;
+    private final EnergyLedger ledger;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Set<TotalsStream> streams = ConcurrentHashMap.newKeySet();
+
+    record LedgerView(Map<EnergyLedger.Kind, List<LedgerEntry>> accounts) {
+    }
+
+    record LedgerHistoryView(LedgerEntry entry, double[] hourly, double[] daily) {
+    }
+
+    record TotalsView(double consumption, double generation, double batteryCharge, double batteryCapacity) {
+    }
+
+    record SnapshotView(List<DeviceSnapshot> devices, List<EnergySnapshot> energies, List<BatterySnapshot> batteries, TotalsView totals) {
+    }
+
+    record DeviceRequest(String name, Device.DeviceType type, Double power, Integer priority) {
+    }
+
+    record EnergyRequest(String name, Energy.EnergyType type, Double output) {
+    }
+
+    record BatteryRequest(String name, Double capacity, Double maxChargeRate, Double currentCharge) {
+    }
+
+    /**
+     * Request failure with the HTTP status to answer with.
+     */
+    static class ApiException extends RuntimeException {
+        private final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /** Body to answer with 201 Created. */
+    private record Created(Object body) {
+    }
+
+    @FunctionalInterface
+    private interface Route {
+        Object handle(HttpExchange exchange, String[] path) throws IOException;
+    }
+
+    public HouseApiServer(HouseContext context, int port) throws IOException {
+        this(context.getDeviceManager(), context.getEnergyManager(), context.getSystemMonitor().getEnergyLedger(),
+                port, DEFAULT_THREADS);
+    }
+
+    /**
+     * @param port    port on the loopback interface, 0 for any free port
+     * @param threads worker threads serving requests
+     */
+    public HouseApiServer(DeviceManager deviceManager, EnergyManager energyManager, EnergyLedger ledger,
+                          int port, int threads) throws IOException {
+        // Small responses otherwise wait for the client's delayed ACK, capping each connection at ~25 requests/s.
+        // Read once when the first server is created.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        this.deviceManager = deviceManager;
+        this.energyManager = energyManager;
+        this.ledger = ledger;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 256);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "api-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+
+        server.createContext("/api/devices", exchange -> serve(exchange, this::devices));
+        server.createContext("/api/energies", exchange -> serve(exchange, this::energies));
+        server.createContext("/api/batteries", exchange -> serve(exchange, this::batteries));
+        server.createContext("/api/totals", exchange -> serve(exchange, this::totals));
+        server.createContext("/api/ledger", exchange -> serve(exchange, this::ledger));
+        server.createContext("/api/snapshot", exchange -> serve(exchange, (ex, path) -> {
+            requireMethod(ex, "GET");
+            return snapshot();
+        }));
+    }
+
+    public void start() {
+        server.start();
+        log.info("House API listening on http://{}:{}/api", server.getAddress().getHostString(), getPort());
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private Object devices(HttpExchange exchange, String[] path) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (path.length == 2) {
+            if (method.equals("GET")) {
+                return deviceManager.getAllDevices().stream().map(Device::snapshot).toList();
+            }
+            requireMethod(exchange, "POST");
+            DeviceRequest request = readBody(exchange, DEVICE_READER);
+            Device device = Device.builder()
+                    .id(UUID.randomUUID().toString())
+                    .name(requireName(request.name()))
+                    .type(require(request.type(), "type"))
+                    .power(requireNonNegative(request.power(), "power"))
+                    .priority(request.priority() == null ? 0 : request.priority())
+                    .isActive(false)
+                    .build();
+            deviceManager.addDevice(device);
+            exchange.getResponseHeaders().set("Location", "/api/devices/" + device.getId());
+            return new Created(device.snapshot());
+        }
+        String id = path[2];
+        if (path.length == 4 && path[3].equals("toggle")) {
+            requireMethod(exchange, "POST");
+            deviceManager.toggleDevice(id);
+            return deviceManager.getDeviceById(id).snapshot();
+        }
+        requireLength(path, 3);
+        return switch (method) {
+            case "GET" -> deviceManager.getDeviceById(id).snapshot();
+            case "PUT" -> {
+                DeviceRequest request = readBody(exchange, DEVICE_READER);
+                Device device = deviceManager.getDeviceById(id);
+                yield deviceManager.updateDevice(id,
+                        request.name() == null ? device.getName() : requireName(request.name()),
+                        request.type() == null ? device.getType() : request.type(),
+                        request.power() == null ? device.getPower() : requireNonNegative(request.power(), "power"),
+                        request.priority() == null ? device.getPriority() : request.priority()).snapshot();
+            }
+            case "DELETE" -> {
+                deviceManager.getDeviceById(id);
+                deviceManager.removeDevice(id);
+                yield null;
+            }
+            default -> throw methodNotAllowed(method);
+        };
+    }
+
+    private Object energies(HttpExchange exchange, String[] path) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (path.length == 2) {
+            if (method.equals("GET")) {
+                return energyManager.getAllEnergies().stream().map(Energy::snapshot).toList();
+            }
+            requireMethod(exchange, "POST");
+            EnergyRequest request = readBody(exchange, ENERGY_READER);
+            Energy energy = Energy.builder()
+                    .id(UUID.randomUUID().toString())
+                    .name(requireName(request.name()))
+                    .type(require(request.type(), "type"))
+                    .output(requireNonNegative(request.output(), "output"))
+                    .isActive(false)
+                    .build();
+            energyManager.addEnergy(energy);
+            exchange.getResponseHeaders().set("Location", "/api/energies/" + energy.getId());
+            return new Created(energy.snapshot());
+        }
+        String id = path[2];
+        if (path.length == 4 && path[3].equals("toggle")) {
+            requireMethod(exchange, "POST");
+            energyManager.toggleEnergyById(id);
+            return energyManager.getEnergyById(id).snapshot();
+        }
+        requireLength(path, 3);
+        return switch (method) {
+            case "GET" -> energyManager.getEnergyById(id).snapshot();
+            case "PUT" -> {
+                EnergyRequest request = readBody(exchange, ENERGY_READER);
+                Energy energy = energyManager.getEnergyById(id);
+                yield energyManager.updateEnergy(id,
+                        request.name() == null ? energy.getName() : requireName(request.name()),
+                        request.type() == null ? energy.getType() : request.type(),
+                        request.output() == null ? energy.getOutput() : requireNonNegative(request.output(), "output")).snapshot();
+            }
+            case "DELETE" -> {
+                energyManager.getEnergyById(id);
+                energyManager.removeEnergyById(id);
+                yield null;
+            }
+            default -> throw methodNotAllowed(method);
+        };
+    }
+
+    private Object batteries(HttpExchange exchange, String[] path) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (path.length == 2) {
+            if (method.equals("GET")) {
+                return energyManager.getAllBatteries().stream().map(Battery::snapshot).toList();
+            }
+            requireMethod(exchange, "POST");
+            BatteryRequest request = readBody(exchange, BATTERY_READER);
+            double capacity = requireNonNegative(request.capacity(), "capacity");
+            Battery battery = Battery.builder()
+                    .id(UUID.randomUUID().toString())
+                    .name(requireName(request.name()))
+                    .capacity(capacity)
+                    .maxChargeRate(requireNonNegative(request.maxChargeRate(), "maxChargeRate"))
+                    .currentCharge(request.currentCharge() == null ? 0 : Math.min(capacity, requireNonNegative(request.currentCharge(), "currentCharge")))
+                    .isCharging(false)
+                    .build();
+            energyManager.addBattery(battery);
+            exchange.getResponseHeaders().set("Location", "/api/batteries/" + battery.getId());
+            return new Created(battery.snapshot());
+        }
+        String id = path[2];
+        if (path.length == 4 && path[3].equals("toggle")) {
+            requireMethod(exchange, "POST");
+            if (energyManager.getBatteryById(id).isCharging()) {
+                energyManager.stopCharging(id);
+            } else {
+                energyManager.startCharging(id);
+            }
+            return energyManager.getBatteryById(id).snapshot();
+        }
+        requireLength(path, 3);
+        return switch (method) {
+            case "GET" -> energyManager.getBatteryById(id).snapshot();
+            case "PUT" -> {
+                BatteryRequest request = readBody(exchange, BATTERY_READER);
+                Battery battery = energyManager.getBatteryById(id);
+                yield energyManager.updateBattery(id,
+                        request.name() == null ? battery.getName() : requireName(request.name()),
+                        request.capacity() == null ? battery.getCapacity() : requireNonNegative(request.capacity(), "capacity"),
+                        request.maxChargeRate() == null ? battery.getMaxChargeRate() : requireNonNegative(request.maxChargeRate(), "maxChargeRate")).snapshot();
+            }
+            case "DELETE" -> {
+                if (energyManager.getBatteryById(id).isCharging()) {
+                    energyManager.stopCharging(id);
+                }
+                energyManager.removeBatteryById(id);
+                yield null;
+            }
+            default -> throw methodNotAllowed(method);
+        };
+    }
+
+    private Object totals(HttpExchange exchange, String[] path) throws IOException {
+        requireMethod(exchange, "GET");
+        if (path.length == 3 && path[2].equals("stream")) {
+            openStream(exchange);
+            return STREAMING;
+        }
+        requireLength(path, 2);
+        return currentTotals();
+    }
+
+    /**
+     * {@code /api/ledger} lists all accounts by kind, {@code /api/ledger/{kind}/{id}} adds the hourly and
+     * daily rollups of one account.
+     */
+    private Object ledger(HttpExchange exchange, String[] path) {
+        requireMethod(exchange, "GET");
+        if (path.length == 2) {
+            Map<EnergyLedger.Kind, List<LedgerEntry>> accounts = new EnumMap<>(EnergyLedger.Kind.class);
+            for (EnergyLedger.Kind kind : EnergyLedger.Kind.values()) {
+                accounts.put(kind, ledger.getEntries(kind));
+            }
+            return new LedgerView(accounts);
+        }
+        requireLength(path, 4);
+        EnergyLedger.Kind kind;
+        try {
+            kind = EnergyLedger.Kind.valueOf(path[2].toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(404, "No such ledger kind: " + path[2]);
+        }
+        long now = System.currentTimeMillis();
+        LedgerEntry entry = ledger.getEntry(kind, path[3], now);
+        if (entry == null) {
+            throw new IllegalArgumentException("No ledger account: " + path[3]);
+        }
+        return new LedgerHistoryView(entry, ledger.getHourly(kind, path[3], now), ledger.getDaily(kind, path[3], now));
+    }
+
+    private SnapshotView snapshot() {
+        return new SnapshotView(
+                deviceManager.getAllDevices().stream().map(Device::snapshot).toList(),
+                energyManager.getAllEnergies().stream().map(Energy::snapshot).toList(),
+                energyManager.getAllBatteries().stream().map(Battery::snapshot).toList(),
+                currentTotals());
+    }
+
+    TotalsView currentTotals() {
+        EnergyTotals totals = energyManager.getCurrentTotals();
+        return new TotalsView(deviceManager.getCurrentTotalConsumption(), totals.getGeneration(),
+                totals.getBatteryCharge(), totals.getBatteryCapacity());
+    }
+
+    private void openStream(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        TotalsStream stream = new TotalsStream(exchange, this::currentTotals, WRITER, streams::remove);
+        streams.add(stream);
+        deviceManager.getConsumptionPublisher().subscribe(stream.newSource());
+        energyManager.getTotalsPublisher().subscribe(stream.newSource());
+    }
+
+    private void serve(HttpExchange exchange, Route route) {
+        try {
+            String[] path = exchange.getRequestURI().getPath().substring(1).split("/");
+            Object result = route.handle(exchange, path);
+            if (result == STREAMING) {
+                return;
+            }
+            if (result instanceof Created created) {
+                respond(exchange, 201, created.body());
+            } else if (result == null) {
+                drain(exchange);
+                exchange.sendResponseHeaders(204, -1);
+                exchange.close();
+            } else {
+                respond(exchange, 200, result);
+            }
+        } catch (ApiException e) {
+            respondError(exchange, e.status, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            // The managers report unknown ids this way
+            respondError(exchange, 404, e.getMessage());
+        } catch (RuntimeException | IOException e) {
+            log.error("Failed to serve {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+            respondError(exchange, 500, "Internal error");
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        drain(exchange);
+        byte[] bytes = WRITER.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void respondError(HttpExchange exchange, int status, String message) {
+        try {
+            respond(exchange, status, Map.of("error", message == null ? "" : message));
+        } catch (IOException e) {
+            log.debug("Could not send error response", e);
+            exchange.close();
+        }
+    }
+
+    /**
+     * Reads what is left of the request body so the connection can be reused.
+     */
+    private static void drain(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    private static <T> T readBody(HttpExchange exchange, ObjectReader reader) throws IOException {
+        try {
+            // Left open; the response closes the exchange
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            if (body.length == 0) {
+                throw new ApiException(400, "Request body is required");
+            }
+            return reader.readValue(body);
+        } catch (JsonProcessingException e) {
+            throw new ApiException(400, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private static void requireMethod(HttpExchange exchange, String method) {
+        if (!exchange.getRequestMethod().equals(method)) {
+            throw methodNotAllowed(exchange.getRequestMethod());
+        }
+    }
+
+    private static void requireLength(String[] path, int length) {
+        if (path.length != length) {
+            throw new ApiException(404, "No such resource");
+        }
+    }
+
+    private static ApiException methodNotAllowed(String method) {
+        return new ApiException(405, "Method not allowed: " + method);
+    }
+
+    private static String requireName(String name) {
+        if (name == null || name.isBlank()) {
+            throw new ApiException(400, "Field 'name' must not be blank");
+        }
+        return name.trim();
+    }
+
+    private static <T> T require(T value, String field) {
+        if (value == null) {
+            throw new ApiException(400, "Field '" + field + "' is required");
+        }
+        return value;
+    }
+
+    private static double requireNonNegative(Double value, String field) {
+        if (require(value, field) < 0) {
+            throw new ApiException(400, "Field '" + field + "' must not be negative");
+        }
+        return value;
+    }
+
+    @Override
+    public void close() {
+        streams.forEach(TotalsStream::close);
+        server.stop(1);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        log.info("House API stopped");
+    }
+}
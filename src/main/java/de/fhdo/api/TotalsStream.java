@@ -0,0 +1,108 @@
+package de.fhdo.api;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.sun.net.httpserver.HttpExchange;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Server-sent event stream of the house totals for one client. It subscribes to several publishers
+ * and writes the current totals whenever any of them signals a change. Each source asks for the next
+ * signal only after the previous write went through, so a slow client holds back its own stream
+ * while the publishers conflate whatever it missed.
+ */
+@Slf4j
+class TotalsStream {
+    private static final byte[] DATA = "data: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] END = "\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final HttpExchange exchange;
+    private final OutputStream out;
+    private final Supplier<?> totals;
+    private final ObjectWriter writer;
+    private final Consumer<TotalsStream> onClose;
+    private final List<Flow.Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    TotalsStream(HttpExchange exchange, Supplier<?> totals, ObjectWriter writer, Consumer<TotalsStream> onClose) {
+        this.exchange = exchange;
+        this.out = exchange.getResponseBody();
+        this.totals = totals;
+        this.writer = writer;
+        this.onClose = onClose;
+    }
+
+    Flow.Subscriber<Object> newSource() {
+        return new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscriptions.add(subscription);
+                if (closed) {
+                    subscription.cancel();
+                } else {
+                    subscription.request(1);
+                }
+            }
+
+            @Override
+            public void onNext(Object item) {
+                if (send()) {
+                    subscription.request(1);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                log.warn("Totals source failed", throwable);
+                close();
+            }
+
+            @Override
+            public void onComplete() {
+                close();
+            }
+        };
+    }
+
+    private boolean send() {
+        synchronized (out) {
+            if (closed) {
+                return false;
+            }
+            try {
+                out.write(DATA);
+                out.write(writer.writeValueAsBytes(totals.get()));
+                out.write(END);
+                out.flush();
+                return true;
+            } catch (IOException e) {
+                log.debug("Totals stream client went away", e);
+            }
+        }
+        close();
+        return false;
+    }
+
+    void close() {
+        synchronized (out) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        subscriptions.forEach(Flow.Subscription::cancel);
+        onClose.accept(this);
+        exchange.close();
+    }
+}
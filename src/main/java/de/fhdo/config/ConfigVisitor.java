@@ -0,0 +1,15 @@
+package de.fhdo.config;
+
+/**
+ * Receives the entries of a configuration one at a time, in file order. Both the YAML parser and the
+ * compiled cache produce entries this way, so large configurations are never bound as a whole.
+ */
+interface ConfigVisitor {
+    void deviceProfile(String deviceType, HouseConfig.ProfileConfig profile);
+
+    void device(HouseConfig.DeviceConfig device);
+
+    void energy(HouseConfig.EnergyConfig energy);
+
+    void battery(HouseConfig.BatteryConfig battery);
+}
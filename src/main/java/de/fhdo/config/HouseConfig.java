@@ -1,23 +1,65 @@
 package de.fhdo.config;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import de.fhdo.model.Battery;
+import de.fhdo.model.BatteryModel;
+import de.fhdo.model.Device;
+import de.fhdo.model.Energy;
+import de.fhdo.model.profile.PowerProfile;
+import de.fhdo.model.profile.PowerProfiles;
 import lombok.Data;
-import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 @Data
 public class HouseConfig {
     private List<DeviceConfig> devices;
     private List<EnergyConfig> energies;
     private List<BatteryConfig> batteries;
+    private Map<String, ProfileConfig> deviceProfiles;
     
     @Data
     public static class DeviceConfig {
         private String name;
         private String type;
         private double power;
+        private int priority;
+        private ProfileConfig profile;
+
+        public Device toDevice() {
+            return toDevice(null);
+        }
+
+        /**
+         * @param typeProfile profile declared for the device type, used when the device declares none itself
+         */
+        public Device toDevice(ProfileConfig typeProfile) {
+            ProfileConfig effective = profile != null ? profile : typeProfile;
+            return Device.builder()
+                    .id(UUID.randomUUID().toString())
+                    .name(name)
+                    .type(Device.DeviceType.valueOf(type))
+                    .power(power)
+                    .priority(priority)
+                    .profile(effective == null ? null : effective.toProfile())
+                    .isActive(false)
+                    .build();
+        }
+
+        public DeviceConfig copy() {
+            DeviceConfig copy = new DeviceConfig();
+            copy.setName(name);
+            copy.setType(type);
+            copy.setPower(power);
+            copy.setPriority(priority);
+            copy.setProfile(profile == null ? null : profile.copy());
+            return copy;
+        }
     }
     
     @Data
@@ -25,6 +67,103 @@ public class HouseConfig {
         private String name;
         private String type;
         private double output;
+        private ProfileConfig profile;
+
+        public Energy toEnergy() {
+            return Energy.builder()
+                    .id(UUID.randomUUID().toString())
+                    .name(name)
+                    .type(Energy.EnergyType.valueOf(type))
+                    .output(output)
+                    .profile(profile == null ? null : profile.toProfile())
+                    .isActive(false)
+                    .build();
+        }
+
+        public EnergyConfig copy() {
+            EnergyConfig copy = new EnergyConfig();
+            copy.setName(name);
+            copy.setType(type);
+            copy.setOutput(output);
+            copy.setProfile(profile == null ? null : profile.copy());
+            return copy;
+        }
+    }
+
+    /**
+     * Power curve of an energy source or device. Sources use DIURNAL (clear-sky day between sunrise and
+     * sunset), CLOUDY (seeded cloud cover on top of it) or TRACE (per-minute CSV file). Devices use
+     * DUTY_CYCLE (thermostat cycling), PROGRAM (appliance run program) or SCHEDULE (lighting windows).
+     */
+    @Data
+    public static class ProfileConfig {
+        private String type;
+        private String sunrise = "06:00";
+        private String sunset = "20:00";
+        private String file;
+        private long seed;
+        private int days = 1;
+        private double cloudCover = 0.3;
+        private double variability = 0.5;
+        private int periodMinutes = 30;
+        private double dutyCycle = 0.5;
+        private int phaseMinutes;
+        private List<Double> steps;
+        private int stepMinutes = 1;
+        private List<String> startTimes;
+        private List<String> windows;
+        private double standby;
+
+        public PowerProfile toProfile() {
+            return switch (type) {
+                case "DIURNAL" -> PowerProfiles.diurnal(toMinute(sunrise), toMinute(sunset));
+                case "CLOUDY" -> PowerProfiles.cloudy(toMinute(sunrise), toMinute(sunset), seed, days, cloudCover, variability);
+                case "TRACE" -> PowerProfiles.trace(Path.of(file));
+                case "DUTY_CYCLE" -> PowerProfiles.dutyCycle(periodMinutes, dutyCycle, phaseMinutes);
+                case "PROGRAM" -> PowerProfiles.program(
+                        steps.stream().mapToDouble(Double::doubleValue).toArray(),
+                        stepMinutes,
+                        startTimes.stream().mapToInt(ProfileConfig::toMinute).toArray(),
+                        standby);
+                case "SCHEDULE" -> PowerProfiles.schedule(
+                        windows.stream().map(ProfileConfig::toWindow).toArray(int[][]::new),
+                        standby);
+                default -> throw new IllegalArgumentException("Unknown profile type: " + type);
+            };
+        }
+
+        public ProfileConfig copy() {
+            ProfileConfig copy = new ProfileConfig();
+            copy.setType(type);
+            copy.setSunrise(sunrise);
+            copy.setSunset(sunset);
+            copy.setFile(file);
+            copy.setSeed(seed);
+            copy.setDays(days);
+            copy.setCloudCover(cloudCover);
+            copy.setVariability(variability);
+            copy.setPeriodMinutes(periodMinutes);
+            copy.setDutyCycle(dutyCycle);
+            copy.setPhaseMinutes(phaseMinutes);
+            copy.setSteps(steps == null ? null : new ArrayList<>(steps));
+            copy.setStepMinutes(stepMinutes);
+            copy.setStartTimes(startTimes == null ? null : new ArrayList<>(startTimes));
+            copy.setWindows(windows == null ? null : new ArrayList<>(windows));
+            copy.setStandby(standby);
+            return copy;
+        }
+
+        static int toMinute(String time) {
+            return LocalTime.parse(time).toSecondOfDay() / 60;
+        }
+
+        static int[] toWindow(String window) {
+            String[] bounds = window.split("-");
+            if (bounds.length != 2) {
+                throw new IllegalArgumentException("Invalid schedule window, expected HH:mm-HH:mm: " + window);
+            }
+            return new int[]{toMinute(bounds[0].trim()), toMinute(bounds[1].trim())};
+        }
     }
     
     @Data
@@ -32,10 +171,112 @@ public class HouseConfig {
         private String name;
         private double capacity;
         private double maxChargeRate;
+        private BatteryModelConfig model;
+
+        public Battery toBattery() {
+            return Battery.builder()
+                    .id(UUID.randomUUID().toString())
+                    .name(name)
+                    .capacity(capacity)
+                    .currentCharge(0.0)
+                    .maxChargeRate(maxChargeRate)
+                    .isCharging(false)
+                    .model(model == null ? null : model.toModel())
+                    .build();
+        }
+
+        public BatteryConfig copy() {
+            BatteryConfig copy = new BatteryConfig();
+            copy.setName(name);
+            copy.setCapacity(capacity);
+            copy.setMaxChargeRate(maxChargeRate);
+            copy.setModel(model == null ? null : model.copy());
+            return copy;
+        }
+    }
+
+    /**
+     * Losses and charge taper of a battery, see {@link BatteryModel}. Unset values are lossless.
+     */
+    @Data
+    public static class BatteryModelConfig {
+        private double chargeEfficiency = 1.0;
+        private double dischargeEfficiency = 1.0;
+        private double selfDischargePerDay;
+        private double taperStart = 1.0;
+        private double taperFloor = 0.05;
+
+        public BatteryModel toModel() {
+            return new BatteryModel(chargeEfficiency, dischargeEfficiency, selfDischargePerDay, taperStart, taperFloor);
+        }
+
+        public BatteryModelConfig copy() {
+            BatteryModelConfig copy = new BatteryModelConfig();
+            copy.setChargeEfficiency(chargeEfficiency);
+            copy.setDischargeEfficiency(dischargeEfficiency);
+            copy.setSelfDischargePerDay(selfDischargePerDay);
+            copy.setTaperStart(taperStart);
+            copy.setTaperFloor(taperFloor);
+            return copy;
+        }
+    }
+
+    /**
+     * Deep copy, used to derive scenario variants without touching the original configuration.
+     */
+    public HouseConfig copy() {
+        HouseConfig copy = new HouseConfig();
+        copy.setDevices(devices == null ? new ArrayList<>() : new ArrayList<>(devices.stream().map(DeviceConfig::copy).toList()));
+        copy.setEnergies(energies == null ? new ArrayList<>() : new ArrayList<>(energies.stream().map(EnergyConfig::copy).toList()));
+        copy.setBatteries(batteries == null ? new ArrayList<>() : new ArrayList<>(batteries.stream().map(BatteryConfig::copy).toList()));
+        if (deviceProfiles != null) {
+            Map<String, ProfileConfig> profiles = new LinkedHashMap<>();
+            deviceProfiles.forEach((deviceType, profile) -> profiles.put(deviceType, profile.copy()));
+            copy.setDeviceProfiles(profiles);
+        }
+        return copy;
+    }
+
+    /**
+     * Profile declared under deviceProfiles for the given device type, or null.
+     */
+    public ProfileConfig profileForType(String deviceType) {
+        return deviceProfiles == null ? null : deviceProfiles.get(deviceType);
     }
     
+    /**
+     * Loads the configuration through the shared YAML mapper, or from its compiled cache when the file
+     * content has not changed since the last load.
+     */
     public static HouseConfig loadFromFile(String filename) throws IOException {
-        ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-        return mapper.readValue(new File(filename), HouseConfig.class);
+        HouseConfig config = new HouseConfig();
+        config.setDevices(new ArrayList<>());
+        config.setEnergies(new ArrayList<>());
+        config.setBatteries(new ArrayList<>());
+        HouseConfigCache.read(Path.of(filename), new ConfigVisitor() {
+            @Override
+            public void deviceProfile(String deviceType, ProfileConfig profile) {
+                if (config.getDeviceProfiles() == null) {
+                    config.setDeviceProfiles(new LinkedHashMap<>());
+                }
+                config.getDeviceProfiles().put(deviceType, profile);
+            }
+
+            @Override
+            public void device(DeviceConfig device) {
+                config.getDevices().add(device);
+            }
+
+            @Override
+            public void energy(EnergyConfig energy) {
+                config.getEnergies().add(energy);
+            }
+
+            @Override
+            public void battery(BatteryConfig battery) {
+                config.getBatteries().add(battery);
+            }
+        });
+        return config;
     }
-} 
\ No newline at end of file
+}
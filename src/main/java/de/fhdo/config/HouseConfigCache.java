@@ -0,0 +1,441 @@
+package de.fhdo.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compiled binary form of a YAML configuration, stored next to it as {@code <file>.bin} and keyed by the
+ * SHA-256 of the YAML content. As long as the YAML is unchanged its entries are decoded from the binary
+ * file and YAML parsing is skipped entirely; any edit changes the hash and the cache is rebuilt while the
+ * YAML is parsed.
+ *
+ * <pre>
+ * header   int magic, short version, byte[32] sha256
+ * entry    byte tag, fields of the entry; tag END closes the body
+ * trailer  int crc32 of header and body
+ * str      int byteLength (-1 for null), UTF-8 bytes
+ * </pre>
+ */
+@Slf4j
+final class HouseConfigCache {
+    static final int MAGIC = 0x53484343;
+    static final short FORMAT_VERSION = 3;
+    static final String SUFFIX = ".bin";
+
+    private static final int HASH_BYTES = 32;
+    private static final int HEADER_BYTES = Integer.BYTES + Short.BYTES + HASH_BYTES;
+    private static final byte END = 0;
+    private static final byte DEVICE_PROFILE = 1;
+    private static final byte DEVICE = 2;
+    private static final byte ENERGY = 3;
+    private static final byte BATTERY = 4;
+
+    private HouseConfigCache() {
+    }
+
+    static Path cacheFileFor(Path configFile) {
+        return configFile.resolveSibling(configFile.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Feeds the configuration to the visitor, from the compiled cache when it matches the file content
+     * and from the YAML otherwise, rebuilding the cache on the way.
+     *
+     * @return true if the entries came from the cache
+     */
+    static boolean read(Path configFile, ConfigVisitor visitor) throws IOException {
+        byte[] hash = sha256(configFile);
+        Path cacheFile = cacheFileFor(configFile);
+        ByteBuffer cached = loadValid(cacheFile, hash);
+        if (cached != null) {
+            decode(cached, visitor);
+            return true;
+        }
+
+        try (Writer writer = new Writer(cacheFile, hash)) {
+            HouseConfigStreamLoader.parse(configFile, tee(visitor, writer));
+            writer.commit();
+        }
+        return false;
+    }
+
+    private static ByteBuffer loadValid(Path cacheFile, byte[] hash) {
+        if (!Files.isRegularFile(cacheFile)) {
+            return null;
+        }
+        try {
+            byte[] content = Files.readAllBytes(cacheFile);
+            if (content.length < HEADER_BYTES + 1 + Integer.BYTES) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            if (buffer.getInt() != MAGIC || buffer.getShort() != FORMAT_VERSION) {
+                return null;
+            }
+            byte[] storedHash = new byte[HASH_BYTES];
+            buffer.get(storedHash);
+            if (!Arrays.equals(storedHash, hash)) {
+                return null;
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(content, 0, content.length - Integer.BYTES);
+            if ((int) crc.getValue() != buffer.getInt(content.length - Integer.BYTES)) {
+                log.warn("Ignoring corrupt configuration cache {}", cacheFile);
+                return null;
+            }
+            return buffer.limit(content.length - Integer.BYTES);
+        } catch (IOException e) {
+            log.warn("Failed to read configuration cache {}", cacheFile, e);
+            return null;
+        }
+    }
+
+    private static void decode(ByteBuffer buffer, ConfigVisitor visitor) throws IOException {
+        try {
+            byte tag;
+            while ((tag = buffer.get()) != END) {
+                switch (tag) {
+                    case DEVICE_PROFILE -> visitor.deviceProfile(readString(buffer), readProfile(buffer));
+                    case DEVICE -> {
+                        HouseConfig.DeviceConfig device = new HouseConfig.DeviceConfig();
+                        device.setName(readString(buffer));
+                        device.setType(readString(buffer));
+                        device.setPower(buffer.getDouble());
+                        device.setPriority(buffer.getInt());
+                        device.setProfile(readProfile(buffer));
+                        visitor.device(device);
+                    }
+                    case ENERGY -> {
+                        HouseConfig.EnergyConfig energy = new HouseConfig.EnergyConfig();
+                        energy.setName(readString(buffer));
+                        energy.setType(readString(buffer));
+                        energy.setOutput(buffer.getDouble());
+                        energy.setProfile(readProfile(buffer));
+                        visitor.energy(energy);
+                    }
+                    case BATTERY -> {
+                        HouseConfig.BatteryConfig battery = new HouseConfig.BatteryConfig();
+                        battery.setName(readString(buffer));
+                        battery.setCapacity(buffer.getDouble());
+                        battery.setMaxChargeRate(buffer.getDouble());
+                        battery.setModel(readBatteryModel(buffer));
+                        visitor.battery(battery);
+                    }
+                    default -> throw new IOException("Unknown configuration cache entry: " + tag);
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated configuration cache", e);
+        }
+    }
+
+    private static HouseConfig.BatteryModelConfig readBatteryModel(ByteBuffer buffer) {
+        if (buffer.get() == 0) {
+            return null;
+        }
+        HouseConfig.BatteryModelConfig model = new HouseConfig.BatteryModelConfig();
+        model.setChargeEfficiency(buffer.getDouble());
+        model.setDischargeEfficiency(buffer.getDouble());
+        model.setSelfDischargePerDay(buffer.getDouble());
+        model.setTaperStart(buffer.getDouble());
+        model.setTaperFloor(buffer.getDouble());
+        return model;
+    }
+
+    private static HouseConfig.ProfileConfig readProfile(ByteBuffer buffer) {
+        if (buffer.get() == 0) {
+            return null;
+        }
+        HouseConfig.ProfileConfig profile = new HouseConfig.ProfileConfig();
+        profile.setType(readString(buffer));
+        profile.setSunrise(readString(buffer));
+        profile.setSunset(readString(buffer));
+        profile.setFile(readString(buffer));
+        profile.setSeed(buffer.getLong());
+        profile.setDays(buffer.getInt());
+        profile.setCloudCover(buffer.getDouble());
+        profile.setVariability(buffer.getDouble());
+        profile.setPeriodMinutes(buffer.getInt());
+        profile.setDutyCycle(buffer.getDouble());
+        profile.setPhaseMinutes(buffer.getInt());
+        int steps = buffer.getInt();
+        if (steps >= 0) {
+            List<Double> values = new ArrayList<>(steps);
+            for (int i = 0; i < steps; i++) {
+                values.add(buffer.getDouble());
+            }
+            profile.setSteps(values);
+        }
+        profile.setStepMinutes(buffer.getInt());
+        profile.setStartTimes(readStrings(buffer));
+        profile.setWindows(readStrings(buffer));
+        profile.setStandby(buffer.getDouble());
+        return profile;
+    }
+
+    private static List<String> readStrings(ByteBuffer buffer) {
+        int size = buffer.getInt();
+        if (size < 0) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(readString(buffer));
+        }
+        return values;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return digest.digest();
+    }
+
+    private static ConfigVisitor tee(ConfigVisitor first, ConfigVisitor second) {
+        return new ConfigVisitor() {
+            @Override
+            public void deviceProfile(String deviceType, HouseConfig.ProfileConfig profile) {
+                first.deviceProfile(deviceType, profile);
+                second.deviceProfile(deviceType, profile);
+            }
+
+            @Override
+            public void device(HouseConfig.DeviceConfig device) {
+                first.device(device);
+                second.device(device);
+            }
+
+            @Override
+            public void energy(HouseConfig.EnergyConfig energy) {
+                first.energy(energy);
+                second.energy(energy);
+            }
+
+            @Override
+            public void battery(HouseConfig.BatteryConfig battery) {
+                first.battery(battery);
+                second.battery(battery);
+            }
+        };
+    }
+
+    /**
+     * Writes the cache to a temporary file that only replaces the cache on {@link #commit()}. Write
+     * failures are logged once and otherwise ignored, a missing cache only costs the next load a parse.
+     */
+    private static class Writer implements ConfigVisitor, AutoCloseable {
+        private final Path cacheFile;
+        private final Path tempFile;
+        private final CRC32 crc = new CRC32();
+        private DataOutputStream out;
+
+        Writer(Path cacheFile, byte[] hash) {
+            this.cacheFile = cacheFile;
+            this.tempFile = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+            try {
+                out = new DataOutputStream(new CheckedOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(tempFile)), crc));
+                out.writeInt(MAGIC);
+                out.writeShort(FORMAT_VERSION);
+                out.write(hash);
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        @Override
+        public void deviceProfile(String deviceType, HouseConfig.ProfileConfig profile) {
+            write(() -> {
+                out.writeByte(DEVICE_PROFILE);
+                writeString(deviceType);
+                writeProfile(profile);
+            });
+        }
+
+        @Override
+        public void device(HouseConfig.DeviceConfig device) {
+            write(() -> {
+                out.writeByte(DEVICE);
+                writeString(device.getName());
+                writeString(device.getType());
+                out.writeDouble(device.getPower());
+                out.writeInt(device.getPriority());
+                writeProfile(device.getProfile());
+            });
+        }
+
+        @Override
+        public void energy(HouseConfig.EnergyConfig energy) {
+            write(() -> {
+                out.writeByte(ENERGY);
+                writeString(energy.getName());
+                writeString(energy.getType());
+                out.writeDouble(energy.getOutput());
+                writeProfile(energy.getProfile());
+            });
+        }
+
+        @Override
+        public void battery(HouseConfig.BatteryConfig battery) {
+            write(() -> {
+                out.writeByte(BATTERY);
+                writeString(battery.getName());
+                out.writeDouble(battery.getCapacity());
+                out.writeDouble(battery.getMaxChargeRate());
+                writeBatteryModel(battery.getModel());
+            });
+        }
+
+        void commit() {
+            write(() -> {
+                out.writeByte(END);
+                // The trailer itself is not part of the checksum
+                int checksum = (int) crc.getValue();
+                out.writeInt(checksum);
+                out.close();
+                out = null;
+                Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                log.info("Compiled configuration cache {}", cacheFile);
+            });
+        }
+
+        @Override
+        public void close() {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    log.debug("Failed to close configuration cache {}", tempFile, e);
+                }
+                out = null;
+            }
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException e) {
+                log.debug("Failed to delete configuration cache {}", tempFile, e);
+            }
+        }
+
+        private void writeBatteryModel(HouseConfig.BatteryModelConfig model) throws IOException {
+            if (model == null) {
+                out.writeByte(0);
+                return;
+            }
+            out.writeByte(1);
+            out.writeDouble(model.getChargeEfficiency());
+            out.writeDouble(model.getDischargeEfficiency());
+            out.writeDouble(model.getSelfDischargePerDay());
+            out.writeDouble(model.getTaperStart());
+            out.writeDouble(model.getTaperFloor());
+        }
+
+        private void writeProfile(HouseConfig.ProfileConfig profile) throws IOException {
+            if (profile == null) {
+                out.writeByte(0);
+                return;
+            }
+            out.writeByte(1);
+            writeString(profile.getType());
+            writeString(profile.getSunrise());
+            writeString(profile.getSunset());
+            writeString(profile.getFile());
+            out.writeLong(profile.getSeed());
+            out.writeInt(profile.getDays());
+            out.writeDouble(profile.getCloudCover());
+            out.writeDouble(profile.getVariability());
+            out.writeInt(profile.getPeriodMinutes());
+            out.writeDouble(profile.getDutyCycle());
+            out.writeInt(profile.getPhaseMinutes());
+            if (profile.getSteps() == null) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(profile.getSteps().size());
+                for (double step : profile.getSteps()) {
+                    out.writeDouble(step);
+                }
+            }
+            out.writeInt(profile.getStepMinutes());
+            writeStrings(profile.getStartTimes());
+            writeStrings(profile.getWindows());
+            out.writeDouble(profile.getStandby());
+        }
+
+        private void writeStrings(List<String> values) throws IOException {
+            if (values == null) {
+                out.writeInt(-1);
+                return;
+            }
+            out.writeInt(values.size());
+            for (String value : values) {
+                writeString(value);
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private void write(CacheWrite write) {
+            if (out == null) {
+                return;
+            }
+            try {
+                write.run();
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        private void fail(IOException e) {
+            log.warn("Cannot write configuration cache {}, continuing without it", cacheFile, e);
+            close();
+        }
+    }
+
+    private interface CacheWrite {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,220 @@
+package de.fhdo.config;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import de.fhdo.model.Battery;
+import de.fhdo.model.Device;
+import de.fhdo.model.Energy;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reads a house configuration with Jackson's token-level parser and hands the resulting model objects
+ * to the sink in batches, so very large configurations never exist as one bound {@link HouseConfig}.
+ * deviceProfiles has to appear before devices to be applied while streaming. Unchanged files are read
+ * from their compiled cache, see {@link HouseConfigCache}.
+ */
+@Slf4j
+public class HouseConfigStreamLoader {
+    public static final int DEFAULT_BATCH_SIZE = 5000;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper(new YAMLFactory());
+    private static final ObjectReader PROFILES_READER = MAPPER.readerFor(new TypeReference<Map<String, HouseConfig.ProfileConfig>>() {});
+    private static final ObjectReader DEVICE_READER = MAPPER.readerFor(HouseConfig.DeviceConfig.class);
+    private static final ObjectReader ENERGY_READER = MAPPER.readerFor(HouseConfig.EnergyConfig.class);
+    private static final ObjectReader BATTERY_READER = MAPPER.readerFor(HouseConfig.BatteryConfig.class);
+    private static final String WARM_UP_DOCUMENT = "{devices: [], energies: [], batteries: []}";
+
+    private final int batchSize;
+
+    public interface Sink {
+        void devices(List<Device> batch);
+
+        void energies(List<Energy> batch);
+
+        void batteries(List<Battery> batch);
+    }
+
+    @Value
+    public static class Summary {
+        int devices;
+        int energies;
+        int batteries;
+        long durationMillis;
+    }
+
+    public HouseConfigStreamLoader() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    public HouseConfigStreamLoader(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Streams the file into the sink, decoding the compiled cache instead of the YAML when the file is
+     * unchanged since it was last loaded.
+     */
+    public Summary load(Path file, Sink sink) throws IOException {
+        long start = System.nanoTime();
+        Batcher batcher = new Batcher(sink);
+        boolean cached = HouseConfigCache.read(file, batcher);
+        batcher.flush();
+        log.info("Loaded {} from {}", file, cached ? "compiled cache" : "YAML");
+        return new Summary(batcher.devices, batcher.energies, batcher.batteries, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Parses the YAML file entry by entry. deviceProfiles arriving after devices is allowed but logged,
+     * because streaming consumers can only apply it to the devices that follow.
+     */
+    static void parse(Path file, ConfigVisitor visitor) throws IOException {
+        boolean devicesSeen = false;
+
+        try (JsonParser parser = MAPPER.getFactory().createParser(Files.newInputStream(file))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Configuration must be a mapping: " + file);
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+
+                if (value == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+
+                switch (field) {
+                    case "deviceProfiles" -> {
+                        if (devicesSeen) {
+                            log.warn("deviceProfiles in {} appears after devices and only applies to the remaining ones", file);
+                        }
+                        Map<String, HouseConfig.ProfileConfig> profiles = PROFILES_READER.readValue(parser);
+                        profiles.forEach(visitor::deviceProfile);
+                    }
+                    case "devices" -> {
+                        devicesSeen = true;
+                        readList(parser, DEVICE_READER, visitor::device);
+                    }
+                    case "energies" -> readList(parser, ENERGY_READER, visitor::energy);
+                    case "batteries" -> readList(parser, BATTERY_READER, visitor::battery);
+                    default -> {
+                        log.warn("Ignoring unknown configuration section: {}", field);
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds Jackson's deserializers for every configuration type up front, so the first real load does
+     * not pay for it. Safe to call from a background thread at startup.
+     */
+    public static void warmUp() {
+        try (JsonParser parser = MAPPER.getFactory().createParser(WARM_UP_DOCUMENT)) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                parser.nextToken();
+                parser.skipChildren();
+            }
+            PROFILES_READER.readValue("{LIGHTING: {type: SCHEDULE, windows: [\"06:00-08:00\"]}}");
+            DEVICE_READER.readValue("{name: Lamp, type: LIGHTING, power: 1.0, profile: {type: DUTY_CYCLE}}");
+            ENERGY_READER.readValue("{name: Sun, type: SOLAR, output: 1.0, profile: {type: DIURNAL}}");
+            BATTERY_READER.readValue("{name: Battery, capacity: 1.0, maxChargeRate: 1.0}");
+        } catch (IOException e) {
+            log.warn("Configuration mapper warm-up failed", e);
+        }
+    }
+
+    private static <C> void readList(JsonParser parser, ObjectReader reader, Consumer<C> consumer) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new IOException("Expected a list at " + parser.getCurrentLocation());
+        }
+
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            consumer.accept(reader.readValue(parser));
+        }
+    }
+
+    /**
+     * Turns configuration entries into model objects and hands them to the sink in batches.
+     */
+    private class Batcher implements ConfigVisitor {
+        private final Sink sink;
+        private final Map<String, HouseConfig.ProfileConfig> deviceProfiles = new HashMap<>();
+        private List<Device> deviceBatch = new ArrayList<>();
+        private List<Energy> energyBatch = new ArrayList<>();
+        private List<Battery> batteryBatch = new ArrayList<>();
+        private int devices;
+        private int energies;
+        private int batteries;
+
+        Batcher(Sink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void deviceProfile(String deviceType, HouseConfig.ProfileConfig profile) {
+            deviceProfiles.put(deviceType, profile);
+        }
+
+        @Override
+        public void device(HouseConfig.DeviceConfig device) {
+            deviceBatch.add(device.toDevice(deviceProfiles.get(device.getType())));
+            devices++;
+            if (deviceBatch.size() == batchSize) {
+                sink.devices(deviceBatch);
+                deviceBatch = new ArrayList<>();
+            }
+        }
+
+        @Override
+        public void energy(HouseConfig.EnergyConfig energy) {
+            energyBatch.add(energy.toEnergy());
+            energies++;
+            if (energyBatch.size() == batchSize) {
+                sink.energies(energyBatch);
+                energyBatch = new ArrayList<>();
+            }
+        }
+
+        @Override
+        public void battery(HouseConfig.BatteryConfig battery) {
+            batteryBatch.add(battery.toBattery());
+            batteries++;
+            if (batteryBatch.size() == batchSize) {
+                sink.batteries(batteryBatch);
+                batteryBatch = new ArrayList<>();
+            }
+        }
+
+        void flush() {
+            if (!deviceBatch.isEmpty()) {
+                sink.devices(deviceBatch);
+            }
+            if (!energyBatch.isEmpty()) {
+                sink.energies(energyBatch);
+            }
+            if (!batteryBatch.isEmpty()) {
+                sink.batteries(batteryBatch);
+            }
+        }
+    }
+}
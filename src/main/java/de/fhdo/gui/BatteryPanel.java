@@ -2,44 +2,58 @@ package de.fhdo.gui;
 
 import de.fhdo.model.Battery;
 import de.fhdo.model.Device;
+import de.fhdo.service.BatteryForecast;
+import de.fhdo.service.BatteryForecaster;
 import de.fhdo.service.DeviceManager;
 import de.fhdo.service.EnergyManager;
+import de.fhdo.service.EventBus;
+import de.fhdo.service.HouseEvent;
+import de.fhdo.service.SystemMonitor;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.util.List;
-import java.util.Vector;
 
 public class BatteryPanel extends JPanel {
+    /** Forecasts move with time even while no battery event arrives. */
+    private static final int FORECAST_REFRESH_MILLIS = 5000;
+
     private final EnergyManager energyManager;
     private final DeviceManager deviceManager;
+    private final BatteryForecaster forecaster;
     private JTable batteryTable;
-    private DefaultTableModel tableModel;
+    private EntityTableModel<Battery> tableModel;
     private JButton startChargingButton;
     private JButton stopChargingButton;
     private JButton powerDeviceButton;
     private JButton stopPowerButton;
-    private Timer updateTimer;
+    private EventBus.Subscription subscription;
+    private Timer forecastTimer;
 
     public BatteryPanel(EnergyManager energyManager) {
+        this(energyManager, SystemMonitor.getInstance().getBatteryForecaster());
+    }
+
+    public BatteryPanel(EnergyManager energyManager, BatteryForecaster forecaster) {
         this.energyManager = energyManager;
         this.deviceManager = DeviceManager.getInstance();
+        this.forecaster = forecaster;
         setLayout(new BorderLayout());
         initializeComponents();
         layoutComponents();
-        setupUpdateTimer();
+        subscribeToChanges();
         updateBatteryTable();
     }
 
     private void initializeComponents() {
-        String[] columnNames = {"Name", "Capacity", "Current Charge", "Charging Rate", "Status"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        String[] columnNames = {"Name", "Capacity", "Current Charge", "Charging Rate", "Status", "Forecast"};
+        tableModel = new EntityTableModel<>(columnNames,
+                List.of(Battery::getName, Battery::getCapacity,
+                        battery -> String.format("%.2f", battery.getCurrentCharge()),
+                        Battery::getMaxChargeRate,
+                        battery -> battery.isCharging() ? "Charging" : "Not Charging",
+                        this::describeForecast),
+                Battery::getId, energyManager::getBatteryChangesSince, energyManager::getAllBatteries);
         batteryTable = new JTable(tableModel);
         batteryTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
 
@@ -66,9 +80,26 @@ public class BatteryPanel extends JPanel {
         add(buttonPanel, BorderLayout.SOUTH);
     }
 
-    private void setupUpdateTimer() {
-        updateTimer = new Timer(1000, e -> updateBatteryTable());
-        updateTimer.start();
+    private void subscribeToChanges() {
+        subscription = EventRefresher.subscribe(energyManager.getEventBus(), this::updateBatteryTable,
+                HouseEvent.BatteryChanged.class, HouseEvent.BatterySetChanged.class);
+        forecastTimer = new Timer(FORECAST_REFRESH_MILLIS, e -> {
+            if (tableModel.getRowCount() > 0) {
+                tableModel.fireTableRowsUpdated(0, tableModel.getRowCount() - 1);
+            }
+        });
+        forecastTimer.start();
+    }
+
+    private String describeForecast(Battery battery) {
+        BatteryForecast forecast = forecaster.forecast(battery);
+        if (forecast.isDepleting()) {
+            return "Empty in " + BatteryForecast.formatSeconds(forecast.getSecondsToEmpty());
+        }
+        if (forecast.isFilling()) {
+            return "Full in " + BatteryForecast.formatSeconds(forecast.getSecondsToFull());
+        }
+        return "-";
     }
 
     private void startCharging() {
@@ -81,7 +112,7 @@ public class BatteryPanel extends JPanel {
             return;
         }
 
-        Battery battery = energyManager.getAllBatteries().get(selectedRow);
+        Battery battery = tableModel.getEntityAt(selectedRow);
         if (battery.isCharging()) {
             JOptionPane.showMessageDialog(this,
                     "Battery is already charging",
@@ -104,7 +135,7 @@ public class BatteryPanel extends JPanel {
             return;
         }
 
-        Battery battery = energyManager.getAllBatteries().get(selectedRow);
+        Battery battery = tableModel.getEntityAt(selectedRow);
         if (!battery.isCharging()) {
             JOptionPane.showMessageDialog(this,
                     "Battery is not charging",
@@ -127,7 +158,7 @@ public class BatteryPanel extends JPanel {
             return;
         }
 
-        Battery battery = energyManager.getAllBatteries().get(selectedRow);
+        Battery battery = tableModel.getEntityAt(selectedRow);
         List<Device> inactiveDevices = deviceManager.getDevicesByState(false);
 
         if (inactiveDevices.isEmpty()) {
@@ -203,25 +234,12 @@ public class BatteryPanel extends JPanel {
 
     public void updateBatteryTable() {
         int selectedRow = batteryTable.getSelectedRow();
-        String selectedBatteryId = null;
-        if (selectedRow >= 0) {
-            selectedBatteryId = energyManager.getAllBatteries().get(selectedRow).getId();
-        }
+        String selectedBatteryId = selectedRow >= 0 ? tableModel.getEntityAt(selectedRow).getId() : null;
 
-        tableModel.setRowCount(0);
-        List<Battery> batteries = energyManager.getAllBatteries();
-        for (int i = 0; i < batteries.size(); i++) {
-            Battery battery = batteries.get(i);
-            Vector<Object> row = new Vector<>();
-            row.add(battery.getName());
-            row.add(battery.getCapacity());
-            row.add(String.format("%.2f", battery.getCurrentCharge()));
-            row.add(battery.getMaxChargeRate());
-            row.add(battery.isCharging() ? "Charging" : "Not Charging");
-            tableModel.addRow(row);
-
-            if (selectedBatteryId != null && battery.getId().equals(selectedBatteryId)) {
-                batteryTable.setRowSelectionInterval(i, i);
+        if (tableModel.refresh()) {
+            int row = tableModel.rowOf(selectedBatteryId);
+            if (row >= 0) {
+                batteryTable.setRowSelectionInterval(row, row);
             }
         }
     }
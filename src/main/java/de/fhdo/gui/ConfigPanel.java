@@ -1,11 +1,9 @@
 package de.fhdo.gui;
 
-import de.fhdo.config.HouseConfig;
-import de.fhdo.model.Battery;
-import de.fhdo.model.Device;
-import de.fhdo.model.Energy;
-import de.fhdo.service.DeviceManager;
-import de.fhdo.service.EnergyManager;
+import de.fhdo.config.HouseConfigStreamLoader;
+import de.fhdo.service.ConfigDiff;
+import de.fhdo.service.ConfigWatcher;
+import de.fhdo.service.HouseContext;
 import de.fhdo.service.LogManager;
 
 import javax.swing.*;
@@ -13,19 +11,20 @@ import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.io.File;
 import java.io.IOException;
-import java.util.UUID;
+import java.util.concurrent.ExecutionException;
 
 public class ConfigPanel extends JPanel {
     private static final String DEFAULT_CONFIG_PATH = "src/main/resources/config/house_config.yml";
     
-    private final DeviceManager deviceManager = DeviceManager.getInstance();
-    private final EnergyManager energyManager = EnergyManager.getInstance();
+    private final HouseContext houseContext = HouseContext.getDefault();
     private final LogManager logManager = LogManager.getInstance();
     
     private JTextField configPathField;
     private JButton browseButton;
     private JButton loadButton;
+    private JCheckBox watchCheckBox;
     private JLabel statusLabel;
+    private ConfigWatcher configWatcher;
 
     private final MainFrame mainFrame;
 
@@ -42,13 +41,15 @@ public class ConfigPanel extends JPanel {
         
         browseButton = new JButton("Browse");
         loadButton = new JButton("Load Configuration");
-
+        watchCheckBox = new JCheckBox("Apply file changes live");
+        watchCheckBox.setToolTipText("Watch the file and apply edits as a diff without resetting running devices and batteries");
         
         statusLabel = new JLabel("Ready to load configuration");
         statusLabel.setForeground(Color.GRAY);
 
         browseButton.addActionListener(e -> browseConfigFile());
         loadButton.addActionListener(e -> loadConfiguration());
+        watchCheckBox.addActionListener(e -> updateWatcher());
     }
 
     private void layoutComponents() {
@@ -59,6 +60,7 @@ public class ConfigPanel extends JPanel {
 
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         buttonPanel.add(loadButton);
+        buttonPanel.add(watchCheckBox);
 
         JPanel topPanel = new JPanel(new BorderLayout());
         topPanel.add(pathPanel, BorderLayout.CENTER);
@@ -80,9 +82,45 @@ public class ConfigPanel extends JPanel {
         if (result == JFileChooser.APPROVE_OPTION) {
             File selectedFile = fileChooser.getSelectedFile();
             configPathField.setText(selectedFile.getAbsolutePath());
+            updateWatcher();
+        }
+    }
+
+    private void updateWatcher() {
+        if (configWatcher != null) {
+            configWatcher.close();
+            configWatcher = null;
+        }
+        if (!watchCheckBox.isSelected()) {
+            statusLabel.setText("Stopped watching configuration");
+            statusLabel.setForeground(Color.GRAY);
+            return;
+        }
+
+        File configFile = new File(configPathField.getText());
+        if (!configFile.exists()) {
+            watchCheckBox.setSelected(false);
+            showError("Configuration file does not exist!");
+            return;
+        }
+        try {
+            configWatcher = new ConfigWatcher(configFile.toPath(), houseContext,
+                    diff -> SwingUtilities.invokeLater(() -> onConfigChanged(diff)));
+            configWatcher.start();
+            statusLabel.setText("Watching " + configFile.getName() + " for changes");
+            statusLabel.setForeground(Color.GRAY);
+        } catch (IOException e) {
+            configWatcher = null;
+            watchCheckBox.setSelected(false);
+            showError("Cannot watch configuration: " + e.getMessage());
         }
     }
 
+    private void onConfigChanged(ConfigDiff diff) {
+        mainFrame.refreshAllPanels();
+        showSuccess("Applied configuration changes: " + diff);
+    }
+
     private void loadConfiguration() {
         File configFile = new File(configPathField.getText());
         if (!configFile.exists()) {
@@ -97,57 +135,39 @@ public class ConfigPanel extends JPanel {
                 JOptionPane.WARNING_MESSAGE);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            try {
-                HouseConfig config = HouseConfig.loadFromFile(configFile.getPath());
-                applyConfiguration(config);
-                showSuccess("Configuration loaded successfully!");
-            } catch (IOException e) {
-                showError("Error loading configuration: " + e.getMessage());
-            }
+            applyConfiguration(configFile);
         }
     }
 
-    private void applyConfiguration(HouseConfig config) {
-        deviceManager.clearAllDevices();
-        energyManager.clearAllEnergies();
-        energyManager.clearAllBatteries();
-        logManager.clearAllLogs();
-
-        config.getDevices().forEach(dev -> {
-            Device device = Device.builder()
-                    .id(UUID.randomUUID().toString())
-                    .name(dev.getName())
-                    .type(Device.DeviceType.valueOf(dev.getType()))
-                    .power(dev.getPower())
-                    .isActive(false)
-                    .build();
-            deviceManager.addDevice(device);
-        });
-
-        config.getEnergies().forEach(src -> {
-            Energy energy = Energy.builder()
-                    .id(UUID.randomUUID().toString())
-                    .name(src.getName())
-                    .type(Energy.EnergyType.valueOf(src.getType()))
-                    .output(src.getOutput())
-                    .isActive(false)
-                    .build();
-            energyManager.addEnergy(energy);
-        });
-
-        config.getBatteries().forEach(bat -> {
-            Battery battery = Battery.builder()
-                    .id(UUID.randomUUID().toString())
-                    .name(bat.getName())
-                    .capacity(bat.getCapacity())
-                    .currentCharge(0.0)
-                    .maxChargeRate(bat.getMaxChargeRate())
-                    .isCharging(false)
-                    .build();
-            energyManager.addBattery(battery);
-        });
+    private void applyConfiguration(File configFile) {
+        loadButton.setEnabled(false);
+        statusLabel.setText("Loading configuration...");
+        statusLabel.setForeground(Color.GRAY);
 
-        mainFrame.refreshAllPanels();
+        new SwingWorker<HouseConfigStreamLoader.Summary, Void>() {
+            @Override
+            protected HouseConfigStreamLoader.Summary doInBackground() throws IOException {
+                HouseConfigStreamLoader.Summary summary = houseContext.importConfiguration(configFile.toPath());
+                // Only once the import succeeded, so a file that fails to parse keeps the old history
+                logManager.clearAllLogs();
+                return summary;
+            }
+
+            @Override
+            protected void done() {
+                loadButton.setEnabled(true);
+                try {
+                    HouseConfigStreamLoader.Summary summary = get();
+                    mainFrame.refreshAllPanels();
+                    showSuccess(String.format("Configuration loaded successfully! (%d devices, %d energies, %d batteries)",
+                            summary.getDevices(), summary.getEnergies(), summary.getBatteries()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    showError("Error loading configuration: " + e.getCause().getMessage());
+                }
+            }
+        }.execute();
     }
 
     private void showError(String message) {
@@ -2,21 +2,40 @@ package de.fhdo.gui;
 
 import de.fhdo.model.Device;
 import de.fhdo.service.DeviceManager;
+import de.fhdo.service.DeviceQuery;
+import de.fhdo.service.EntityChanges;
+import de.fhdo.service.EventBus;
+import de.fhdo.service.HouseEvent;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
-import  java.util.List;
+import javax.swing.table.TableColumn;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
 import java.util.UUID;
-import java.util.Vector;
+import java.util.concurrent.ExecutionException;
 
 public class DevicePanel extends JPanel {
+    private static final String[] COLUMN_NAMES = {"Name", "Type", "Power", "Status"};
+    private static final DeviceQuery.SortKey[] COLUMN_SORT_KEYS = DeviceQuery.SortKey.values();
+    private static final String ALL = "All";
+
     private final DeviceManager deviceManager;
     private JTable deviceTable;
-    private DefaultTableModel tableModel;
+    private EntityTableModel<Device> tableModel;
     private JButton addButton;
     private JButton removeButton;
-    private Timer updateTimer;
+    private JComboBox<Object> typeFilter;
+    private JComboBox<String> stateFilter;
+    private JSpinner minPowerSpinner;
+    private JSpinner maxPowerSpinner;
+    private JLabel countLabel;
+    private EventBus.Subscription subscription;
+
+    private DeviceQuery query = DeviceQuery.ALL;
+    private SwingWorker<List<Device>, Void> queryWorker;
+    private boolean queryPending;
 
     public DevicePanel(DeviceManager deviceManager) {
         this.deviceManager = deviceManager;
@@ -24,19 +43,43 @@ public class DevicePanel extends JPanel {
         initializeComponents();
         layoutComponents();
         updateDeviceTable();
-        setupUpdateTimer();
+        subscribeToChanges();
     }
 
     private void initializeComponents() {
-        String[] columnNames = {"Name", "Type", "Power", "Status"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new EntityTableModel<>(COLUMN_NAMES,
+                List.of(Device::getName, Device::getType, Device::getPower,
+                        device -> device.isActive() ? "Active" : "Inactive"),
+                Device::getId, deviceManager::getDeviceChangesSince, deviceManager::getAllDevices);
         deviceTable = new JTable(tableModel);
         deviceTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        deviceTable.getTableHeader().setReorderingAllowed(false);
+        deviceTable.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = deviceTable.columnAtPoint(e.getPoint());
+                if (column >= 0) {
+                    toggleSort(COLUMN_SORT_KEYS[deviceTable.convertColumnIndexToModel(column)]);
+                }
+            }
+        });
+
+        DefaultComboBoxModel<Object> types = new DefaultComboBoxModel<>();
+        types.addElement(ALL);
+        for (Device.DeviceType type : Device.DeviceType.values()) {
+            types.addElement(type);
+        }
+        typeFilter = new JComboBox<>(types);
+        stateFilter = new JComboBox<>(new String[]{ALL, "Active", "Inactive"});
+        minPowerSpinner = new JSpinner(new SpinnerNumberModel(0.0, 0.0, Double.MAX_VALUE, 10.0));
+        maxPowerSpinner = new JSpinner(new SpinnerNumberModel(0.0, 0.0, Double.MAX_VALUE, 10.0));
+        maxPowerSpinner.setToolTipText("0 means no upper limit");
+        countLabel = new JLabel();
+
+        typeFilter.addActionListener(e -> applyFilter());
+        stateFilter.addActionListener(e -> applyFilter());
+        minPowerSpinner.addChangeListener(e -> applyFilter());
+        maxPowerSpinner.addChangeListener(e -> applyFilter());
 
         addButton = new JButton("Add Device");
         removeButton = new JButton("Remove Device");
@@ -46,6 +89,18 @@ public class DevicePanel extends JPanel {
     }
 
     private void layoutComponents() {
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filterPanel.add(new JLabel("Type:"));
+        filterPanel.add(typeFilter);
+        filterPanel.add(new JLabel("State:"));
+        filterPanel.add(stateFilter);
+        filterPanel.add(new JLabel("Power from:"));
+        filterPanel.add(minPowerSpinner);
+        filterPanel.add(new JLabel("to:"));
+        filterPanel.add(maxPowerSpinner);
+        filterPanel.add(countLabel);
+        add(filterPanel, BorderLayout.NORTH);
+
         JScrollPane scrollPane = new JScrollPane(deviceTable);
         add(scrollPane, BorderLayout.CENTER);
 
@@ -79,6 +134,12 @@ public class DevicePanel extends JPanel {
         gbc.gridx = 1;
         dialog.add(powerSpinner, gbc);
 
+        JSpinner prioritySpinner = new JSpinner(new SpinnerNumberModel(0, -100, 100, 1));
+        gbc.gridx = 0; gbc.gridy = 3;
+        dialog.add(new JLabel("Priority:"), gbc);
+        gbc.gridx = 1;
+        dialog.add(prioritySpinner, gbc);
+
         JPanel buttonPanel = new JPanel();
         JButton okButton = new JButton("OK");
         JButton cancelButton = new JButton("Cancel");
@@ -94,6 +155,7 @@ public class DevicePanel extends JPanel {
                     .name(nameField.getText().trim())
                     .type((Device.DeviceType) typeCombo.getSelectedItem())
                     .power((Double) powerSpinner.getValue())
+                    .priority((Integer) prioritySpinner.getValue())
                     .isActive(false)
                     .build();
 
@@ -107,7 +169,7 @@ public class DevicePanel extends JPanel {
         buttonPanel.add(okButton);
         buttonPanel.add(cancelButton);
 
-        gbc.gridx = 0; gbc.gridy = 3;
+        gbc.gridx = 0; gbc.gridy = 4;
         gbc.gridwidth = 2;
         dialog.add(buttonPanel, gbc);
 
@@ -126,7 +188,7 @@ public class DevicePanel extends JPanel {
             return;
         }
 
-        Device device = deviceManager.getAllDevices().get(selectedRow);
+        Device device = tableModel.getEntityAt(selectedRow);
 
         if(device.isActive()) {
             JOptionPane.showMessageDialog(this,
@@ -148,34 +210,111 @@ public class DevicePanel extends JPanel {
         }
     }
 
+    /**
+     * Repaints changed rows in place. When devices were added or removed, or a state change can move
+     * devices in or out of the current filter or sort order, the view is recomputed in the background.
+     */
     public void updateDeviceTable() {
-        List<Device> devices = deviceManager.getAllDevices();
+        EntityChanges changes = tableModel.pendingChanges();
+        if (changes.isEmpty()) {
+            return;
+        }
+        if (changes.isStructural() || (query.dependsOnState() && !changes.getChangedIds().isEmpty())) {
+            runQuery();
+        } else {
+            tableModel.updateRows(changes);
+        }
+    }
 
-        int selectedRow = deviceTable.getSelectedRow();
-        String selectDeviceId = null;
-        if(selectedRow >= 0 && selectedRow < devices.size()) {
-            selectDeviceId = deviceManager.getAllDevices().get(selectedRow).getId();
+    private void applyFilter() {
+        Object type = typeFilter.getSelectedItem();
+        Object state = stateFilter.getSelectedItem();
+        double maxPower = (Double) maxPowerSpinner.getValue();
+        query = query.toBuilder()
+                .type(type instanceof Device.DeviceType deviceType ? deviceType : null)
+                .active(ALL.equals(state) ? null : "Active".equals(state))
+                .minPower((Double) minPowerSpinner.getValue())
+                .maxPower(maxPower > 0 ? maxPower : Double.MAX_VALUE)
+                .build();
+        runQuery();
+    }
+
+    /**
+     * Cycles the column through ascending, descending and unsorted.
+     */
+    private void toggleSort(DeviceQuery.SortKey sortKey) {
+        if (query.getSortKey() != sortKey) {
+            query = query.toBuilder().sortKey(sortKey).descending(false).build();
+        } else if (!query.isDescending()) {
+            query = query.toBuilder().descending(true).build();
+        } else {
+            query = query.toBuilder().sortKey(null).descending(false).build();
         }
 
-        tableModel.setRowCount(0);
+        for (int i = 0; i < COLUMN_NAMES.length; i++) {
+            TableColumn column = deviceTable.getColumnModel().getColumn(deviceTable.convertColumnIndexToView(i));
+            String marker = COLUMN_SORT_KEYS[i] != query.getSortKey() ? "" : query.isDescending() ? " \u25BC" : " \u25B2";
+            column.setHeaderValue(COLUMN_NAMES[i] + marker);
+        }
+        deviceTable.getTableHeader().repaint();
+        runQuery();
+    }
+
+    /**
+     * Filters and sorts the fleet on a worker thread. Requests arriving while a query runs are folded
+     * into one follow-up query.
+     */
+    private void runQuery() {
+        if (queryWorker != null) {
+            queryPending = true;
+            return;
+        }
 
-        for (int i = 0; i < devices.size(); i++) {
-            Device device = devices.get(i);
-            Vector<Object> row = new Vector<>();
-            row.add(device.getName());
-            row.add(device.getType());
-            row.add(device.getPower());
-            row.add(device.isActive() ? "Active" : "Inactive");
-            tableModel.addRow(row);
+        DeviceQuery currentQuery = query;
+        long stamp = tableModel.pendingChanges().getStamp();
+        queryWorker = new SwingWorker<>() {
+            @Override
+            protected List<Device> doInBackground() {
+                return deviceManager.queryDevices(currentQuery);
+            }
 
-            if (selectDeviceId != null && device.getId().equals(selectDeviceId)) {
-                deviceTable.setRowSelectionInterval(i, i);
+            @Override
+            protected void done() {
+                queryWorker = null;
+                try {
+                    showRows(get(), stamp);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    JOptionPane.showMessageDialog(DevicePanel.this,
+                            "Failed to filter devices: " + e.getCause().getMessage(),
+                            "Error",
+                            JOptionPane.ERROR_MESSAGE);
+                }
+                if (queryPending) {
+                    queryPending = false;
+                    runQuery();
+                }
             }
+        };
+        queryWorker.execute();
+    }
+
+    private void showRows(List<Device> devices, long stamp) {
+        int selectedRow = deviceTable.getSelectedRow();
+        String selectedDeviceId = selectedRow >= 0 ? tableModel.getEntityAt(selectedRow).getId() : null;
+
+        tableModel.setRows(devices, stamp);
+        countLabel.setText(String.format("%d of %d devices", devices.size(), deviceManager.getAllDevices().size()));
+
+        int row = tableModel.rowOf(selectedDeviceId);
+        if (row >= 0) {
+            deviceTable.setRowSelectionInterval(row, row);
         }
     }
 
-    private void setupUpdateTimer() {
-        updateTimer = new Timer(1000, e -> updateDeviceTable());
-        updateTimer.start();
+    private void subscribeToChanges() {
+        subscription = EventRefresher.subscribe(deviceManager.getEventBus(), this::updateDeviceTable,
+                HouseEvent.DeviceToggled.class, HouseEvent.DeviceSetChanged.class);
     }
 }
\ No newline at end of file
@@ -3,22 +3,22 @@ package de.fhdo.gui;
 import de.fhdo.model.Battery;
 import de.fhdo.model.Energy;
 import de.fhdo.service.EnergyManager;
+import de.fhdo.service.EventBus;
+import de.fhdo.service.HouseEvent;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.util.UUID;
-import java.util.Vector;
 import java.util.List;
+import java.util.UUID;
 
 public class EnergyPanel extends JPanel {
     private final EnergyManager energyManager;
     private JTable energyTable;
-    private DefaultTableModel tableModel;
+    private EntityTableModel<Energy> tableModel;
     private JButton addButton;
     private JButton removeButton;
     private JButton toggleButton;
-    private Timer updateTimer;
+    private EventBus.Subscription subscription;
 
     public EnergyPanel(EnergyManager energyManager) {
         this.energyManager = energyManager;
@@ -26,17 +26,15 @@ public class EnergyPanel extends JPanel {
         initializeComponents();
         layoutComponents();
         updateEnergyTable();
-        setupUpdateTimer();
+        subscribeToChanges();
     }
 
     private void initializeComponents() {
         String[] columnNames = {"Name", "Type", "Output", "Status"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new EntityTableModel<>(columnNames,
+                List.of(Energy::getName, Energy::getType, Energy::getOutput,
+                        energy -> energy.isActive() ? "Active" : "Inactive"),
+                Energy::getId, energyManager::getEnergyChangesSince, energyManager::getAllEnergies);
         energyTable = new JTable(tableModel);
         energyTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
 
@@ -135,7 +133,7 @@ public class EnergyPanel extends JPanel {
             return;
         }
 
-        Energy energy = energyManager.getAllEnergies().get(selectedRow);
+        Energy energy = tableModel.getEntityAt(selectedRow);
         if(energy.isActive()) {
             JOptionPane.showMessageDialog(this,
                     "Please deactivate the energy source before removing it",
@@ -165,7 +163,7 @@ public class EnergyPanel extends JPanel {
             return;
         }
 
-        Energy energy = energyManager.getAllEnergies().get(selectedRow);
+        Energy energy = tableModel.getEntityAt(selectedRow);
 
         List<Battery> activeBatteries = energyManager.getBatteriesByState(true);
         if (!activeBatteries.isEmpty()) {
@@ -181,32 +179,19 @@ public class EnergyPanel extends JPanel {
     }
 
     public void updateEnergyTable() {
-        List<Energy> energies = energyManager.getAllEnergies();
-
         int selectedRow = energyTable.getSelectedRow();
-        String selectEnergyId = null;
-        if(selectedRow >= 0 && selectedRow < energies.size()) {
-            selectEnergyId = energyManager.getAllEnergies().get(selectedRow).getId();
-        }
+        String selectedEnergyId = selectedRow >= 0 ? tableModel.getEntityAt(selectedRow).getId() : null;
 
-        tableModel.setRowCount(0);
-        for (int i = 0; i < energies.size(); i++) {
-            Energy energy = energies.get(i);
-            Vector<Object> row = new Vector<>();
-            row.add(energy.getName());
-            row.add(energy.getType());
-            row.add(energy.getOutput());
-            row.add(energy.isActive() ? "Active" : "Inactive");
-            tableModel.addRow(row);
-
-            if (selectEnergyId != null && energy.getId().equals(selectEnergyId)) {
-                energyTable.setRowSelectionInterval(i, i);
+        if (tableModel.refresh()) {
+            int row = tableModel.rowOf(selectedEnergyId);
+            if (row >= 0) {
+                energyTable.setRowSelectionInterval(row, row);
             }
         }
     }
 
-    private void setupUpdateTimer() {
-        updateTimer = new Timer(1000, e -> updateEnergyTable());
-        updateTimer.start();
+    private void subscribeToChanges() {
+        subscription = EventRefresher.subscribe(energyManager.getEventBus(), this::updateEnergyTable,
+                HouseEvent.EnergyToggled.class, HouseEvent.EnergySetChanged.class);
     }
 }
\ No newline at end of file
@@ -0,0 +1,119 @@
+package de.fhdo.gui;
+
+import de.fhdo.service.EntityChanges;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+/**
+ * Read-only table over a manager's entities, keyed by id. Cells are read from the live entities, rows
+ * keep the manager's insertion order, and a refresh costs nothing when nothing changed and repaints only
+ * the rows of changed entities otherwise.
+ */
+class EntityTableModel<T> extends AbstractTableModel {
+    private final String[] columnNames;
+    private final List<Function<T, Object>> columns;
+    private final Function<T, String> idOf;
+    private final LongFunction<EntityChanges> changesSince;
+    private final Supplier<List<T>> allEntities;
+
+    private List<T> rows = List.of();
+    private Map<String, Integer> rowById = Map.of();
+    private long stamp = -1;
+
+    EntityTableModel(String[] columnNames, List<Function<T, Object>> columns, Function<T, String> idOf,
+                     LongFunction<EntityChanges> changesSince, Supplier<List<T>> allEntities) {
+        this.columnNames = columnNames;
+        this.columns = columns;
+        this.idOf = idOf;
+        this.changesSince = changesSince;
+        this.allEntities = allEntities;
+    }
+
+    /**
+     * Brings the table up to date with the manager.
+     *
+     * @return true if rows were added or removed, which clears the table selection
+     */
+    boolean refresh() {
+        EntityChanges changes = changesSince.apply(stamp);
+        if (changes.isStructural()) {
+            setRows(allEntities.get(), changes.getStamp());
+            return true;
+        }
+        updateRows(changes);
+        return false;
+    }
+
+    /**
+     * Changes since the rows were last brought up to date.
+     */
+    EntityChanges pendingChanges() {
+        return changesSince.apply(stamp);
+    }
+
+    /**
+     * Replaces the rows, for example with a filtered and sorted view computed in the background.
+     *
+     * @param stamp change stamp the rows reflect
+     */
+    void setRows(List<T> entities, long stamp) {
+        Map<String, Integer> index = new HashMap<>(entities.size() * 2);
+        for (int i = 0; i < entities.size(); i++) {
+            index.put(idOf.apply(entities.get(i)), i);
+        }
+        this.rows = entities;
+        this.rowById = index;
+        this.stamp = stamp;
+        fireTableDataChanged();
+    }
+
+    /**
+     * Repaints the rows of changed entities; the rows themselves stay as they are.
+     */
+    void updateRows(EntityChanges changes) {
+        stamp = changes.getStamp();
+        for (String id : changes.getChangedIds()) {
+            Integer row = rowById.get(id);
+            if (row != null) {
+                fireTableRowsUpdated(row, row);
+            }
+        }
+    }
+
+    T getEntityAt(int row) {
+        return rows.get(row);
+    }
+
+    /**
+     * @return the row showing the entity, or -1
+     */
+    int rowOf(String id) {
+        return id == null ? -1 : rowById.getOrDefault(id, -1);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return columns.get(column).apply(rows.get(row));
+    }
+}
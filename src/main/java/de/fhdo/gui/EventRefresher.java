@@ -0,0 +1,44 @@
+package de.fhdo.gui;
+
+import de.fhdo.service.EventBus;
+import de.fhdo.service.HouseEvent;
+
+import javax.swing.*;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs a panel refresh on the event dispatch thread whenever the bus delivers an event of one of the
+ * given types. At most one refresh is queued at a time, however fast batches arrive.
+ */
+final class EventRefresher {
+
+    private EventRefresher() {
+    }
+
+    @SafeVarargs
+    static EventBus.Subscription subscribe(EventBus eventBus, Runnable refresh, Class<? extends HouseEvent>... types) {
+        // Copied element by element; handing the generic array on would trip the varargs lint
+        Set<Class<? extends HouseEvent>> relevant = new HashSet<>();
+        for (Class<? extends HouseEvent> type : types) {
+            relevant.add(type);
+        }
+        AtomicBoolean queued = new AtomicBoolean();
+        Runnable runRefresh = () -> {
+            queued.set(false);
+            refresh.run();
+        };
+        return eventBus.subscribe((List<HouseEvent> events) -> {
+            for (HouseEvent event : events) {
+                if (event instanceof HouseEvent.Resync || relevant.contains(event.getClass())) {
+                    if (queued.compareAndSet(false, true)) {
+                        SwingUtilities.invokeLater(runRefresh);
+                    }
+                    return;
+                }
+            }
+        });
+    }
+}
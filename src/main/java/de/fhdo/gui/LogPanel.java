@@ -4,15 +4,20 @@ import de.fhdo.service.LogManager;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
+import javax.swing.text.BadLocationException;
 import java.awt.*;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Queue;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class LogPanel extends JPanel {
+    private static final int FOLLOW_TAIL_LINES = 500;
+    private static final int FOLLOW_MAX_LINES = 5000;
+
     private final LogManager logManager;
     private JTable logTable;
     private DefaultTableModel tableModel;
@@ -22,8 +27,14 @@ public class LogPanel extends JPanel {
     private JButton searchByDateButton;
     private JButton archiveButton;
     private JButton deleteButton;
+    private JCheckBox followCheckBox;
     private JTextArea logContentArea;
     private Timer updateTimer;
+    private Timer followTimer;
+
+    private List<Path> shownLogFiles = List.of();
+    private LogManager.LogSubscription followSubscription;
+    private final Queue<String> followedLines = new ConcurrentLinkedQueue<>();
 
     public LogPanel(LogManager logManager) {
         this.logManager = logManager;
@@ -54,6 +65,8 @@ public class LogPanel extends JPanel {
         
         archiveButton = new JButton("Archive Old Logs");
         deleteButton = new JButton("Delete Old Logs");
+        followCheckBox = new JCheckBox("Follow");
+        followCheckBox.setToolTipText("Show new lines of the selected log as they are written");
 
         logContentArea = new JTextArea();
         logContentArea.setEditable(false);
@@ -64,6 +77,7 @@ public class LogPanel extends JPanel {
         searchByDateButton.addActionListener(e -> searchLogsByDate());
         archiveButton.addActionListener(e -> archiveOldLogs());
         deleteButton.addActionListener(e -> deleteOldLogs());
+        followCheckBox.addActionListener(e -> showSelectedLogContent());
     }
 
     private void layoutComponents() {
@@ -75,6 +89,7 @@ public class LogPanel extends JPanel {
         searchPanel.add(searchByDateButton);
 
         JPanel actionPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        actionPanel.add(followCheckBox);
         actionPanel.add(archiveButton);
         actionPanel.add(deleteButton);
 
@@ -187,17 +202,67 @@ public class LogPanel extends JPanel {
     }
 
     private void showSelectedLogContent() {
+        stopFollowing();
         int selectedRow = logTable.getSelectedRow();
-        if (selectedRow >= 0) {
-            String pathStr = (String) ("logs" + "/" + tableModel.getValueAt(selectedRow, 1) + "/" + tableModel.getValueAt(selectedRow, 0));
-            Path logPath = Paths.get(pathStr);
+        if (selectedRow < 0) {
+            return;
+        }
+
+        Path logPath = shownLogFiles.get(selectedRow);
+        if (followCheckBox.isSelected()) {
+            logContentArea.setText("");
+            followSubscription = logManager.follow(logPath, FOLLOW_TAIL_LINES, followedLines::add);
+            appendFollowedLines();
+        } else {
             List<String> content = logManager.readLogFile(logPath);
             logContentArea.setText(String.join("\n", content));
             logContentArea.setCaretPosition(0);
         }
     }
 
-    private void updateLogTable(List<Path> logFiles) {
+    private void stopFollowing() {
+        if (followSubscription != null) {
+            followSubscription.close();
+            followSubscription = null;
+        }
+        followedLines.clear();
+    }
+
+    /**
+     * Moves lines delivered by the log manager into the view, dropping the oldest ones beyond the limit.
+     */
+    private void appendFollowedLines() {
+        if (followedLines.isEmpty()) {
+            return;
+        }
+        StringBuilder appended = new StringBuilder();
+        String line;
+        while ((line = followedLines.poll()) != null) {
+            if (logContentArea.getDocument().getLength() > 0 || appended.length() > 0) {
+                appended.append('\n');
+            }
+            appended.append(line);
+        }
+        logContentArea.append(appended.toString());
+
+        int excess = logContentArea.getLineCount() - FOLLOW_MAX_LINES;
+        if (excess > 0) {
+            try {
+                logContentArea.replaceRange("", 0, logContentArea.getLineEndOffset(excess - 1));
+            } catch (BadLocationException e) {
+                logContentArea.setText("");
+            }
+        }
+        logContentArea.setCaretPosition(logContentArea.getDocument().getLength());
+    }
+
+    private void updateLogTable(List<Path> foundLogFiles) {
+        List<Path> logFiles = foundLogFiles.stream().sorted().toList();
+        if (logFiles.equals(shownLogFiles)) {
+            return;
+        }
+        shownLogFiles = logFiles;
+
         int selectedRow = logTable.getSelectedRow();
         Object selectedLog = null;
         if (selectedRow >= 0) {
@@ -232,7 +297,15 @@ public class LogPanel extends JPanel {
     }
 
     private void setupUpdateTimer() {
-        updateTimer = new Timer(1000, e -> loadAllLogs());
+        // The table only changes when files appear or disappear, and a search keeps its results
+        updateTimer = new Timer(1000, e -> {
+            if (searchField.getText().trim().isEmpty()) {
+                loadAllLogs();
+            }
+        });
         updateTimer.start();
+
+        followTimer = new Timer(200, e -> appendFollowedLines());
+        followTimer.start();
     }
 }
\ No newline at end of file
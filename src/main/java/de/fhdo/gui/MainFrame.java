@@ -3,6 +3,7 @@ package de.fhdo.gui;
 import de.fhdo.service.DeviceManager;
 import de.fhdo.service.EnergyManager;
 import de.fhdo.service.LogManager;
+import de.fhdo.service.SnapshotManager;
 import de.fhdo.service.SystemMonitor;
 
 import javax.swing.*;
@@ -14,6 +15,7 @@ public class MainFrame extends JFrame {
     private final DeviceManager deviceManager = DeviceManager.getInstance();
     private final EnergyManager energyManager = EnergyManager.getInstance();
     private final LogManager logManager = LogManager.getInstance();
+    private final SystemMonitor systemMonitor;
 
     private JTabbedPane tabbedPane;
 
@@ -24,13 +26,15 @@ public class MainFrame extends JFrame {
     private LogPanel logPanel;
     private ConfigPanel configPanel;
 
-    public MainFrame(SystemMonitor systemMonitor) {
+    public MainFrame(SystemMonitor systemMonitor, SnapshotManager snapshotManager) {
+        this.systemMonitor = systemMonitor;
         initializeFrame();
         createComponents();
         addComponents();
 
         addWindowListener(new WindowAdapter() {
             public void windowClosing(WindowEvent e) {
+                snapshotManager.shutdown();
                 energyManager.shutdown();
                 systemMonitor.shutdown();
             }
@@ -56,8 +60,8 @@ public class MainFrame extends JFrame {
 
         devicePanel = new DevicePanel(deviceManager);
         energyPanel = new EnergyPanel(energyManager);
-        batteryPanel = new BatteryPanel(energyManager);
-        systemStatusPanel = new SystemStatusPanel(deviceManager, energyManager);
+        batteryPanel = new BatteryPanel(energyManager, systemMonitor.getBatteryForecaster());
+        systemStatusPanel = new SystemStatusPanel(deviceManager, energyManager, systemMonitor.getPowerHistory());
         logPanel = new LogPanel(logManager);
         configPanel = new ConfigPanel(this);
 
@@ -0,0 +1,216 @@
+package de.fhdo.gui;
+
+import de.fhdo.service.PowerHistory;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Strip chart of consumption, generation and total battery charge over the monitor's power history.
+ * Samples are averaged into one-pixel columns that are drawn into a back buffer; new columns scroll the
+ * buffer and only the new segment is drawn. Only a resize or a rescale redraws the buffer, from the
+ * columns kept in primitive arrays, so a frame allocates nothing.
+ */
+class PowerFlowChart extends JComponent {
+    private static final int CONSUMPTION = 0;
+    private static final int GENERATION = 1;
+    private static final int CHARGE = 2;
+    private static final int SERIES = 3;
+    private static final String[] SERIES_NAMES = {"Consumption", "Generation", "Battery Charge"};
+    private static final Color[] SERIES_COLORS = {new Color(200, 60, 60), new Color(220, 150, 0), new Color(40, 110, 200)};
+    private static final Color BACKGROUND = Color.WHITE;
+    private static final Color GRID = new Color(230, 230, 230);
+    private static final double[] NICE_STEPS = {1, 2, 5, 10};
+
+    private final PowerHistory.Cursor cursor;
+    private final int historySamples;
+    private final Insets insets = new Insets(0, 0, 0, 0);
+
+    private BufferedImage buffer;
+    private Graphics2D bufferGraphics;
+    private float[][] columns = new float[SERIES][0];
+    private int head;
+    private int filled;
+    private int samplesPerColumn = 1;
+    private final double[] pending = new double[SERIES];
+    private int pendingSamples;
+    private double scale = 1;
+    private String scaleLabel = "";
+    private boolean redraw;
+
+    PowerFlowChart(PowerHistory history) {
+        this.cursor = history.cursor();
+        this.historySamples = history.getCapacity();
+        setPreferredSize(new Dimension(600, 220));
+        setBorder(BorderFactory.createTitledBorder("Power Flow (last 10 minutes)"));
+    }
+
+    /**
+     * Pulls new samples from the history and draws them. Called on the event dispatch thread.
+     */
+    void update() {
+        getInsets(insets);
+        int width = getWidth() - insets.left - insets.right;
+        int height = getHeight() - insets.top - insets.bottom;
+        if (width <= 1 || height <= 1) {
+            return;
+        }
+        if (buffer == null || buffer.getWidth() != width || buffer.getHeight() != height) {
+            resizeBuffer(width, height);
+        }
+
+        int newColumns = 0;
+        int samples = cursor.poll();
+        for (int i = 0; i < samples; i++) {
+            pending[CONSUMPTION] += cursor.getConsumption(i);
+            pending[GENERATION] += cursor.getGeneration(i);
+            pending[CHARGE] += cursor.getCharge(i);
+            if (++pendingSamples == samplesPerColumn) {
+                addColumn();
+                newColumns++;
+            }
+        }
+
+        if (redraw) {
+            redrawAll();
+            repaint();
+        } else if (newColumns > 0) {
+            scrollAndDraw(Math.min(newColumns, buffer.getWidth()));
+            repaint();
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (buffer == null) {
+            return;
+        }
+        getInsets(insets);
+        g.drawImage(buffer, insets.left, insets.top, null);
+
+        FontMetrics metrics = g.getFontMetrics();
+        int x = insets.left + 6;
+        int y = insets.top + metrics.getAscent() + 2;
+        for (int series = 0; series < SERIES; series++) {
+            g.setColor(SERIES_COLORS[series]);
+            g.fillRect(x, y - metrics.getAscent() + 3, 10, 4);
+            g.drawString(SERIES_NAMES[series], x + 14, y);
+            x += 14 + metrics.stringWidth(SERIES_NAMES[series]) + 12;
+        }
+        g.setColor(Color.DARK_GRAY);
+        g.drawString(scaleLabel, insets.left + buffer.getWidth() - metrics.stringWidth(scaleLabel) - 6, y);
+    }
+
+    private void resizeBuffer(int width, int height) {
+        if (bufferGraphics != null) {
+            bufferGraphics.dispose();
+        }
+        buffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        bufferGraphics = buffer.createGraphics();
+        bufferGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        columns = new float[SERIES][width];
+        head = 0;
+        filled = 0;
+        samplesPerColumn = Math.max(1, (historySamples + width - 1) / width);
+        Arrays.fill(pending, 0);
+        pendingSamples = 0;
+        scale = 1;
+        updateScaleLabel();
+        cursor.rewind();
+        redraw = true;
+    }
+
+    private void addColumn() {
+        for (int series = 0; series < SERIES; series++) {
+            float value = (float) (pending[series] / pendingSamples);
+            columns[series][head] = value;
+            pending[series] = 0;
+            if (value > scale) {
+                scale = niceCeiling(value * 1.2);
+                updateScaleLabel();
+                redraw = true;
+            }
+        }
+        pendingSamples = 0;
+        head = (head + 1) % columns[0].length;
+        filled = Math.min(filled + 1, columns[0].length);
+    }
+
+    private void scrollAndDraw(int newColumns) {
+        int width = buffer.getWidth();
+        int height = buffer.getHeight();
+        bufferGraphics.copyArea(newColumns, 0, width - newColumns, height, -newColumns, 0);
+        bufferGraphics.setColor(BACKGROUND);
+        bufferGraphics.fillRect(width - newColumns, 0, newColumns, height);
+        drawGrid(width - newColumns - 1, width);
+        for (int age = newColumns - 1; age >= 0; age--) {
+            drawColumn(age);
+        }
+    }
+
+    private void redrawAll() {
+        redraw = false;
+        int width = buffer.getWidth();
+        bufferGraphics.setColor(BACKGROUND);
+        bufferGraphics.fillRect(0, 0, width, buffer.getHeight());
+        drawGrid(0, width);
+        for (int age = filled - 1; age >= 0; age--) {
+            drawColumn(age);
+        }
+    }
+
+    /**
+     * Draws the segments from the previous column to the column of the given age (0 is the newest).
+     */
+    private void drawColumn(int age) {
+        int length = columns[0].length;
+        int x = buffer.getWidth() - 1 - age;
+        int index = Math.floorMod(head - 1 - age, length);
+        int previous = Math.floorMod(index - 1, length);
+        boolean hasPrevious = age + 1 < filled;
+        for (int series = 0; series < SERIES; series++) {
+            int y = toY(columns[series][index]);
+            bufferGraphics.setColor(SERIES_COLORS[series]);
+            if (hasPrevious) {
+                bufferGraphics.drawLine(x - 1, toY(columns[series][previous]), x, y);
+            } else {
+                bufferGraphics.drawLine(x, y, x, y);
+            }
+        }
+    }
+
+    private void drawGrid(int fromX, int toX) {
+        int height = buffer.getHeight();
+        bufferGraphics.setColor(GRID);
+        for (int line = 1; line < 4; line++) {
+            int y = height * line / 4;
+            bufferGraphics.drawLine(Math.max(0, fromX), y, toX, y);
+        }
+    }
+
+    private int toY(float value) {
+        int height = buffer.getHeight();
+        return height - 1 - (int) (Math.max(0, value) / scale * (height - 1));
+    }
+
+    private void updateScaleLabel() {
+        scaleLabel = String.format("max %.0f units", scale);
+    }
+
+    /**
+     * Rounds up to 1, 2 or 5 times a power of ten, so the scale changes rarely and reads well.
+     */
+    private static double niceCeiling(double value) {
+        double magnitude = Math.pow(10, Math.floor(Math.log10(value)));
+        for (double step : NICE_STEPS) {
+            if (step * magnitude >= value) {
+                return step * magnitude;
+            }
+        }
+        return 10 * magnitude;
+    }
+}
@@ -3,28 +3,42 @@ package de.fhdo.gui;
 import de.fhdo.model.Battery;
 import de.fhdo.model.Device;
 import de.fhdo.service.DeviceManager;
+import de.fhdo.service.EntityChanges;
 import de.fhdo.service.EnergyManager;
+import de.fhdo.service.EventBus;
+import de.fhdo.service.HouseEvent;
+import de.fhdo.service.PowerHistory;
+import de.fhdo.service.SystemMonitor;
 
 import javax.swing.*;
 import java.awt.*;
 import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
 
 public class SystemStatusPanel extends JPanel {
     private final DeviceManager deviceManager;
     private final EnergyManager energyManager;
+    private final PowerHistory powerHistory;
     private Timer updateTimer;
+    private Timer chartTimer;
+    private EventBus.Subscription subscription;
 
     // UI Components
     private JProgressBar powerConsumptionBar;
     private JProgressBar batteryChargeBar;
-    private JPanel activeDevicesPanel;
-    private JPanel activeBatteriesPanel;
+    private PowerFlowChart powerFlowChart;
+    private DefaultListModel<String> activeDevicesModel;
+    private DefaultListModel<String> activeBatteriesModel;
+    private long deviceStamp = -1;
+    private long batteryStamp = -1;
 
     private final DecimalFormat df = new DecimalFormat("#.##");
 
-    public SystemStatusPanel(DeviceManager deviceManager, EnergyManager energyManager) {
+    public SystemStatusPanel(DeviceManager deviceManager, EnergyManager energyManager, PowerHistory powerHistory) {
         this.deviceManager = deviceManager;
         this.energyManager = energyManager;
+        this.powerHistory = powerHistory;
 
         setLayout(new BorderLayout());
         initializeComponents();
@@ -40,14 +54,11 @@ public class SystemStatusPanel extends JPanel {
         batteryChargeBar = new JProgressBar(0, 100);
         batteryChargeBar.setStringPainted(true);
 
-        // Initialize list panels
-        activeDevicesPanel = new JPanel();
-        activeDevicesPanel.setLayout(new BoxLayout(activeDevicesPanel, BoxLayout.Y_AXIS));
-        activeDevicesPanel.setBorder(BorderFactory.createTitledBorder("Active Devices"));
+        powerFlowChart = new PowerFlowChart(powerHistory);
 
-        activeBatteriesPanel = new JPanel();
-        activeBatteriesPanel.setLayout(new BoxLayout(activeBatteriesPanel, BoxLayout.Y_AXIS));
-        activeBatteriesPanel.setBorder(BorderFactory.createTitledBorder("Charging Batteries"));
+        // Lists are only rebuilt when devices or batteries change
+        activeDevicesModel = new DefaultListModel<>();
+        activeBatteriesModel = new DefaultListModel<>();
     }
 
     private void layoutComponents() {
@@ -69,18 +80,33 @@ public class SystemStatusPanel extends JPanel {
         statusPanel.add(batteryChargeBar, gbc);
 
         // panel for active devices and batteries
-        JPanel bottomPanel = new JPanel(new GridLayout(2, 1, 5, 5));
-        bottomPanel.add(activeDevicesPanel);
-        bottomPanel.add(activeBatteriesPanel);
+        JScrollPane activeDevicesPane = new JScrollPane(new JList<>(activeDevicesModel));
+        activeDevicesPane.setBorder(BorderFactory.createTitledBorder("Active Devices"));
+        JScrollPane activeBatteriesPane = new JScrollPane(new JList<>(activeBatteriesModel));
+        activeBatteriesPane.setBorder(BorderFactory.createTitledBorder("Charging Batteries"));
+
+        JPanel bottomPanel = new JPanel(new GridLayout(1, 2, 5, 5));
+        bottomPanel.setPreferredSize(new Dimension(0, 150));
+        bottomPanel.add(activeDevicesPane);
+        bottomPanel.add(activeBatteriesPane);
 
         // Add all panels to main panel
         add(statusPanel, BorderLayout.NORTH);
-        add(bottomPanel, BorderLayout.CENTER);
+        add(powerFlowChart, BorderLayout.CENTER);
+        add(bottomPanel, BorderLayout.SOUTH);
     }
 
     private void setupUpdateTimer() {
+        // Consumption follows the devices' load profiles over time, so the bars still need a clock;
+        // the lists react to device and battery changes right away
         updateTimer = new Timer(1000, e -> updateStatus());
         updateTimer.start();
+        subscription = EventRefresher.subscribe(deviceManager.getEventBus(), this::updateStatus,
+                HouseEvent.DeviceToggled.class, HouseEvent.DeviceSetChanged.class,
+                HouseEvent.BatteryChanged.class, HouseEvent.BatterySetChanged.class);
+
+        chartTimer = new Timer((int) SystemMonitor.SAMPLE_INTERVAL_MILLIS, e -> powerFlowChart.update());
+        chartTimer.start();
     }
 
     public void updateStatus() {
@@ -101,24 +127,30 @@ public class SystemStatusPanel extends JPanel {
         }
 
         // Update active devices list
-        activeDevicesPanel.removeAll();
-        for (Device device : deviceManager.getDevicesByState(true)) {
-            JLabel deviceLabel = new JLabel(device.getName() + " (" + device.getPower() + " units)");
-            activeDevicesPanel.add(deviceLabel);
+        EntityChanges deviceChanges = deviceManager.getDeviceChangesSince(deviceStamp);
+        if (!deviceChanges.isEmpty()) {
+            deviceStamp = deviceChanges.getStamp();
+            List<String> names = new ArrayList<>();
+            for (Device device : deviceManager.getDevicesByState(true)) {
+                names.add(device.getName() + " (" + device.getPower() + " units)");
+            }
+            activeDevicesModel.clear();
+            activeDevicesModel.addAll(names);
         }
 
         // Update active batteries list
-        activeBatteriesPanel.removeAll();
-        for (Battery battery : energyManager.getBatteriesByState(true)) {
-            JLabel batteryLabel = new JLabel(String.format("%s (%.2f/%.2f units)",
-                    battery.getName(),
-                    battery.getCurrentCharge(),
-                    battery.getCapacity()));
-            activeBatteriesPanel.add(batteryLabel);
+        EntityChanges batteryChanges = energyManager.getBatteryChangesSince(batteryStamp);
+        if (!batteryChanges.isEmpty()) {
+            batteryStamp = batteryChanges.getStamp();
+            List<String> names = new ArrayList<>();
+            for (Battery battery : energyManager.getBatteriesByState(true)) {
+                names.add(String.format("%s (%.2f/%.2f units)",
+                        battery.getName(),
+                        battery.getCurrentCharge(),
+                        battery.getCapacity()));
+            }
+            activeBatteriesModel.clear();
+            activeBatteriesModel.addAll(names);
         }
-
-        // Refresh the panel
-        revalidate();
-        repaint();
     }
 }
\ No newline at end of file
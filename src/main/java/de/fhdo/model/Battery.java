@@ -2,16 +2,25 @@ package de.fhdo.model;
 
 import lombok.Data;
 import lombok.Builder;
+import lombok.EqualsAndHashCode;
 
+/**
+ * Storage in the house. Equality is by id, so batteries stay usable as keys while they charge. Charge and
+ * charging state are volatile and can be read without locking; writers that move charge hold the battery's
+ * monitor, which {@link #snapshot()} takes as well to read both consistently.
+ */
 @Data
 @Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
 public class Battery {
+    @EqualsAndHashCode.Include
     private String id;
     private String name;
     private double capacity;
-    private double currentCharge;
+    private volatile double currentCharge;
     private double maxChargeRate;
-    private boolean isCharging;
+    private volatile boolean isCharging;
+    private BatteryModel model;
 
     public String toString() {
         return String.format("""
@@ -24,4 +33,53 @@ public class Battery {
                 
                 """, id, name, currentCharge / capacity * 100, currentCharge, currentCharge / capacity * 100, currentCharge, maxChargeRate / capacity * 100, maxChargeRate, isCharging ? "Charging" : "Discharging");
     }
-} 
\ No newline at end of file
+
+    public synchronized BatterySnapshot snapshot() {
+        return new BatterySnapshot(id, name, capacity, currentCharge, maxChargeRate, isCharging);
+    }
+
+    /**
+     * Most the battery accepts from a source in one tick, which tapers near full under a model.
+     */
+    public double getChargeLimit() {
+        if (model == null || capacity <= 0) {
+            return maxChargeRate;
+        }
+        return maxChargeRate * model.acceptanceAt(currentCharge / capacity);
+    }
+
+    /**
+     * Charge stored from the given input.
+     */
+    public double storedFrom(double input) {
+        return model == null ? input : input * model.getChargeEfficiency();
+    }
+
+    /**
+     * Input needed to store the given charge.
+     */
+    public double inputFor(double stored) {
+        return model == null ? stored : stored / model.getChargeEfficiency();
+    }
+
+    /**
+     * Charge removed from the battery to deliver the given amount.
+     */
+    public double drawnFor(double delivered) {
+        return model == null ? delivered : delivered / model.getDischargeEfficiency();
+    }
+
+    /**
+     * Most the battery can deliver from its current charge.
+     */
+    public double getDeliverable() {
+        return model == null ? currentCharge : currentCharge * model.getDischargeEfficiency();
+    }
+
+    /**
+     * Charge lost to self-discharge over the given time.
+     */
+    public double selfDischargeOver(double minutes) {
+        return model == null ? 0 : currentCharge * (1 - model.retentionOver(minutes));
+    }
+}
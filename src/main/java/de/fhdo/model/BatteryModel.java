@@ -0,0 +1,93 @@
+package de.fhdo.model;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Losses and charge acceptance of a battery. Batteries without a model are charged and discharged
+ * losslessly at their full rate.
+ * <p>
+ * Charging stores only the charge efficiency's share of the input, and discharging removes more than is
+ * delivered. While idle the charge decays by a fixed share per day. Above {@code taperStart} the
+ * battery leaves constant-current charging, and the accepted rate falls linearly with the state of
+ * charge down to {@code taperFloor} at full. That makes the current decay exponentially over time, as in
+ * the constant-voltage phase. The acceptance curve is precomputed as a table over the state of charge,
+ * and the decay factor is cached per tick length. Evaluating the model each tick is therefore a few
+ * multiplications, like the linear model.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public final class BatteryModel {
+    /** Resolution of the acceptance table over the state of charge. */
+    public static final int TAPER_STEPS = 256;
+
+    private final double chargeEfficiency;
+    private final double dischargeEfficiency;
+    /** Share of the charge lost per day while idle. */
+    private final double selfDischargePerDay;
+    /** State of charge at which the charge rate starts to taper. */
+    private final double taperStart;
+    /** Share of the maximum charge rate still accepted at full. */
+    private final double taperFloor;
+
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final double[] acceptance;
+
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private volatile Retention retention = new Retention(0, 1);
+
+    private record Retention(double minutes, double factor) {
+    }
+
+    public BatteryModel(double chargeEfficiency, double dischargeEfficiency, double selfDischargePerDay,
+                        double taperStart, double taperFloor) {
+        if (chargeEfficiency <= 0 || chargeEfficiency > 1 || dischargeEfficiency <= 0 || dischargeEfficiency > 1) {
+            throw new IllegalArgumentException("Efficiencies must be in (0, 1]");
+        }
+        if (selfDischargePerDay < 0 || selfDischargePerDay >= 1) {
+            throw new IllegalArgumentException("Self-discharge must be in [0, 1): " + selfDischargePerDay);
+        }
+        if (taperStart <= 0 || taperStart > 1 || taperFloor <= 0 || taperFloor > 1) {
+            throw new IllegalArgumentException("Taper start and floor must be in (0, 1]");
+        }
+        this.chargeEfficiency = chargeEfficiency;
+        this.dischargeEfficiency = dischargeEfficiency;
+        this.selfDischargePerDay = selfDischargePerDay;
+        this.taperStart = taperStart;
+        this.taperFloor = taperFloor;
+
+        acceptance = new double[TAPER_STEPS + 1];
+        for (int i = 0; i <= TAPER_STEPS; i++) {
+            double stateOfCharge = (double) i / TAPER_STEPS;
+            acceptance[i] = stateOfCharge <= taperStart ? 1.0
+                    : Math.max(taperFloor, (1 - stateOfCharge) / (1 - taperStart));
+        }
+    }
+
+    /**
+     * Share of the maximum charge rate accepted at the given state of charge.
+     */
+    public double acceptanceAt(double stateOfCharge) {
+        int step = (int) (stateOfCharge * TAPER_STEPS);
+        return acceptance[Math.max(0, Math.min(TAPER_STEPS, step))];
+    }
+
+    /**
+     * Share of the charge kept over the given idle time.
+     */
+    public double retentionOver(double minutes) {
+        Retention cached = retention;
+        if (cached.minutes != minutes) {
+            cached = new Retention(minutes, Math.pow(1 - selfDischargePerDay, minutes / (24 * 60)));
+            retention = cached;
+        }
+        return cached.factor;
+    }
+}
@@ -0,0 +1,9 @@
+package de.fhdo.model;
+
+/**
+ * Immutable copy of a {@link Battery} at one moment, with charge and charging state read together.
+ * Safe to share across threads and to use as a key.
+ */
+public record BatterySnapshot(String id, String name, double capacity, double currentCharge, double maxChargeRate,
+                              boolean charging) {
+}
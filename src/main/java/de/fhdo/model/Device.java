@@ -1,16 +1,28 @@
 package de.fhdo.model;
 
+import de.fhdo.model.profile.PowerProfile;
 import lombok.Data;
 import lombok.Builder;
+import lombok.EqualsAndHashCode;
 
+/**
+ * A consumer in the house. Equality is by id, so devices stay usable as keys while their state changes.
+ * The state flag is volatile and can be read without locking; {@link #snapshot()} gives an immutable
+ * copy for readers that need several values at once.
+ */
 @Data
 @Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
 public class Device {
+    @EqualsAndHashCode.Include
     private String id;
     private String name;
     private DeviceType type;
-    private boolean isActive;
+    private volatile boolean isActive;
     private double power;
+    private PowerProfile profile;
+    /** Higher priorities are shed last when demand exceeds supply. */
+    private int priority;
 
     public enum DeviceType {
         LIGHTING,
@@ -18,6 +30,21 @@ public class Device {
         HEATING
     }
 
+    /**
+     * Power drawn at the given simulated minute while active. Devices without a profile draw their nominal power.
+     */
+    public double getPowerAt(long minute) {
+        return profile == null ? power : power * profile.factorAt(minute);
+    }
+
+    public double getCurrentPower() {
+        return profile == null ? power : getPowerAt(PowerProfile.currentMinute());
+    }
+
+    public DeviceSnapshot snapshot() {
+        return new DeviceSnapshot(id, name, type, power, priority, isActive);
+    }
+
     public void toggle() {
         isActive = !isActive;
     }
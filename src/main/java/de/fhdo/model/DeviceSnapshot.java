@@ -0,0 +1,7 @@
+package de.fhdo.model;
+
+/**
+ * Immutable copy of a {@link Device} at one moment. Safe to share across threads and to use as a key.
+ */
+public record DeviceSnapshot(String id, String name, Device.DeviceType type, double power, int priority, boolean active) {
+}
@@ -1,16 +1,26 @@
 package de.fhdo.model;
 
+import de.fhdo.model.profile.PowerProfile;
 import lombok.Data;
 import lombok.Builder;
+import lombok.EqualsAndHashCode;
 
+/**
+ * A source of power. Equality is by id, so sources stay usable as keys while their state changes. The
+ * state flag is volatile and can be read without locking; {@link #snapshot()} gives an immutable copy for
+ * readers that need several values at once.
+ */
 @Data
 @Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
 public class Energy {
+    @EqualsAndHashCode.Include
     private String id;
     private String name;
     private double output;
-    private boolean isActive;
+    private volatile boolean isActive;
     private EnergyType type;
+    private PowerProfile profile;
 
     public enum EnergyType {
         SOLAR,
@@ -28,6 +38,21 @@ public class Energy {
                 """, id, name, type, output, isActive ? "Active" : "Inactive");
     }
 
+    /**
+     * Output at the given simulated minute. Sources without a profile produce their nominal output.
+     */
+    public double getOutputAt(long minute) {
+        return profile == null ? output : output * profile.factorAt(minute);
+    }
+
+    public double getCurrentOutput() {
+        return profile == null ? output : getOutputAt(PowerProfile.currentMinute());
+    }
+
+    public EnergySnapshot snapshot() {
+        return new EnergySnapshot(id, name, type, output, isActive);
+    }
+
     public void toggle() {
         isActive = !isActive;
     }
@@ -0,0 +1,7 @@
+package de.fhdo.model;
+
+/**
+ * Immutable copy of an {@link Energy} source at one moment. Safe to share across threads and to use as a key.
+ */
+public record EnergySnapshot(String id, String name, Energy.EnergyType type, double output, boolean active) {
+}
@@ -0,0 +1,87 @@
+package de.fhdo.model;
+
+import de.fhdo.model.profile.PowerProfile;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+/**
+ * Daily grid price curve: a base price with cheaper or dearer windows, which may wrap past midnight.
+ * Prices are kept per minute of the day, so looking one up is a single array access.
+ */
+public class Tariff {
+    private final double[] prices;
+    private final double minPrice;
+
+    private Tariff(double[] prices) {
+        this.prices = prices;
+        this.minPrice = Arrays.stream(prices).min().orElseThrow();
+    }
+
+    public static Tariff flat(double price) {
+        double[] prices = new double[PowerProfile.MINUTES_PER_DAY];
+        Arrays.fill(prices, price);
+        return new Tariff(prices);
+    }
+
+    /**
+     * @param windows pairs of {startMinute, endMinute} within the day; a later window overrides an
+     *                earlier one where they overlap
+     */
+    public static Tariff of(double basePrice, int[][] windows, double[] windowPrices) {
+        if (windows.length != windowPrices.length) {
+            throw new IllegalArgumentException("Every tariff window needs a price");
+        }
+        double[] prices = new double[PowerProfile.MINUTES_PER_DAY];
+        Arrays.fill(prices, basePrice);
+        for (int w = 0; w < windows.length; w++) {
+            int length = Math.floorMod(windows[w][1] - windows[w][0], PowerProfile.MINUTES_PER_DAY);
+            for (int i = 0; i < length; i++) {
+                prices[(windows[w][0] + i) % PowerProfile.MINUTES_PER_DAY] = windowPrices[w];
+            }
+        }
+        return new Tariff(prices);
+    }
+
+    /**
+     * Reads a tariff such as {@code 0.32;22:00-06:00=0.14;12:00-14:00=0.20}: the base price followed by
+     * windows with their prices.
+     */
+    public static Tariff parse(String spec) {
+        String[] parts = spec.trim().split(";");
+        try {
+            double basePrice = Double.parseDouble(parts[0].trim());
+            int[][] windows = new int[parts.length - 1][];
+            double[] windowPrices = new double[parts.length - 1];
+            for (int i = 1; i < parts.length; i++) {
+                String[] window = parts[i].split("=");
+                String[] times = window[0].split("-");
+                if (window.length != 2 || times.length != 2) {
+                    throw new IllegalArgumentException("Invalid tariff window: " + parts[i]);
+                }
+                windows[i - 1] = new int[]{minuteOfDay(times[0]), minuteOfDay(times[1])};
+                windowPrices[i - 1] = Double.parseDouble(window[1].trim());
+            }
+            return of(basePrice, windows, windowPrices);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid tariff: " + spec, e);
+        }
+    }
+
+    private static int minuteOfDay(String time) {
+        LocalTime parsed = LocalTime.parse(time.trim());
+        return parsed.getHour() * 60 + parsed.getMinute();
+    }
+
+    /**
+     * Price at the given minute, counted as in {@link PowerProfile#currentMinute()}.
+     */
+    public double priceAt(long minute) {
+        return prices[(int) Math.floorMod(minute, (long) prices.length)];
+    }
+
+    public double getMinPrice() {
+        return minPrice;
+    }
+}
@@ -0,0 +1,45 @@
+package de.fhdo.model.profile;
+
+import java.util.Random;
+
+/**
+ * Attenuates a base profile with seeded stochastic cloud cover. Cover follows a mean-reverting
+ * random walk, so the same seed always yields the same weather over the given number of days.
+ */
+public class CloudCoverProfile extends PowerProfile {
+    private static final double MAX_ATTENUATION = 0.8;
+    private static final double REVERSION = 0.05;
+
+    private final PowerProfile base;
+    private final long seed;
+    private final int days;
+    private final double meanCover;
+    private final double variability;
+
+    public CloudCoverProfile(PowerProfile base, long seed, int days, double meanCover, double variability) {
+        if (days <= 0) {
+            throw new IllegalArgumentException("Cloud cover needs at least one day: " + days);
+        }
+        this.base = base;
+        this.seed = seed;
+        this.days = days;
+        this.meanCover = clamp(meanCover);
+        this.variability = Math.max(0, variability);
+    }
+
+    @Override
+    protected double[] computeTable() {
+        Random random = new Random(seed);
+        double[] values = new double[days * MINUTES_PER_DAY];
+        double cover = meanCover;
+        for (int minute = 0; minute < values.length; minute++) {
+            cover = clamp(cover + REVERSION * (meanCover - cover) + variability * 0.1 * random.nextGaussian());
+            values[minute] = base.factorAt(minute) * (1 - MAX_ATTENUATION * cover);
+        }
+        return values;
+    }
+
+    private static double clamp(double value) {
+        return Math.max(0, Math.min(1, value));
+    }
+}
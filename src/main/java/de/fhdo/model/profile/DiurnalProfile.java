@@ -0,0 +1,27 @@
+package de.fhdo.model.profile;
+
+/**
+ * Clear-sky solar curve: a half sine between sunrise and sunset, zero at night.
+ */
+public class DiurnalProfile extends PowerProfile {
+    private final int sunriseMinute;
+    private final int sunsetMinute;
+
+    public DiurnalProfile(int sunriseMinute, int sunsetMinute) {
+        if (sunriseMinute < 0 || sunsetMinute > MINUTES_PER_DAY || sunriseMinute >= sunsetMinute) {
+            throw new IllegalArgumentException("Invalid daylight window: " + sunriseMinute + "-" + sunsetMinute);
+        }
+        this.sunriseMinute = sunriseMinute;
+        this.sunsetMinute = sunsetMinute;
+    }
+
+    @Override
+    protected double[] computeTable() {
+        double[] values = new double[MINUTES_PER_DAY];
+        double daylight = sunsetMinute - sunriseMinute;
+        for (int minute = sunriseMinute; minute < sunsetMinute; minute++) {
+            values[minute] = Math.sin(Math.PI * (minute - sunriseMinute) / daylight);
+        }
+        return values;
+    }
+}
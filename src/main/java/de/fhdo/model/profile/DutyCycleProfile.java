@@ -0,0 +1,29 @@
+package de.fhdo.model.profile;
+
+/**
+ * Thermostat-style cycling: on for a fraction of every period, off for the rest.
+ */
+public class DutyCycleProfile extends PowerProfile {
+    private final int periodMinutes;
+    private final double dutyCycle;
+    private final int phaseMinutes;
+
+    public DutyCycleProfile(int periodMinutes, double dutyCycle, int phaseMinutes) {
+        if (periodMinutes <= 0 || dutyCycle < 0 || dutyCycle > 1) {
+            throw new IllegalArgumentException("Invalid duty cycle: " + dutyCycle + " over " + periodMinutes + " minutes");
+        }
+        this.periodMinutes = periodMinutes;
+        this.dutyCycle = dutyCycle;
+        this.phaseMinutes = phaseMinutes;
+    }
+
+    @Override
+    protected double[] computeTable() {
+        double[] values = new double[periodMinutes];
+        int onMinutes = (int) Math.round(dutyCycle * periodMinutes);
+        for (int i = 0; i < onMinutes; i++) {
+            values[Math.floorMod(i + phaseMinutes, periodMinutes)] = 1.0;
+        }
+        return values;
+    }
+}
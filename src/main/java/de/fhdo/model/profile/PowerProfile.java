@@ -0,0 +1,62 @@
+package de.fhdo.model.profile;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * A repeating per-minute curve of factors applied to a nominal power value (1.0 = nominal).
+ * The curve is computed on first use and cached as a primitive array, so evaluating it per tick
+ * is a single array lookup no matter how many sources share the profile.
+ */
+public abstract class PowerProfile {
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    private volatile double[] table;
+
+    /**
+     * Computes the full curve. Called at most once per profile instance.
+     */
+    protected abstract double[] computeTable();
+
+    public double factorAt(long minute) {
+        double[] values = table();
+        return values[(int) Math.floorMod(minute, (long) values.length)];
+    }
+
+    public int getPeriod() {
+        return table().length;
+    }
+
+    /**
+     * Whether both profiles produce the same curve, such as a configured profile and its copy restored
+     * from a snapshot. Shared instances are recognized without comparing the tables.
+     */
+    public boolean sameCurveAs(PowerProfile other) {
+        return this == other || (other != null && Arrays.equals(table(), other.table()));
+    }
+
+    protected double[] table() {
+        double[] values = table;
+        if (values == null) {
+            synchronized (this) {
+                values = table;
+                if (values == null) {
+                    values = computeTable();
+                    if (values.length == 0) {
+                        throw new IllegalStateException("Profile table must not be empty");
+                    }
+                    table = values;
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Minutes since the epoch in local time, so day-aligned profiles follow the wall clock.
+     */
+    public static long currentMinute() {
+        LocalDateTime now = LocalDateTime.now();
+        return now.toLocalDate().toEpochDay() * MINUTES_PER_DAY + now.getHour() * 60L + now.getMinute();
+    }
+}
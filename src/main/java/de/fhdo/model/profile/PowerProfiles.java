@@ -0,0 +1,83 @@
+package de.fhdo.model.profile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared profile instances. Sources declaring the same curve reuse one instance and therefore one
+ * precomputed table.
+ */
+public final class PowerProfiles {
+    private static final Map<String, PowerProfile> CACHE = new ConcurrentHashMap<>();
+    private static final Map<Path, Trace> TRACES = new ConcurrentHashMap<>();
+
+    private record Trace(long size, FileTime modified, PowerProfile profile) {
+        boolean isCurrent(BasicFileAttributes attributes) {
+            return size == attributes.size() && modified.equals(attributes.lastModifiedTime());
+        }
+    }
+
+    private PowerProfiles() {
+    }
+
+    public static PowerProfile diurnal(int sunriseMinute, int sunsetMinute) {
+        return CACHE.computeIfAbsent("diurnal:" + sunriseMinute + ":" + sunsetMinute,
+                key -> new DiurnalProfile(sunriseMinute, sunsetMinute));
+    }
+
+    /**
+     * The profile of a trace file, reloaded when the file's size or modification time changed. Only the
+     * latest version of each file is kept.
+     */
+    public static PowerProfile trace(Path file) {
+        Path key = file.toAbsolutePath().normalize();
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+            return TRACES.compute(key, (k, cached) -> cached != null && cached.isCurrent(attributes)
+                    ? cached
+                    : new Trace(attributes.size(), attributes.lastModifiedTime(), loadTrace(key))).profile();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static PowerProfile loadTrace(Path file) {
+        try {
+            return TraceProfile.fromCsv(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static PowerProfile cloudy(int sunriseMinute, int sunsetMinute, long seed, int days, double meanCover, double variability) {
+        return CACHE.computeIfAbsent(String.format("cloudy:%d:%d:%d:%d:%s:%s", sunriseMinute, sunsetMinute, seed, days, meanCover, variability),
+                key -> new CloudCoverProfile(diurnal(sunriseMinute, sunsetMinute), seed, days, meanCover, variability));
+    }
+
+    public static PowerProfile dutyCycle(int periodMinutes, double dutyCycle, int phaseMinutes) {
+        return CACHE.computeIfAbsent(String.format("duty:%d:%s:%d", periodMinutes, dutyCycle, phaseMinutes),
+                key -> new DutyCycleProfile(periodMinutes, dutyCycle, phaseMinutes));
+    }
+
+    public static PowerProfile program(double[] steps, int stepMinutes, int[] startMinutes, double standby) {
+        return CACHE.computeIfAbsent(String.format("program:%s:%d:%s:%s", Arrays.toString(steps), stepMinutes, Arrays.toString(startMinutes), standby),
+                key -> new RunProgramProfile(steps, stepMinutes, startMinutes, standby));
+    }
+
+    public static PowerProfile schedule(int[][] windows, double standby) {
+        return CACHE.computeIfAbsent(String.format("schedule:%s:%s", Arrays.deepToString(windows), standby),
+                key -> new ScheduleProfile(windows, standby));
+    }
+
+    public static void clearCache() {
+        CACHE.clear();
+        TRACES.clear();
+    }
+}
@@ -0,0 +1,37 @@
+package de.fhdo.model.profile;
+
+import java.util.Arrays;
+
+/**
+ * Appliance run program: a sequence of power steps started at fixed times of day, standby otherwise.
+ */
+public class RunProgramProfile extends PowerProfile {
+    private final double[] steps;
+    private final int stepMinutes;
+    private final int[] startMinutes;
+    private final double standby;
+
+    public RunProgramProfile(double[] steps, int stepMinutes, int[] startMinutes, double standby) {
+        if (steps.length == 0 || stepMinutes <= 0) {
+            throw new IllegalArgumentException("A run program needs at least one step of positive length");
+        }
+        this.steps = steps.clone();
+        this.stepMinutes = stepMinutes;
+        this.startMinutes = startMinutes.clone();
+        this.standby = standby;
+    }
+
+    @Override
+    protected double[] computeTable() {
+        double[] values = new double[MINUTES_PER_DAY];
+        Arrays.fill(values, standby);
+        for (int start : startMinutes) {
+            for (int step = 0; step < steps.length; step++) {
+                for (int i = 0; i < stepMinutes; i++) {
+                    values[Math.floorMod(start + step * stepMinutes + i, MINUTES_PER_DAY)] = steps[step];
+                }
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,33 @@
+package de.fhdo.model.profile;
+
+import java.util.Arrays;
+
+/**
+ * Lighting-style schedule: fully on inside the given daily windows, standby outside of them.
+ * Windows may wrap past midnight.
+ */
+public class ScheduleProfile extends PowerProfile {
+    private final int[][] windows;
+    private final double standby;
+
+    /**
+     * @param windows pairs of {startMinute, endMinute} within the day
+     */
+    public ScheduleProfile(int[][] windows, double standby) {
+        this.windows = Arrays.stream(windows).map(int[]::clone).toArray(int[][]::new);
+        this.standby = standby;
+    }
+
+    @Override
+    protected double[] computeTable() {
+        double[] values = new double[MINUTES_PER_DAY];
+        Arrays.fill(values, standby);
+        for (int[] window : windows) {
+            int length = Math.floorMod(window[1] - window[0], MINUTES_PER_DAY);
+            for (int i = 0; i < length; i++) {
+                values[Math.floorMod(window[0] + i, MINUTES_PER_DAY)] = 1.0;
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,63 @@
+package de.fhdo.model.profile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Replays a recorded per-minute trace. Values are fractions of the nominal output and the trace
+ * repeats once it runs out.
+ */
+public class TraceProfile extends PowerProfile {
+    private final double[] values;
+
+    public TraceProfile(double[] values) {
+        this.values = values.clone();
+    }
+
+    /**
+     * Reads one value per line. The value is taken from the last column, so both plain value lists
+     * and "minute,value" files work; a non-numeric header line is skipped.
+     */
+    public static TraceProfile fromCsv(Path file) throws IOException {
+        double[] values = new double[1024];
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            boolean first = true;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String column = line.substring(line.lastIndexOf(',') + 1).trim();
+                double value;
+                try {
+                    value = Double.parseDouble(column);
+                } catch (NumberFormatException e) {
+                    if (first) {
+                        first = false;
+                        continue;
+                    }
+                    throw new IOException("Invalid value in trace " + file + ": " + line, e);
+                }
+                first = false;
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, count * 2);
+                }
+                values[count++] = value;
+            }
+        }
+        if (count == 0) {
+            throw new IOException("Trace file is empty: " + file);
+        }
+        return new TraceProfile(Arrays.copyOf(values, count));
+    }
+
+    @Override
+    protected double[] computeTable() {
+        return values;
+    }
+}
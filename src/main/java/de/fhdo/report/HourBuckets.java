@@ -0,0 +1,71 @@
+package de.fhdo.report;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Event counts and amounts of one entity keyed by {@code yyyyMMddHH}. Log lines arrive in time order,
+ * so the bucket of the previous line is remembered and almost every line is added without a lookup.
+ */
+class HourBuckets {
+    static final class Bucket {
+        long events;
+        double amount;
+    }
+
+    /** Latest year whose keys still fit in an int. */
+    static final int MAX_YEAR = 2147;
+
+    private final TreeMap<Integer, Bucket> buckets = new TreeMap<>();
+    private int lastKey = -1;
+    private Bucket last;
+
+    /**
+     * Whether the values name a real hour that {@link #keyOf} can encode, so {@link #dateOf} never fails
+     * on a key built from them.
+     */
+    static boolean isValid(int year, int month, int day, int hour) {
+        return year >= 0 && year <= MAX_YEAR
+                && month >= 1 && month <= 12
+                && day >= 1 && day <= Month.of(month).length(Year.isLeap(year))
+                && hour >= 0 && hour <= 23;
+    }
+
+    static int keyOf(int year, int month, int day, int hour) {
+        return ((year * 100 + month) * 100 + day) * 100 + hour;
+    }
+
+    static LocalDate dateOf(int key) {
+        int date = key / 100;
+        return LocalDate.of(date / 10_000, date / 100 % 100, date % 100);
+    }
+
+    static int hourOf(int key) {
+        return key % 100;
+    }
+
+    void add(int key, double amount) {
+        if (key != lastKey) {
+            last = buckets.computeIfAbsent(key, k -> new Bucket());
+            lastKey = key;
+        }
+        last.events++;
+        last.amount += amount;
+    }
+
+    void addAll(HourBuckets other) {
+        for (Map.Entry<Integer, Bucket> entry : other.buckets.entrySet()) {
+            Bucket bucket = buckets.computeIfAbsent(entry.getKey(), k -> new Bucket());
+            bucket.events += entry.getValue().events;
+            bucket.amount += entry.getValue().amount;
+        }
+        lastKey = -1;
+    }
+
+    TreeMap<Integer, Bucket> getBuckets() {
+        return buckets;
+    }
+}
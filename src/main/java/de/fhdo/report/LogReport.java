@@ -0,0 +1,174 @@
+package de.fhdo.report;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import de.fhdo.service.LogManager;
+import lombok.Getter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Events and amounts per entity, day and hour, aggregated from the text logs by {@link LogReportGenerator}.
+ * <p>
+ * The amount is the sum of the energy figures the log lines carry, which are the charged and discharged
+ * amounts in battery and energy source logs. Device lines only record that power was drawn, so device
+ * rows count events; the energy ledger has the amounts for those.
+ */
+public class LogReport {
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    public record Entity(LogManager.Category category, String name) {
+    }
+
+    /**
+     * @param hour hour of the day, or -1 in a daily row
+     */
+    public record Row(LogManager.Category category, String entity, LocalDate date, int hour, long events, double amount) {
+    }
+
+    record HourView(int hour, long events, double amount) {
+    }
+
+    record DayView(String date, long events, double amount, List<HourView> hours) {
+    }
+
+    record EntityView(LogManager.Category category, String name, long events, double amount, List<DayView> days) {
+    }
+
+    record ReportView(long files, long lines, long bytes, long durationMillis, List<EntityView> entities) {
+    }
+
+    private final Map<Entity, HourBuckets> entities;
+    @Getter
+    private final long files;
+    @Getter
+    private final long lines;
+    @Getter
+    private final long bytes;
+    @Getter
+    private final long durationMillis;
+
+    LogReport(Map<Entity, HourBuckets> entities, long files, long lines, long bytes, long durationMillis) {
+        this.entities = entities;
+        this.files = files;
+        this.lines = lines;
+        this.bytes = bytes;
+        this.durationMillis = durationMillis;
+    }
+
+    public int getEntityCount() {
+        return entities.size();
+    }
+
+    public List<Row> hourlyRows() {
+        List<Row> rows = new ArrayList<>();
+        entities.forEach((entity, buckets) -> buckets.getBuckets().forEach((key, bucket) ->
+                rows.add(new Row(entity.category(), entity.name(), HourBuckets.dateOf(key), HourBuckets.hourOf(key),
+                        bucket.events, bucket.amount))));
+        return rows;
+    }
+
+    public List<Row> dailyRows() {
+        List<Row> rows = new ArrayList<>();
+        entities.forEach((entity, buckets) -> {
+            Row day = null;
+            for (Map.Entry<Integer, HourBuckets.Bucket> entry : buckets.getBuckets().entrySet()) {
+                LocalDate date = HourBuckets.dateOf(entry.getKey());
+                HourBuckets.Bucket bucket = entry.getValue();
+                if (day != null && day.date().equals(date)) {
+                    day = new Row(day.category(), day.entity(), date, -1, day.events() + bucket.events, day.amount() + bucket.amount);
+                } else {
+                    if (day != null) {
+                        rows.add(day);
+                    }
+                    day = new Row(entity.category(), entity.name(), date, -1, bucket.events, bucket.amount);
+                }
+            }
+            if (day != null) {
+                rows.add(day);
+            }
+        });
+        return rows;
+    }
+
+    /**
+     * Writes one row per entity and hour, or per entity and day.
+     */
+    public void writeCsv(Path file, boolean daily) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(daily ? "category,entity,date,events,amount" : "category,entity,date,hour,events,amount");
+            writer.newLine();
+            for (Row row : daily ? dailyRows() : hourlyRows()) {
+                writer.write(row.category().getValue());
+                writer.write(',');
+                writer.write(csvField(row.entity()));
+                writer.write(',');
+                writer.write(row.date().toString());
+                if (!daily) {
+                    writer.write(',');
+                    writer.write(Integer.toString(row.hour()));
+                }
+                writer.write(',');
+                writer.write(Long.toString(row.events()));
+                writer.write(',');
+                writer.write(String.format(Locale.ROOT, "%.2f", row.amount()));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Writes every entity with its days and, within each day, its hours.
+     */
+    public void writeJson(Path file) throws IOException {
+        List<EntityView> views = new ArrayList<>(entities.size());
+        entities.forEach((entity, buckets) -> {
+            List<DayView> days = new ArrayList<>();
+            long events = 0;
+            double amount = 0;
+            LocalDate date = null;
+            List<HourView> hours = null;
+            long dayEvents = 0;
+            double dayAmount = 0;
+            for (Map.Entry<Integer, HourBuckets.Bucket> entry : buckets.getBuckets().entrySet()) {
+                LocalDate bucketDate = HourBuckets.dateOf(entry.getKey());
+                HourBuckets.Bucket bucket = entry.getValue();
+                if (!bucketDate.equals(date)) {
+                    if (date != null) {
+                        days.add(new DayView(date.toString(), dayEvents, dayAmount, hours));
+                    }
+                    date = bucketDate;
+                    hours = new ArrayList<>();
+                    dayEvents = 0;
+                    dayAmount = 0;
+                }
+                hours.add(new HourView(HourBuckets.hourOf(entry.getKey()), bucket.events, bucket.amount));
+                dayEvents += bucket.events;
+                dayAmount += bucket.amount;
+                events += bucket.events;
+                amount += bucket.amount;
+            }
+            if (date != null) {
+                days.add(new DayView(date.toString(), dayEvents, dayAmount, hours));
+            }
+            views.add(new EntityView(entity.category(), entity.name(), events, amount, days));
+        });
+        MAPPER.writeValue(file.toFile(), new ReportView(files, lines, bytes, durationMillis, views));
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,278 @@
+package de.fhdo.report;
+
+import de.fhdo.service.LogManager;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Aggregates the text logs written by {@link LogManager} into a {@link LogReport}.
+ * <p>
+ * Files are split into chunks that are memory-mapped and parsed in parallel on the fork-join pool, so
+ * large log directories are read at disk speed. A chunk owns every line that starts inside it; lines
+ * crossing its end are read from the mapped overlap. Lines are parsed on the raw bytes: the hour comes
+ * from fixed positions of the {@code [yyyy-MM-dd HH:mm:ss]} timestamp and amounts from the
+ * {@code Charged}/{@code Discharged} figures, without building a string per line.
+ * <p>
+ * The combined {@code system_<date>.log} files repeat every other log and are skipped.
+ */
+@Slf4j
+public class LogReportGenerator {
+    static final long DEFAULT_CHUNK_BYTES = 32L * 1024 * 1024;
+    /** Longest line a chunk reads past its end; longer lines are cut off. */
+    static final int MAX_LINE_BYTES = 64 * 1024;
+    private static final DateTimeFormatter FILE_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final String COMBINED_SYSTEM_LOG = "system_";
+    private static final byte[] AMOUNT_MARKER = "harged ".getBytes();
+    private static final Comparator<LogReport.Entity> ENTITY_ORDER =
+            Comparator.comparing(LogReport.Entity::category).thenComparing(LogReport.Entity::name);
+
+    private record Chunk(LogReport.Entity entity, Path file, long start, long end, long size) {
+    }
+
+    private record Partial(LogReport.Entity entity, HourBuckets buckets, long lines) {
+    }
+
+    private final ForkJoinPool pool;
+    private final long chunkBytes;
+
+    public LogReportGenerator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public LogReportGenerator(ForkJoinPool pool) {
+        this(pool, DEFAULT_CHUNK_BYTES);
+    }
+
+    LogReportGenerator(ForkJoinPool pool, long chunkBytes) {
+        this.pool = pool;
+        this.chunkBytes = chunkBytes;
+    }
+
+    public LogReport generate(Path logDir) throws IOException {
+        return generate(logDir, null, null);
+    }
+
+    /**
+     * @param from first day to include, or null for no lower bound
+     * @param to   last day to include, or null for no upper bound
+     */
+    public LogReport generate(Path logDir, LocalDate from, LocalDate to) throws IOException {
+        long start = System.nanoTime();
+        List<Chunk> chunks = new ArrayList<>();
+        long files = 0;
+        long bytes = 0;
+        for (LogManager.Category category : LogManager.Category.values()) {
+            Path categoryDir = logDir.resolve(category.getValue());
+            if (!Files.isDirectory(categoryDir)) {
+                continue;
+            }
+            try (Stream<Path> paths = Files.list(categoryDir)) {
+                for (Path file : paths.sorted().toList()) {
+                    LogReport.Entity entity = entityOf(category, file, from, to);
+                    if (entity == null) {
+                        continue;
+                    }
+                    long size = Files.size(file);
+                    files++;
+                    bytes += size;
+                    for (long offset = 0; offset < size; offset += chunkBytes) {
+                        chunks.add(new Chunk(entity, file, offset, Math.min(size, offset + chunkBytes), size));
+                    }
+                }
+            }
+        }
+        log.info("Reading {} log files ({} bytes) in {} chunks", files, bytes, chunks.size());
+
+        List<Partial> partials;
+        try {
+            partials = pool.submit(() -> chunks.parallelStream()
+                    .map(LogReportGenerator::parse)
+                    .toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Log report interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw new IllegalStateException("Log report failed", e.getCause());
+        }
+
+        Map<LogReport.Entity, HourBuckets> entities = new TreeMap<>(ENTITY_ORDER);
+        long lines = 0;
+        for (Partial partial : partials) {
+            entities.computeIfAbsent(partial.entity, e -> new HourBuckets()).addAll(partial.buckets);
+            lines += partial.lines;
+        }
+        long durationMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Aggregated {} lines of {} entities in {} ms", lines, entities.size(), durationMillis);
+        return new LogReport(entities, files, lines, bytes, durationMillis);
+    }
+
+    /**
+     * The entity a log file belongs to, or null when it is not a per-entity log or outside the days.
+     */
+    private static LogReport.Entity entityOf(LogManager.Category category, Path file, LocalDate from, LocalDate to) {
+        String fileName = file.getFileName().toString();
+        int separator = fileName.lastIndexOf('_');
+        if (!fileName.endsWith(".log") || separator <= 0
+                || category == LogManager.Category.SYSTEM && fileName.startsWith(COMBINED_SYSTEM_LOG)) {
+            return null;
+        }
+        if (from != null || to != null) {
+            try {
+                LocalDate date = LocalDate.parse(fileName.substring(separator + 1, fileName.length() - ".log".length()), FILE_DATE);
+                if (from != null && date.isBefore(from) || to != null && date.isAfter(to)) {
+                    return null;
+                }
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+        return new LogReport.Entity(category, fileName.substring(0, separator));
+    }
+
+    private static Partial parse(Chunk chunk) {
+        HourBuckets buckets = new HourBuckets();
+        long lines = 0;
+        // One byte before the chunk tells whether it starts on a line of its own
+        long mapStart = Math.max(0, chunk.start - 1);
+        long mapEnd = Math.min(chunk.size, chunk.end + MAX_LINE_BYTES);
+        try (FileChannel channel = FileChannel.open(chunk.file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapEnd - mapStart);
+            int limit = buffer.limit();
+            int ownedEnd = (int) (chunk.end - mapStart);
+            int position = 0;
+            if (chunk.start > 0) {
+                // Skip the rest of a line the previous chunk owns
+                while (position < limit && buffer.get(position++) != '\n') {
+                }
+            }
+            while (position < ownedEnd && position < limit) {
+                int lineEnd = position;
+                while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                parseLine(buffer, position, lineEnd, buckets);
+                lines++;
+                position = lineEnd + 1;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read log file " + chunk.file, e);
+        }
+        return new Partial(chunk.entity, buckets, lines);
+    }
+
+    private static void parseLine(MappedByteBuffer buffer, int start, int end, HourBuckets buckets) {
+        // [yyyy-MM-dd HH:mm:ss] message
+        if (end - start < 21 || buffer.get(start) != '[' || buffer.get(start + 20) != ']') {
+            return;
+        }
+        int year = digits(buffer, start + 1, 4);
+        int month = digits(buffer, start + 6, 2);
+        int day = digits(buffer, start + 9, 2);
+        int hour = digits(buffer, start + 12, 2);
+        if (!HourBuckets.isValid(year, month, day, hour)) {
+            return;
+        }
+        buckets.add(HourBuckets.keyOf(year, month, day, hour), amount(buffer, start + 21, end));
+    }
+
+    private static int digits(MappedByteBuffer buffer, int position, int count) {
+        int value = 0;
+        for (int i = position; i < position + count; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * The figure after "Charged " or "Discharged " in a message, or 0. Both separators are accepted since
+     * the figures are formatted in the default locale.
+     */
+    private static double amount(MappedByteBuffer buffer, int start, int end) {
+        int marker = indexOf(buffer, start, end, AMOUNT_MARKER);
+        if (marker < 0) {
+            return 0;
+        }
+        int position = marker + AMOUNT_MARKER.length;
+        boolean negative = position < end && buffer.get(position) == '-';
+        if (negative) {
+            position++;
+        }
+        long mantissa = 0;
+        long scale = 0;
+        boolean any = false;
+        for (; position < end; position++) {
+            byte b = buffer.get(position);
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                if (scale > 0) {
+                    scale *= 10;
+                }
+                any = true;
+            } else if ((b == '.' || b == ',') && scale == 0) {
+                scale = 1;
+            } else {
+                break;
+            }
+        }
+        if (!any) {
+            return 0;
+        }
+        double value = scale == 0 ? mantissa : (double) mantissa / scale;
+        return negative ? -value : value;
+    }
+
+    private static int indexOf(MappedByteBuffer buffer, int start, int end, byte[] pattern) {
+        outer:
+        for (int i = start; i <= end - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (buffer.get(i + j) != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Writes the reports of a log directory: {@code [logDir] [outDir]}, defaulting to {@code logs} and
+     * {@code reports}.
+     */
+    public static void main(String[] args) throws IOException {
+        Path logDir = Paths.get(args.length > 0 ? args[0] : "logs");
+        Path outDir = Paths.get(args.length > 1 ? args[1] : "reports");
+        Files.createDirectories(outDir);
+
+        LogReport report = new LogReportGenerator().generate(logDir);
+        report.writeCsv(outDir.resolve("hourly.csv"), false);
+        report.writeCsv(outDir.resolve("daily.csv"), true);
+        report.writeJson(outDir.resolve("report.json"));
+        log.info("Wrote reports of {} entities to {}", report.getEntityCount(), outDir);
+    }
+}
@@ -0,0 +1,28 @@
+package de.fhdo.service;
+
+import lombok.Value;
+
+/**
+ * A condition raised or resolved by the {@link AlertEngine}. House-wide alerts have no entity id.
+ */
+@Value
+public class Alert {
+    Type type;
+    String entityId;
+    String message;
+    boolean active;
+    long timeMillis;
+
+    public enum Type {
+        /** A battery's charge dropped below the configured share of its capacity. */
+        LOW_CHARGE,
+        /** Consumption exceeded the total battery charge for longer than the configured time. */
+        SUSTAINED_OVERLOAD,
+        /** An energy source that was producing went inactive. */
+        SOURCE_OFFLINE,
+        /** A charging battery is held back by its maximum charge rate while more power is available. */
+        CHARGE_RATE_SATURATION,
+        /** A battery is forecast to run empty within the configured time. */
+        DEPLETION_FORECAST
+    }
+}
@@ -0,0 +1,421 @@
+package de.fhdo.service;
+
+import de.fhdo.model.Battery;
+import de.fhdo.model.Energy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Raises and resolves {@link Alert}s from the house state.
+ * <p>
+ * Rules are evaluated incrementally: a battery event re-checks only that battery, an energy event only
+ * the affected source and the charging batteries, and the total battery charge is kept up to date from
+ * the events instead of being summed on every check. Only the sustained overload needs a clock, since
+ * consumption follows the load profiles over time; {@link #tick()} checks it in constant time.
+ * <p>
+ * An alert is reported once when raised and once when resolved. Notifications are rate limited per
+ * alert type; suppressed ones are counted and mentioned in the next notification that gets through.
+ */
+@Slf4j
+public class AlertEngine {
+    static final String LOG_NAME = "System Monitor";
+
+    private final DeviceManager deviceManager;
+    private final EnergyManager energyManager;
+    private final LogManager logManager;
+    private final BatteryForecaster forecaster;
+    private final LongSupplier clock;
+    private final List<Consumer<Alert>> listeners = new CopyOnWriteArrayList<>();
+
+    // Everything below is guarded by this
+    private AlertRules rules;
+    private final Map<String, ActiveAlert> active = new LinkedHashMap<>();
+    private final Map<String, Double> charges = new HashMap<>();
+    private double totalCharge;
+    private final Set<String> chargingBatteries = new HashSet<>();
+    private final Map<String, Boolean> energyActive = new HashMap<>();
+    private final Map<Alert.Type, RateLimiter> limiters = new EnumMap<>(Alert.Type.class);
+    private long overloadSince = -1;
+    private double batchGeneration = Double.NaN;
+    private EventBus.Subscription subscription;
+
+    private static final class ActiveAlert {
+        private final Alert alert;
+        private boolean notified;
+
+        private ActiveAlert(Alert alert) {
+            this.alert = alert;
+        }
+    }
+
+    /**
+     * Token bucket refilled continuously up to one minute's worth of notifications.
+     */
+    private static final class RateLimiter {
+        private double tokens;
+        private long lastRefill;
+        private int suppressed;
+
+        private RateLimiter(int perMinute, long now) {
+            this.tokens = perMinute;
+            this.lastRefill = now;
+        }
+
+        private boolean tryAcquire(int perMinute, long now) {
+            tokens = Math.min(perMinute, tokens + (now - lastRefill) * perMinute / 60_000.0);
+            lastRefill = now;
+            if (tokens >= 1) {
+                tokens--;
+                return true;
+            }
+            suppressed++;
+            return false;
+        }
+    }
+
+    /**
+     * @param forecaster source of the depletion forecasts, or null to skip that rule
+     */
+    public AlertEngine(DeviceManager deviceManager, EnergyManager energyManager, LogManager logManager,
+                       BatteryForecaster forecaster, AlertRules rules) {
+        this(deviceManager, energyManager, logManager, forecaster, rules, System::currentTimeMillis);
+    }
+
+    AlertEngine(DeviceManager deviceManager, EnergyManager energyManager, LogManager logManager,
+                BatteryForecaster forecaster, AlertRules rules, LongSupplier clock) {
+        this.deviceManager = deviceManager;
+        this.energyManager = energyManager;
+        this.logManager = logManager;
+        this.forecaster = forecaster;
+        this.rules = rules;
+        this.clock = clock;
+    }
+
+    /**
+     * Evaluates the whole house once and from then on follows its changes.
+     */
+    public synchronized void start() {
+        if (subscription != null) {
+            return;
+        }
+        evaluateAll();
+        subscription = deviceManager.getEventBus().subscribe(this::onEvents);
+    }
+
+    public synchronized void stop() {
+        if (subscription != null) {
+            subscription.close();
+            subscription = null;
+        }
+    }
+
+    public void addListener(Consumer<Alert> listener) {
+        listeners.add(listener);
+    }
+
+    public synchronized AlertRules getRules() {
+        return rules;
+    }
+
+    /**
+     * Replaces the rules. Alerts of types that are no longer enabled are dropped silently and everything
+     * is evaluated again against the new thresholds.
+     */
+    public synchronized void setRules(AlertRules rules) {
+        this.rules = rules;
+        active.values().removeIf(state -> !rules.isEnabled(state.alert.getType()));
+        evaluateAll();
+    }
+
+    public synchronized List<Alert> getActiveAlerts() {
+        List<Alert> alerts = new ArrayList<>(active.size());
+        active.values().forEach(state -> alerts.add(state.alert));
+        return alerts;
+    }
+
+    /**
+     * Periodic check of the rules that depend on time rather than on state changes. Besides the overload
+     * this re-checks batteries with a depletion alert, whose forecast recovers once they stop draining
+     * even though their charge no longer changes.
+     */
+    public synchronized void tick() {
+        evaluateOverload();
+        for (ActiveAlert state : List.copyOf(active.values())) {
+            if (state.alert.getType() == Alert.Type.DEPLETION_FORECAST) {
+                Battery battery = findBattery(state.alert.getEntityId());
+                if (battery != null) {
+                    evaluateDepletion(battery);
+                }
+            }
+        }
+    }
+
+    synchronized void onEvents(List<HouseEvent> events) {
+        batchGeneration = Double.NaN;
+        boolean consumptionChanged = false;
+        boolean generationChanged = false;
+        for (HouseEvent event : events) {
+            if (event instanceof HouseEvent.DeviceToggled || event instanceof HouseEvent.DeviceSetChanged) {
+                consumptionChanged = true;
+            } else if (event instanceof HouseEvent.EnergyToggled toggled) {
+                energyToggled(toggled);
+                generationChanged = true;
+            } else if (event instanceof HouseEvent.EnergySetChanged) {
+                reloadEnergies();
+                generationChanged = true;
+            } else if (event instanceof HouseEvent.BatteryChanged changed) {
+                batteryChanged(changed);
+                consumptionChanged = true;
+            } else if (event instanceof HouseEvent.BatterySetChanged) {
+                reloadBatteries();
+                consumptionChanged = true;
+            } else if (event instanceof HouseEvent.Resync) {
+                evaluateAll();
+                return;
+            }
+        }
+        if (generationChanged) {
+            for (String batteryId : List.copyOf(chargingBatteries)) {
+                Battery battery = findBattery(batteryId);
+                if (battery != null) {
+                    evaluateSaturation(battery);
+                }
+            }
+        }
+        if (consumptionChanged) {
+            evaluateOverload();
+        }
+    }
+
+    private void evaluateAll() {
+        batchGeneration = Double.NaN;
+        reloadEnergies();
+        reloadBatteries();
+        evaluateOverload();
+    }
+
+    private void reloadEnergies() {
+        energyActive.clear();
+        for (Energy energy : energyManager.getAllEnergies()) {
+            energyActive.put(energy.getId(), energy.isActive());
+            if (energy.isActive()) {
+                resolve(Alert.Type.SOURCE_OFFLINE, energy.getId(),
+                        String.format("RESOLVED SOURCE OFFLINE: Energy source %s is active again", energy.getName()));
+            }
+        }
+        dropMissing(Alert.Type.SOURCE_OFFLINE, energyActive.keySet());
+    }
+
+    private void energyToggled(HouseEvent.EnergyToggled event) {
+        Boolean wasActive = energyActive.put(event.energyId(), event.active());
+        Energy energy = findEnergy(event.energyId());
+        if (energy == null) {
+            return;
+        }
+        if (event.active()) {
+            resolve(Alert.Type.SOURCE_OFFLINE, energy.getId(),
+                    String.format("RESOLVED SOURCE OFFLINE: Energy source %s is active again", energy.getName()));
+        } else if (Boolean.TRUE.equals(wasActive)) {
+            raise(Alert.Type.SOURCE_OFFLINE, energy.getId(),
+                    String.format("SOURCE OFFLINE: Energy source %s stopped producing", energy.getName()));
+        }
+    }
+
+    private void reloadBatteries() {
+        charges.clear();
+        chargingBatteries.clear();
+        totalCharge = 0;
+        for (Battery battery : energyManager.getAllBatteries()) {
+            charges.put(battery.getId(), battery.getCurrentCharge());
+            totalCharge += battery.getCurrentCharge();
+            if (battery.isCharging()) {
+                chargingBatteries.add(battery.getId());
+            }
+            evaluateLowCharge(battery);
+            evaluateSaturation(battery);
+            evaluateDepletion(battery);
+        }
+        dropMissing(Alert.Type.LOW_CHARGE, charges.keySet());
+        dropMissing(Alert.Type.DEPLETION_FORECAST, charges.keySet());
+        dropMissing(Alert.Type.CHARGE_RATE_SATURATION, charges.keySet());
+    }
+
+    private void batteryChanged(HouseEvent.BatteryChanged event) {
+        Battery battery = findBattery(event.batteryId());
+        if (battery == null) {
+            // Removed meanwhile; the set change that follows cleans up
+            return;
+        }
+        Double previous = charges.put(event.batteryId(), event.charge());
+        totalCharge += event.charge() - (previous == null ? 0 : previous);
+        if (event.charging()) {
+            chargingBatteries.add(event.batteryId());
+        } else {
+            chargingBatteries.remove(event.batteryId());
+        }
+        evaluateLowCharge(battery);
+        evaluateSaturation(battery);
+        evaluateDepletion(battery);
+    }
+
+    private void evaluateLowCharge(Battery battery) {
+        if (battery.getCapacity() <= 0) {
+            return;
+        }
+        double ratio = battery.getCurrentCharge() / battery.getCapacity();
+        String key = key(Alert.Type.LOW_CHARGE, battery.getId());
+        if (!active.containsKey(key) && ratio < rules.getLowChargeRatio()) {
+            raise(Alert.Type.LOW_CHARGE, battery.getId(), String.format("LOW CHARGE: Battery %s at %.1f%% (%.2f/%.2f units)",
+                    battery.getName(), ratio * 100, battery.getCurrentCharge(), battery.getCapacity()));
+        } else if (ratio >= rules.getLowChargeClearRatio()) {
+            resolve(Alert.Type.LOW_CHARGE, battery.getId(), String.format("RESOLVED LOW CHARGE: Battery %s recovered to %.1f%%",
+                    battery.getName(), ratio * 100));
+        }
+    }
+
+    private void evaluateSaturation(Battery battery) {
+        double rate = battery.getMaxChargeRate();
+        if (!battery.isCharging() || rate <= 0) {
+            resolve(Alert.Type.CHARGE_RATE_SATURATION, battery.getId(),
+                    String.format("RESOLVED CHARGE RATE SATURATED: Battery %s", battery.getName()));
+            return;
+        }
+        double available = generation();
+        if (available > rate) {
+            raise(Alert.Type.CHARGE_RATE_SATURATION, battery.getId(),
+                    String.format("CHARGE RATE SATURATED: Battery %s limited to %.2f units while %.2f units are available",
+                            battery.getName(), rate, available));
+        } else if (available < rate * rules.getSaturationClearRatio()) {
+            resolve(Alert.Type.CHARGE_RATE_SATURATION, battery.getId(),
+                    String.format("RESOLVED CHARGE RATE SATURATED: Battery %s", battery.getName()));
+        }
+    }
+
+    private void evaluateDepletion(Battery battery) {
+        if (forecaster == null) {
+            return;
+        }
+        BatteryForecast forecast = forecaster.forecast(battery);
+        double toEmpty = forecast.getSecondsToEmpty();
+        if (toEmpty < rules.getDepletionWarningSeconds()) {
+            raise(Alert.Type.DEPLETION_FORECAST, battery.getId(), String.format("DEPLETION FORECAST: Battery %s expected to run empty in %s",
+                    battery.getName(), BatteryForecast.formatSeconds(toEmpty)));
+        } else if (toEmpty > rules.getDepletionClearSeconds()) {
+            resolve(Alert.Type.DEPLETION_FORECAST, battery.getId(),
+                    String.format("RESOLVED DEPLETION FORECAST: Battery %s", battery.getName()));
+        }
+    }
+
+    /**
+     * Computed at most once per event batch.
+     */
+    private double generation() {
+        if (Double.isNaN(batchGeneration)) {
+            batchGeneration = energyManager.getCurrentTotalGeneration();
+        }
+        return batchGeneration;
+    }
+
+    private void evaluateOverload() {
+        double consumption = deviceManager.getCurrentTotalConsumption();
+        long now = clock.getAsLong();
+        if (consumption > totalCharge) {
+            if (overloadSince < 0) {
+                overloadSince = now;
+            }
+            if (now - overloadSince >= rules.getOverloadSustainMillis()) {
+                raise(Alert.Type.SUSTAINED_OVERLOAD, null, String.format(
+                        "POWER WARNING: Consumption %.2f units exceeds total battery charge %.2f", consumption, totalCharge));
+            }
+            return;
+        }
+        overloadSince = -1;
+        if (consumption <= totalCharge * rules.getOverloadClearRatio()) {
+            resolve(Alert.Type.SUSTAINED_OVERLOAD, null, String.format(
+                    "RESOLVED POWER WARNING: Consumption %.2f units is within total battery charge %.2f", consumption, totalCharge));
+        }
+    }
+
+    private void raise(Alert.Type type, String entityId, String message) {
+        String key = key(type, entityId);
+        if (!rules.isEnabled(type) || active.containsKey(key)) {
+            return;
+        }
+        ActiveAlert state = new ActiveAlert(new Alert(type, entityId, message, true, clock.getAsLong()));
+        active.put(key, state);
+        state.notified = notify(state.alert);
+    }
+
+    private void resolve(Alert.Type type, String entityId, String message) {
+        ActiveAlert state = active.remove(key(type, entityId));
+        // A raise nobody heard of needs no all-clear
+        if (state != null && state.notified) {
+            notify(new Alert(type, entityId, message, false, clock.getAsLong()));
+        }
+    }
+
+    private void dropMissing(Alert.Type type, Set<String> existingIds) {
+        active.values().removeIf(state -> state.alert.getType() == type && !existingIds.contains(state.alert.getEntityId()));
+    }
+
+    private boolean notify(Alert alert) {
+        long now = alert.getTimeMillis();
+        int perMinute = rules.getMaxNotificationsPerMinute();
+        RateLimiter limiter = limiters.computeIfAbsent(alert.getType(), type -> new RateLimiter(perMinute, now));
+        if (alert.isActive() && !limiter.tryAcquire(perMinute, now)) {
+            return false;
+        }
+
+        String message = alert.getMessage();
+        if (limiter.suppressed > 0) {
+            message += String.format(" (%d similar alerts suppressed)", limiter.suppressed);
+            limiter.suppressed = 0;
+            alert = new Alert(alert.getType(), alert.getEntityId(), message, alert.isActive(), alert.getTimeMillis());
+        }
+        if (alert.isActive()) {
+            log.warn(message);
+        } else {
+            log.info(message);
+        }
+        logManager.logEvent(LogManager.Category.SYSTEM, LOG_NAME, message);
+        for (Consumer<Alert> listener : listeners) {
+            try {
+                listener.accept(alert);
+            } catch (RuntimeException e) {
+                log.error("Alert listener failed", e);
+            }
+        }
+        return true;
+    }
+
+    private Battery findBattery(String batteryId) {
+        try {
+            return energyManager.getBatteryById(batteryId);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private Energy findEnergy(String energyId) {
+        try {
+            return energyManager.getEnergyById(energyId);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String key(Alert.Type type, String entityId) {
+        return entityId == null ? type.name() : type.name() + ':' + entityId;
+    }
+}
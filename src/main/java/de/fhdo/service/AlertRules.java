@@ -0,0 +1,53 @@
+package de.fhdo.service;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Thresholds of the {@link AlertEngine}. Every rule raises at one threshold and clears at a second,
+ * more relaxed one, so a value hovering around the limit does not flap.
+ */
+@Value
+@Builder(toBuilder = true)
+public class AlertRules {
+    public static final AlertRules DEFAULT = AlertRules.builder().build();
+
+    @Builder.Default
+    Set<Alert.Type> enabled = EnumSet.allOf(Alert.Type.class);
+
+    /** Share of capacity below which a battery counts as low. */
+    @Builder.Default
+    double lowChargeRatio = 0.2;
+    /** Share of capacity a low battery has to reach again before the alert clears. */
+    @Builder.Default
+    double lowChargeClearRatio = 0.25;
+
+    /** How long consumption has to exceed the total charge before the overload alert is raised. */
+    @Builder.Default
+    long overloadSustainMillis = 3000;
+    /** The overload clears once consumption drops below this share of the total charge. */
+    @Builder.Default
+    double overloadClearRatio = 0.9;
+
+    /** The saturation alert clears once the available power drops below this share of the charge rate. */
+    @Builder.Default
+    double saturationClearRatio = 0.9;
+
+    /** A battery forecast to run empty within this time raises the depletion alert. */
+    @Builder.Default
+    double depletionWarningSeconds = 600;
+    /** The depletion alert clears once the forecast time to empty is back above this. */
+    @Builder.Default
+    double depletionClearSeconds = 900;
+
+    /** Notifications per alert type and minute; the rest are counted and reported with the next one. */
+    @Builder.Default
+    int maxNotificationsPerMinute = 10;
+
+    public boolean isEnabled(Alert.Type type) {
+        return enabled.contains(type);
+    }
+}
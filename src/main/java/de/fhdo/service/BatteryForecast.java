@@ -0,0 +1,49 @@
+package de.fhdo.service;
+
+import lombok.Value;
+
+/**
+ * Expected development of one battery's charge. Times are infinite when the battery is not heading
+ * that way.
+ */
+@Value
+public class BatteryForecast {
+    String batteryId;
+    /** Units per second, positive while the charge grows. */
+    double rate;
+    double secondsToEmpty;
+    double secondsToFull;
+    /** Whether the rate comes from observed history rather than from the configured rates alone. */
+    boolean observed;
+
+    public boolean isDepleting() {
+        return secondsToEmpty < Double.POSITIVE_INFINITY;
+    }
+
+    public boolean isFilling() {
+        return secondsToFull < Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Short human readable form such as "1h 05m" or "42s", or "-" for an infinite time.
+     */
+    public static String formatSeconds(double seconds) {
+        if (seconds == Double.POSITIVE_INFINITY) {
+            return "-";
+        }
+        long total = Math.round(seconds);
+        if (total >= 3600) {
+            return String.format("%dh %02dm", total / 3600, total % 3600 / 60);
+        }
+        if (total >= 60) {
+            return String.format("%dm %02ds", total / 60, total % 60);
+        }
+        return total + "s";
+    }
+
+    static BatteryForecast of(String batteryId, double rate, double charge, double capacity, boolean observed) {
+        double toEmpty = rate < 0 ? Math.max(0, charge) / -rate : Double.POSITIVE_INFINITY;
+        double toFull = rate > 0 ? Math.max(0, capacity - charge) / rate : Double.POSITIVE_INFINITY;
+        return new BatteryForecast(batteryId, rate, toEmpty, toFull, observed);
+    }
+}
@@ -0,0 +1,190 @@
+package de.fhdo.service;
+
+import de.fhdo.model.Battery;
+import de.fhdo.model.Energy;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Estimates when batteries run empty or full.
+ * <p>
+ * Every battery keeps a sliding window of recent charge samples with running sums, so adding a sample
+ * and reading the least-squares slope both cost O(1). Until a battery has enough history, and right
+ * after it starts or stops charging, the rate is derived from the configured charge rates and the
+ * current consumption instead.
+ */
+public class BatteryForecaster {
+    public static final int DEFAULT_WINDOW_SAMPLES = 60;
+    /** Samples needed before the observed trend replaces the configured rates. */
+    static final int MIN_SAMPLES = 5;
+
+    private final DeviceManager deviceManager;
+    private final EnergyManager energyManager;
+    private final int windowSamples;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    /**
+     * Charge samples of one battery. Times are kept in seconds relative to an origin that moves along
+     * with the window, which keeps the sums small enough for the subtraction in the slope to stay exact.
+     */
+    private static final class Window {
+        private final double[] times;
+        private final double[] charges;
+        private int head;
+        private int count;
+        private long origin = -1;
+        private boolean charging;
+        private double sumT;
+        private double sumC;
+        private double sumTT;
+        private double sumTC;
+
+        private Window(int size) {
+            times = new double[size];
+            charges = new double[size];
+        }
+
+        synchronized void add(long timeMillis, double charge, boolean charging) {
+            if (count > 0 && charging != this.charging) {
+                // A different regime; the old trend says nothing about the new one
+                count = 0;
+                head = 0;
+                origin = -1;
+                sumT = sumC = sumTT = sumTC = 0;
+            }
+            this.charging = charging;
+            if (origin < 0) {
+                origin = timeMillis;
+            }
+
+            double t = (timeMillis - origin) / 1000.0;
+            if (count == times.length) {
+                double oldT = times[head];
+                double oldC = charges[head];
+                sumT -= oldT;
+                sumC -= oldC;
+                sumTT -= oldT * oldT;
+                sumTC -= oldT * oldC;
+            } else {
+                count++;
+            }
+            times[head] = t;
+            charges[head] = charge;
+            sumT += t;
+            sumC += charge;
+            sumTT += t * t;
+            sumTC += t * charge;
+            head = (head + 1) % times.length;
+
+            if (head == 0 && count == times.length) {
+                rebase();
+            }
+        }
+
+        /**
+         * Moves the origin to the oldest sample and recomputes the sums, once per window length, so the
+         * cost stays O(1) amortized and rounding errors cannot pile up.
+         */
+        private void rebase() {
+            double shift = times[head];
+            origin += (long) (shift * 1000);
+            sumT = sumC = sumTT = sumTC = 0;
+            for (int i = 0; i < count; i++) {
+                double t = times[i] - shift;
+                times[i] = t;
+                sumT += t;
+                sumC += charges[i];
+                sumTT += t * t;
+                sumTC += t * charges[i];
+            }
+        }
+
+        /**
+         * @return the least-squares slope in units per second, or NaN without enough history
+         */
+        synchronized double slope() {
+            if (count < MIN_SAMPLES) {
+                return Double.NaN;
+            }
+            double denominator = count * sumTT - sumT * sumT;
+            if (denominator <= 1e-9) {
+                return Double.NaN;
+            }
+            return (count * sumTC - sumT * sumC) / denominator;
+        }
+    }
+
+    public BatteryForecaster(DeviceManager deviceManager, EnergyManager energyManager) {
+        this(deviceManager, energyManager, DEFAULT_WINDOW_SAMPLES);
+    }
+
+    public BatteryForecaster(DeviceManager deviceManager, EnergyManager energyManager, int windowSamples) {
+        if (windowSamples < MIN_SAMPLES) {
+            throw new IllegalArgumentException("Window must hold at least " + MIN_SAMPLES + " samples");
+        }
+        this.deviceManager = deviceManager;
+        this.energyManager = energyManager;
+        this.windowSamples = windowSamples;
+    }
+
+    /**
+     * Records the current charge of every battery.
+     */
+    public void sample() {
+        sample(System.currentTimeMillis());
+    }
+
+    void sample(long timeMillis) {
+        List<Battery> batteries = energyManager.getAllBatteries();
+        for (Battery battery : batteries) {
+            windows.computeIfAbsent(battery.getId(), id -> new Window(windowSamples))
+                    .add(timeMillis, battery.getCurrentCharge(), battery.isCharging());
+        }
+        if (windows.size() > batteries.size()) {
+            Set<String> ids = batteries.stream().map(Battery::getId).collect(Collectors.toCollection(HashSet::new));
+            windows.keySet().retainAll(ids);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the battery does not exist
+     */
+    public BatteryForecast getForecast(String batteryId) {
+        return forecast(energyManager.getBatteryById(batteryId));
+    }
+
+    public BatteryForecast forecast(Battery battery) {
+        Window window = windows.get(battery.getId());
+        double slope = window == null ? Double.NaN : window.slope();
+        boolean observed = !Double.isNaN(slope);
+        double rate = observed ? slope : configuredRate(battery);
+        return BatteryForecast.of(battery.getId(), rate, battery.getCurrentCharge(), battery.getCapacity(), observed);
+    }
+
+    public Map<String, BatteryForecast> getForecasts() {
+        return energyManager.getAllBatteries().stream()
+                .collect(Collectors.toMap(Battery::getId, this::forecast));
+    }
+
+    /**
+     * What the charging tasks would move per second right now: each active source charges at most the
+     * battery's charge rate per tick, minus the current consumption. Drain by powered devices is only
+     * known from the observed history.
+     */
+    private double configuredRate(Battery battery) {
+        if (!battery.isCharging()) {
+            return 0;
+        }
+        double consumption = deviceManager.getCurrentTotalConsumption();
+        double perTick = 0;
+        for (Energy energy : energyManager.getEnergiesByState(true)) {
+            perTick += Math.min(battery.getMaxChargeRate(), energy.getCurrentOutput()) - consumption;
+        }
+        return perTick / (EnergyManager.TICK_MILLIS / 1000.0);
+    }
+}
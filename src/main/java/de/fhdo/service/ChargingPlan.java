@@ -0,0 +1,39 @@
+package de.fhdo.service;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * When the batteries are charged from the grid over the planning horizon, as decided by the
+ * {@link ChargingScheduler}. Energies are in battery units, counted over a whole slot.
+ */
+@Value
+public class ChargingPlan {
+    /**
+     * @param solarCharge charge the solar surplus is expected to deliver
+     * @param gridCharge  charge the grid can deliver when switched on
+     */
+    public record Slot(long startMinute, double price, double solarCharge, double gridCharge, boolean gridOn) {
+    }
+
+    long startMinute;
+    int slotMinutes;
+    List<Slot> slots;
+    /** Charge missing up to the target when the plan was made. */
+    double deficit;
+    /** Part of the deficit neither the sun nor the grid can cover within the horizon. */
+    double uncovered;
+
+    /**
+     * The slot containing the given minute, or null outside the horizon.
+     */
+    public Slot slotAt(long minute) {
+        long index = Math.floorDiv(minute - startMinute, slotMinutes);
+        return index < 0 || index >= slots.size() ? null : slots.get((int) index);
+    }
+
+    public long getGridSlotCount() {
+        return slots.stream().filter(Slot::gridOn).count();
+    }
+}
@@ -0,0 +1,348 @@
+package de.fhdo.service;
+
+import de.fhdo.model.Battery;
+import de.fhdo.model.Device;
+import de.fhdo.model.Energy;
+import de.fhdo.model.Tariff;
+import de.fhdo.model.profile.PowerProfile;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Charges the batteries from the sun whenever there is a surplus and from the grid in the cheapest
+ * slots of the planning horizon.
+ * <p>
+ * The horizon is split into slots with a forecast of solar output, grid output and consumption taken
+ * from the power profiles. The charge the sun cannot deliver is covered by switching the grid on in
+ * the slots with the lowest {@link Tariff} price until the batteries are expected to reach the target.
+ * Each {@link #tick()} then switches the grid sources and starts or stops charging for the current slot.
+ * <p>
+ * Planning is incremental. The missing charge of all batteries is kept up to date from the battery
+ * events, and the slot forecasts are computed once and only extended as the horizon moves on; they are
+ * recomputed in full only when sources or devices change. A new plan is made when the horizon moves by
+ * a slot or the missing charge drifts from the planned one, at a cost that depends on the number of
+ * slots rather than on the number of batteries.
+ */
+@Slf4j
+public class ChargingScheduler {
+    public static final int SLOT_MINUTES = 15;
+    /** One day ahead. */
+    public static final int DEFAULT_HORIZON_SLOTS = PowerProfile.MINUTES_PER_DAY / SLOT_MINUTES;
+    /** Share of the planned deficit the actual one may drift by before a new plan is made. */
+    static final double REPLAN_TOLERANCE = 0.05;
+    static final long TICKS_PER_SLOT = SLOT_MINUTES * 60_000L / EnergyManager.TICK_MILLIS;
+
+    private static final class BatteryState {
+        private final Battery battery;
+        private double deficit;
+        private double rate;
+
+        private BatteryState(Battery battery) {
+            this.battery = battery;
+        }
+    }
+
+    private final DeviceManager deviceManager;
+    private final EnergyManager energyManager;
+    private final LongSupplier minuteClock;
+    private final int horizonSlots;
+    private volatile boolean enabled;
+
+    // Everything below is guarded by this
+    private Tariff tariff;
+    private double targetRatio = 1.0;
+    private final Map<String, BatteryState> batteries = new HashMap<>();
+    private double totalDeficit;
+    /** Charge rate of the batteries that are not yet at the target. */
+    private double deficitRate;
+    private long forecastStart;
+    private final double[] solar;
+    private final double[] grid;
+    private final double[] consumption;
+    private boolean forecastStale = true;
+    private ChargingPlan plan;
+    private EventBus.Subscription subscription;
+
+    public ChargingScheduler(DeviceManager deviceManager, EnergyManager energyManager, Tariff tariff) {
+        this(deviceManager, energyManager, tariff, DEFAULT_HORIZON_SLOTS, PowerProfile::currentMinute);
+    }
+
+    ChargingScheduler(DeviceManager deviceManager, EnergyManager energyManager, Tariff tariff, int horizonSlots,
+                      LongSupplier minuteClock) {
+        this.deviceManager = deviceManager;
+        this.energyManager = energyManager;
+        this.tariff = tariff;
+        this.horizonSlots = horizonSlots;
+        this.minuteClock = minuteClock;
+        this.solar = new double[horizonSlots];
+        this.grid = new double[horizonSlots];
+        this.consumption = new double[horizonSlots];
+    }
+
+    /**
+     * Reads all batteries once and from then on follows their changes.
+     */
+    public synchronized void start() {
+        if (subscription != null) {
+            return;
+        }
+        reloadBatteries();
+        subscription = deviceManager.getEventBus().subscribe(this::onEvents);
+    }
+
+    public synchronized void stop() {
+        if (subscription != null) {
+            subscription.close();
+            subscription = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * While enabled the scheduler owns the grid sources and the charging state of the batteries.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public synchronized Tariff getTariff() {
+        return tariff;
+    }
+
+    public synchronized void setTariff(Tariff tariff) {
+        this.tariff = tariff;
+        plan = null;
+    }
+
+    public synchronized double getTargetRatio() {
+        return targetRatio;
+    }
+
+    /**
+     * @param targetRatio share of each battery's capacity to charge up to
+     */
+    public synchronized void setTargetRatio(double targetRatio) {
+        if (targetRatio <= 0 || targetRatio > 1) {
+            throw new IllegalArgumentException("Target ratio must be in (0, 1]: " + targetRatio);
+        }
+        this.targetRatio = targetRatio;
+        reloadBatteries();
+    }
+
+    /**
+     * The current plan, made now if there is none or it is out of date.
+     */
+    public synchronized ChargingPlan getPlan() {
+        return plan(minuteClock.getAsLong());
+    }
+
+    /**
+     * Brings the grid sources and the batteries in line with the plan for the current slot.
+     */
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        List<String> gridSwitches = new ArrayList<>();
+        List<String> toStart = new ArrayList<>();
+        List<String> toStop = new ArrayList<>();
+        boolean gridOn;
+        synchronized (this) {
+            long minute = minuteClock.getAsLong();
+            ChargingPlan.Slot slot = plan(minute).slotAt(minute);
+            gridOn = slot.gridOn();
+            for (Energy energy : energyManager.getAllEnergies()) {
+                if (energy.getType() == Energy.EnergyType.GRID && energy.isActive() != gridOn) {
+                    gridSwitches.add(energy.getId());
+                }
+            }
+            boolean charge = gridOn || slot.solarCharge() > 0;
+            for (BatteryState state : batteries.values()) {
+                boolean wanted = charge && state.deficit > 0;
+                if (wanted && !state.battery.isCharging()) {
+                    toStart.add(state.battery.getId());
+                } else if (!wanted && state.battery.isCharging()) {
+                    toStop.add(state.battery.getId());
+                }
+            }
+        }
+
+        // Outside the lock, the managers publish events that come back to this scheduler. Setting rather
+        // than toggling keeps a source that changed meanwhile from being flipped the wrong way.
+        for (String energyId : gridSwitches) {
+            energyManager.setEnergyActive(energyId, gridOn);
+        }
+        for (String batteryId : toStop) {
+            energyManager.stopCharging(batteryId);
+        }
+        for (String batteryId : toStart) {
+            energyManager.startCharging(batteryId);
+        }
+        if (!gridSwitches.isEmpty() || !toStart.isEmpty() || !toStop.isEmpty()) {
+            log.info("Charging schedule: grid {}, started {} and stopped {} batteries", gridOn ? "on" : "off",
+                    toStart.size(), toStop.size());
+        }
+    }
+
+    synchronized void onEvents(List<HouseEvent> events) {
+        for (HouseEvent event : events) {
+            if (event instanceof HouseEvent.BatteryChanged changed) {
+                batteryChanged(changed.batteryId(), changed.charge());
+            } else if (event instanceof HouseEvent.BatterySetChanged) {
+                reloadBatteries();
+            } else if (event instanceof HouseEvent.EnergyToggled toggled) {
+                // The grid sources are switched by this scheduler and forecast regardless of their state
+                if (!isGrid(toggled.energyId())) {
+                    forecastStale = true;
+                }
+            } else if (event instanceof HouseEvent.EnergySetChanged || event instanceof HouseEvent.DeviceToggled
+                    || event instanceof HouseEvent.DeviceSetChanged) {
+                forecastStale = true;
+            } else if (event instanceof HouseEvent.Resync) {
+                reloadBatteries();
+                forecastStale = true;
+            }
+        }
+    }
+
+    private boolean isGrid(String energyId) {
+        try {
+            return energyManager.getEnergyById(energyId).getType() == Energy.EnergyType.GRID;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private void reloadBatteries() {
+        batteries.clear();
+        totalDeficit = 0;
+        deficitRate = 0;
+        for (Battery battery : energyManager.getAllBatteries()) {
+            batteries.put(battery.getId(), new BatteryState(battery));
+            batteryChanged(battery.getId(), battery.getCurrentCharge());
+        }
+    }
+
+    private void batteryChanged(String batteryId, double charge) {
+        BatteryState state = batteries.get(batteryId);
+        if (state == null) {
+            return;
+        }
+        double deficit = Math.max(0, targetRatio * state.battery.getCapacity() - charge);
+        double rate = deficit > 0 ? state.battery.getMaxChargeRate() : 0;
+        totalDeficit += deficit - state.deficit;
+        deficitRate += rate - state.rate;
+        state.deficit = deficit;
+        state.rate = rate;
+    }
+
+    private ChargingPlan plan(long minute) {
+        long firstSlot = Math.floorDiv(minute, SLOT_MINUTES);
+        if (plan != null && !forecastStale && plan.getStartMinute() == firstSlot * SLOT_MINUTES
+                && Math.abs(totalDeficit - plan.getDeficit()) <= REPLAN_TOLERANCE * Math.max(plan.getDeficit(), 1.0)) {
+            return plan;
+        }
+        updateForecast(firstSlot);
+
+        double rate = Math.max(0, deficitRate);
+        double[] solarCharge = new double[horizonSlots];
+        double[] gridCharge = new double[horizonSlots];
+        double[] prices = new double[horizonSlots];
+        double remaining = Math.max(0, totalDeficit);
+        for (int s = 0; s < horizonSlots; s++) {
+            double solarPerTick = Math.max(0, Math.min(solar[s] - consumption[s], rate));
+            double gridPerTick = Math.max(0, Math.min(grid[s] - Math.max(0, consumption[s] - solar[s]), rate - solarPerTick));
+            solarCharge[s] = solarPerTick * TICKS_PER_SLOT;
+            gridCharge[s] = gridPerTick * TICKS_PER_SLOT;
+            prices[s] = tariff.priceAt((firstSlot + s) * SLOT_MINUTES);
+            remaining -= solarCharge[s];
+        }
+
+        // Cheapest first, earlier first among equal prices
+        Integer[] order = new Integer[horizonSlots];
+        Arrays.setAll(order, s -> s);
+        Arrays.sort(order, Comparator.comparingDouble((Integer s) -> prices[s]).thenComparingInt(s -> s));
+        boolean[] gridOn = new boolean[horizonSlots];
+        for (int s : order) {
+            if (remaining <= 0) {
+                break;
+            }
+            if (gridCharge[s] > 0) {
+                gridOn[s] = true;
+                remaining -= gridCharge[s];
+            }
+        }
+
+        List<ChargingPlan.Slot> slots = new ArrayList<>(horizonSlots);
+        for (int s = 0; s < horizonSlots; s++) {
+            slots.add(new ChargingPlan.Slot((firstSlot + s) * SLOT_MINUTES, prices[s], solarCharge[s], gridCharge[s], gridOn[s]));
+        }
+        plan = new ChargingPlan(firstSlot * SLOT_MINUTES, SLOT_MINUTES, List.copyOf(slots), totalDeficit, Math.max(0, remaining));
+        log.debug("Planned grid charging in {} of {} slots for a deficit of {}", plan.getGridSlotCount(), horizonSlots,
+                String.format("%.2f", totalDeficit));
+        return plan;
+    }
+
+    /**
+     * Moves the forecast window to start at the given slot, computing only the slots not known yet.
+     */
+    private void updateForecast(long firstSlot) {
+        long shift = firstSlot - forecastStart;
+        int from = 0;
+        if (!forecastStale && shift >= 0 && shift < horizonSlots) {
+            int kept = horizonSlots - (int) shift;
+            System.arraycopy(solar, (int) shift, solar, 0, kept);
+            System.arraycopy(grid, (int) shift, grid, 0, kept);
+            System.arraycopy(consumption, (int) shift, consumption, 0, kept);
+            from = kept;
+        }
+        forecastStart = firstSlot;
+        forecastStale = false;
+        if (from == horizonSlots) {
+            return;
+        }
+
+        List<Energy> solarSources = new ArrayList<>();
+        List<Energy> gridSources = new ArrayList<>();
+        for (Energy energy : energyManager.getAllEnergies()) {
+            if (energy.getType() == Energy.EnergyType.GRID) {
+                gridSources.add(energy);
+            } else if (energy.isActive()) {
+                solarSources.add(energy);
+            }
+        }
+        List<Device> devices = deviceManager.getDevicesByState(true);
+        for (int s = from; s < horizonSlots; s++) {
+            long start = (firstSlot + s) * SLOT_MINUTES;
+            solar[s] = averageOutput(solarSources, start);
+            grid[s] = averageOutput(gridSources, start);
+            double power = 0;
+            for (Device device : devices) {
+                for (long minute = start; minute < start + SLOT_MINUTES; minute++) {
+                    power += device.getPowerAt(minute);
+                }
+            }
+            consumption[s] = power / SLOT_MINUTES;
+        }
+    }
+
+    private static double averageOutput(List<Energy> sources, long start) {
+        double output = 0;
+        for (Energy energy : sources) {
+            for (long minute = start; minute < start + SLOT_MINUTES; minute++) {
+                output += energy.getOutputAt(minute);
+            }
+        }
+        return output / SLOT_MINUTES;
+    }
+}
@@ -0,0 +1,33 @@
+package de.fhdo.service;
+
+import lombok.Value;
+
+/**
+ * Outcome of reconciling a configuration against the running house, counted per entity kind.
+ */
+@Value
+public class ConfigDiff {
+    int devicesAdded;
+    int devicesRemoved;
+    int devicesUpdated;
+    int energiesAdded;
+    int energiesRemoved;
+    int energiesUpdated;
+    int batteriesAdded;
+    int batteriesRemoved;
+    int batteriesUpdated;
+
+    public boolean isEmpty() {
+        return devicesAdded + devicesRemoved + devicesUpdated
+                + energiesAdded + energiesRemoved + energiesUpdated
+                + batteriesAdded + batteriesRemoved + batteriesUpdated == 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("devices +%d -%d ~%d, energies +%d -%d ~%d, batteries +%d -%d ~%d",
+                devicesAdded, devicesRemoved, devicesUpdated,
+                energiesAdded, energiesRemoved, energiesUpdated,
+                batteriesAdded, batteriesRemoved, batteriesUpdated);
+    }
+}
@@ -0,0 +1,161 @@
+package de.fhdo.service;
+
+import de.fhdo.config.HouseConfig;
+import de.fhdo.model.Battery;
+import de.fhdo.model.Device;
+import de.fhdo.model.Energy;
+import de.fhdo.model.profile.PowerProfile;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Applies a configuration to a running house as a diff. Entities are matched by name (duplicates pair up
+ * in order), so matched entities keep their id and runtime state such as activation, charge and running
+ * charging tasks; only their configured properties are updated in place.
+ */
+class ConfigReconciler {
+    private final DeviceManager deviceManager;
+    private final EnergyManager energyManager;
+
+    ConfigReconciler(DeviceManager deviceManager, EnergyManager energyManager) {
+        this.deviceManager = deviceManager;
+        this.energyManager = energyManager;
+    }
+
+    ConfigDiff reconcile(HouseConfig config) {
+        Map<String, Deque<Device>> runningDevices = byName(deviceManager.getAllDevices(), Device::getName);
+        List<Device> addedDevices = new ArrayList<>();
+        List<Device> updatedDevices = new ArrayList<>();
+        for (HouseConfig.DeviceConfig deviceConfig : nullToEmpty(config.getDevices())) {
+            Device device = poll(runningDevices, deviceConfig.getName());
+            Device wanted = deviceConfig.toDevice(config.profileForType(deviceConfig.getType()));
+            if (device == null) {
+                addedDevices.add(wanted);
+            } else if (updateDevice(device, wanted)) {
+                updatedDevices.add(device);
+            }
+        }
+
+        Map<String, Deque<Energy>> runningEnergies = byName(energyManager.getAllEnergies(), Energy::getName);
+        List<Energy> addedEnergies = new ArrayList<>();
+        int updatedEnergies = 0;
+        for (HouseConfig.EnergyConfig energyConfig : nullToEmpty(config.getEnergies())) {
+            Energy energy = poll(runningEnergies, energyConfig.getName());
+            Energy wanted = energyConfig.toEnergy();
+            if (energy == null) {
+                addedEnergies.add(wanted);
+            } else if (updateEnergy(energy, wanted)) {
+                energyManager.energyChanged(energy);
+                updatedEnergies++;
+            }
+        }
+
+        Map<String, Deque<Battery>> runningBatteries = byName(energyManager.getAllBatteries(), Battery::getName);
+        List<Battery> addedBatteries = new ArrayList<>();
+        int updatedBatteries = 0;
+        for (HouseConfig.BatteryConfig batteryConfig : nullToEmpty(config.getBatteries())) {
+            Battery battery = poll(runningBatteries, batteryConfig.getName());
+            if (battery == null) {
+                addedBatteries.add(batteryConfig.toBattery());
+            } else if (energyManager.reconfigureBattery(battery, batteryConfig.getCapacity(), batteryConfig.getMaxChargeRate(),
+                    batteryConfig.getModel() == null ? null : batteryConfig.getModel().toModel())) {
+                updatedBatteries++;
+            }
+        }
+
+        // Removals first, so a renamed entity never exists twice
+        List<Device> removedDevices = removeUnmatched(runningDevices, deviceManager::removeAllDevices);
+        List<Energy> removedEnergies = removeUnmatched(runningEnergies, energyManager::removeAllEnergies);
+        List<Battery> removedBatteries = removeUnmatched(runningBatteries, energyManager::removeAllBatteries);
+        // Stops the power and charging loops still holding the removed instances
+        removedDevices.forEach(device -> device.setActive(false));
+        removedEnergies.forEach(energy -> energy.setActive(false));
+        removedBatteries.forEach(battery -> battery.setCharging(false));
+
+        if (!addedDevices.isEmpty()) {
+            deviceManager.addAllDevices(addedDevices);
+        }
+        if (!updatedDevices.isEmpty()) {
+            // Re-put the updated instances so the load aggregator picks up changed profiles
+            deviceManager.putAllDevices(updatedDevices);
+        }
+        if (!addedEnergies.isEmpty()) {
+            energyManager.addAllEnergies(addedEnergies);
+        }
+        if (!addedBatteries.isEmpty()) {
+            energyManager.addAllBatteries(addedBatteries);
+        }
+
+        return new ConfigDiff(addedDevices.size(), removedDevices.size(), updatedDevices.size(),
+                addedEnergies.size(), removedEnergies.size(), updatedEnergies,
+                addedBatteries.size(), removedBatteries.size(), updatedBatteries);
+    }
+
+    private static boolean updateDevice(Device device, Device wanted) {
+        if (device.getType() == wanted.getType()
+                && device.getPower() == wanted.getPower()
+                && device.getPriority() == wanted.getPriority()
+                && sameProfile(device.getProfile(), wanted.getProfile())) {
+            return false;
+        }
+        device.setType(wanted.getType());
+        device.setPower(wanted.getPower());
+        device.setPriority(wanted.getPriority());
+        device.setProfile(wanted.getProfile());
+        return true;
+    }
+
+    private static boolean updateEnergy(Energy energy, Energy wanted) {
+        if (energy.getType() == wanted.getType()
+                && energy.getOutput() == wanted.getOutput()
+                && sameProfile(energy.getProfile(), wanted.getProfile())) {
+            return false;
+        }
+        energy.setType(wanted.getType());
+        energy.setOutput(wanted.getOutput());
+        energy.setProfile(wanted.getProfile());
+        return true;
+    }
+
+    /**
+     * Profiles built from configuration are shared instances, but ones restored from a snapshot are
+     * copies, so the curves are compared by value.
+     */
+    private static boolean sameProfile(PowerProfile current, PowerProfile wanted) {
+        return current == null ? wanted == null : current.sameCurveAs(wanted);
+    }
+
+    private static <T> Map<String, Deque<T>> byName(List<T> entities, Function<T, String> nameOf) {
+        Map<String, Deque<T>> byName = new HashMap<>();
+        for (T entity : entities) {
+            byName.computeIfAbsent(nameOf.apply(entity), name -> new ArrayDeque<>()).add(entity);
+        }
+        return byName;
+    }
+
+    private static <T> T poll(Map<String, Deque<T>> byName, String name) {
+        Deque<T> candidates = byName.get(name);
+        return candidates == null ? null : candidates.poll();
+    }
+
+    private static <T> List<T> removeUnmatched(Map<String, Deque<T>> unmatched,
+                                               Function<Predicate<T>, List<T>> removeAll) {
+        Set<T> leftovers = Collections.newSetFromMap(new IdentityHashMap<>());
+        unmatched.values().forEach(leftovers::addAll);
+        return leftovers.isEmpty() ? List.of() : removeAll.apply(leftovers::contains);
+    }
+
+    private static <T> List<T> nullToEmpty(List<T> list) {
+        return list == null ? List.of() : list;
+    }
+}
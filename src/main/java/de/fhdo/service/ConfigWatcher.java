@@ -0,0 +1,114 @@
+package de.fhdo.service;
+
+import de.fhdo.config.HouseConfig;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Watches a house configuration file and reconciles the running house with it whenever it is saved.
+ * Bursts of file events (editors often write a file in several steps) are collapsed into one reload, and
+ * a file that does not parse is logged and skipped until the next save.
+ */
+@Slf4j
+public class ConfigWatcher implements AutoCloseable {
+    private static final long DEBOUNCE_MILLIS = 300;
+
+    private final Path configFile;
+    private final HouseContext houseContext;
+    private final Consumer<ConfigDiff> listener;
+
+    private WatchService watchService;
+
+    /**
+     * @param listener called on the watcher thread after every reload that changed something
+     */
+    public ConfigWatcher(Path configFile, HouseContext houseContext, Consumer<ConfigDiff> listener) {
+        this.configFile = configFile.toAbsolutePath().normalize();
+        this.houseContext = houseContext;
+        this.listener = listener;
+    }
+
+    public synchronized void start() throws IOException {
+        if (watchService != null) {
+            return;
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        configFile.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        Thread watcher = new Thread(this::watchLoop, "config-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        log.info("Watching configuration {}", configFile);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.error("Failed to close watch service for {}", configFile, e);
+        }
+        watchService = null;
+        log.info("Stopped watching configuration {}", configFile);
+    }
+
+    /**
+     * Loads the configuration file and reconciles the house with it.
+     */
+    public ConfigDiff reload() throws IOException {
+        ConfigDiff diff = houseContext.reconcileConfiguration(HouseConfig.loadFromFile(configFile.toString()));
+        if (!diff.isEmpty()) {
+            listener.accept(diff);
+        }
+        return diff;
+    }
+
+    private void watchLoop() {
+        WatchService service = watchService;
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean relevant = touchesConfig(key);
+                // Collapse the rest of the burst before reloading
+                while ((key = service.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    relevant |= touchesConfig(key);
+                }
+                if (relevant) {
+                    try {
+                        reload();
+                    } catch (IOException | RuntimeException e) {
+                        log.error("Failed to reload configuration {}", configFile, e);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // closed by close()
+        }
+    }
+
+    private boolean touchesConfig(WatchKey key) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.context() instanceof Path changed && changed.equals(configFile.getFileName())) {
+                relevant = true;
+            }
+        }
+        key.reset();
+        return relevant;
+    }
+}
@@ -0,0 +1,209 @@
+package de.fhdo.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * {@link Flow.Publisher} that never buffers more than one item per key and subscriber. While a
+ * subscriber has no outstanding demand, a newer item replaces the pending one with the same key, so a
+ * slow subscriber sees the latest state of everything that changed rather than every step in between.
+ * Keys keep their place in the queue when replaced, so a busy key cannot starve the others.
+ * <p>
+ * Items are delivered on the executor, one at a time per subscriber. The source is connected when
+ * the first subscriber arrives, and a subscriber optionally starts with the current value.
+ */
+@Slf4j
+class ConflatingPublisher<T> implements Flow.Publisher<T> {
+    /**
+     * Delivery threads for the managers' publishers. Subscribers such as SSE streams block in
+     * {@code onNext} while a client is slow, so they get their own cached pool instead of the common
+     * pool, and a stalled subscriber ties up only the thread draining it.
+     */
+    static final Executor DELIVERY_EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "publisher-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final Function<? super T, ?> keyOf;
+    private final Executor executor;
+    private final Runnable connect;
+    private final Supplier<? extends T> current;
+    private final AtomicBoolean connected = new AtomicBoolean();
+    private final List<ConflatingSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile boolean completed;
+
+    /**
+     * @param connect starts feeding {@link #submit(Object)}, run once on the first subscription
+     * @param current value every new subscriber starts with, or null to start empty
+     */
+    ConflatingPublisher(Function<? super T, ?> keyOf, Executor executor, Runnable connect, Supplier<? extends T> current) {
+        this.keyOf = keyOf;
+        this.executor = executor;
+        this.connect = connect;
+        this.current = current;
+    }
+
+    /**
+     * Publisher of a single value where only the latest one matters.
+     */
+    static <T> ConflatingPublisher<T> latest(Executor executor, Runnable connect, Supplier<? extends T> current) {
+        return new ConflatingPublisher<>(item -> Boolean.TRUE, executor, connect, current);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        ConflatingSubscription subscription = new ConflatingSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        if (completed) {
+            subscription.complete();
+            return;
+        }
+        subscriptions.add(subscription);
+        if (current != null) {
+            subscription.offerInitial(current.get());
+        }
+        if (connected.compareAndSet(false, true)) {
+            connect.run();
+        }
+    }
+
+    void submit(T item) {
+        for (ConflatingSubscription subscription : subscriptions) {
+            subscription.offer(item);
+        }
+    }
+
+    boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    /**
+     * Completes every subscriber after delivering as many pending items as its demand allows; the
+     * rest is stale state nobody asked for and is dropped.
+     */
+    void complete() {
+        completed = true;
+        subscriptions.forEach(ConflatingSubscription::complete);
+        subscriptions.clear();
+    }
+
+    private final class ConflatingSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final Map<Object, T> pending = new LinkedHashMap<>();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger work = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile boolean completing;
+        private Throwable error;
+
+        ConflatingSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        void offer(T item) {
+            if (cancelled) {
+                return;
+            }
+            synchronized (pending) {
+                pending.put(keyOf.apply(item), item);
+            }
+            schedule();
+        }
+
+        /**
+         * Queues the starting value unless a submitted item already superseded it.
+         */
+        void offerInitial(T item) {
+            synchronized (pending) {
+                pending.putIfAbsent(keyOf.apply(item), item);
+            }
+            schedule();
+        }
+
+        void complete() {
+            completing = true;
+            schedule();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Demand must be positive: " + n);
+            } else {
+                demand.getAndAccumulate(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+            synchronized (pending) {
+                pending.clear();
+            }
+        }
+
+        private void schedule() {
+            if (work.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        /**
+         * Runs on one thread at a time; signals that arrive meanwhile make it loop once more.
+         */
+        private void drain() {
+            int missed = 1;
+            do {
+                if (!cancelled && error != null) {
+                    cancel();
+                    subscriber.onError(error);
+                }
+                while (!cancelled && demand.get() > 0) {
+                    T next;
+                    synchronized (pending) {
+                        Iterator<T> iterator = pending.values().iterator();
+                        if (!iterator.hasNext()) {
+                            break;
+                        }
+                        next = iterator.next();
+                        iterator.remove();
+                    }
+                    demand.decrementAndGet();
+                    try {
+                        subscriber.onNext(next);
+                    } catch (RuntimeException e) {
+                        log.error("Subscriber failed, cancelling its subscription", e);
+                        cancel();
+                    }
+                }
+                if (!cancelled && completing) {
+                    cancel();
+                    subscriber.onComplete();
+                }
+                missed = work.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
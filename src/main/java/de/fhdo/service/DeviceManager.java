@@ -1,22 +1,50 @@
 package de.fhdo.service;
 
 import de.fhdo.model.Device;
+import de.fhdo.model.DeviceSnapshot;
+import de.fhdo.model.profile.PowerProfile;
 import de.fhdo.util.LoggerHelper;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 @Slf4j
 public class DeviceManager {
 
-    private final Map<String, Device> devices = new ConcurrentHashMap<>();
-    private final LogManager logManager = LogManager.getInstance();
+    private static final HouseEvent DEVICE_SET_CHANGED = new HouseEvent.DeviceSetChanged();
+
+    private final EntityRegistry<Device> devices;
+    private final LogManager logManager;
+    private final EventBus eventBus;
+    private final ConflatingPublisher<HouseEvent> changePublisher;
+    private final ConflatingPublisher<Double> consumptionPublisher;
+    private volatile LoadAggregator loadAggregator;
+    private volatile StateJournal journal;
+    private EventBus.Subscription publisherSubscription;
 
     private static volatile DeviceManager instance;
 
     private DeviceManager() {
+        this(LogManager.getInstance(), EventBus.getInstance());
+    }
+
+    public DeviceManager(LogManager logManager) {
+        this(logManager, new EventBus());
+    }
+
+    public DeviceManager(LogManager logManager, EventBus eventBus) {
+        this.logManager = logManager;
+        this.eventBus = eventBus;
+        this.devices = new EntityRegistry<>(Device::getId, () -> eventBus.publish(DEVICE_SET_CHANGED));
+        this.changePublisher = new ConflatingPublisher<>(EventBus::keyOf, ConflatingPublisher.DELIVERY_EXECUTOR,
+                this::connectPublishers, null);
+        this.consumptionPublisher = ConflatingPublisher.latest(ConflatingPublisher.DELIVERY_EXECUTOR,
+                this::connectPublishers, this::getCurrentTotalConsumption);
     }
 
     public static DeviceManager getInstance() {
@@ -30,12 +58,116 @@ public class DeviceManager {
         return instance;
     }
 
+    public void setJournal(StateJournal journal) {
+        this.journal = journal;
+    }
+
+    public EventBus getEventBus() {
+        return eventBus;
+    }
+
+    /**
+     * Device state changes and device set changes. A subscriber that falls behind gets only the latest
+     * event per device.
+     */
+    public Flow.Publisher<HouseEvent> getDeviceChangePublisher() {
+        return changePublisher;
+    }
+
+    /**
+     * Total consumption, recomputed whenever devices change. A subscriber that falls behind gets only
+     * the latest total.
+     */
+    public Flow.Publisher<Double> getConsumptionPublisher() {
+        return consumptionPublisher;
+    }
+
+    private synchronized void connectPublishers() {
+        if (publisherSubscription == null) {
+            publisherSubscription = eventBus.subscribe(this::publishChanges);
+        }
+    }
+
+    private void publishChanges(List<HouseEvent> events) {
+        boolean changed = false;
+        for (HouseEvent event : events) {
+            if (event instanceof HouseEvent.DeviceToggled || event instanceof HouseEvent.DeviceSetChanged
+                    || event instanceof HouseEvent.Resync) {
+                changePublisher.submit(event);
+                changed = true;
+            }
+        }
+        if (changed && consumptionPublisher.hasSubscribers()) {
+            consumptionPublisher.submit(getCurrentTotalConsumption());
+        }
+    }
+
+    /**
+     * Completes the subscribers of the publishers.
+     */
+    void closePublishers() {
+        changePublisher.complete();
+        consumptionPublisher.complete();
+    }
+
+    /**
+     * Records a state change of a device for change tracking, subscribers and the journal.
+     */
+    void deviceChanged(Device device) {
+        devices.touch(device.getId());
+        eventBus.publish(HouseEvent.DeviceToggled.of(device));
+        StateJournal current = journal;
+        if (current != null) {
+            current.recordDeviceActive(device);
+        }
+    }
+
     public void addDevice(Device device) {
-        devices.put(device.getId(), device);
+        devices.put(device);
         LoggerHelper.logDeviceEvent(logManager, "Added new device", device.getName());
         log.info("Device added: {}", device);
     }
 
+    public void addAllDevices(Collection<Device> newDevices) {
+        putAllDevices(newDevices);
+        LoggerHelper.logBulkEvent(logManager, LogManager.Category.DEVICE, "Added devices", newDevices.size());
+        log.info("{} devices added", newDevices.size());
+    }
+
+    void putAllDevices(Collection<Device> newDevices) {
+        devices.putAll(newDevices);
+    }
+
+    /**
+     * Silent atomic replacement used when restoring persisted state.
+     */
+    void restoreDevices(Collection<Device> restored) {
+        devices.replaceAll(restored);
+    }
+
+    /**
+     * Atomically removes every device matching the filter and logs the removal as one event.
+     *
+     * @return the removed devices
+     */
+    public List<Device> removeAllDevices(Predicate<Device> filter) {
+        List<Device> removed = devices.removeIf(filter);
+        if (!removed.isEmpty()) {
+            LoggerHelper.logBulkEvent(logManager, LogManager.Category.DEVICE, "Removed devices", removed.size());
+            log.info("{} devices removed", removed.size());
+        }
+        return removed;
+    }
+
+    /**
+     * Atomically swaps the whole device set; readers see either the old or the new set, never a mix.
+     */
+    public void replaceAllDevices(Collection<Device> newDevices) {
+        devices.replaceAll(newDevices);
+        LoggerHelper.logBulkEvent(logManager, LogManager.Category.DEVICE, "Replaced devices", newDevices.size());
+        log.info("Device set replaced with {} devices", newDevices.size());
+    }
+
     public void removeDevice(String deviceId) {
         Device device = devices.remove(deviceId);
         if (device != null) {
@@ -45,9 +177,26 @@ public class DeviceManager {
         }
     }
 
+    /**
+     * Changes a device's configured properties in place; its id and activation are kept.
+     */
+    public Device updateDevice(String deviceId, String name, Device.DeviceType type, double power, int priority) {
+        Device device = getDeviceById(deviceId);
+        device.setName(name);
+        device.setType(type);
+        device.setPower(power);
+        device.setPriority(priority);
+        // The aggregator reads live power; re-putting publishes a structural change, so views reload the
+        // device's name, type and priority
+        devices.put(device);
+        LoggerHelper.logDeviceEvent(logManager, "Updated device", device.getName());
+        return device;
+    }
+
     public void toggleDevice(String deviceId) {
         Device device = getDeviceById(deviceId);
         device.toggle();
+        deviceChanged(device);
         LoggerHelper.logDeviceEvent(logManager, device.isActive() ? "Activated" : "Deactivated", device.getName());
     }
 
@@ -59,8 +208,36 @@ public class DeviceManager {
         return device;
     }
 
+    /**
+     * Devices in the order they were added. The list is shared and immutable.
+     */
     public List<Device> getAllDevices() {
-        return List.copyOf(devices.values());
+        return devices.values();
+    }
+
+    /**
+     * Devices matching the query in its sort order. Sorting a large fleet is not free, so GUI callers
+     * should run this off the event dispatch thread.
+     */
+    public List<Device> queryDevices(DeviceQuery query) {
+        Stream<QueryRow> matching = getAllDevices().stream()
+                .map(device -> new QueryRow(device, device.snapshot()))
+                .filter(row -> query.matches(row.values()));
+        Comparator<DeviceSnapshot> order = query.comparator();
+        if (order != null) {
+            matching = matching.sorted(Comparator.comparing(QueryRow::values, order));
+        }
+        return matching.map(QueryRow::device).toList();
+    }
+
+    /**
+     * A device with the values it is filtered and sorted by, read once so they cannot change mid-sort.
+     */
+    private record QueryRow(Device device, DeviceSnapshot values) {
+    }
+
+    public EntityChanges getDeviceChangesSince(long stamp) {
+        return devices.changesSince(stamp);
     }
 
     public List<Device> getDevicesByState(boolean isActive) {
@@ -70,10 +247,24 @@ public class DeviceManager {
     }
 
     public double getCurrentTotalConsumption() {
-        return devices.values().stream()
-                .filter(Device::isActive)
-                .mapToDouble(Device::getPower)
-                .sum();
+        return getConsumptionAt(PowerProfile.currentMinute());
+    }
+
+    /**
+     * Total draw of all active devices at the given simulated minute, following each device's load profile.
+     */
+    public double getConsumptionAt(long minute) {
+        return loadAggregator().consumptionAt(minute);
+    }
+
+    private LoadAggregator loadAggregator() {
+        long version = devices.getVersion();
+        LoadAggregator aggregator = loadAggregator;
+        if (aggregator == null || aggregator.getVersion() != version) {
+            aggregator = LoadAggregator.of(version, devices.values());
+            loadAggregator = aggregator;
+        }
+        return aggregator;
     }
 
     public void clearAllDevices() {
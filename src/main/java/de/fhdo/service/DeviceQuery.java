@@ -0,0 +1,66 @@
+package de.fhdo.service;
+
+import de.fhdo.model.Device;
+import de.fhdo.model.DeviceSnapshot;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.Comparator;
+
+/**
+ * Filter and sort order for {@link DeviceManager#queryDevices}. Unset filters match every device, and
+ * without a sort key devices keep the order they were added in. Queries work on {@link DeviceSnapshot}s,
+ * so a device switched mid-sort cannot break the comparator contract.
+ */
+@Value
+@Builder(toBuilder = true)
+public class DeviceQuery {
+    public enum SortKey {
+        NAME(Comparator.comparing(DeviceSnapshot::name, String.CASE_INSENSITIVE_ORDER)),
+        TYPE(Comparator.comparing(DeviceSnapshot::type)),
+        POWER(Comparator.comparingDouble(DeviceSnapshot::power)),
+        STATUS(Comparator.comparing(DeviceSnapshot::active));
+
+        private final Comparator<DeviceSnapshot> comparator;
+
+        SortKey(Comparator<DeviceSnapshot> comparator) {
+            this.comparator = comparator;
+        }
+    }
+
+    public static final DeviceQuery ALL = DeviceQuery.builder().build();
+
+    Device.DeviceType type;
+    Boolean active;
+    @Builder.Default
+    double minPower = 0;
+    @Builder.Default
+    double maxPower = Double.MAX_VALUE;
+    SortKey sortKey;
+    boolean descending;
+
+    public boolean matches(DeviceSnapshot device) {
+        return (type == null || device.type() == type)
+                && (active == null || device.active() == active)
+                && device.power() >= minPower
+                && device.power() <= maxPower;
+    }
+
+    /**
+     * @return null if devices stay in insertion order
+     */
+    public Comparator<DeviceSnapshot> comparator() {
+        if (sortKey == null) {
+            return null;
+        }
+        return descending ? sortKey.comparator.reversed() : sortKey.comparator;
+    }
+
+    /**
+     * Whether the result can change when a device is switched on or off, not only when devices are
+     * added or removed.
+     */
+    public boolean dependsOnState() {
+        return active != null || sortKey == SortKey.STATUS;
+    }
+}
@@ -0,0 +1,385 @@
+package de.fhdo.service;
+
+import de.fhdo.model.Device;
+import de.fhdo.model.Energy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Books the energy every device consumed, every source supplied and every battery took in or gave out.
+ * <p>
+ * Each account holds plain {@code double} counters: a lifetime total plus rings of hourly and daily
+ * buckets. A booking adds to all three in O(1); a bucket belonging to an hour or day that has passed is
+ * reset lazily when it comes round again, so rollups never need a separate pass.
+ * <p>
+ * All accounts are in unit-hours: power in units over one hour. Devices and sources are booked by
+ * {@link #accrue()}, which integrates their current power over the time since the previous call.
+ * Batteries are booked by the charging and power tasks with the charge each tick actually moves, which
+ * is power per tick and is converted to unit-hours by the tick length. The ledger can be written to a
+ * file periodically and restored from it.
+ *
+ * <pre>
+ * header   int magic, short version, long savedAt, int accounts
+ * account  byte kind, str id, str name, double total,
+ *          24 x (long hour, double units), 31 x (long day, double units)
+ * str      int byteLength, UTF-8 bytes
+ * </pre>
+ */
+@Slf4j
+public class EnergyLedger {
+    static final int MAGIC = 0x53484c47;
+    static final short FORMAT_VERSION = 2;
+    public static final int HOURS = 24;
+    public static final int DAYS = 31;
+    /** Accrual gaps longer than this, for example after a suspend, are not booked. */
+    static final long MAX_ACCRUAL_GAP_MILLIS = 10_000;
+
+    private static final long HOUR_MILLIS = 3_600_000;
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+
+    public enum Kind {
+        DEVICE_CONSUMED,
+        SOURCE_SUPPLIED,
+        BATTERY_CHARGED,
+        BATTERY_DISCHARGED
+    }
+
+    private record Key(Kind kind, String entityId) {
+    }
+
+    private static final class Account {
+        private final Kind kind;
+        private final String entityId;
+        private String name;
+        private double total;
+        private final long[] hourStamps = new long[HOURS];
+        private final double[] hours = new double[HOURS];
+        private final long[] dayStamps = new long[DAYS];
+        private final double[] days = new double[DAYS];
+
+        private Account(Kind kind, String entityId, String name) {
+            this.kind = kind;
+            this.entityId = entityId;
+            this.name = name;
+        }
+
+        synchronized void add(String name, double units, long hour, long day) {
+            this.name = name;
+            total += units;
+            int h = (int) Math.floorMod(hour, (long) HOURS);
+            if (hourStamps[h] != hour) {
+                hourStamps[h] = hour;
+                hours[h] = 0;
+            }
+            hours[h] += units;
+            int d = (int) Math.floorMod(day, (long) DAYS);
+            if (dayStamps[d] != day) {
+                dayStamps[d] = day;
+                days[d] = 0;
+            }
+            days[d] += units;
+        }
+
+        synchronized double hour(long hour) {
+            int h = (int) Math.floorMod(hour, (long) HOURS);
+            return hourStamps[h] == hour ? hours[h] : 0;
+        }
+
+        synchronized double day(long day) {
+            int d = (int) Math.floorMod(day, (long) DAYS);
+            return dayStamps[d] == day ? days[d] : 0;
+        }
+
+        synchronized LedgerEntry entry(long hour, long day) {
+            return new LedgerEntry(kind, entityId, name, total, hour(hour), day(day));
+        }
+    }
+
+    private final DeviceManager deviceManager;
+    private final EnergyManager energyManager;
+    private final ZoneId zone;
+    private final Map<Key, Account> accounts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ledger-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long lastAccrual = -1;
+    private volatile Path ledgerFile;
+
+    public EnergyLedger(DeviceManager deviceManager, EnergyManager energyManager) {
+        this(deviceManager, energyManager, ZoneId.systemDefault());
+    }
+
+    /**
+     * @param zone zone whose local hours and days the rollups follow
+     */
+    public EnergyLedger(DeviceManager deviceManager, EnergyManager energyManager, ZoneId zone) {
+        this.deviceManager = deviceManager;
+        this.energyManager = energyManager;
+        this.zone = zone;
+    }
+
+    /**
+     * @param units energy in unit-hours
+     */
+    public void record(Kind kind, String entityId, String name, double units) {
+        record(kind, entityId, name, units, System.currentTimeMillis());
+    }
+
+    public void record(Kind kind, String entityId, String name, double units, long timeMillis) {
+        if (units == 0) {
+            return;
+        }
+        Account account = accounts.computeIfAbsent(new Key(kind, entityId), key -> new Account(kind, entityId, name));
+        long local = toLocal(timeMillis);
+        account.add(name, units, Math.floorDiv(local, HOUR_MILLIS), Math.floorDiv(local, DAY_MILLIS));
+    }
+
+    /**
+     * Books the energy of the active devices and sources since the previous call.
+     */
+    public void accrue() {
+        accrue(System.currentTimeMillis());
+    }
+
+    synchronized void accrue(long timeMillis) {
+        long previous = lastAccrual;
+        lastAccrual = timeMillis;
+        long elapsed = timeMillis - previous;
+        if (previous < 0 || elapsed <= 0 || elapsed > MAX_ACCRUAL_GAP_MILLIS) {
+            return;
+        }
+
+        double hours = elapsed / (double) HOUR_MILLIS;
+        for (Device device : deviceManager.getDevicesByState(true)) {
+            record(Kind.DEVICE_CONSUMED, device.getId(), device.getName(), device.getCurrentPower() * hours, timeMillis);
+        }
+        for (Energy energy : energyManager.getEnergiesByState(true)) {
+            record(Kind.SOURCE_SUPPLIED, energy.getId(), energy.getName(), energy.getCurrentOutput() * hours, timeMillis);
+        }
+    }
+
+    /**
+     * @return the account's current figures, or null if nothing was booked on it yet
+     */
+    public LedgerEntry getEntry(Kind kind, String entityId) {
+        return getEntry(kind, entityId, System.currentTimeMillis());
+    }
+
+    /**
+     * @param timeMillis instant whose hour and day the entry reports
+     */
+    public LedgerEntry getEntry(Kind kind, String entityId, long timeMillis) {
+        Account account = accounts.get(new Key(kind, entityId));
+        if (account == null) {
+            return null;
+        }
+        long local = toLocal(timeMillis);
+        return account.entry(Math.floorDiv(local, HOUR_MILLIS), Math.floorDiv(local, DAY_MILLIS));
+    }
+
+    /**
+     * All accounts of a kind, largest total first. Accounts of removed entities are kept.
+     */
+    public List<LedgerEntry> getEntries(Kind kind) {
+        return getEntries(kind, System.currentTimeMillis());
+    }
+
+    public List<LedgerEntry> getEntries(Kind kind, long timeMillis) {
+        long local = toLocal(timeMillis);
+        long hour = Math.floorDiv(local, HOUR_MILLIS);
+        long day = Math.floorDiv(local, DAY_MILLIS);
+        List<LedgerEntry> entries = new ArrayList<>();
+        for (Account account : accounts.values()) {
+            if (account.kind == kind) {
+                entries.add(account.entry(hour, day));
+            }
+        }
+        entries.sort(Comparator.comparingDouble(LedgerEntry::getTotal).reversed());
+        return entries;
+    }
+
+    /**
+     * @return units per hour for the last {@link #HOURS} hours, oldest first, ending with the current hour
+     */
+    public double[] getHourly(Kind kind, String entityId, long timeMillis) {
+        double[] result = new double[HOURS];
+        Account account = accounts.get(new Key(kind, entityId));
+        if (account != null) {
+            long current = Math.floorDiv(toLocal(timeMillis), HOUR_MILLIS);
+            for (int i = 0; i < HOURS; i++) {
+                result[i] = account.hour(current - (HOURS - 1) + i);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return units per day for the last {@link #DAYS} days, oldest first, ending with today
+     */
+    public double[] getDaily(Kind kind, String entityId, long timeMillis) {
+        double[] result = new double[DAYS];
+        Account account = accounts.get(new Key(kind, entityId));
+        if (account != null) {
+            long current = Math.floorDiv(toLocal(timeMillis), DAY_MILLIS);
+            for (int i = 0; i < DAYS; i++) {
+                result[i] = account.day(current - (DAYS - 1) + i);
+            }
+        }
+        return result;
+    }
+
+    private long toLocal(long timeMillis) {
+        return timeMillis + zone.getRules().getOffset(Instant.ofEpochMilli(timeMillis)).getTotalSeconds() * 1000L;
+    }
+
+    /**
+     * Writes the ledger to the file at a fixed delay, and once more on {@link #shutdown()}.
+     */
+    public void startPeriodicSaves(Path file, long interval, TimeUnit unit) {
+        ledgerFile = file;
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                save(file);
+            } catch (IOException e) {
+                log.error("Failed to write energy ledger {}", file, e);
+            }
+        }, interval, interval, unit);
+        log.info("Writing energy ledger to {} every {} {}", file, interval, unit);
+    }
+
+    public void save(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tempFile = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile), 1 << 16))) {
+                List<Account> snapshot = List.copyOf(accounts.values());
+                out.writeInt(MAGIC);
+                out.writeShort(FORMAT_VERSION);
+                out.writeLong(System.currentTimeMillis());
+                out.writeInt(snapshot.size());
+                for (Account account : snapshot) {
+                    synchronized (account) {
+                        out.writeByte(account.kind.ordinal());
+                        writeString(out, account.entityId);
+                        writeString(out, account.name);
+                        out.writeDouble(account.total);
+                        for (int i = 0; i < HOURS; i++) {
+                            out.writeLong(account.hourStamps[i]);
+                            out.writeDouble(account.hours[i]);
+                        }
+                        for (int i = 0; i < DAYS; i++) {
+                            out.writeLong(account.dayStamps[i]);
+                            out.writeDouble(account.days[i]);
+                        }
+                    }
+                }
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Replaces all accounts with the ones stored in the file.
+     *
+     * @return false if there is no file to restore
+     */
+    public boolean restore(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (buffer.remaining() < 18 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not an energy ledger");
+        }
+        short version = buffer.getShort();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported energy ledger version: " + version);
+        }
+        buffer.getLong();
+        int count = buffer.getInt();
+
+        Kind[] kinds = Kind.values();
+        Map<Key, Account> restored = new ConcurrentHashMap<>();
+        try {
+            for (int i = 0; i < count; i++) {
+                Account account = new Account(kinds[buffer.get()], readString(buffer), readString(buffer));
+                account.total = buffer.getDouble();
+                for (int h = 0; h < HOURS; h++) {
+                    account.hourStamps[h] = buffer.getLong();
+                    account.hours[h] = buffer.getDouble();
+                }
+                for (int d = 0; d < DAYS; d++) {
+                    account.dayStamps[d] = buffer.getLong();
+                    account.days[d] = buffer.getDouble();
+                }
+                restored.put(new Key(account.kind, account.entityId), account);
+            }
+        } catch (RuntimeException e) {
+            // A truncated or damaged file runs past its end or into invalid kinds and lengths
+            throw new IOException("Corrupt energy ledger", e);
+        }
+        accounts.clear();
+        accounts.putAll(restored);
+        log.info("Restored energy ledger with {} accounts from {}", count, file);
+        return true;
+    }
+
+    /**
+     * Stops periodic saves and writes the ledger a last time if saves were started.
+     */
+    public void shutdown() {
+        scheduler.shutdown();
+        Path file = ledgerFile;
+        if (file == null) {
+            return;
+        }
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            save(file);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.error("Failed to write energy ledger {}", file, e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
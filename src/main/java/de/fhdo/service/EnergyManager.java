@@ -2,26 +2,70 @@ package de.fhdo.service;
 
 import de.fhdo.model.Device;
 import de.fhdo.model.Battery;
+import de.fhdo.model.BatteryModel;
 import de.fhdo.model.Energy;
 import de.fhdo.util.LoggerHelper;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Slf4j
 public class EnergyManager {
-    private final Map<String, Battery> batteries = new ConcurrentHashMap<>();
-    private final Map<String, Energy> energies = new ConcurrentHashMap<>();
-    private final ExecutorService executorService = Executors.newFixedThreadPool(10);
+    private static final HouseEvent ENERGY_SET_CHANGED = new HouseEvent.EnergySetChanged();
+    private static final HouseEvent BATTERY_SET_CHANGED = new HouseEvent.BatterySetChanged();
+
+    /** Period of the charging and battery power tasks; each tick moves one tick's worth of power. */
+    public static final long TICK_MILLIS = 2000;
+    /** Length of a tick in hours; the charge a tick moves is booked in the ledger as energy in unit-hours. */
+    static final double TICK_HOURS = TICK_MILLIS / 3_600_000.0;
 
-    private final DeviceManager deviceManager = DeviceManager.getInstance();
-    private final LogManager logManager = LogManager.getInstance();
+    private final EntityRegistry<Battery> batteries;
+    private final EntityRegistry<Energy> energies;
+    private final ExecutorService executorService = Executors.newFixedThreadPool(10);
+    /** Devices with a running battery power task, so a device never draws twice per tick. */
+    private final Set<String> poweredDevices = ConcurrentHashMap.newKeySet();
+    /** Battery each device was last powered from, to resume it there after load shedding. */
+    private final Map<String, String> powerSources = new ConcurrentHashMap<>();
+
+    private final DeviceManager deviceManager;
+    private final LogManager logManager;
+    private final EventBus eventBus;
+    private final ConflatingPublisher<HouseEvent> energyChangePublisher;
+    private final ConflatingPublisher<HouseEvent> batteryChangePublisher;
+    private final ConflatingPublisher<EnergyTotals> totalsPublisher;
+    private volatile StateJournal journal;
+    private volatile LoadSheddingController loadShedding;
+    private volatile EnergyLedger ledger;
+    private EventBus.Subscription publisherSubscription;
 
     private static volatile EnergyManager instance;
 
     private EnergyManager() {
+        this(DeviceManager.getInstance(), LogManager.getInstance());
+    }
+
+    /**
+     * Publishes on the device manager's event bus.
+     */
+    public EnergyManager(DeviceManager deviceManager, LogManager logManager) {
+        this(deviceManager, logManager, deviceManager.getEventBus());
+    }
+
+    public EnergyManager(DeviceManager deviceManager, LogManager logManager, EventBus eventBus) {
+        this.deviceManager = deviceManager;
+        this.logManager = logManager;
+        this.eventBus = eventBus;
+        this.batteries = new EntityRegistry<>(Battery::getId, () -> eventBus.publish(BATTERY_SET_CHANGED));
+        this.energies = new EntityRegistry<>(Energy::getId, () -> eventBus.publish(ENERGY_SET_CHANGED));
+        this.energyChangePublisher = new ConflatingPublisher<>(EventBus::keyOf, ConflatingPublisher.DELIVERY_EXECUTOR,
+                this::connectPublishers, null);
+        this.batteryChangePublisher = new ConflatingPublisher<>(EventBus::keyOf, ConflatingPublisher.DELIVERY_EXECUTOR,
+                this::connectPublishers, null);
+        this.totalsPublisher = ConflatingPublisher.latest(ConflatingPublisher.DELIVERY_EXECUTOR,
+                this::connectPublishers, this::getCurrentTotals);
     }
 
     public static EnergyManager getInstance() {
@@ -47,18 +91,60 @@ public class EnergyManager {
                 .sum();
     }
 
+    public double getCurrentTotalGeneration() {
+        return getAllEnergies().stream()
+                .filter(Energy::isActive)
+                .mapToDouble(Energy::getCurrentOutput)
+                .sum();
+    }
+
+    public EnergyTotals getCurrentTotals() {
+        return new EnergyTotals(getCurrentTotalGeneration(), getCurrentTotalBatteryCharge(), getCurrentTotalBatteryCapacity());
+    }
+
     public void addEnergy(Energy energy) {
-        energies.put(energy.getId(), energy);
+        energies.put(energy);
         LoggerHelper.logEnergyEvent(logManager, "Added new energy", energy.getName());
         log.info("Energy added: {}", energy);
     }
 
     public void addBattery(Battery battery) {
-        batteries.put(battery.getId(), battery);
+        batteries.put(battery);
         LoggerHelper.logBatteryEvent(logManager, "Added new battery", battery.getName());
         log.info("Battery added: {}", battery);
     }
 
+    public void addAllEnergies(Collection<Energy> newEnergies) {
+        putAllEnergies(newEnergies);
+        LoggerHelper.logBulkEvent(logManager, LogManager.Category.ENERGY, "Added energies", newEnergies.size());
+        log.info("{} energies added", newEnergies.size());
+    }
+
+    public void addAllBatteries(Collection<Battery> newBatteries) {
+        putAllBatteries(newBatteries);
+        LoggerHelper.logBulkEvent(logManager, LogManager.Category.BATTERY, "Added batteries", newBatteries.size());
+        log.info("{} batteries added", newBatteries.size());
+    }
+
+    void putAllEnergies(Collection<Energy> newEnergies) {
+        energies.putAll(newEnergies);
+    }
+
+    void putAllBatteries(Collection<Battery> newBatteries) {
+        batteries.putAll(newBatteries);
+    }
+
+    /**
+     * Silent atomic replacement used when restoring persisted state.
+     */
+    void restoreEnergies(Collection<Energy> restored) {
+        energies.replaceAll(restored);
+    }
+
+    void restoreBatteries(Collection<Battery> restored) {
+        batteries.replaceAll(restored);
+    }
+
     public Battery getBatteryById(String batteryId) {
         Battery battery = batteries.get(batteryId);
 
@@ -79,12 +165,26 @@ public class EnergyManager {
         return energy;
     }
 
+    /**
+     * Batteries in the order they were added. The list is shared and immutable.
+     */
     public List<Battery> getAllBatteries() {
-        return List.copyOf(batteries.values());
+        return batteries.values();
     }
 
+    /**
+     * Energy sources in the order they were added. The list is shared and immutable.
+     */
     public List<Energy> getAllEnergies() {
-        return List.copyOf(energies.values());
+        return energies.values();
+    }
+
+    public EntityChanges getBatteryChangesSince(long stamp) {
+        return batteries.changesSince(stamp);
+    }
+
+    public EntityChanges getEnergyChangesSince(long stamp) {
+        return energies.changesSince(stamp);
     }
 
     public void removeBatteryById(String batteryId) {
@@ -101,6 +201,100 @@ public class EnergyManager {
         }
     }
 
+    /**
+     * Atomically removes every energy source matching the filter and logs the removal as one event.
+     *
+     * @return the removed energy sources
+     */
+    public List<Energy> removeAllEnergies(Predicate<Energy> filter) {
+        List<Energy> removed = energies.removeIf(filter);
+        if (!removed.isEmpty()) {
+            LoggerHelper.logBulkEvent(logManager, LogManager.Category.ENERGY, "Removed energies", removed.size());
+            log.info("{} energies removed", removed.size());
+        }
+        return removed;
+    }
+
+    /**
+     * Atomically removes every battery matching the filter and logs the removal as one event.
+     *
+     * @return the removed batteries
+     */
+    public List<Battery> removeAllBatteries(Predicate<Battery> filter) {
+        List<Battery> removed = batteries.removeIf(filter);
+        if (!removed.isEmpty()) {
+            LoggerHelper.logBulkEvent(logManager, LogManager.Category.BATTERY, "Removed batteries", removed.size());
+            log.info("{} batteries removed", removed.size());
+        }
+        return removed;
+    }
+
+    public void replaceAllEnergies(Collection<Energy> newEnergies) {
+        energies.replaceAll(newEnergies);
+        LoggerHelper.logBulkEvent(logManager, LogManager.Category.ENERGY, "Replaced energies", newEnergies.size());
+        log.info("Energy set replaced with {} energies", newEnergies.size());
+    }
+
+    public void replaceAllBatteries(Collection<Battery> newBatteries) {
+        batteries.replaceAll(newBatteries);
+        LoggerHelper.logBulkEvent(logManager, LogManager.Category.BATTERY, "Replaced batteries", newBatteries.size());
+        log.info("Battery set replaced with {} batteries", newBatteries.size());
+    }
+
+    /**
+     * Updates a battery's configured limits in place without interrupting a running charging task.
+     * The charge is capped at the new capacity.
+     *
+     * @return false if nothing changed
+     */
+    boolean reconfigureBattery(Battery battery, double capacity, double maxChargeRate, BatteryModel model) {
+        synchronized (battery) {
+            if (battery.getCapacity() == capacity && battery.getMaxChargeRate() == maxChargeRate
+                    && Objects.equals(battery.getModel(), model)) {
+                return false;
+            }
+            battery.setCapacity(capacity);
+            battery.setMaxChargeRate(maxChargeRate);
+            battery.setModel(model);
+            if (battery.getCurrentCharge() > capacity) {
+                double previousCharge = battery.getCurrentCharge();
+                battery.setCurrentCharge(capacity);
+                chargeLost(battery, capacity - previousCharge);
+            } else {
+                batteryChanged(battery);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Changes an energy source's configured properties in place; its id and activation are kept.
+     */
+    public Energy updateEnergy(String energyId, String name, Energy.EnergyType type, double output) {
+        Energy energy = getEnergyById(energyId);
+        energy.setName(name);
+        energy.setType(type);
+        energy.setOutput(output);
+        energyChanged(energy);
+        LoggerHelper.logEnergyEvent(logManager, "Updated energy", energy.getName());
+        return energy;
+    }
+
+    /**
+     * Changes a battery's name and limits in place without interrupting charging.
+     */
+    public Battery updateBattery(String batteryId, String name, double capacity, double maxChargeRate) {
+        Battery battery = getBatteryById(batteryId);
+        synchronized (battery) {
+            battery.setName(name);
+            if (!reconfigureBattery(battery, capacity, maxChargeRate, battery.getModel())) {
+                batteryChanged(battery);
+            }
+        }
+        LoggerHelper.logBatteryEvent(logManager, "Updated battery", battery.getName());
+        return battery;
+    }
+
     public List<Battery> getBatteriesByState(boolean isCharging) {
         return getAllBatteries().stream()
                 .filter(battery -> battery.isCharging() == isCharging)
@@ -125,8 +319,33 @@ public class EnergyManager {
 
     public void toggleEnergyById(String energyId) {
         Energy energy = getEnergyById(energyId);
-        energy.toggle();
-        LoggerHelper.logEnergyEvent(logManager, energy.isActive() ? "Activated energy" : "Deactivated energy", energy.getName());
+        boolean active;
+        synchronized (energy) {
+            energy.toggle();
+            active = energy.isActive();
+        }
+        energyChanged(energy);
+        LoggerHelper.logEnergyEvent(logManager, active ? "Activated energy" : "Deactivated energy", energy.getName());
+    }
+
+    /**
+     * Switches an energy source on or off, unlike {@link #toggleEnergyById} leaving it alone if it is
+     * already in that state. The check and the switch happen under the source's lock, so of several
+     * concurrent calls for the same state exactly one reports the change.
+     *
+     * @return false if nothing changed
+     */
+    public boolean setEnergyActive(String energyId, boolean active) {
+        Energy energy = getEnergyById(energyId);
+        synchronized (energy) {
+            if (energy.isActive() == active) {
+                return false;
+            }
+            energy.setActive(active);
+        }
+        energyChanged(energy);
+        LoggerHelper.logEnergyEvent(logManager, active ? "Activated energy" : "Deactivated energy", energy.getName());
+        return true;
     }
 
     public void startCharging(String batteryId) {
@@ -145,6 +364,7 @@ public class EnergyManager {
         }
 
         battery.setCharging(true);
+        chargingChanged(battery);
         CompletableFuture.runAsync(() -> manageChargingTasks(battery), executorService);
     }
 
@@ -165,16 +385,20 @@ public class EnergyManager {
 
                 if (tasks.stream().allMatch(CompletableFuture::isDone)) {
                     battery.setCharging(false);
+                    chargingChanged(battery);
                     break;
                 }
 
-                Thread.sleep(2000);
+                Thread.sleep(TICK_MILLIS);
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         } finally {
             tasks.forEach(task -> task.cancel(true));
-            battery.setCharging(false);
+            if (battery.isCharging()) {
+                battery.setCharging(false);
+                chargingChanged(battery);
+            }
         }
     }
 
@@ -184,11 +408,11 @@ public class EnergyManager {
         try {
             while (battery.isCharging()) {
                 synchronized (battery) {
-                    double availablePower = energy.getOutput();
+                    double availablePower = energy.getCurrentOutput();
                     double batteryDeficit = battery.getCapacity() - battery.getCurrentCharge();
                     double deviceConsumption = deviceManager.getCurrentTotalConsumption();
 
-                    double chargePower = Math.min(battery.getMaxChargeRate(), availablePower);
+                    double chargePower = Math.min(battery.getChargeLimit(), availablePower);
 
                     if (batteryDeficit <= 0 && deviceConsumption <= 0) {
                         break;
@@ -197,16 +421,19 @@ public class EnergyManager {
                     double netCharge = chargePower - deviceConsumption;
 
                     if (netCharge > 0) {
-                        double chargeAmount = Math.min(netCharge, batteryDeficit);
+                        double chargeAmount = Math.min(battery.storedFrom(netCharge), batteryDeficit);
                         battery.setCurrentCharge(battery.getCurrentCharge() + chargeAmount);
+                        chargeChanged(battery, chargeAmount);
                         LoggerHelper.logChargingEvent(logManager, battery.getName(), energy.getName(), chargeAmount);
                     } else {
-                        battery.setCurrentCharge(Math.max(0, battery.getCurrentCharge() + netCharge));
+                        double previousCharge = battery.getCurrentCharge();
+                        battery.setCurrentCharge(Math.max(0, previousCharge + netCharge));
+                        chargeChanged(battery, battery.getCurrentCharge() - previousCharge);
                         LoggerHelper.logChargingEvent(logManager, battery.getName(), energy.getName() + id, netCharge);
                     }
                 }
 
-                Thread.sleep(2000);
+                Thread.sleep(TICK_MILLIS);
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
@@ -217,6 +444,7 @@ public class EnergyManager {
         Battery battery = getBatteryById(batteryId);
 
         battery.setCharging(false);
+        chargingChanged(battery);
         LoggerHelper.logBatteryEvent(logManager, "Stopped charging", battery.getName());
     }
 
@@ -233,9 +461,11 @@ public class EnergyManager {
 
         if(activeDevices.isEmpty()) {
             device.setActive(true);
+            deviceManager.deviceChanged(device);
             CompletableFuture.runAsync(() -> manageDevicePowerTask(device, battery), executorService);
         } else {
             device.setActive(true);
+            deviceManager.deviceChanged(device);
         }
     }
 
@@ -255,40 +485,106 @@ public class EnergyManager {
                 	tasks.add(CompletableFuture.runAsync(() -> powerFromBattery(newActiveDevice, battery), executorService));
                 }
 
-                if (tasks.stream().allMatch(CompletableFuture::isDone)) {
+                // A device resumed after load shedding is powered again and must stay on
+                if (tasks.stream().allMatch(CompletableFuture::isDone) && !poweredDevices.contains(device.getId())) {
                     device.setActive(false);
+                    deviceManager.deviceChanged(device);
                     break;
                 }
 
-                Thread.sleep(2000);
+                Thread.sleep(TICK_MILLIS);
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         } finally {
             tasks.forEach(task -> task.cancel(true));
-            device.setActive(false);
+            if (device.isActive()) {
+                device.setActive(false);
+                deviceManager.deviceChanged(device);
+            }
+        }
+    }
+
+    /**
+     * Switches a device back on that load shedding switched off and powers it again from the battery it
+     * last drew from, or the fullest battery if it never drew from one.
+     */
+    void resumePower(Device device) {
+        device.setActive(true);
+        deviceManager.deviceChanged(device);
+        String batteryId = powerSources.get(device.getId());
+        Battery battery = batteryId == null ? null : batteries.get(batteryId);
+        if (battery == null) {
+            battery = getAllBatteries().stream()
+                    .max(Comparator.comparingDouble(Battery::getCurrentCharge))
+                    .orElse(null);
+        }
+        if (battery != null) {
+            Battery source = battery;
+            CompletableFuture.runAsync(() -> powerFromBattery(device, source), executorService);
         }
     }
 
     private void powerFromBattery(Device device, Battery battery) {
+        if (!poweredDevices.add(device.getId())) {
+            return;
+        }
+        powerSources.put(device.getId(), battery.getId());
+        boolean exhausted = false;
         try {
             while (device.isActive()) {
                 synchronized (battery) {
-                    double consumption = device.getPower();
+                    double consumption = battery.drawnFor(device.getCurrentPower());
+                    LoadSheddingController shedding = loadShedding;
                     if (battery.getCurrentCharge() >= consumption) {
                         battery.setCurrentCharge(battery.getCurrentCharge() - consumption);
+                        chargeChanged(battery, -consumption);
                         LoggerHelper.logDevicePowerEvent(logManager, "Consuming power", device.getName(), battery.getName());
+                        exhausted = false;
+                    } else if (shedding != null && shedding.isEnabled()) {
+                        // Drain what is left and let the controller decide which loads go
+                        double remaining = battery.getCurrentCharge();
+                        if (remaining > 0) {
+                            battery.setCurrentCharge(0);
+                            chargeChanged(battery, -remaining);
+                        }
+                        if (!exhausted) {
+                            LoggerHelper.logDevicePowerEvent(logManager, "Battery exhausted", device.getName(), battery.getName());
+                            exhausted = true;
+                        }
                     } else {
                         log.info("Battery {} does not have enough charge to power the device {}", battery.getId(), device.getName());
                         device.setActive(false);
+                        deviceManager.deviceChanged(device);
                         LoggerHelper.logDevicePowerEvent(logManager, "Powered off due to low battery", device.getName(), battery.getName());
                         break;
                     }
                 }
-                Thread.sleep(2000);
+                Thread.sleep(TICK_MILLIS);
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+        } finally {
+            poweredDevices.remove(device.getId());
+        }
+    }
+
+    /**
+     * Lets every battery with a model lose the charge it self-discharges over the given time.
+     */
+    public void selfDischarge(long millis) {
+        double minutes = millis / 60_000.0;
+        for (Battery battery : getAllBatteries()) {
+            if (battery.getModel() == null) {
+                continue;
+            }
+            synchronized (battery) {
+                double lost = battery.selfDischargeOver(minutes);
+                if (lost > 0) {
+                    battery.setCurrentCharge(battery.getCurrentCharge() - lost);
+                    chargeLost(battery, -lost);
+                }
+            }
         }
     }
 
@@ -297,12 +593,148 @@ public class EnergyManager {
         Battery battery = getBatteryById(batteryId);
 
         device.setActive(false);
+        deviceManager.deviceChanged(device);
         LoggerHelper.logDevicePowerEvent(logManager, "Powered off", device.getName(), battery.getName());
     }
 
+    public void setJournal(StateJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Books the charge the charging and power tasks move into and out of batteries.
+     */
+    public void setEnergyLedger(EnergyLedger ledger) {
+        this.ledger = ledger;
+    }
+
+    /**
+     * While the controller is enabled, a battery running out no longer switches off the device that
+     * happens to draw from it; the controller sheds loads by priority instead.
+     */
+    public void setLoadSheddingController(LoadSheddingController loadShedding) {
+        this.loadShedding = loadShedding;
+    }
+
+    public EventBus getEventBus() {
+        return eventBus;
+    }
+
+    /**
+     * Energy source state changes and energy set changes, conflated per energy source.
+     */
+    public Flow.Publisher<HouseEvent> getEnergyChangePublisher() {
+        return energyChangePublisher;
+    }
+
+    /**
+     * Charging and charge changes and battery set changes, conflated per battery.
+     */
+    public Flow.Publisher<HouseEvent> getBatteryChangePublisher() {
+        return batteryChangePublisher;
+    }
+
+    /**
+     * Generation and battery totals, recomputed whenever energy sources or batteries change and
+     * conflated to the latest value.
+     */
+    public Flow.Publisher<EnergyTotals> getTotalsPublisher() {
+        return totalsPublisher;
+    }
+
+    private synchronized void connectPublishers() {
+        if (publisherSubscription == null) {
+            publisherSubscription = eventBus.subscribe(this::publishChanges);
+        }
+    }
+
+    private void publishChanges(List<HouseEvent> events) {
+        boolean changed = false;
+        for (HouseEvent event : events) {
+            if (event instanceof HouseEvent.EnergyToggled || event instanceof HouseEvent.EnergySetChanged) {
+                energyChangePublisher.submit(event);
+                changed = true;
+            } else if (event instanceof HouseEvent.BatteryChanged || event instanceof HouseEvent.BatterySetChanged) {
+                batteryChangePublisher.submit(event);
+                changed = true;
+            } else if (event instanceof HouseEvent.Resync) {
+                energyChangePublisher.submit(event);
+                batteryChangePublisher.submit(event);
+                changed = true;
+            }
+        }
+        if (changed && totalsPublisher.hasSubscribers()) {
+            totalsPublisher.submit(getCurrentTotals());
+        }
+    }
+
+    /**
+     * Records a state change of an energy source for change tracking, subscribers and the journal.
+     */
+    void energyChanged(Energy energy) {
+        energies.touch(energy.getId());
+        eventBus.publish(HouseEvent.EnergyToggled.of(energy));
+        StateJournal current = journal;
+        if (current != null) {
+            current.recordEnergyActive(energy);
+        }
+    }
+
+    /**
+     * Records a change of a battery's configured properties.
+     */
+    private void batteryChanged(Battery battery) {
+        batteries.touch(battery.getId());
+        eventBus.publish(HouseEvent.BatteryChanged.of(battery));
+    }
+
+    private void chargingChanged(Battery battery) {
+        batteries.touch(battery.getId());
+        eventBus.publish(HouseEvent.BatteryChanged.of(battery));
+        StateJournal current = journal;
+        if (current != null) {
+            current.recordCharging(battery);
+        }
+    }
+
+    /**
+     * Records charge moved by one charging or power tick; the ledger books it as energy in unit-hours.
+     */
+    private void chargeChanged(Battery battery, double delta) {
+        batteries.touch(battery.getId());
+        eventBus.publish(HouseEvent.BatteryChanged.of(battery));
+        StateJournal current = journal;
+        if (current != null) {
+            current.recordCharge(battery, delta);
+        }
+        EnergyLedger currentLedger = ledger;
+        if (currentLedger != null) {
+            currentLedger.record(delta > 0 ? EnergyLedger.Kind.BATTERY_CHARGED : EnergyLedger.Kind.BATTERY_DISCHARGED,
+                    battery.getId(), battery.getName(), Math.abs(delta) * TICK_HOURS);
+        }
+    }
+
+    /**
+     * Like {@link #chargeChanged} for charge that left the battery without going anywhere, so it is not
+     * booked in the ledger.
+     */
+    private void chargeLost(Battery battery, double delta) {
+        batteries.touch(battery.getId());
+        eventBus.publish(HouseEvent.BatteryChanged.of(battery));
+        StateJournal current = journal;
+        if (current != null) {
+            current.recordCharge(battery, delta);
+        }
+    }
+
     public void shutdown() {
-        energies.values().forEach(energy -> energy.setActive(false));
-        batteries.values().forEach(battery -> battery.setCharging(false));
+        energyChangePublisher.complete();
+        batteryChangePublisher.complete();
+        totalsPublisher.complete();
+        deviceManager.closePublishers();
+
+        getAllEnergies().forEach(energy -> energy.setActive(false));
+        getAllBatteries().forEach(battery -> battery.setCharging(false));
         deviceManager.getAllDevices().forEach(device -> device.setActive(false));
 
         executorService.shutdown();
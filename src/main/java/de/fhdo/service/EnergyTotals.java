@@ -0,0 +1,13 @@
+package de.fhdo.service;
+
+import lombok.Value;
+
+/**
+ * House-wide energy figures at one point in time.
+ */
+@Value
+public class EnergyTotals {
+    double generation;
+    double batteryCharge;
+    double batteryCapacity;
+}
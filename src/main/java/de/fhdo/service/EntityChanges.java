@@ -0,0 +1,21 @@
+package de.fhdo.service;
+
+import lombok.Value;
+
+import java.util.Set;
+
+/**
+ * What changed in a manager's entity set since a given stamp. Structural means entities were added or
+ * removed (or too much changed to list), so the caller has to re-read the whole set; otherwise only the
+ * entities with the listed ids changed their state.
+ */
+@Value
+public class EntityChanges {
+    long stamp;
+    boolean structural;
+    Set<String> changedIds;
+
+    public boolean isEmpty() {
+        return !structural && changedIds.isEmpty();
+    }
+}
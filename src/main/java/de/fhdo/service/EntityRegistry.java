@@ -0,0 +1,208 @@
+package de.fhdo.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Id-keyed store behind the managers. Lookups by id are lock-free; structural changes take the write
+ * lock so bulk operations become visible all at once to {@link #values()}, and every structural change
+ * bumps the version exactly once so derived indexes know when to rebuild. {@link #replaceAll(Collection)}
+ * swaps in a fully built id map, so a lock-free lookup never sees a half-replaced set.
+ * <p>
+ * {@link #values()} keeps insertion order and is cached until the next structural change. State changes
+ * of single entities are reported through {@link #touch(String)} into a bounded changelog, so views can
+ * ask for {@link #changesSince(long)} instead of re-reading every entity.
+ * <p>
+ * The optional structural listener runs after every structural change with the write lock held, so it
+ * must not block.
+ */
+class EntityRegistry<T> {
+    private static final int CHANGELOG_CAPACITY = 1024;
+
+    private volatile Map<String, T> entities = new ConcurrentHashMap<>();
+    private final Map<String, T> insertionOrder = new LinkedHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong version = new AtomicLong();
+    private final Function<T, String> idOf;
+    private final Runnable onStructuralChange;
+    private volatile List<T> orderedValues = List.of();
+
+    private final Object changeLock = new Object();
+    private final long[] changeStamps = new long[CHANGELOG_CAPACITY];
+    private final String[] changeIds = new String[CHANGELOG_CAPACITY];
+    private long stamp;
+    private long structuralStamp;
+
+    EntityRegistry(Function<T, String> idOf) {
+        this(idOf, () -> {
+        });
+    }
+
+    EntityRegistry(Function<T, String> idOf, Runnable onStructuralChange) {
+        this.idOf = idOf;
+        this.onStructuralChange = onStructuralChange;
+    }
+
+    T get(String id) {
+        return entities.get(id);
+    }
+
+    long getVersion() {
+        return version.get();
+    }
+
+    int size() {
+        return entities.size();
+    }
+
+    /**
+     * Entities in insertion order. The list is immutable and shared until the next structural change.
+     */
+    List<T> values() {
+        List<T> values = orderedValues;
+        if (values != null) {
+            return values;
+        }
+        lock.readLock().lock();
+        try {
+            // Published while still holding the read lock, so no writer can invalidate it in between
+            values = List.copyOf(insertionOrder.values());
+            orderedValues = values;
+            return values;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long getStamp() {
+        synchronized (changeLock) {
+            return stamp;
+        }
+    }
+
+    /**
+     * Records that the state of an entity changed without the entity set changing.
+     */
+    void touch(String id) {
+        synchronized (changeLock) {
+            stamp++;
+            int slot = (int) (stamp % CHANGELOG_CAPACITY);
+            changeStamps[slot] = stamp;
+            changeIds[slot] = id;
+        }
+    }
+
+    EntityChanges changesSince(long since) {
+        synchronized (changeLock) {
+            if (since == stamp) {
+                return new EntityChanges(stamp, false, Set.of());
+            }
+            if (since < structuralStamp || since > stamp || stamp - since > CHANGELOG_CAPACITY) {
+                return new EntityChanges(stamp, true, Set.of());
+            }
+            Set<String> changed = new HashSet<>();
+            for (long s = since + 1; s <= stamp; s++) {
+                changed.add(changeIds[(int) (s % CHANGELOG_CAPACITY)]);
+            }
+            return new EntityChanges(stamp, false, changed);
+        }
+    }
+
+    void put(T entity) {
+        putAll(List.of(entity));
+    }
+
+    void putAll(Collection<? extends T> batch) {
+        lock.writeLock().lock();
+        try {
+            batch.forEach(entity -> {
+                String id = idOf.apply(entity);
+                entities.put(id, entity);
+                insertionOrder.put(id, entity);
+            });
+            structuralChange();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    T remove(String id) {
+        lock.writeLock().lock();
+        try {
+            T removed = entities.remove(id);
+            if (removed != null) {
+                insertionOrder.remove(id);
+                structuralChange();
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    List<T> removeIf(Predicate<? super T> filter) {
+        lock.writeLock().lock();
+        try {
+            List<T> removed = new ArrayList<>();
+            insertionOrder.values().removeIf(entity -> {
+                if (filter.test(entity)) {
+                    removed.add(entity);
+                    return true;
+                }
+                return false;
+            });
+            if (!removed.isEmpty()) {
+                removed.forEach(entity -> entities.remove(idOf.apply(entity)));
+                structuralChange();
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void replaceAll(Collection<? extends T> replacement) {
+        lock.writeLock().lock();
+        try {
+            Map<String, T> replaced = new ConcurrentHashMap<>();
+            insertionOrder.clear();
+            replacement.forEach(entity -> {
+                String id = idOf.apply(entity);
+                replaced.put(id, entity);
+                insertionOrder.put(id, entity);
+            });
+            entities = replaced;
+            structuralChange();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        replaceAll(List.of());
+    }
+
+    /**
+     * Called with the write lock held.
+     */
+    private void structuralChange() {
+        version.incrementAndGet();
+        orderedValues = null;
+        synchronized (changeLock) {
+            stamp++;
+            structuralStamp = stamp;
+        }
+        onStructuralChange.run();
+    }
+}
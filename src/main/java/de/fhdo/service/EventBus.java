@@ -0,0 +1,209 @@
+package de.fhdo.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Pushes {@link HouseEvent}s from the managers to their subscribers.
+ * <p>
+ * Publishers claim a slot in a preallocated ring with a single CAS and never block, even while holding
+ * a battery lock. One dispatcher thread collects everything published within a frame, keeps only the
+ * latest event per entity and type, and hands the batch to every subscriber. When nothing happens the
+ * dispatcher is parked, so idle subscribers cost nothing. If the ring fills up because subscribers are
+ * too slow, new events are dropped and the next batch is a single {@link HouseEvent.Resync}.
+ * <p>
+ * Publishing is a no-op while there are no subscribers.
+ */
+@Slf4j
+public class EventBus implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 4096;
+    public static final long DEFAULT_FRAME_MILLIS = 50;
+
+    private final HouseEvent[] entries;
+    /** Sequence + 1 of the event last written to each slot, so an unwritten slot never matches. */
+    private final AtomicLongArray published;
+    private final int mask;
+    private final long frameNanos;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+    private volatile boolean overflowed;
+
+    private final List<Consumer<List<HouseEvent>>> subscribers = new CopyOnWriteArrayList<>();
+    private volatile Thread dispatcher;
+    private volatile boolean waiting;
+    private volatile boolean closed;
+
+    private static volatile EventBus instance;
+
+    public interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private record Key(Class<?> type, String entityId) {
+    }
+
+    /**
+     * Events with equal keys supersede each other.
+     */
+    static Object keyOf(HouseEvent event) {
+        return new Key(event.getClass(), event.entityId());
+    }
+
+    public EventBus() {
+        this(DEFAULT_CAPACITY, DEFAULT_FRAME_MILLIS);
+    }
+
+    /**
+     * @param capacity    ring size, rounded up to a power of two
+     * @param frameMillis how long the dispatcher gathers events before delivering them
+     */
+    public EventBus(int capacity, long frameMillis) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.entries = new HouseEvent[size];
+        this.published = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.frameNanos = TimeUnit.MILLISECONDS.toNanos(frameMillis);
+    }
+
+    public static EventBus getInstance() {
+        if (instance == null) {
+            synchronized (EventBus.class) {
+                if (instance == null) {
+                    instance = new EventBus();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Registers a listener for event batches. Listeners run on the dispatcher thread, one batch at a
+     * time, and must hand anything slow off to another thread.
+     */
+    public Subscription subscribe(Consumer<List<HouseEvent>> listener) {
+        Objects.requireNonNull(listener);
+        subscribers.add(listener);
+        startDispatcher();
+        return () -> subscribers.remove(listener);
+    }
+
+    public void publish(HouseEvent event) {
+        if (closed || subscribers.isEmpty()) {
+            return;
+        }
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed >= entries.length) {
+                overflowed = true;
+                wakeDispatcher();
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int) (sequence & mask);
+        entries[slot] = event;
+        published.set(slot, sequence + 1);
+        wakeDispatcher();
+    }
+
+    private void wakeDispatcher() {
+        if (waiting) {
+            LockSupport.unpark(dispatcher);
+        }
+    }
+
+    private synchronized void startDispatcher() {
+        if (dispatcher != null || closed) {
+            return;
+        }
+        Thread thread = new Thread(this::dispatch, "event-bus");
+        thread.setDaemon(true);
+        dispatcher = thread;
+        thread.start();
+    }
+
+    private void dispatch() {
+        while (!closed) {
+            if (!hasPending()) {
+                waiting = true;
+                // Re-checked after announcing the wait so a concurrent publish cannot be missed
+                if (!hasPending() && !closed) {
+                    LockSupport.park(this);
+                }
+                waiting = false;
+                continue;
+            }
+
+            long deadline = System.nanoTime() + frameNanos;
+            for (long left = frameNanos; left > 0 && !closed; left = deadline - System.nanoTime()) {
+                LockSupport.parkNanos(this, left);
+            }
+            deliver(drain());
+        }
+    }
+
+    private boolean hasPending() {
+        long next = consumed;
+        return overflowed || published.get((int) (next & mask)) == next + 1;
+    }
+
+    private List<HouseEvent> drain() {
+        Map<Object, HouseEvent> frame = new LinkedHashMap<>();
+        long next = consumed;
+        int slot = (int) (next & mask);
+        while (published.get(slot) == next + 1) {
+            HouseEvent event = entries[slot];
+            entries[slot] = null;
+            frame.put(keyOf(event), event);
+            next++;
+            slot = (int) (next & mask);
+        }
+        consumed = next;
+
+        if (overflowed) {
+            overflowed = false;
+            return List.of(new HouseEvent.Resync());
+        }
+        return List.copyOf(frame.values());
+    }
+
+    private void deliver(List<HouseEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        for (Consumer<List<HouseEvent>> subscriber : subscribers) {
+            try {
+                subscriber.accept(batch);
+            } catch (RuntimeException e) {
+                log.error("Event subscriber failed", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Thread thread = dispatcher;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package de.fhdo.service;
+
+import de.fhdo.config.HouseConfig;
+import de.fhdo.config.HouseConfigStreamLoader;
+import de.fhdo.model.Battery;
+import de.fhdo.model.Device;
+import de.fhdo.model.Energy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bundles the services that make up one house. The application uses the default context backed by the
+ * singletons, while simulations create as many independent contexts as they need.
+ */
+@Slf4j
+@Getter
+public class HouseContext {
+    private final LogManager logManager;
+    private final DeviceManager deviceManager;
+    private final EnergyManager energyManager;
+    private final SystemMonitor systemMonitor;
+    private final EventBus eventBus;
+
+    private HouseContext(LogManager logManager, DeviceManager deviceManager, EnergyManager energyManager,
+                         SystemMonitor systemMonitor, EventBus eventBus) {
+        this.logManager = logManager;
+        this.deviceManager = deviceManager;
+        this.energyManager = energyManager;
+        this.systemMonitor = systemMonitor;
+        this.eventBus = eventBus;
+    }
+
+    public static HouseContext getDefault() {
+        return new HouseContext(LogManager.getInstance(), DeviceManager.getInstance(),
+                EnergyManager.getInstance(), SystemMonitor.getInstance(), EventBus.getInstance());
+    }
+
+    public static HouseContext create(Path logDir) {
+        LogManager logManager = new LogManager(logDir);
+        EventBus eventBus = new EventBus();
+        DeviceManager deviceManager = new DeviceManager(logManager, eventBus);
+        EnergyManager energyManager = new EnergyManager(deviceManager, logManager, eventBus);
+        SystemMonitor systemMonitor = new SystemMonitor(deviceManager, energyManager, logManager);
+        return new HouseContext(logManager, deviceManager, energyManager, systemMonitor, eventBus);
+    }
+
+    public void applyConfiguration(HouseConfig config) {
+        deviceManager.replaceAllDevices(config.getDevices().stream()
+                .map(dev -> dev.toDevice(config.profileForType(dev.getType())))
+                .toList());
+        energyManager.replaceAllEnergies(config.getEnergies().stream().map(HouseConfig.EnergyConfig::toEnergy).toList());
+        energyManager.replaceAllBatteries(config.getBatteries().stream().map(HouseConfig.BatteryConfig::toBattery).toList());
+    }
+
+    /**
+     * Applies the configuration as a diff against the running house: entities are matched by name, new
+     * ones are added, missing ones removed and changed ones updated in place. Unaffected devices, energy
+     * sources and batteries keep running untouched.
+     */
+    public ConfigDiff reconcileConfiguration(HouseConfig config) {
+        long start = System.nanoTime();
+        ConfigDiff diff = new ConfigReconciler(deviceManager, energyManager).reconcile(config);
+        if (!diff.isEmpty()) {
+            logManager.logEvent(LogManager.Category.SYSTEM, "Config Reload",
+                    String.format("Applied configuration changes: %s in %d ms", diff, (System.nanoTime() - start) / 1_000_000));
+        }
+        log.info("Reconciled configuration: {}", diff);
+        return diff;
+    }
+
+    /**
+     * Replaces the current house with the configuration in the given file. The file is streamed in
+     * batches into staging lists, which replace the managers' contents only once the whole file has been
+     * parsed, so a broken file leaves the running house untouched. The whole import is logged as a single
+     * summary event.
+     */
+    public HouseConfigStreamLoader.Summary importConfiguration(Path configFile) throws IOException {
+        List<Device> stagedDevices = new ArrayList<>();
+        List<Energy> stagedEnergies = new ArrayList<>();
+        List<Battery> stagedBatteries = new ArrayList<>();
+
+        HouseConfigStreamLoader.Summary summary = new HouseConfigStreamLoader().load(configFile, new HouseConfigStreamLoader.Sink() {
+            @Override
+            public void devices(List<Device> batch) {
+                stagedDevices.addAll(batch);
+            }
+
+            @Override
+            public void energies(List<Energy> batch) {
+                stagedEnergies.addAll(batch);
+            }
+
+            @Override
+            public void batteries(List<Battery> batch) {
+                stagedBatteries.addAll(batch);
+            }
+        });
+
+        deviceManager.restoreDevices(stagedDevices);
+        energyManager.restoreEnergies(stagedEnergies);
+        energyManager.restoreBatteries(stagedBatteries);
+
+        logManager.logEvent(LogManager.Category.SYSTEM, "Config Import",
+                String.format("Imported %s: %d devices, %d energies, %d batteries in %d ms",
+                        configFile.getFileName(), summary.getDevices(), summary.getEnergies(),
+                        summary.getBatteries(), summary.getDurationMillis()));
+        log.info("Imported configuration {}: {}", configFile, summary);
+        return summary;
+    }
+
+    public void setJournal(StateJournal journal) {
+        deviceManager.setJournal(journal);
+        energyManager.setJournal(journal);
+    }
+
+    public void shutdown() {
+        energyManager.shutdown();
+        systemMonitor.shutdown();
+        eventBus.close();
+    }
+}
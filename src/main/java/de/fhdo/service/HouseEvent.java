@@ -0,0 +1,94 @@
+package de.fhdo.service;
+
+import de.fhdo.model.Battery;
+import de.fhdo.model.Device;
+import de.fhdo.model.Energy;
+
+/**
+ * State change published on the {@link EventBus}. Within one delivery frame a later event replaces an
+ * earlier one of the same type for the same entity, so each event carries the entity's latest state
+ * rather than a delta.
+ */
+public sealed interface HouseEvent {
+
+    /**
+     * Id of the entity the event is about, or null for events about a whole entity set.
+     */
+    String entityId();
+
+    record DeviceToggled(String deviceId, boolean active) implements HouseEvent {
+        static DeviceToggled of(Device device) {
+            return new DeviceToggled(device.getId(), device.isActive());
+        }
+
+        @Override
+        public String entityId() {
+            return deviceId;
+        }
+    }
+
+    record EnergyToggled(String energyId, boolean active) implements HouseEvent {
+        static EnergyToggled of(Energy energy) {
+            return new EnergyToggled(energy.getId(), energy.isActive());
+        }
+
+        @Override
+        public String entityId() {
+            return energyId;
+        }
+    }
+
+    /**
+     * A battery started or stopped charging, its charge moved or its limits were reconfigured.
+     */
+    record BatteryChanged(String batteryId, boolean charging, double charge) implements HouseEvent {
+        static BatteryChanged of(Battery battery) {
+            return new BatteryChanged(battery.getId(), battery.isCharging(), battery.getCurrentCharge());
+        }
+
+        @Override
+        public String entityId() {
+            return batteryId;
+        }
+    }
+
+    /**
+     * Devices were added, removed or replaced.
+     */
+    record DeviceSetChanged() implements HouseEvent {
+        @Override
+        public String entityId() {
+            return null;
+        }
+    }
+
+    /**
+     * Energy sources were added, removed or replaced.
+     */
+    record EnergySetChanged() implements HouseEvent {
+        @Override
+        public String entityId() {
+            return null;
+        }
+    }
+
+    /**
+     * Batteries were added, removed or replaced.
+     */
+    record BatterySetChanged() implements HouseEvent {
+        @Override
+        public String entityId() {
+            return null;
+        }
+    }
+
+    /**
+     * Events were dropped because the subscribers fell behind; everything should be re-read.
+     */
+    record Resync() implements HouseEvent {
+        @Override
+        public String entityId() {
+            return null;
+        }
+    }
+}
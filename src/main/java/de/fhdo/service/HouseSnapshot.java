@@ -0,0 +1,297 @@
+package de.fhdo.service;
+
+import de.fhdo.model.Battery;
+import de.fhdo.model.BatteryModel;
+import de.fhdo.model.Device;
+import de.fhdo.model.Energy;
+import de.fhdo.model.profile.PowerProfile;
+import de.fhdo.model.profile.TraceProfile;
+import lombok.Getter;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Point-in-time copy of a house and its binary encoding. The copy is detached from the live objects,
+ * so encoding and writing can happen without holding any lock.
+ *
+ * <pre>
+ * header   int magic, short version, long createdAt, long journalSequence,
+ *          int profiles, int devices, int energies, int batteries
+ * profile  int length, double[length] table
+ * device   str id, str name, byte type, byte active, double power, int priority, int profile
+ * energy   str id, str name, byte type, byte active, double output, int profile
+ * battery  str id, str name, double capacity, double charge, double maxChargeRate, byte charging, model
+ * model    byte present, then if present double chargeEfficiency, double dischargeEfficiency,
+ *          double selfDischargePerDay, double taperStart, double taperFloor
+ * str      int byteLength, UTF-8 bytes
+ * trailer  int crc32c of everything before it
+ * </pre>
+ * All values are big-endian so the file can be decoded straight from a mapped {@link ByteBuffer}.
+ * Profiles are stored as their computed tables and restored as {@link TraceProfile}s. The journal
+ * sequence is the last {@link StateJournal} record already contained in the snapshot.
+ */
+@Getter
+public class HouseSnapshot {
+    static final int MAGIC = 0x53485350;
+    static final short FORMAT_VERSION = 5;
+    private static final int NO_PROFILE = -1;
+
+    private final long createdAt;
+    private final long journalSequence;
+    private final List<Device> devices;
+    private final List<Energy> energies;
+    private final List<Battery> batteries;
+
+    HouseSnapshot(long createdAt, long journalSequence, List<Device> devices, List<Energy> energies, List<Battery> batteries) {
+        this.createdAt = createdAt;
+        this.journalSequence = journalSequence;
+        this.devices = devices;
+        this.energies = energies;
+        this.batteries = batteries;
+    }
+
+    /**
+     * Copies the current state. Each battery is locked only for the instant its values are read,
+     * so running charge loops are never paused for the whole capture.
+     */
+    static HouseSnapshot capture(DeviceManager deviceManager, EnergyManager energyManager, long journalSequence) {
+        List<Device> devices = new ArrayList<>();
+        for (Device device : deviceManager.getAllDevices()) {
+            devices.add(Device.builder()
+                    .id(device.getId())
+                    .name(device.getName())
+                    .type(device.getType())
+                    .power(device.getPower())
+                    .priority(device.getPriority())
+                    .profile(device.getProfile())
+                    .isActive(device.isActive())
+                    .build());
+        }
+
+        List<Energy> energies = new ArrayList<>();
+        for (Energy energy : energyManager.getAllEnergies()) {
+            energies.add(Energy.builder()
+                    .id(energy.getId())
+                    .name(energy.getName())
+                    .type(energy.getType())
+                    .output(energy.getOutput())
+                    .profile(energy.getProfile())
+                    .isActive(energy.isActive())
+                    .build());
+        }
+
+        List<Battery> batteries = new ArrayList<>();
+        for (Battery battery : energyManager.getAllBatteries()) {
+            synchronized (battery) {
+                batteries.add(Battery.builder()
+                        .id(battery.getId())
+                        .name(battery.getName())
+                        .capacity(battery.getCapacity())
+                        .currentCharge(battery.getCurrentCharge())
+                        .maxChargeRate(battery.getMaxChargeRate())
+                        .isCharging(battery.isCharging())
+                        .model(battery.getModel())
+                        .build());
+            }
+        }
+
+        return new HouseSnapshot(System.currentTimeMillis(), journalSequence, devices, energies, batteries);
+    }
+
+    void writeTo(DataOutputStream target) throws IOException {
+        CheckedOutputStream checked = new CheckedOutputStream(target, new CRC32C());
+        DataOutputStream out = new DataOutputStream(checked);
+        Map<PowerProfile, Integer> profileIndex = new IdentityHashMap<>();
+        List<PowerProfile> profiles = new ArrayList<>();
+        devices.forEach(device -> indexProfile(device.getProfile(), profileIndex, profiles));
+        energies.forEach(energy -> indexProfile(energy.getProfile(), profileIndex, profiles));
+
+        out.writeInt(MAGIC);
+        out.writeShort(FORMAT_VERSION);
+        out.writeLong(createdAt);
+        out.writeLong(journalSequence);
+        out.writeInt(profiles.size());
+        out.writeInt(devices.size());
+        out.writeInt(energies.size());
+        out.writeInt(batteries.size());
+
+        for (PowerProfile profile : profiles) {
+            int period = profile.getPeriod();
+            out.writeInt(period);
+            for (int minute = 0; minute < period; minute++) {
+                out.writeDouble(profile.factorAt(minute));
+            }
+        }
+
+        for (Device device : devices) {
+            writeString(out, device.getId());
+            writeString(out, device.getName());
+            out.writeByte(device.getType().ordinal());
+            out.writeBoolean(device.isActive());
+            out.writeDouble(device.getPower());
+            out.writeInt(device.getPriority());
+            out.writeInt(device.getProfile() == null ? NO_PROFILE : profileIndex.get(device.getProfile()));
+        }
+
+        for (Energy energy : energies) {
+            writeString(out, energy.getId());
+            writeString(out, energy.getName());
+            out.writeByte(energy.getType().ordinal());
+            out.writeBoolean(energy.isActive());
+            out.writeDouble(energy.getOutput());
+            out.writeInt(energy.getProfile() == null ? NO_PROFILE : profileIndex.get(energy.getProfile()));
+        }
+
+        for (Battery battery : batteries) {
+            writeString(out, battery.getId());
+            writeString(out, battery.getName());
+            out.writeDouble(battery.getCapacity());
+            out.writeDouble(battery.getCurrentCharge());
+            out.writeDouble(battery.getMaxChargeRate());
+            out.writeBoolean(battery.isCharging());
+            writeModel(out, battery.getModel());
+        }
+        target.writeInt((int) checked.getChecksum().getValue());
+    }
+
+    static HouseSnapshot readFrom(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 38 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a house snapshot");
+        }
+        short version = buffer.getShort();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot version: " + version);
+        }
+        int end = buffer.limit() - Integer.BYTES;
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().position(0).limit(end));
+        if (buffer.getInt(end) != (int) crc.getValue()) {
+            throw new IOException("Corrupt house snapshot: checksum mismatch");
+        }
+        buffer.limit(end);
+        try {
+            return decode(buffer);
+        } catch (RuntimeException e) {
+            // A matching checksum over invalid values, e.g. counts or indexes out of range
+            throw new IOException("Corrupt house snapshot", e);
+        }
+    }
+
+    private static HouseSnapshot decode(ByteBuffer buffer) {
+        long createdAt = buffer.getLong();
+        long journalSequence = buffer.getLong();
+        PowerProfile[] profiles = new PowerProfile[buffer.getInt()];
+        int deviceCount = buffer.getInt();
+        int energyCount = buffer.getInt();
+        int batteryCount = buffer.getInt();
+
+        for (int i = 0; i < profiles.length; i++) {
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining() / Double.BYTES) {
+                throw new BufferUnderflowException();
+            }
+            double[] table = new double[length];
+            buffer.asDoubleBuffer().get(table);
+            buffer.position(buffer.position() + table.length * Double.BYTES);
+            profiles[i] = new TraceProfile(table);
+        }
+
+        Device.DeviceType[] deviceTypes = Device.DeviceType.values();
+        List<Device> devices = new ArrayList<>(deviceCount);
+        for (int i = 0; i < deviceCount; i++) {
+            devices.add(Device.builder()
+                    .id(readString(buffer))
+                    .name(readString(buffer))
+                    .type(deviceTypes[buffer.get()])
+                    .isActive(buffer.get() != 0)
+                    .power(buffer.getDouble())
+                    .priority(buffer.getInt())
+                    .profile(profileAt(profiles, buffer.getInt()))
+                    .build());
+        }
+
+        Energy.EnergyType[] energyTypes = Energy.EnergyType.values();
+        List<Energy> energies = new ArrayList<>(energyCount);
+        for (int i = 0; i < energyCount; i++) {
+            energies.add(Energy.builder()
+                    .id(readString(buffer))
+                    .name(readString(buffer))
+                    .type(energyTypes[buffer.get()])
+                    .isActive(buffer.get() != 0)
+                    .output(buffer.getDouble())
+                    .profile(profileAt(profiles, buffer.getInt()))
+                    .build());
+        }
+
+        List<Battery> batteries = new ArrayList<>(batteryCount);
+        for (int i = 0; i < batteryCount; i++) {
+            batteries.add(Battery.builder()
+                    .id(readString(buffer))
+                    .name(readString(buffer))
+                    .capacity(buffer.getDouble())
+                    .currentCharge(buffer.getDouble())
+                    .maxChargeRate(buffer.getDouble())
+                    .isCharging(buffer.get() != 0)
+                    .model(readModel(buffer))
+                    .build());
+        }
+
+        return new HouseSnapshot(createdAt, journalSequence, devices, energies, batteries);
+    }
+
+    private static void indexProfile(PowerProfile profile, Map<PowerProfile, Integer> index, List<PowerProfile> profiles) {
+        if (profile != null && !index.containsKey(profile)) {
+            index.put(profile, profiles.size());
+            profiles.add(profile);
+        }
+    }
+
+    private static PowerProfile profileAt(PowerProfile[] profiles, int index) {
+        return index == NO_PROFILE ? null : profiles[index];
+    }
+
+    private static void writeModel(DataOutputStream out, BatteryModel model) throws IOException {
+        out.writeBoolean(model != null);
+        if (model != null) {
+            out.writeDouble(model.getChargeEfficiency());
+            out.writeDouble(model.getDischargeEfficiency());
+            out.writeDouble(model.getSelfDischargePerDay());
+            out.writeDouble(model.getTaperStart());
+            out.writeDouble(model.getTaperFloor());
+        }
+    }
+
+    private static BatteryModel readModel(ByteBuffer buffer) {
+        if (buffer.get() == 0) {
+            return null;
+        }
+        return new BatteryModel(buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                buffer.getDouble());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,16 @@
+package de.fhdo.service;
+
+import lombok.Value;
+
+/**
+ * Energy booked on one ledger account, as of the moment it was read.
+ */
+@Value
+public class LedgerEntry {
+    EnergyLedger.Kind kind;
+    String entityId;
+    String name;
+    double total;
+    double currentHour;
+    double today;
+}
@@ -0,0 +1,80 @@
+package de.fhdo.service;
+
+import de.fhdo.model.Device;
+import de.fhdo.model.profile.PowerProfile;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Flattened view of the device fleet for summing consumption per tick. Devices are grouped by their
+ * distinct profile in one array (group 0 stands for "no profile", factor 1), so each shared profile is
+ * evaluated once per tick, the per-device work is a flag check and a multiply, and a sum allocates
+ * nothing.
+ */
+class LoadAggregator {
+    private static final int NO_PROFILE = 0;
+
+    private final long version;
+    private final Device[] devices;
+    /** Devices of group {@code g} are {@code devices[groupEnd[g - 1] .. groupEnd[g])}. */
+    private final int[] groupEnd;
+    private final PowerProfile[] profiles;
+
+    private LoadAggregator(long version, Device[] devices, int[] groupEnd, PowerProfile[] profiles) {
+        this.version = version;
+        this.devices = devices;
+        this.groupEnd = groupEnd;
+        this.profiles = profiles;
+    }
+
+    static LoadAggregator of(long version, Collection<Device> fleet) {
+        Map<PowerProfile, List<Device>> groups = new IdentityHashMap<>();
+        List<Device> unprofiled = new ArrayList<>();
+        for (Device device : fleet) {
+            PowerProfile profile = device.getProfile();
+            (profile == null ? unprofiled : groups.computeIfAbsent(profile, p -> new ArrayList<>())).add(device);
+        }
+
+        Device[] devices = new Device[unprofiled.size() + groups.values().stream().mapToInt(List::size).sum()];
+        PowerProfile[] profiles = new PowerProfile[groups.size() + 1];
+        int[] groupEnd = new int[profiles.length];
+        int end = copy(unprofiled, devices, 0);
+        groupEnd[NO_PROFILE] = end;
+        int group = NO_PROFILE + 1;
+        for (Map.Entry<PowerProfile, List<Device>> entry : groups.entrySet()) {
+            profiles[group] = entry.getKey();
+            end = copy(entry.getValue(), devices, end);
+            groupEnd[group++] = end;
+        }
+        return new LoadAggregator(version, devices, groupEnd, profiles);
+    }
+
+    private static int copy(List<Device> group, Device[] target, int from) {
+        for (Device device : group) {
+            target[from++] = device;
+        }
+        return from;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    double consumptionAt(long minute) {
+        double total = 0;
+        int start = 0;
+        for (int group = 0; group < profiles.length; group++) {
+            double factor = group == NO_PROFILE ? 1.0 : profiles[group].factorAt(minute);
+            for (int i = start; i < groupEnd[group]; i++) {
+                Device device = devices[i];
+                total += device.isActive() ? device.getPower() * factor : 0;
+            }
+            start = groupEnd[group];
+        }
+        return total;
+    }
+}
@@ -0,0 +1,171 @@
+package de.fhdo.service;
+
+import de.fhdo.model.Battery;
+import de.fhdo.model.Device;
+import de.fhdo.util.LoggerHelper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the demand of the active devices within what the house can supply for the next tick.
+ * <p>
+ * Supply is the current generation plus the usable charge of all batteries. When the projected demand
+ * exceeds it, the lowest-priority devices are switched off first, larger ones before smaller ones
+ * within a priority, until the demand fits. Once there is room again, shed devices are switched back
+ * on in priority order while they fit below a margin of the supply, so they do not flap.
+ * <p>
+ * Each {@link #tick()} is a single pass with one sort, O(n log n) in the number of devices, instead of
+ * every battery power task deciding on its own which device to drop.
+ */
+@Slf4j
+public class LoadSheddingController {
+    /** Shed devices come back only while demand stays below this share of the supply. */
+    static final double RESTORE_MARGIN = 0.9;
+
+    /**
+     * A device with its power read once per pass, so the sort sees stable keys even when a load
+     * profile moves on to the next minute in the middle of it.
+     */
+    private record Load(Device device, double power) {
+        static final Comparator<Load> SHED_ORDER = Comparator.comparingInt((Load load) -> load.device.getPriority())
+                .thenComparing(Comparator.comparingDouble(Load::power).reversed());
+        static final Comparator<Load> RESTORE_ORDER = Comparator.comparingInt((Load load) -> -load.device.getPriority())
+                .thenComparingDouble(Load::power);
+    }
+
+    private final DeviceManager deviceManager;
+    private final EnergyManager energyManager;
+    private final LogManager logManager;
+    private volatile boolean enabled;
+    private volatile double reserveRatio;
+    // Guarded by this
+    private final Set<String> shedDeviceIds = new LinkedHashSet<>();
+
+    public LoadSheddingController(DeviceManager deviceManager, EnergyManager energyManager, LogManager logManager) {
+        this.deviceManager = deviceManager;
+        this.energyManager = energyManager;
+        this.logManager = logManager;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Disabling forgets which devices were shed; they stay off until switched on by hand.
+     */
+    public synchronized void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            shedDeviceIds.clear();
+        }
+    }
+
+    public double getReserveRatio() {
+        return reserveRatio;
+    }
+
+    /**
+     * @param reserveRatio share of each battery's capacity that is not counted as supply
+     */
+    public void setReserveRatio(double reserveRatio) {
+        if (reserveRatio < 0 || reserveRatio >= 1) {
+            throw new IllegalArgumentException("Reserve ratio must be in [0, 1): " + reserveRatio);
+        }
+        this.reserveRatio = reserveRatio;
+    }
+
+    public synchronized List<String> getShedDeviceIds() {
+        return List.copyOf(shedDeviceIds);
+    }
+
+    /**
+     * Power available for the next tick.
+     */
+    public double projectedSupply() {
+        double supply = energyManager.getCurrentTotalGeneration();
+        for (Battery battery : energyManager.getAllBatteries()) {
+            supply += Math.max(0, battery.getCurrentCharge() - reserveRatio * battery.getCapacity());
+        }
+        return supply;
+    }
+
+    /**
+     * Sheds or restores devices once.
+     */
+    public synchronized void tick() {
+        if (!enabled) {
+            return;
+        }
+        List<Device> active = deviceManager.getDevicesByState(true);
+        List<Load> loads = new ArrayList<>(active.size());
+        double demand = 0;
+        for (Device device : active) {
+            Load load = new Load(device, device.getCurrentPower());
+            loads.add(load);
+            demand += load.power;
+        }
+        double supply = projectedSupply();
+
+        if (demand > supply) {
+            shed(loads, demand, supply);
+        } else if (!shedDeviceIds.isEmpty()) {
+            restore(demand, supply);
+        }
+    }
+
+    private void shed(List<Load> loads, double demand, double supply) {
+        loads.sort(Load.SHED_ORDER);
+        for (Load load : loads) {
+            if (demand <= supply) {
+                break;
+            }
+            Device device = load.device;
+            demand -= load.power;
+            device.setActive(false);
+            deviceManager.deviceChanged(device);
+            shedDeviceIds.add(device.getId());
+            log.info("Shed device {} (priority {}) to keep demand within supply {}", device.getName(), device.getPriority(),
+                    String.format("%.2f", supply));
+            LoggerHelper.logDeviceEvent(logManager, "Shed due to low supply", device.getName());
+        }
+    }
+
+    private void restore(double demand, double supply) {
+        List<Load> candidates = new ArrayList<>(shedDeviceIds.size());
+        for (String id : shedDeviceIds) {
+            try {
+                Device device = deviceManager.getDeviceById(id);
+                if (!device.isActive()) {
+                    candidates.add(new Load(device, device.getCurrentPower()));
+                }
+            } catch (IllegalArgumentException e) {
+                // Removed meanwhile
+            }
+        }
+        // Removed devices and devices switched on by hand are no longer ours to restore
+        shedDeviceIds.clear();
+        candidates.sort(Load.RESTORE_ORDER);
+
+        for (int i = 0; i < candidates.size(); i++) {
+            Load load = candidates.get(i);
+            if (demand + load.power > supply * RESTORE_MARGIN) {
+                // The rest keeps waiting, so a lower priority never jumps the queue
+                for (Load waiting : candidates.subList(i, candidates.size())) {
+                    shedDeviceIds.add(waiting.device.getId());
+                }
+                break;
+            }
+            Device device = load.device;
+            demand += load.power;
+            energyManager.resumePower(device);
+            log.info("Restored device {} (priority {})", device.getName(), device.getPriority());
+            LoggerHelper.logDeviceEvent(logManager, "Restored after low supply", device.getName());
+        }
+    }
+}
@@ -5,11 +5,16 @@ import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
@@ -19,10 +24,15 @@ import java.util.zip.ZipOutputStream;
 public class LogManager {
     private static volatile LogManager instance;
 
-    private final Path LOG_DIR = Paths.get("logs");
-    private final Path ARCHIVE_DIR = LOG_DIR.resolve("archive");
+    private final Path LOG_DIR;
+    private final Path ARCHIVE_DIR;
     public final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
     private final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int TAIL_CHUNK_BYTES = 8192;
+
+    private final Map<Path, List<Consumer<String>>> followers = new ConcurrentHashMap<>();
+    /** One lock per log file, so writers of different files never wait for each other's I/O. */
+    private final Map<Path, Object> fileLocks = new ConcurrentHashMap<>();
 
     @Getter
     @AllArgsConstructor
@@ -32,7 +42,21 @@ public class LogManager {
         private final String value;
     }
 
+    /**
+     * Handle of a {@link #follow} registration; closing it stops the notifications.
+     */
+    public interface LogSubscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+
     private LogManager() {
+        this(Paths.get("logs"));
+    }
+
+    public LogManager(Path logDir) {
+        LOG_DIR = logDir;
+        ARCHIVE_DIR = LOG_DIR.resolve("archive");
         initializeDirectories();
     }
 
@@ -130,13 +154,101 @@ public class LogManager {
     }
 
     public void writeToLog(Path logFile, LocalDateTime timestamp, String message) {
-        try {
-            Files.createDirectories(logFile.getParent());
-            try (BufferedWriter writer = Files.newBufferedWriter(logFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
-                writer.write(String.format("[%s] %s%n", timestamp.format(TIME_FORMAT), message));
+        String line = String.format("[%s] %s", timestamp.format(TIME_FORMAT), message);
+        Path key = logFile.toAbsolutePath().normalize();
+        List<Consumer<String>> listeners;
+        synchronized (lockFor(key)) {
+            try {
+                Files.createDirectories(logFile.getParent());
+                try (BufferedWriter writer = Files.newBufferedWriter(logFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    writer.write(line);
+                    writer.newLine();
+                }
+            } catch (IOException e) {
+                log.error("Failed to write to log file: {}", logFile, e);
+                return;
+            }
+            // Taken under the lock, so a follower whose tail already contains the line is not notified again
+            listeners = followers.get(key);
+        }
+        notifyFollowers(logFile, listeners, line);
+    }
+
+    private Object lockFor(Path key) {
+        return fileLocks.computeIfAbsent(key, k -> new Object());
+    }
+
+    /**
+     * Returns the last lines of a log file, reading backwards from its end so large files are not read
+     * in full.
+     */
+    public List<String> tail(Path logFile, int maxLines) {
+        if (maxLines <= 0 || !Files.exists(logFile)) {
+            return Collections.emptyList();
+        }
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            long start = channel.size();
+            int newlines = 0;
+            ByteBuffer chunk = ByteBuffer.allocate(TAIL_CHUNK_BYTES);
+            // One newline more than lines wanted, the file ends with a newline
+            while (start > 0 && newlines <= maxLines) {
+                int length = (int) Math.min(TAIL_CHUNK_BYTES, start);
+                start -= length;
+                chunk.clear().limit(length);
+                channel.read(chunk, start);
+                for (int i = 0; i < length; i++) {
+                    if (chunk.get(i) == '\n') {
+                        newlines++;
+                    }
+                }
             }
+
+            ByteBuffer content = ByteBuffer.allocate((int) (channel.size() - start));
+            channel.read(content, start);
+            List<String> lines = new String(content.array(), 0, content.position(), StandardCharsets.UTF_8).lines().toList();
+            return lines.subList(Math.max(0, lines.size() - maxLines), lines.size());
         } catch (IOException e) {
-            log.error("Failed to write to log file: {}", logFile, e);
+            log.error("Error reading log file: {}", logFile, e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Delivers the last lines of a log file and then every line appended to it, straight from the write
+     * path without re-reading the file. Listeners are called on the writing thread after the file's lock is
+     * released and must return quickly. Lines written by different threads at the same time may reach them
+     * in a different order than in the file.
+     *
+     * @param tailLines number of existing lines to deliver first
+     */
+    public LogSubscription follow(Path logFile, int tailLines, Consumer<String> listener) {
+        Path key = logFile.toAbsolutePath().normalize();
+        // Only writers of this file wait, and only until the tail is delivered ahead of new lines
+        synchronized (lockFor(key)) {
+            tail(logFile, tailLines).forEach(listener);
+            followers.compute(key, (k, listeners) -> {
+                List<Consumer<String>> updated = listeners == null ? new ArrayList<>() : new ArrayList<>(listeners);
+                updated.add(listener);
+                return List.copyOf(updated);
+            });
+        }
+        return () -> followers.computeIfPresent(key, (k, listeners) -> {
+            List<Consumer<String>> updated = new ArrayList<>(listeners);
+            updated.remove(listener);
+            return updated.isEmpty() ? null : List.copyOf(updated);
+        });
+    }
+
+    private void notifyFollowers(Path logFile, List<Consumer<String>> listeners, String line) {
+        if (listeners == null) {
+            return;
+        }
+        for (Consumer<String> listener : listeners) {
+            try {
+                listener.accept(line);
+            } catch (RuntimeException e) {
+                log.error("Log follower failed for {}", logFile, e);
+            }
         }
     }
 
@@ -0,0 +1,131 @@
+package de.fhdo.service;
+
+/**
+ * Fixed-size ring of power samples (consumption, generation and total battery charge) written by a
+ * single thread and read without locks. The writer fills the slot first and then publishes the new
+ * sample count; readers copy what they need and afterwards drop whatever the writer overwrote in the
+ * meantime. Nothing is allocated per sample.
+ */
+public class PowerHistory {
+    private final int capacity;
+    private final long[] times;
+    private final double[] consumption;
+    private final double[] generation;
+    private final double[] charge;
+    private volatile long written;
+
+    public PowerHistory(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.times = new long[capacity];
+        this.consumption = new double[capacity];
+        this.generation = new double[capacity];
+        this.charge = new double[capacity];
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Number of samples recorded so far, including the ones already overwritten.
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    /**
+     * Must only be called from one thread.
+     */
+    public void record(long timeMillis, double consumptionValue, double generationValue, double chargeValue) {
+        long sequence = written;
+        int slot = (int) (sequence % capacity);
+        times[slot] = timeMillis;
+        consumption[slot] = consumptionValue;
+        generation[slot] = generationValue;
+        charge[slot] = chargeValue;
+        written = sequence + 1;
+    }
+
+    /**
+     * Reader position in the history with its own reusable buffers.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    public final class Cursor {
+        private final long[] times = new long[capacity];
+        private final double[] consumption = new double[capacity];
+        private final double[] generation = new double[capacity];
+        private final double[] charge = new double[capacity];
+        private long next;
+        private boolean skipped;
+
+        /**
+         * Moves back so the next {@link #poll()} returns every sample still held.
+         */
+        public void rewind() {
+            next = Math.max(0, written - capacity);
+        }
+
+        /**
+         * Copies the samples recorded since the last poll into this cursor's buffers, oldest first.
+         *
+         * @return number of samples copied
+         */
+        public int poll() {
+            long end = written;
+            long start = Math.max(next, end - capacity);
+            skipped = start > next;
+            int count = (int) (end - start);
+            for (int i = 0; i < count; i++) {
+                int slot = (int) ((start + i) % capacity);
+                times[i] = PowerHistory.this.times[slot];
+                consumption[i] = PowerHistory.this.consumption[slot];
+                generation[i] = PowerHistory.this.generation[slot];
+                charge[i] = PowerHistory.this.charge[slot];
+            }
+
+            // The writer may be filling the slot of sequence written - capacity right now, so that one
+            // and everything older it lapped while we were copying is dropped
+            long overwritten = written - capacity - start + 1;
+            if (overwritten > 0) {
+                int drop = (int) Math.min(overwritten, count);
+                System.arraycopy(times, drop, times, 0, count - drop);
+                System.arraycopy(consumption, drop, consumption, 0, count - drop);
+                System.arraycopy(generation, drop, generation, 0, count - drop);
+                System.arraycopy(charge, drop, charge, 0, count - drop);
+                count -= drop;
+                skipped = true;
+            }
+            next = end;
+            return count;
+        }
+
+        /**
+         * Whether samples were lost since the previous poll because the reader fell behind.
+         */
+        public boolean isSkipped() {
+            return skipped;
+        }
+
+        public long getTime(int index) {
+            return times[index];
+        }
+
+        public double getConsumption(int index) {
+            return consumption[index];
+        }
+
+        public double getGeneration(int index) {
+            return generation[index];
+        }
+
+        public double getCharge(int index) {
+            return charge[index];
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package de.fhdo.service;
+
+import de.fhdo.model.Battery;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists the runtime state of a house (device and source states, battery charge) as a binary
+ * {@link HouseSnapshot}. Snapshots are written to a temporary file and moved into place, so a crash
+ * mid-write never leaves a torn snapshot behind. With a {@link StateJournal} attached, every snapshot
+ * checkpoints the journal and restoring replays the journal on top of the snapshot.
+ */
+@Slf4j
+public class SnapshotManager {
+    private final Path snapshotFile;
+    private final DeviceManager deviceManager;
+    private final EnergyManager energyManager;
+    private final LogManager logManager;
+    private final StateJournal journal;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SnapshotManager(Path snapshotFile, HouseContext context) {
+        this(snapshotFile, context, null);
+    }
+
+    public SnapshotManager(Path snapshotFile, HouseContext context, StateJournal journal) {
+        this(snapshotFile, context.getDeviceManager(), context.getEnergyManager(), context.getLogManager(), journal);
+    }
+
+    public SnapshotManager(Path snapshotFile, DeviceManager deviceManager, EnergyManager energyManager,
+                           LogManager logManager, StateJournal journal) {
+        this.snapshotFile = snapshotFile;
+        this.deviceManager = deviceManager;
+        this.energyManager = energyManager;
+        this.logManager = logManager;
+        this.journal = journal;
+    }
+
+    public void startPeriodicSnapshots(long interval, TimeUnit unit) {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                writeSnapshot();
+            } catch (IOException e) {
+                log.error("Failed to write snapshot {}", snapshotFile, e);
+            }
+        }, interval, interval, unit);
+        log.info("Writing snapshots to {} every {} {}", snapshotFile, interval, unit);
+    }
+
+    public HouseSnapshot writeSnapshot() throws IOException {
+        long journalSequence = journal == null ? 0 : journal.getWrittenSequence();
+        HouseSnapshot snapshot = HouseSnapshot.capture(deviceManager, energyManager, journalSequence);
+
+        Path parent = snapshotFile.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tempFile = Files.createTempFile(parent, snapshotFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile), 1 << 16))) {
+                snapshot.writeTo(out);
+            }
+            Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        if (journal != null) {
+            journal.checkpoint(journalSequence);
+        }
+
+        log.debug("Snapshot written: {} devices, {} energies, {} batteries",
+                snapshot.getDevices().size(), snapshot.getEnergies().size(), snapshot.getBatteries().size());
+        return snapshot;
+    }
+
+    public Optional<HouseSnapshot> readSnapshot() throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return Optional.of(HouseSnapshot.readFrom(buffer));
+        }
+    }
+
+    /**
+     * Replaces the house with the last snapshot, replays the journal on top of it, powers active devices
+     * again and resumes charging for batteries that were charging.
+     *
+     * @return false if there is no snapshot to restore
+     */
+    public boolean restoreSnapshot() throws IOException {
+        Optional<HouseSnapshot> stored = readSnapshot();
+        if (stored.isEmpty()) {
+            return false;
+        }
+
+        long start = System.nanoTime();
+        HouseSnapshot snapshot = stored.get();
+        deviceManager.restoreDevices(snapshot.getDevices());
+        energyManager.restoreEnergies(snapshot.getEnergies());
+        energyManager.restoreBatteries(snapshot.getBatteries());
+        int replayed = 0;
+        if (journal != null) {
+            replayed = journal.replay(snapshot.getJournalSequence(), deviceManager, energyManager);
+            journal.continueAfter(snapshot.getJournalSequence());
+        }
+
+        deviceManager.getDevicesByState(true).forEach(energyManager::resumePower);
+        List<Battery> charging = energyManager.getBatteriesByState(true);
+        charging.forEach(battery -> battery.setCharging(false));
+        charging.forEach(battery -> energyManager.startCharging(battery.getId()));
+
+        logManager.logEvent(LogManager.Category.SYSTEM, "Snapshot",
+                String.format("Restored snapshot: %d devices, %d energies, %d batteries, %d journal records in %d ms",
+                        snapshot.getDevices().size(), snapshot.getEnergies().size(), snapshot.getBatteries().size(),
+                        replayed, (System.nanoTime() - start) / 1_000_000));
+        return true;
+    }
+
+    /**
+     * Stops periodic snapshots, writes a final one and closes the journal, so shutting the services down
+     * afterwards is not recorded as state changes.
+     */
+    public void shutdown() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            writeSnapshot();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.error("Failed to write final snapshot {}", snapshotFile, e);
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package de.fhdo.service;
+
+import de.fhdo.model.Battery;
+import de.fhdo.model.Device;
+import de.fhdo.model.Energy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of state changes between snapshots. Producers only enqueue a small record, so
+ * journaling is cheap enough for the charging loops; a single writer thread drains the queue and
+ * writes everything queued so far as one group, syncing according to the {@link FsyncPolicy}.
+ *
+ * <p>Records carry absolute values (charge level, on/off state), so replaying a record whose effect is
+ * already contained in a snapshot is harmless. Sequence numbers are assigned by the writer and are
+ * strictly increasing within and across segment files named {@code journal-<firstSequence>.log}.
+ *
+ * <pre>
+ * record   int payloadLength, int crc32c(payload), payload
+ * payload  long sequence, byte type, double delta, double value, int idLength, UTF-8 id
+ * </pre>
+ */
+@Slf4j
+public class StateJournal {
+    public enum FsyncPolicy {
+        /** Sync after every group commit. */
+        ALWAYS,
+        /** Sync at most once per configured interval. */
+        INTERVAL,
+        /** Leave syncing to the operating system. */
+        NEVER
+    }
+
+    enum RecordType {
+        DEVICE_ACTIVE, ENERGY_ACTIVE, BATTERY_CHARGING, BATTERY_CHARGE
+    }
+
+    private record Entry(RecordType type, String id, double delta, double value) {
+    }
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int FIXED_PAYLOAD_BYTES = Long.BYTES + 1 + 2 * Double.BYTES + Integer.BYTES;
+    private static final int MAX_GROUP = 4096;
+
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalMillis;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final CRC32C crc = new CRC32C();
+
+    private volatile long writtenSequence;
+    private volatile long checkpointSequence = -1;
+    private volatile boolean running;
+    private final AtomicLong appended = new AtomicLong();
+    private long written;
+    private long nextSequence;
+    private long lastFsync;
+    private FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+    private Thread writer;
+
+    public StateJournal(Path directory, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis) throws IOException {
+        this.directory = directory;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+        Files.createDirectories(directory);
+        this.writtenSequence = lastSequenceOnDisk();
+        this.nextSequence = writtenSequence + 1;
+    }
+
+    public void recordDeviceActive(Device device) {
+        append(RecordType.DEVICE_ACTIVE, device.getId(), 0, device.isActive() ? 1 : 0);
+    }
+
+    public void recordEnergyActive(Energy energy) {
+        append(RecordType.ENERGY_ACTIVE, energy.getId(), 0, energy.isActive() ? 1 : 0);
+    }
+
+    public void recordCharging(Battery battery) {
+        append(RecordType.BATTERY_CHARGING, battery.getId(), 0, battery.isCharging() ? 1 : 0);
+    }
+
+    /**
+     * Records a charge change. Call it while holding the battery's lock so records of one battery
+     * are journaled in the order they were applied.
+     */
+    public void recordCharge(Battery battery, double delta) {
+        append(RecordType.BATTERY_CHARGE, battery.getId(), delta, battery.getCurrentCharge());
+    }
+
+    private void append(RecordType type, String id, double delta, double value) {
+        if (running) {
+            appended.incrementAndGet();
+            queue.add(new Entry(type, id, delta, value));
+        }
+    }
+
+    /**
+     * Highest sequence number that has been written to the journal.
+     */
+    public long getWrittenSequence() {
+        return writtenSequence;
+    }
+
+    /**
+     * Numbers new records after the given sequence, even if the journal on disk ends before it. Without
+     * this, a journal whose files were removed while the snapshot was kept would number its records
+     * below the snapshot's sequence and replay would skip them.
+     */
+    public synchronized void continueAfter(long sequence) {
+        if (sequence >= nextSequence) {
+            nextSequence = sequence + 1;
+            writtenSequence = sequence;
+        }
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        openSegment();
+        running = true;
+        writer = new Thread(this::writeLoop, "state-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Marks everything up to and including the given sequence as covered by a snapshot. The writer
+     * starts a new segment and deletes segments that only contain covered records.
+     */
+    public void checkpoint(long sequence) {
+        checkpointSequence = sequence;
+    }
+
+    /**
+     * Blocks until every record appended before this call has been written.
+     */
+    public void flush() throws InterruptedException {
+        long target = appended.get();
+        synchronized (this) {
+            while (running && written < target) {
+                wait(100);
+            }
+        }
+    }
+
+    /**
+     * Stops accepting records and waits until the writer has written and synced the queued ones.
+     */
+    public void close() {
+        Thread current;
+        synchronized (this) {
+            running = false;
+            notifyAll();
+            current = writer;
+        }
+        if (current != null && current != Thread.currentThread()) {
+            try {
+                current.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Applies every record after the given sequence to the managers. Records for entities that no
+     * longer exist are skipped. Stops at the first torn or corrupt record.
+     *
+     * @return number of records applied
+     */
+    public int replay(long afterSequence, DeviceManager deviceManager, EnergyManager energyManager) throws IOException {
+        int applied = 0;
+        for (Path segment : segments()) {
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(segment));
+            while (data.remaining() >= HEADER_BYTES) {
+                int length = data.getInt();
+                int checksum = data.getInt();
+                if (length < FIXED_PAYLOAD_BYTES || length > data.remaining() || checksum != checksum(data, length)) {
+                    log.warn("Journal segment {} ends with a torn record, ignoring the rest", segment.getFileName());
+                    break;
+                }
+                long sequence = data.getLong();
+                RecordType type = RecordType.values()[data.get()];
+                data.getDouble();
+                double value = data.getDouble();
+                byte[] id = new byte[data.getInt()];
+                data.get(id);
+                if (sequence > afterSequence && apply(type, new String(id, StandardCharsets.UTF_8), value, deviceManager, energyManager)) {
+                    applied++;
+                }
+            }
+        }
+        log.info("Replayed {} journal records after sequence {}", applied, afterSequence);
+        return applied;
+    }
+
+    private boolean apply(RecordType type, String id, double value, DeviceManager deviceManager, EnergyManager energyManager) {
+        try {
+            switch (type) {
+                case DEVICE_ACTIVE -> deviceManager.getDeviceById(id).setActive(value != 0);
+                case ENERGY_ACTIVE -> energyManager.getEnergyById(id).setActive(value != 0);
+                case BATTERY_CHARGING -> energyManager.getBatteryById(id).setCharging(value != 0);
+                case BATTERY_CHARGE -> energyManager.getBatteryById(id).setCurrentCharge(value);
+            }
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private void writeLoop() {
+        List<Entry> group = new ArrayList<>(MAX_GROUP);
+        try {
+            while (running || !queue.isEmpty()) {
+                Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    group.add(first);
+                    queue.drainTo(group, MAX_GROUP - 1);
+                    synchronized (this) {
+                        writeGroup(group);
+                        written += group.size();
+                        notifyAll();
+                    }
+                    group.clear();
+                }
+                syncIfDue();
+                rotateIfCheckpointed();
+            }
+            channel.force(false);
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            running = false;
+            log.error("State journal stopped after write failure in {}", directory, e);
+        }
+    }
+
+    private void writeGroup(List<Entry> group) throws IOException {
+        buffer.clear();
+        for (Entry entry : group) {
+            byte[] id = entry.id().getBytes(StandardCharsets.UTF_8);
+            int length = FIXED_PAYLOAD_BYTES + id.length;
+            ensureCapacity(HEADER_BYTES + length);
+
+            int start = buffer.position();
+            buffer.putInt(length).putInt(0);
+            buffer.putLong(nextSequence++)
+                    .put((byte) entry.type().ordinal())
+                    .putDouble(entry.delta())
+                    .putDouble(entry.value())
+                    .putInt(id.length)
+                    .put(id);
+            buffer.putInt(start + Integer.BYTES, checksum(buffer.duplicate().position(start + HEADER_BYTES), length));
+        }
+
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            channel.force(false);
+        }
+        writtenSequence = nextSequence - 1;
+    }
+
+    private void syncIfDue() throws IOException {
+        long now = System.currentTimeMillis();
+        if (fsyncPolicy == FsyncPolicy.INTERVAL && now - lastFsync >= fsyncIntervalMillis) {
+            channel.force(false);
+            lastFsync = now;
+        }
+    }
+
+    private void rotateIfCheckpointed() throws IOException {
+        long checkpoint = checkpointSequence;
+        if (checkpoint < 0) {
+            return;
+        }
+        checkpointSequence = -1;
+
+        channel.force(false);
+        channel.close();
+        openSegment();
+
+        List<Path> segments = segments();
+        for (int i = 0; i < segments.size() - 1; i++) {
+            if (firstSequence(segments.get(i + 1)) <= checkpoint + 1) {
+                Files.deleteIfExists(segments.get(i));
+            }
+        }
+    }
+
+    private void openSegment() throws IOException {
+        Path segment = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSequence, SEGMENT_SUFFIX));
+        // A segment with our first sequence can only hold torn records, so it is safe to start it over
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        lastFsync = System.currentTimeMillis();
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (buffer.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+    }
+
+    private int checksum(ByteBuffer data, int length) {
+        ByteBuffer payload = data.slice(data.position(), length);
+        synchronized (crc) {
+            crc.reset();
+            crc.update(payload);
+            return (int) crc.getValue();
+        }
+    }
+
+    private long lastSequenceOnDisk() throws IOException {
+        List<Path> segments = segments();
+        long last = 0;
+        for (Path segment : segments) {
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(segment));
+            while (data.remaining() >= HEADER_BYTES) {
+                int length = data.getInt();
+                int checksum = data.getInt();
+                if (length < FIXED_PAYLOAD_BYTES || length > data.remaining() || checksum != checksum(data, length)) {
+                    break;
+                }
+                last = Math.max(last, data.getLong());
+                data.position(data.position() + length - Long.BYTES);
+            }
+        }
+        return last;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
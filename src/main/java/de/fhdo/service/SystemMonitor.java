@@ -1,6 +1,7 @@
 package de.fhdo.service;
 
 import de.fhdo.model.Battery;
+import de.fhdo.model.Tariff;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.concurrent.Executors;
@@ -9,15 +10,40 @@ import java.util.concurrent.TimeUnit;
 
 @Slf4j
 public class SystemMonitor {
-    private final DeviceManager deviceManager = DeviceManager.getInstance();
-    private final EnergyManager energyManager = EnergyManager.getInstance();
-    private final LogManager logManager = LogManager.getInstance();
+    private final DeviceManager deviceManager;
+    private final EnergyManager energyManager;
+    private final LogManager logManager;
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+    private final PowerHistory powerHistory = new PowerHistory(HISTORY_SAMPLES);
+    private final BatteryForecaster batteryForecaster;
+    private final AlertEngine alertEngine;
+    private final LoadSheddingController loadShedding;
+    private final EnergyLedger energyLedger;
+    private final ChargingScheduler chargingScheduler;
     private static SystemMonitor instance;
 
+    public static final long SAMPLE_INTERVAL_MILLIS = 100;
+    /** Ten minutes of power history. */
+    public static final int HISTORY_SAMPLES = 6000;
+
     private boolean isMonitoring = false;
 
     private SystemMonitor() {
+        this(DeviceManager.getInstance(), EnergyManager.getInstance(), LogManager.getInstance());
+    }
+
+    public SystemMonitor(DeviceManager deviceManager, EnergyManager energyManager, LogManager logManager) {
+        this.deviceManager = deviceManager;
+        this.energyManager = energyManager;
+        this.logManager = logManager;
+        this.batteryForecaster = new BatteryForecaster(deviceManager, energyManager);
+        this.alertEngine = new AlertEngine(deviceManager, energyManager, logManager, batteryForecaster, AlertRules.DEFAULT);
+        this.loadShedding = new LoadSheddingController(deviceManager, energyManager, logManager);
+        energyManager.setLoadSheddingController(loadShedding);
+        this.energyLedger = new EnergyLedger(deviceManager, energyManager);
+        energyManager.setEnergyLedger(energyLedger);
+        // Every slot costs the same until a tariff is configured
+        this.chargingScheduler = new ChargingScheduler(deviceManager, energyManager, Tariff.flat(0));
     }
 
     public static synchronized SystemMonitor getInstance() {
@@ -36,20 +62,109 @@ public class SystemMonitor {
             isMonitoring = true;
         }
 
+        alertEngine.start();
+        chargingScheduler.start();
         scheduler.scheduleAtFixedRate(this::monitorSystemStatus, 0, 1, TimeUnit.SECONDS);
         scheduler.scheduleAtFixedRate(this::logSystemData, 0, 1, TimeUnit.SECONDS);
+        scheduler.scheduleAtFixedRate(this::sampleBatteries, 0, 1, TimeUnit.SECONDS);
+        scheduler.scheduleAtFixedRate(this::accrueEnergy, 0, 1, TimeUnit.SECONDS);
+        scheduler.scheduleAtFixedRate(this::shedLoad, 0, EnergyManager.TICK_MILLIS, TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(this::selfDischarge, EnergyManager.TICK_MILLIS, EnergyManager.TICK_MILLIS, TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(this::scheduleCharging, 0, 1, TimeUnit.MINUTES);
+        scheduler.scheduleAtFixedRate(this::samplePower, 0, SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
     }
 
-    private void monitorSystemStatus() {
-        double totalConsumption = deviceManager.getCurrentTotalConsumption();
-        double totalBatteryCharge = getTotalBatteryCharge();
+    public PowerHistory getPowerHistory() {
+        return powerHistory;
+    }
+
+    public BatteryForecaster getBatteryForecaster() {
+        return batteryForecaster;
+    }
+
+    /**
+     * Disabled until enabled explicitly, the entry points do so at startup.
+     */
+    public LoadSheddingController getLoadSheddingController() {
+        return loadShedding;
+    }
 
-        if (totalConsumption > totalBatteryCharge) {
-            log.warn("Power consumption warning: Usage {} units exceeds total battery charge {}",
-                    totalConsumption, totalBatteryCharge);
-            logManager.logEvent(LogManager.Category.SYSTEM, "System Monitor",
-                    String.format("POWER WARNING: Consumption %.2f units exceeds total battery charge %.2f",
-                            totalConsumption, totalBatteryCharge));
+    public EnergyLedger getEnergyLedger() {
+        return energyLedger;
+    }
+
+    public AlertEngine getAlertEngine() {
+        return alertEngine;
+    }
+
+    /**
+     * Disabled until enabled explicitly, the entry points do so when a tariff is configured.
+     */
+    public ChargingScheduler getChargingScheduler() {
+        return chargingScheduler;
+    }
+
+    private void samplePower() {
+        try {
+            powerHistory.record(System.currentTimeMillis(),
+                    deviceManager.getCurrentTotalConsumption(),
+                    energyManager.getCurrentTotalGeneration(),
+                    getTotalBatteryCharge());
+        } catch (RuntimeException e) {
+            // A failing sample must not cancel the periodic task
+            log.error("Failed to sample power history", e);
+        }
+    }
+
+    private void shedLoad() {
+        try {
+            loadShedding.tick();
+        } catch (RuntimeException e) {
+            log.error("Failed to run load shedding", e);
+        }
+    }
+
+    private void selfDischarge() {
+        try {
+            energyManager.selfDischarge(EnergyManager.TICK_MILLIS);
+        } catch (RuntimeException e) {
+            log.error("Failed to apply battery self-discharge", e);
+        }
+    }
+
+    private void scheduleCharging() {
+        try {
+            chargingScheduler.tick();
+        } catch (RuntimeException e) {
+            log.error("Failed to apply the charging schedule", e);
+        }
+    }
+
+    private void accrueEnergy() {
+        try {
+            energyLedger.accrue();
+        } catch (RuntimeException e) {
+            log.error("Failed to book energy in the ledger", e);
+        }
+    }
+
+    private void sampleBatteries() {
+        try {
+            batteryForecaster.sample();
+        } catch (RuntimeException e) {
+            log.error("Failed to sample batteries for the forecast", e);
+        }
+    }
+
+    /**
+     * State changes are evaluated by the alert engine as they happen; the tick only covers the
+     * sustained overload, which depends on time as well.
+     */
+    private void monitorSystemStatus() {
+        try {
+            alertEngine.tick();
+        } catch (RuntimeException e) {
+            log.error("Failed to evaluate alerts", e);
         }
     }
 
@@ -69,6 +184,9 @@ public class SystemMonitor {
     }
 
     public void shutdown() {
+        alertEngine.stop();
+        chargingScheduler.stop();
+        energyLedger.shutdown();
         scheduler.shutdown();
         try {
             if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
@@ -0,0 +1,41 @@
+package de.fhdo.simulation;
+
+import de.fhdo.config.HouseConfig;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+@Value
+public class Scenario {
+    String name;
+    HouseConfig config;
+
+    /**
+     * Builds the cross product of battery capacities and solar outputs on top of a base configuration.
+     * Every battery gets the given capacity and every SOLAR source the given output.
+     */
+    public static List<Scenario> grid(HouseConfig base, double[] batteryCapacities, double[] solarOutputs) {
+        List<Scenario> scenarios = new ArrayList<>();
+        for (double capacity : batteryCapacities) {
+            for (double output : solarOutputs) {
+                HouseConfig variant = base.copy();
+                variant.getBatteries().forEach(battery -> battery.setCapacity(capacity));
+                variant.getEnergies().stream()
+                        .filter(energy -> "SOLAR".equals(energy.getType()))
+                        .forEach(energy -> energy.setOutput(output));
+                scenarios.add(new Scenario("capacity-" + format(capacity) + "_solar-" + format(output), variant));
+            }
+        }
+        return scenarios;
+    }
+
+    /**
+     * Whole numbers without a fraction and others with every digit they need, so distinct values never
+     * share a scenario name.
+     */
+    private static String format(double value) {
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,27 @@
+package de.fhdo.simulation;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class ScenarioResult {
+    String scenarioName;
+    long ticks;
+    double totalGenerated;
+    double totalConsumed;
+    double totalCharged;
+    double totalDischarged;
+    double unmetDemand;
+    double curtailed;
+    double losses;
+    long deficitTicks;
+    double totalCapacity;
+    double finalCharge;
+    double minCharge;
+    long durationMillis;
+
+    public double getSelfSufficiency() {
+        return totalConsumed > 0 ? 1 - unmetDemand / totalConsumed : 1;
+    }
+}
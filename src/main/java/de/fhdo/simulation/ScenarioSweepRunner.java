@@ -0,0 +1,80 @@
+package de.fhdo.simulation;
+
+import de.fhdo.service.EnergyManager;
+import de.fhdo.service.HouseContext;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs many house configurations side by side. Every scenario gets its own {@link HouseContext}
+ * (and log directory), so runs never share state and can execute in parallel on the fork-join pool.
+ */
+@Slf4j
+public class ScenarioSweepRunner {
+    private final ForkJoinPool pool;
+    private final Path logRoot;
+    private final long ticks;
+
+    public ScenarioSweepRunner(Path logRoot, long ticks) {
+        this(ForkJoinPool.commonPool(), logRoot, ticks);
+    }
+
+    public ScenarioSweepRunner(ForkJoinPool pool, Path logRoot, long ticks) {
+        this.pool = pool;
+        this.logRoot = logRoot;
+        this.ticks = ticks;
+    }
+
+    public List<ScenarioResult> run(List<Scenario> scenarios) {
+        log.info("Starting sweep of {} scenarios over {} ticks", scenarios.size(), ticks);
+        try {
+            return pool.submit(() -> scenarios.parallelStream()
+                    .map(this::runScenario)
+                    .toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Scenario sweep interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Scenario sweep failed", e.getCause());
+        }
+    }
+
+    public ScenarioResult runScenario(Scenario scenario) {
+        long start = System.nanoTime();
+        HouseContext context = HouseContext.create(logRoot.resolve(scenario.getName().replaceAll("[^A-Za-z0-9._-]", "_")));
+
+        try {
+            context.applyConfiguration(scenario.getConfig());
+            EnergyManager energyManager = context.getEnergyManager();
+            energyManager.getAllEnergies().forEach(energy -> energy.setActive(true));
+            energyManager.getAllBatteries().forEach(battery -> battery.setCharging(true));
+            context.getDeviceManager().getAllDevices().forEach(device -> device.setActive(true));
+
+            SimulationEngine engine = new SimulationEngine(context);
+            engine.run(ticks);
+
+            return ScenarioResult.builder()
+                    .scenarioName(scenario.getName())
+                    .ticks(engine.getTick())
+                    .totalGenerated(engine.getTotalGenerated())
+                    .totalConsumed(engine.getTotalConsumed())
+                    .totalCharged(engine.getTotalCharged())
+                    .totalDischarged(engine.getTotalDischarged())
+                    .unmetDemand(engine.getUnmetDemand())
+                    .curtailed(engine.getCurtailed())
+                    .losses(engine.getLosses())
+                    .deficitTicks(engine.getDeficitTicks())
+                    .totalCapacity(energyManager.getCurrentTotalBatteryCapacity())
+                    .finalCharge(energyManager.getCurrentTotalBatteryCharge())
+                    .minCharge(engine.getTick() > 0 ? engine.getMinTotalCharge() : energyManager.getCurrentTotalBatteryCharge())
+                    .durationMillis((System.nanoTime() - start) / 1_000_000)
+                    .build();
+        } finally {
+            context.shutdown();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package de.fhdo.simulation;
+
+import de.fhdo.model.Battery;
+import de.fhdo.model.Energy;
+import de.fhdo.service.DeviceManager;
+import de.fhdo.service.EnergyManager;
+import de.fhdo.service.HouseContext;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Deterministic, single-threaded counterpart to the charging loops in {@link EnergyManager}.
+ * One tick represents one minute of simulated time, starting at midnight, and source output follows
+ * each source's and device's profile for that minute. Active sources feed active devices first,
+ * any surplus charges batteries that are charging (bounded by their max charge rate) and any
+ * deficit is drawn from the batteries. Batteries with a {@link de.fhdo.model.BatteryModel} lose
+ * charge to conversion and self-discharge and accept less near full; the losses are counted.
+ */
+@Getter
+public class SimulationEngine {
+    private final DeviceManager deviceManager;
+    private final EnergyManager energyManager;
+
+    private long tick;
+    private double totalGenerated;
+    private double totalConsumed;
+    private double totalCharged;
+    private double totalDischarged;
+    private double unmetDemand;
+    private double curtailed;
+    /** Charge lost to conversion and self-discharge. */
+    private double losses;
+    private long deficitTicks;
+    private double minTotalCharge = Double.MAX_VALUE;
+
+    public SimulationEngine(HouseContext context) {
+        this(context.getDeviceManager(), context.getEnergyManager());
+    }
+
+    public SimulationEngine(DeviceManager deviceManager, EnergyManager energyManager) {
+        this.deviceManager = deviceManager;
+        this.energyManager = energyManager;
+    }
+
+    public void run(long ticks) {
+        for (long i = 0; i < ticks; i++) {
+            step();
+        }
+    }
+
+    public void step() {
+        List<Energy> energies = energyManager.getAllEnergies();
+        List<Battery> batteries = energyManager.getAllBatteries();
+
+        double generation = 0;
+        for (Energy energy : energies) {
+            if (energy.isActive()) {
+                generation += energy.getOutputAt(tick);
+            }
+        }
+
+        double consumption = deviceManager.getConsumptionAt(tick);
+
+        double surplus = generation - consumption;
+        if (surplus >= 0) {
+            surplus -= chargeBatteries(batteries, surplus);
+            curtailed += surplus;
+        } else {
+            double deficit = -surplus;
+            deficit -= dischargeBatteries(batteries, deficit);
+            if (deficit > 0) {
+                unmetDemand += deficit;
+                deficitTicks++;
+            }
+        }
+
+        double totalCharge = 0;
+        for (Battery battery : batteries) {
+            if (battery.getModel() != null) {
+                synchronized (battery) {
+                    double lost = battery.selfDischargeOver(1);
+                    battery.setCurrentCharge(battery.getCurrentCharge() - lost);
+                    losses += lost;
+                }
+            }
+            totalCharge += battery.getCurrentCharge();
+        }
+        minTotalCharge = Math.min(minTotalCharge, totalCharge);
+
+        totalGenerated += generation;
+        totalConsumed += consumption;
+        tick++;
+    }
+
+    private double chargeBatteries(List<Battery> batteries, double available) {
+        double used = 0;
+        double stored = 0;
+        for (Battery battery : batteries) {
+            if (!battery.isCharging() || used >= available) {
+                continue;
+            }
+            synchronized (battery) {
+                double deficit = battery.getCapacity() - battery.getCurrentCharge();
+                double input = Math.min(Math.min(battery.getChargeLimit(), available - used), battery.inputFor(deficit));
+                if (input > 0) {
+                    double amount = battery.storedFrom(input);
+                    battery.setCurrentCharge(Math.min(battery.getCapacity(), battery.getCurrentCharge() + amount));
+                    used += input;
+                    stored += amount;
+                }
+            }
+        }
+        totalCharged += stored;
+        losses += used - stored;
+        return used;
+    }
+
+    private double dischargeBatteries(List<Battery> batteries, double needed) {
+        double drawn = 0;
+        for (Battery battery : batteries) {
+            if (drawn >= needed) {
+                break;
+            }
+            synchronized (battery) {
+                double amount = Math.min(battery.getDeliverable(), needed - drawn);
+                if (amount > 0) {
+                    double removed = battery.drawnFor(amount);
+                    battery.setCurrentCharge(Math.max(0, battery.getCurrentCharge() - removed));
+                    drawn += amount;
+                    losses += removed - amount;
+                }
+            }
+        }
+        totalDischarged += drawn;
+        return drawn;
+    }
+}
@@ -41,4 +41,8 @@ public class LoggerHelper {
         logEvent(logManager, LogManager.Category.DEVICE, action, deviceName, deviceInfo);
         logEvent(logManager, LogManager.Category.BATTERY, batteryAction, batteryName, batteryInfo);
     }
+
+    public static void logBulkEvent(LogManager logManager, LogManager.Category category, String action, int count) {
+        logEvent(logManager, category, action, "Bulk", String.format("%d %s items", count, category.getValue()));
+    }
 }
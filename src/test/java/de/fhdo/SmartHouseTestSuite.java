@@ -4,19 +4,57 @@ package de.fhdo;
 import org.junit.platform.suite.api.SelectClasses;
 import org.junit.platform.suite.api.Suite;
 
+import de.fhdo.api.HouseApiServerTest;
+import de.fhdo.config.HouseConfigCacheTest;
 import de.fhdo.config.HouseConfigTest;
+import de.fhdo.config.HouseConfigStreamLoaderTest;
+import de.fhdo.model.BatteryModelTest;
+import de.fhdo.model.EntitySnapshotTest;
+import de.fhdo.model.profile.PowerProfileTest;
+import de.fhdo.service.ConfigWatcherTest;
+import de.fhdo.service.ConflatingPublisherTest;
 import de.fhdo.service.LogManagerTest;
+import de.fhdo.service.PowerHistoryTest;
 import de.fhdo.service.DeviceManagerTest;
 import de.fhdo.service.EnergyManagerTest;
+import de.fhdo.service.AlertEngineTest;
+import de.fhdo.service.BatteryForecasterTest;
+import de.fhdo.service.LoadSheddingControllerTest;
+import de.fhdo.service.ChargingSchedulerTest;
+import de.fhdo.service.EnergyLedgerTest;
+import de.fhdo.service.EventBusTest;
+import de.fhdo.service.SnapshotManagerTest;
+import de.fhdo.service.StateJournalTest;
 import de.fhdo.service.SystemMonitorTest;
+import de.fhdo.report.LogReportGeneratorTest;
+import de.fhdo.simulation.ScenarioSweepRunnerTest;
 
 @Suite
 @SelectClasses({
     HouseConfigTest.class,
+    HouseConfigStreamLoaderTest.class,
+    HouseConfigCacheTest.class,
     LogManagerTest.class,
     DeviceManagerTest.class,
     EnergyManagerTest.class,
-    SystemMonitorTest.class
+    SystemMonitorTest.class,
+    SnapshotManagerTest.class,
+    StateJournalTest.class,
+    ConfigWatcherTest.class,
+    PowerHistoryTest.class,
+    EventBusTest.class,
+    AlertEngineTest.class,
+    BatteryForecasterTest.class,
+    LoadSheddingControllerTest.class,
+    ChargingSchedulerTest.class,
+    EnergyLedgerTest.class,
+    ConflatingPublisherTest.class,
+    HouseApiServerTest.class,
+    LogReportGeneratorTest.class,
+    ScenarioSweepRunnerTest.class,
+    PowerProfileTest.class,
+    BatteryModelTest.class,
+    EntitySnapshotTest.class
 })
 public class SmartHouseTestSuite {
 } 
\ No newline at end of file
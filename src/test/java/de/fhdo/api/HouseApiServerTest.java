@@ -0,0 +1,217 @@
+package de.fhdo.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.fhdo.service.EnergyLedger;
+import de.fhdo.service.HouseContext;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+public class HouseApiServerTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    /** Requests per second the load test must at least reach. */
+    private static final double MIN_LOAD_THROUGHPUT = 100;
+
+    private HouseContext context;
+    private HouseApiServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp(@TempDir Path logDir) throws IOException {
+        context = HouseContext.create(logDir);
+        server = new HouseApiServer(context, 0);
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+        context.shutdown();
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .header("Content-Type", "application/json")
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static JsonNode json(HttpResponse<String> response) throws IOException {
+        return MAPPER.readTree(response.body());
+    }
+
+    @Test
+    void testDeviceCrudAndToggle() throws Exception {
+        HttpResponse<String> created = send("POST", "/api/devices", "{\"name\":\"Lamp\",\"type\":\"LIGHTING\",\"power\":60}");
+        assertEquals(201, created.statusCode());
+        String id = json(created).get("id").asText();
+        assertFalse(json(created).get("active").asBoolean());
+
+        HttpResponse<String> toggled = send("POST", "/api/devices/" + id + "/toggle", null);
+        assertEquals(200, toggled.statusCode());
+        assertTrue(json(toggled).get("active").asBoolean());
+        assertTrue(context.getDeviceManager().getDeviceById(id).isActive());
+
+        HttpResponse<String> updated = send("PUT", "/api/devices/" + id, "{\"power\":75}");
+        assertEquals(75.0, json(updated).get("power").asDouble());
+        assertEquals("Lamp", json(updated).get("name").asText());
+
+        assertEquals(1, json(send("GET", "/api/devices", null)).size());
+        assertEquals(204, send("DELETE", "/api/devices/" + id, null).statusCode());
+        assertEquals(404, send("GET", "/api/devices/" + id, null).statusCode());
+    }
+
+    @Test
+    void testBatteryToggleAndSnapshot() throws Exception {
+        HttpResponse<String> energy = send("POST", "/api/energies", "{\"name\":\"Grid\",\"type\":\"GRID\",\"output\":100}");
+        assertFalse(json(energy).get("active").asBoolean());
+        send("POST", "/api/energies/" + json(energy).get("id").asText() + "/toggle", null);
+        HttpResponse<String> created = send("POST", "/api/batteries",
+                "{\"name\":\"Main\",\"capacity\":1000,\"maxChargeRate\":50,\"currentCharge\":200}");
+        assertEquals(201, created.statusCode());
+        String id = json(created).get("id").asText();
+
+        assertTrue(json(send("POST", "/api/batteries/" + id + "/toggle", null)).get("charging").asBoolean());
+        assertFalse(json(send("POST", "/api/batteries/" + id + "/toggle", null)).get("charging").asBoolean());
+
+        JsonNode snapshot = json(send("GET", "/api/snapshot", null));
+        assertEquals(1, snapshot.get("energies").size());
+        assertEquals(1, snapshot.get("batteries").size());
+        assertEquals(1000.0, snapshot.get("totals").get("batteryCapacity").asDouble());
+    }
+
+    @Test
+    void testInvalidRequests() throws Exception {
+        assertEquals(400, send("POST", "/api/devices", "{\"name\":\"\",\"type\":\"LIGHTING\",\"power\":1}").statusCode());
+        assertEquals(400, send("POST", "/api/devices", "{not json").statusCode());
+        assertEquals(400, send("POST", "/api/energies", "{\"name\":\"Sun\",\"type\":\"SOLAR\",\"output\":-1}").statusCode());
+        assertEquals(404, send("POST", "/api/batteries/missing/toggle", null).statusCode());
+        assertEquals(405, send("PATCH", "/api/devices", null).statusCode());
+    }
+
+    @Test
+    void testLedger() throws Exception {
+        context.getSystemMonitor().getEnergyLedger().record(EnergyLedger.Kind.DEVICE_CONSUMED, "lamp", "Lamp", 1.5);
+
+        JsonNode ledger = json(send("GET", "/api/ledger", null));
+        assertEquals("lamp", ledger.get("accounts").get("DEVICE_CONSUMED").get(0).get("entityId").asText());
+
+        JsonNode history = json(send("GET", "/api/ledger/device_consumed/lamp", null));
+        assertEquals(1.5, history.get("entry").get("today").asDouble());
+        assertEquals(24, history.get("hourly").size());
+        assertEquals(404, send("GET", "/api/ledger/device_consumed/missing", null).statusCode());
+        assertEquals(404, send("GET", "/api/ledger/unknown/lamp", null).statusCode());
+    }
+
+    @Test
+    void testTotalsStreamPushesChanges() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + "/api/totals/stream")).build();
+        HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals("text/event-stream", response.headers().firstValue("Content-Type").orElse(""));
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            CompletableFuture<Double> capacity = CompletableFuture.supplyAsync(() -> {
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.startsWith("data: ")) {
+                            double value = MAPPER.readTree(line.substring(6)).get("batteryCapacity").asDouble();
+                            if (value > 0) {
+                                return value;
+                            }
+                        }
+                    }
+                    return 0.0;
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+
+            send("POST", "/api/batteries", "{\"name\":\"Main\",\"capacity\":500,\"maxChargeRate\":50}");
+            assertEquals(500.0, capacity.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * Hammers read and toggle endpoints from many concurrent keep-alive clients, logs the throughput and
+     * checks it against a generous lower bound. Uses plain URL connections, which are much lighter than HttpClient, so the client
+     * side does not dominate the measurement.
+     */
+    @Test
+    void testLoad() throws Exception {
+        String id = json(send("POST", "/api/devices", "{\"name\":\"Lamp\",\"type\":\"LIGHTING\",\"power\":60}")).get("id").asText();
+        int clients = 16;
+        int requestsPerClient = 1000;
+        AtomicInteger failures = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        List<CompletableFuture<Void>> runs = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            runs.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < requestsPerClient; i++) {
+                    try {
+                        int status = (client + i) % 10 == 0
+                                ? request("POST", "/api/devices/" + id + "/toggle")
+                                : request("GET", i % 2 == 0 ? "/api/totals" : "/api/devices");
+                        if (status != 200) {
+                            failures.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            }, pool));
+        }
+        CompletableFuture.allOf(runs.toArray(CompletableFuture[]::new)).get(120, TimeUnit.SECONDS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        int total = clients * requestsPerClient;
+        double throughput = total / seconds;
+        log.info("HTTP API load test: {} requests in {} s ({} requests/s)", total, String.format("%.2f", seconds),
+                String.format("%.0f", throughput));
+        assertEquals(0, failures.get());
+        // Far below what a single core manages, so only a real regression such as serialized handling trips it
+        assertTrue(throughput > MIN_LOAD_THROUGHPUT, "Throughput dropped to " + throughput + " requests/s");
+    }
+
+    private int request(String method, String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + path).openConnection();
+        connection.setRequestMethod(method);
+        try (InputStream in = connection.getInputStream()) {
+            // Reading to the end returns the connection to the keep-alive cache
+            in.readAllBytes();
+        }
+        return connection.getResponseCode();
+    }
+}
@@ -0,0 +1,84 @@
+package de.fhdo.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HouseConfigCacheTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testUnchangedConfigIsServedFromCache() throws IOException {
+        Path configFile = tempDir.resolve("house_config.yml");
+        Files.copy(Path.of("src/main/resources/config/house_config.yml"), configFile);
+
+        HouseConfig parsed = HouseConfig.loadFromFile(configFile.toString());
+        assertTrue(Files.exists(HouseConfigCache.cacheFileFor(configFile)));
+        assertTrue(HouseConfigCache.read(configFile, new Recorder()));
+
+        HouseConfig cached = HouseConfig.loadFromFile(configFile.toString());
+        assertEquals(parsed, cached);
+        assertEquals("SCHEDULE", cached.profileForType("LIGHTING").getType());
+        assertEquals(List.of("06:00-08:00", "17:00-23:30"), cached.profileForType("LIGHTING").getWindows());
+        assertEquals(0.8, cached.getBatteries().get(0).getModel().getTaperStart());
+    }
+
+    @Test
+    void testChangedConfigInvalidatesCache() throws IOException {
+        Path configFile = tempDir.resolve("house_config.yml");
+        Files.copy(Path.of("src/test/resources/house_config.yml"), configFile);
+        HouseConfig.loadFromFile(configFile.toString());
+
+        Files.writeString(configFile, Files.readString(configFile).replace("power: 100.0", "power: 250.0"));
+
+        assertFalse(HouseConfigCache.read(configFile, new Recorder()));
+        assertEquals(250.0, HouseConfig.loadFromFile(configFile.toString()).getDevices().get(0).getPower());
+    }
+
+    @Test
+    void testCorruptCacheFallsBackToYaml() throws IOException {
+        Path configFile = tempDir.resolve("house_config.yml");
+        Files.copy(Path.of("src/test/resources/house_config.yml"), configFile);
+        HouseConfig.loadFromFile(configFile.toString());
+
+        Path cacheFile = HouseConfigCache.cacheFileFor(configFile);
+        byte[] content = Files.readAllBytes(cacheFile);
+        content[content.length / 2] ^= 0x7F;
+        Files.write(cacheFile, content, StandardOpenOption.TRUNCATE_EXISTING);
+
+        Recorder recorder = new Recorder();
+        assertFalse(HouseConfigCache.read(configFile, recorder));
+        assertEquals(List.of("Living Room Lights"), recorder.devices);
+        assertTrue(HouseConfigCache.read(configFile, new Recorder()));
+    }
+
+    private static class Recorder implements ConfigVisitor {
+        final List<String> devices = new ArrayList<>();
+
+        @Override
+        public void deviceProfile(String deviceType, HouseConfig.ProfileConfig profile) {
+        }
+
+        @Override
+        public void device(HouseConfig.DeviceConfig device) {
+            devices.add(device.getName());
+        }
+
+        @Override
+        public void energy(HouseConfig.EnergyConfig energy) {
+        }
+
+        @Override
+        public void battery(HouseConfig.BatteryConfig battery) {
+        }
+    }
+}
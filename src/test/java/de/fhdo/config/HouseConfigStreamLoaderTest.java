@@ -0,0 +1,132 @@
+package de.fhdo.config;
+
+import de.fhdo.model.Battery;
+import de.fhdo.model.Device;
+import de.fhdo.model.Energy;
+import de.fhdo.service.HouseContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HouseConfigStreamLoaderTest {
+    @TempDir
+    Path tempDir;
+
+    private final List<List<Device>> deviceBatches = new ArrayList<>();
+    private final List<Energy> energies = new ArrayList<>();
+    private final List<Battery> batteries = new ArrayList<>();
+
+    private final HouseConfigStreamLoader.Sink sink = new HouseConfigStreamLoader.Sink() {
+        @Override
+        public void devices(List<Device> batch) {
+            deviceBatches.add(batch);
+        }
+
+        @Override
+        public void energies(List<Energy> batch) {
+            energies.addAll(batch);
+        }
+
+        @Override
+        public void batteries(List<Battery> batch) {
+            batteries.addAll(batch);
+        }
+    };
+
+    @Test
+    void testStreamsTestConfiguration() throws IOException {
+        HouseConfigStreamLoader.Summary summary = new HouseConfigStreamLoader()
+                .load(Path.of("src/test/resources/house_config.yml"), sink);
+
+        assertEquals(1, summary.getDevices());
+        assertEquals(1, summary.getEnergies());
+        assertEquals(1, summary.getBatteries());
+        assertEquals("Living Room Lights", deviceBatches.get(0).get(0).getName());
+        assertEquals(1500.0, energies.get(0).getOutput());
+        assertEquals(10000.0, batteries.get(0).getCapacity());
+    }
+
+    @Test
+    void testLargeConfigurationIsBatched() throws IOException {
+        Path configFile = writeLargeConfig(2500);
+
+        HouseConfigStreamLoader.Summary summary = new HouseConfigStreamLoader(1000).load(configFile, sink);
+
+        assertEquals(2500, summary.getDevices());
+        assertEquals(List.of(1000, 1000, 500), deviceBatches.stream().map(List::size).toList());
+        Device heater = deviceBatches.get(0).get(0);
+        assertEquals(Device.DeviceType.HEATING, heater.getType());
+        assertNotNull(heater.getProfile());
+    }
+
+    @Test
+    void testImportLogsSingleSummary() throws IOException {
+        Path configFile = writeLargeConfig(3000);
+        HouseContext context = HouseContext.create(tempDir.resolve("logs"));
+
+        context.importConfiguration(configFile);
+
+        assertEquals(3000, context.getDeviceManager().getAllDevices().size());
+        assertEquals(1, context.getEnergyManager().getAllBatteries().size());
+        try (var files = Files.list(tempDir.resolve("logs/device"))) {
+            assertEquals(0, files.count());
+        }
+        try (var files = Files.list(tempDir.resolve("logs/system"))) {
+            List<String> lines = Files.readAllLines(files.findFirst().orElseThrow());
+            assertEquals(1, lines.size());
+            assertTrue(lines.get(0).contains("3000 devices"));
+        }
+    }
+
+    @Test
+    void testTruncatedFileLeavesHouseUntouched() throws IOException {
+        HouseContext context = HouseContext.create(tempDir.resolve("logs"));
+        context.importConfiguration(writeLargeConfig(10));
+
+        // Cut off in the middle of a quoted name, well after the first batch of devices
+        String yaml = Files.readString(writeLargeConfig(2500));
+        Path truncated = tempDir.resolve("truncated.yml");
+        Files.writeString(truncated, yaml.substring(0, yaml.indexOf("  - name: Heater 1500")) + "  - name: \"Heat");
+
+        assertThrows(IOException.class, () -> context.importConfiguration(truncated));
+        assertEquals(10, context.getDeviceManager().getAllDevices().size());
+        assertEquals(1, context.getEnergyManager().getAllEnergies().size());
+        assertEquals(1, context.getEnergyManager().getAllBatteries().size());
+    }
+
+    private Path writeLargeConfig(int deviceCount) throws IOException {
+        StringBuilder yaml = new StringBuilder("""
+                deviceProfiles:
+                  HEATING:
+                    type: DUTY_CYCLE
+                    periodMinutes: 20
+                    dutyCycle: 0.5
+                devices:
+                """);
+        for (int i = 0; i < deviceCount; i++) {
+            yaml.append("  - name: Heater ").append(i).append("\n")
+                    .append("    type: HEATING\n")
+                    .append("    power: 1500.0\n");
+        }
+        yaml.append("""
+                energies:
+                  - name: Grid Power
+                    type: GRID
+                    output: 3000.0
+                batteries:
+                  - name: Main Battery
+                    capacity: 10000.0
+                    maxChargeRate: 1000.0
+                """);
+        Path configFile = tempDir.resolve("district.yml");
+        Files.writeString(configFile, yaml);
+        return configFile;
+    }
+}
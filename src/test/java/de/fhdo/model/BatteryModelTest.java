@@ -0,0 +1,65 @@
+package de.fhdo.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatteryModelTest {
+    private static Battery battery(BatteryModel model, double charge) {
+        return Battery.builder().id("b").name("B").capacity(1000).currentCharge(charge).maxChargeRate(100).model(model).build();
+    }
+
+    @Test
+    void testWithoutModelIsLossless() {
+        Battery battery = battery(null, 950);
+
+        assertEquals(100, battery.getChargeLimit());
+        assertEquals(40, battery.storedFrom(40));
+        assertEquals(40, battery.drawnFor(40));
+        assertEquals(950, battery.getDeliverable());
+        assertEquals(0, battery.selfDischargeOver(60));
+    }
+
+    @Test
+    void testEfficiencies() {
+        BatteryModel model = new BatteryModel(0.9, 0.8, 0, 1, 0.05);
+        Battery battery = battery(model, 400);
+
+        assertEquals(36, battery.storedFrom(40), 1e-9);
+        assertEquals(40, battery.inputFor(36), 1e-9);
+        assertEquals(50, battery.drawnFor(40), 1e-9);
+        assertEquals(320, battery.getDeliverable(), 1e-9);
+    }
+
+    @Test
+    void testChargeRateTapersNearFull() {
+        BatteryModel model = new BatteryModel(1, 1, 0, 0.8, 0.05);
+
+        assertEquals(100, battery(model, 500).getChargeLimit());
+        assertEquals(100, battery(model, 800).getChargeLimit());
+        assertEquals(50, battery(model, 900).getChargeLimit(), 1.0);
+        assertEquals(5, battery(model, 1000).getChargeLimit(), 1e-9);
+        assertTrue(battery(model, 950).getChargeLimit() < battery(model, 850).getChargeLimit());
+    }
+
+    @Test
+    void testSelfDischargeCompoundsPerDay() {
+        BatteryModel model = new BatteryModel(1, 1, 0.01, 1, 0.05);
+        Battery battery = battery(model, 1000);
+
+        assertEquals(10, battery.selfDischargeOver(24 * 60), 1e-9);
+        // A day of one-minute steps loses the same as one day-long step
+        for (int i = 0; i < 24 * 60; i++) {
+            battery.setCurrentCharge(battery.getCurrentCharge() - battery.selfDischargeOver(1));
+        }
+        assertEquals(990, battery.getCurrentCharge(), 1e-6);
+    }
+
+    @Test
+    void testRejectsInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new BatteryModel(0, 1, 0, 1, 0.05));
+        assertThrows(IllegalArgumentException.class, () -> new BatteryModel(1, 1.1, 0, 1, 0.05));
+        assertThrows(IllegalArgumentException.class, () -> new BatteryModel(1, 1, 1, 1, 0.05));
+        assertThrows(IllegalArgumentException.class, () -> new BatteryModel(1, 1, 0, 0, 0.05));
+    }
+}
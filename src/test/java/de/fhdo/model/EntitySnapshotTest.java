@@ -0,0 +1,45 @@
+package de.fhdo.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EntitySnapshotTest {
+    @Test
+    void testEqualityIsByIdAcrossStateChanges() {
+        Battery battery = Battery.builder().id("b1").name("Main").capacity(100).currentCharge(10).maxChargeRate(5).build();
+        Set<Battery> batteries = new HashSet<>(Set.of(battery));
+
+        battery.setCurrentCharge(90);
+        battery.setCharging(true);
+
+        assertTrue(batteries.contains(battery));
+        assertEquals(battery, Battery.builder().id("b1").name("Other").build());
+        assertNotEquals(battery, Battery.builder().id("b2").name("Main").build());
+
+        Device device = Device.builder().id("d1").name("Lamp").build();
+        Set<Device> devices = new HashSet<>(Set.of(device));
+        device.toggle();
+        assertTrue(devices.contains(device));
+    }
+
+    @Test
+    void testSnapshotsAreValuesDetachedFromTheEntity() {
+        Battery battery = Battery.builder().id("b1").name("Main").capacity(100).currentCharge(10).maxChargeRate(5).build();
+        BatterySnapshot before = battery.snapshot();
+
+        battery.setCurrentCharge(60);
+
+        assertEquals(new BatterySnapshot("b1", "Main", 100, 10, 5, false), before);
+        assertEquals(60, battery.snapshot().currentCharge());
+        assertNotEquals(before, battery.snapshot());
+
+        Energy energy = Energy.builder().id("e1").name("Sun").type(Energy.EnergyType.SOLAR).output(20).isActive(true).build();
+        assertEquals(new EnergySnapshot("e1", "Sun", Energy.EnergyType.SOLAR, 20, true), energy.snapshot());
+        Device device = Device.builder().id("d1").name("Lamp").type(Device.DeviceType.LIGHTING).power(3).priority(2).build();
+        assertEquals(new DeviceSnapshot("d1", "Lamp", Device.DeviceType.LIGHTING, 3, 2, false), device.snapshot());
+    }
+}
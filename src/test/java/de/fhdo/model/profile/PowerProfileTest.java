@@ -0,0 +1,132 @@
+package de.fhdo.model.profile;
+
+import de.fhdo.model.Energy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PowerProfileTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testDiurnalProfile() {
+        PowerProfile profile = new DiurnalProfile(6 * 60, 18 * 60);
+
+        assertEquals(PowerProfile.MINUTES_PER_DAY, profile.getPeriod());
+        assertEquals(0.0, profile.factorAt(3 * 60));
+        assertEquals(1.0, profile.factorAt(12 * 60), 1e-9);
+        assertEquals(0.0, profile.factorAt(20 * 60));
+        assertEquals(profile.factorAt(12 * 60), profile.factorAt(PowerProfile.MINUTES_PER_DAY + 12 * 60));
+    }
+
+    @Test
+    void testTraceProfileFromCsv() throws IOException {
+        Path csv = tempDir.resolve("trace.csv");
+        Files.writeString(csv, "minute,factor\n0,0.1\n1,0.5\n2,0.9\n");
+
+        PowerProfile profile = TraceProfile.fromCsv(csv);
+
+        assertEquals(3, profile.getPeriod());
+        assertEquals(0.5, profile.factorAt(1));
+        assertEquals(0.1, profile.factorAt(3));
+    }
+
+    @Test
+    void testTraceReloadsChangedFile() throws IOException {
+        Path csv = tempDir.resolve("shared-trace.csv");
+        Files.writeString(csv, "minute,factor\n0,0.1\n1,0.5\n");
+        PowerProfile first = PowerProfiles.trace(csv);
+        assertSame(first, PowerProfiles.trace(csv));
+
+        Files.writeString(csv, "minute,factor\n0,0.2\n1,0.6\n");
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(Files.getLastModifiedTime(csv).toMillis() + 1000));
+        PowerProfile second = PowerProfiles.trace(csv);
+
+        assertNotSame(first, second);
+        assertEquals(0.6, second.factorAt(1));
+    }
+
+    @Test
+    void testCloudCoverIsSeededAndAttenuates() {
+        PowerProfile clear = new DiurnalProfile(6 * 60, 18 * 60);
+        PowerProfile first = new CloudCoverProfile(clear, 7, 2, 0.5, 0.5);
+        PowerProfile second = new CloudCoverProfile(clear, 7, 2, 0.5, 0.5);
+
+        assertEquals(2 * PowerProfile.MINUTES_PER_DAY, first.getPeriod());
+        for (int minute = 0; minute < first.getPeriod(); minute += 17) {
+            assertEquals(first.factorAt(minute), second.factorAt(minute));
+            assertTrue(first.factorAt(minute) <= clear.factorAt(minute));
+        }
+    }
+
+    @Test
+    void testProfilesAreShared() {
+        assertSame(PowerProfiles.diurnal(360, 1200), PowerProfiles.diurnal(360, 1200));
+    }
+
+    @Test
+    void testEnergyOutputFollowsProfile() {
+        Energy energy = Energy.builder()
+                .id("solar-id")
+                .name("Solar")
+                .type(Energy.EnergyType.SOLAR)
+                .output(1000.0)
+                .profile(new DiurnalProfile(6 * 60, 18 * 60))
+                .build();
+
+        assertEquals(0.0, energy.getOutputAt(0));
+        assertEquals(1000.0, energy.getOutputAt(12 * 60), 1e-6);
+    }
+
+    @Test
+    void testDutyCycleProfile() {
+        PowerProfile profile = new DutyCycleProfile(10, 0.3, 2);
+
+        assertEquals(10, profile.getPeriod());
+        assertEquals(0.0, profile.factorAt(1));
+        assertEquals(1.0, profile.factorAt(2));
+        assertEquals(1.0, profile.factorAt(4));
+        assertEquals(0.0, profile.factorAt(5));
+        assertEquals(1.0, profile.factorAt(12));
+    }
+
+    @Test
+    void testRunProgramProfile() {
+        PowerProfile profile = new RunProgramProfile(new double[]{1.0, 0.2}, 15, new int[]{8 * 60}, 0.01);
+
+        assertEquals(0.01, profile.factorAt(8 * 60 - 1));
+        assertEquals(1.0, profile.factorAt(8 * 60 + 14));
+        assertEquals(0.2, profile.factorAt(8 * 60 + 15));
+        assertEquals(0.01, profile.factorAt(8 * 60 + 30));
+    }
+
+    @Test
+    void testScheduleProfileWrapsPastMidnight() {
+        PowerProfile profile = new ScheduleProfile(new int[][]{{22 * 60, 60}}, 0.0);
+
+        assertEquals(1.0, profile.factorAt(23 * 60));
+        assertEquals(1.0, profile.factorAt(30));
+        assertEquals(0.0, profile.factorAt(60));
+        assertEquals(0.0, profile.factorAt(12 * 60));
+    }
+
+    @Test
+    void testNegativeStartsWrapBeforeMidnight() {
+        PowerProfile program = new RunProgramProfile(new double[]{1.0}, 30, new int[]{-15}, 0.0);
+        assertEquals(1.0, program.factorAt(PowerProfile.MINUTES_PER_DAY - 15));
+        assertEquals(1.0, program.factorAt(14));
+        assertEquals(0.0, program.factorAt(15));
+
+        PowerProfile schedule = new ScheduleProfile(new int[][]{{-60, 60}}, 0.0);
+        assertEquals(1.0, schedule.factorAt(23 * 60));
+        assertEquals(1.0, schedule.factorAt(30));
+        assertEquals(0.0, schedule.factorAt(60));
+    }
+}
@@ -0,0 +1,164 @@
+package de.fhdo.report;
+
+import de.fhdo.service.LogManager;
+import de.fhdo.util.LoggerHelper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogReportGeneratorTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 5);
+
+    @TempDir
+    Path tempDir;
+
+    private LogManager logManager;
+
+    @BeforeEach
+    void setUp() {
+        logManager = new LogManager(tempDir);
+    }
+
+    private void write(LogManager.Category category, String name, LocalDateTime time, String message) {
+        Path file = tempDir.resolve(category.getValue()).resolve(name + "_" + time.format(logManager.DATE_FORMAT) + ".log");
+        logManager.writeToLog(file, time, message);
+    }
+
+    private static LogReport.Row row(List<LogReport.Row> rows, String entity, LocalDate date, int hour) {
+        return rows.stream()
+                .filter(row -> row.entity().equals(entity) && row.date().equals(date) && row.hour() == hour)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    void testAggregatesPerEntityAndHour() throws IOException {
+        write(LogManager.Category.BATTERY, "Main", DAY.atTime(9, 10), "Charging: Main - Charged 1.50 from Solar");
+        write(LogManager.Category.BATTERY, "Main", DAY.atTime(9, 50), "Charging: Main - Charged 2.25 from Solar");
+        write(LogManager.Category.BATTERY, "Main", DAY.atTime(10, 0), "Stopped charging: Main");
+        write(LogManager.Category.ENERGY, "Solar", DAY.atTime(9, 10), "Discharging: Solar - Discharged 1,50 to Main");
+        write(LogManager.Category.DEVICE, "Fridge", DAY.atTime(9, 30), "Powered on: Fridge - Is now powered by battery Main");
+        // Duplicates of the lines above, not counted twice
+        write(LogManager.Category.SYSTEM, "system", DAY.atTime(9, 10), "BATTERY: Charging: Main - Charged 1.50 from Solar");
+
+        LogReport report = new LogReportGenerator().generate(tempDir);
+
+        assertEquals(3, report.getFiles());
+        assertEquals(5, report.getLines());
+        assertEquals(3, report.getEntityCount());
+
+        List<LogReport.Row> hourly = report.hourlyRows();
+        LogReport.Row batteryNine = row(hourly, "Main", DAY, 9);
+        assertEquals(LogManager.Category.BATTERY, batteryNine.category());
+        assertEquals(2, batteryNine.events());
+        assertEquals(3.75, batteryNine.amount(), 1e-9);
+        assertEquals(1, row(hourly, "Main", DAY, 10).events());
+        assertEquals(1.5, row(hourly, "Solar", DAY, 9).amount(), 1e-9);
+        assertEquals(0, row(hourly, "Fridge", DAY, 9).amount());
+
+        LogReport.Row batteryDay = row(report.dailyRows(), "Main", DAY, -1);
+        assertEquals(3, batteryDay.events());
+        assertEquals(3.75, batteryDay.amount(), 1e-9);
+    }
+
+    @Test
+    void testChunksSplitLinesOnce() throws IOException {
+        int count = 500;
+        for (int i = 0; i < count; i++) {
+            LocalDateTime time = DAY.atStartOfDay().plusMinutes(i * 5L);
+            LoggerHelper.logChargingEvent(logManager, "Main", "Solar", 0);
+            write(LogManager.Category.BATTERY, "Pack", time, "Charging: Pack - Charged " + (i % 7) + ".25 from Solar");
+        }
+        double expected = 0;
+        for (int i = 0; i < count; i++) {
+            expected += i % 7 + 0.25;
+        }
+
+        LogReport whole = new LogReportGenerator().generate(tempDir);
+        // Chunks far smaller than a line, so most lines cross a chunk boundary
+        LogReport chunked = new LogReportGenerator(ForkJoinPool.commonPool(), 17).generate(tempDir);
+
+        assertEquals(whole.getLines(), chunked.getLines());
+        assertEquals(whole.hourlyRows(), chunked.hourlyRows());
+        double amount = chunked.dailyRows().stream()
+                .filter(row -> row.entity().equals("Pack"))
+                .mapToDouble(LogReport.Row::amount)
+                .sum();
+        assertEquals(expected, amount, 1e-6);
+        long events = chunked.dailyRows().stream()
+                .filter(row -> row.entity().equals("Pack"))
+                .mapToLong(LogReport.Row::events)
+                .sum();
+        assertEquals(count, events);
+    }
+
+    @Test
+    void testDateRangeFiltersFiles() throws IOException {
+        write(LogManager.Category.DEVICE, "Lamp", DAY.atTime(8, 0), "Powered on: Lamp");
+        write(LogManager.Category.DEVICE, "Lamp", DAY.plusDays(1).atTime(8, 0), "Powered on: Lamp");
+        write(LogManager.Category.DEVICE, "Lamp", DAY.plusDays(2).atTime(8, 0), "Powered on: Lamp");
+
+        LogReport report = new LogReportGenerator().generate(tempDir, DAY.plusDays(1), DAY.plusDays(1));
+
+        assertEquals(1, report.getFiles());
+        List<LogReport.Row> daily = report.dailyRows();
+        assertEquals(1, daily.size());
+        assertEquals(DAY.plusDays(1), daily.get(0).date());
+    }
+
+    @Test
+    void testSkipsImpossibleDates() throws IOException {
+        Path file = tempDir.resolve(LogManager.Category.BATTERY.getValue()).resolve("Main_2024-02-29.log");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, """
+                [2024-02-29 10:00:00] Charging: Main - Charged 1.00 from Grid
+                [2023-02-29 10:00:00] Charging: Main - Charged 2.00 from Grid
+                [2026-04-31 10:00:00] Charging: Main - Charged 3.00 from Grid
+                [3000-01-01 10:00:00] Charging: Main - Charged 4.00 from Grid
+                """);
+
+        LogReport report = new LogReportGenerator().generate(tempDir);
+        Path hourly = tempDir.resolve("hourly.csv");
+        report.writeCsv(hourly, false);
+
+        assertEquals(List.of(
+                "category,entity,date,hour,events,amount",
+                "battery,Main,2024-02-29,10,1,1.00"), Files.readAllLines(hourly));
+    }
+
+    @Test
+    void testWritesCsvAndJson() throws IOException {
+        write(LogManager.Category.BATTERY, "Main, West", DAY.atTime(23, 59), "Charging: Main, West - Charged 4.00 from Grid");
+        write(LogManager.Category.BATTERY, "Main, West", DAY.plusDays(1).atTime(0, 1), "Charging: Main, West - Charged 1.00 from Grid");
+        LogReport report = new LogReportGenerator().generate(tempDir);
+
+        Path hourly = tempDir.resolve("hourly.csv");
+        Path daily = tempDir.resolve("daily.csv");
+        Path json = tempDir.resolve("report.json");
+        report.writeCsv(hourly, false);
+        report.writeCsv(daily, true);
+        report.writeJson(json);
+
+        assertEquals(List.of(
+                "category,entity,date,hour,events,amount",
+                "battery,\"Main, West\",2024-03-05,23,1,4.00",
+                "battery,\"Main, West\",2024-03-06,0,1,1.00"), Files.readAllLines(hourly));
+        assertEquals(List.of(
+                "category,entity,date,events,amount",
+                "battery,\"Main, West\",2024-03-05,1,4.00",
+                "battery,\"Main, West\",2024-03-06,1,1.00"), Files.readAllLines(daily));
+        String content = Files.readString(json);
+        assertTrue(content.contains("\"name\" : \"Main, West\""));
+        assertTrue(content.contains("\"hours\""));
+    }
+}
@@ -0,0 +1,186 @@
+package de.fhdo.service;
+
+import de.fhdo.model.Battery;
+import de.fhdo.model.Device;
+import de.fhdo.model.Energy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Most tests feed events to the engine directly instead of starting it, so evaluation is synchronous
+ * and the clock fully under control.
+ */
+public class AlertEngineTest {
+    private HouseContext context;
+    private AtomicLong clock;
+    private List<Alert> notifications;
+    private AlertEngine engine;
+
+    @BeforeEach
+    void setUp(@TempDir Path logDir) {
+        context = HouseContext.create(logDir);
+        clock = new AtomicLong();
+        notifications = new CopyOnWriteArrayList<>();
+        engine = newEngine(AlertRules.DEFAULT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.stop();
+        context.shutdown();
+    }
+
+    private AlertEngine newEngine(AlertRules rules) {
+        AlertEngine alertEngine = new AlertEngine(context.getDeviceManager(), context.getEnergyManager(),
+                context.getLogManager(), null, rules, clock::get);
+        alertEngine.addListener(notifications::add);
+        return alertEngine;
+    }
+
+    private Battery addBattery(String id, double charge) {
+        Battery battery = Battery.builder().id(id).name("Battery " + id).capacity(1000).currentCharge(charge).maxChargeRate(50).build();
+        context.getEnergyManager().addBattery(battery);
+        return battery;
+    }
+
+    private void setCharge(Battery battery, double charge) {
+        battery.setCurrentCharge(charge);
+        engine.onEvents(List.of(HouseEvent.BatteryChanged.of(battery)));
+    }
+
+    @Test
+    void testLowChargeWithHysteresis() {
+        Battery battery = addBattery("b1", 500);
+        engine.onEvents(List.of(new HouseEvent.Resync()));
+        assertTrue(engine.getActiveAlerts().isEmpty());
+
+        setCharge(battery, 150);
+        setCharge(battery, 120);
+        assertEquals(1, engine.getActiveAlerts().size());
+        assertEquals(Alert.Type.LOW_CHARGE, engine.getActiveAlerts().get(0).getType());
+
+        // Above the raise threshold but below the clear threshold
+        setCharge(battery, 220);
+        assertEquals(1, engine.getActiveAlerts().size());
+
+        setCharge(battery, 260);
+        assertTrue(engine.getActiveAlerts().isEmpty());
+        assertEquals(2, notifications.size());
+        assertTrue(notifications.get(0).isActive());
+        assertFalse(notifications.get(1).isActive());
+    }
+
+    @Test
+    void testOverloadMustBeSustained() {
+        context.getDeviceManager().addDevice(Device.builder().id("d1").name("Heater")
+                .type(Device.DeviceType.HEATING).power(2000).isActive(true).build());
+        addBattery("b1", 500);
+
+        engine.onEvents(List.of(new HouseEvent.Resync()));
+        clock.set(2000);
+        engine.tick();
+        assertTrue(notifications.isEmpty());
+
+        clock.set(3000);
+        engine.tick();
+        engine.tick();
+        assertEquals(1, notifications.size());
+        assertEquals(Alert.Type.SUSTAINED_OVERLOAD, notifications.get(0).getType());
+        assertTrue(notifications.get(0).getMessage().startsWith("POWER WARNING"));
+
+        context.getDeviceManager().toggleDevice("d1");
+        engine.onEvents(List.of(new HouseEvent.DeviceToggled("d1", false)));
+        assertTrue(engine.getActiveAlerts().isEmpty());
+        assertFalse(notifications.get(1).isActive());
+    }
+
+    @Test
+    void testSourceOfflineIsRateLimited() {
+        engine = newEngine(AlertRules.DEFAULT.toBuilder().maxNotificationsPerMinute(2).build());
+        for (int i = 0; i < 4; i++) {
+            context.getEnergyManager().addEnergy(Energy.builder().id("e" + i).name("Source " + i)
+                    .type(Energy.EnergyType.GRID).output(100).isActive(true).build());
+        }
+        engine.onEvents(List.of(new HouseEvent.Resync()));
+
+        for (int i = 0; i < 3; i++) {
+            context.getEnergyManager().toggleEnergyById("e" + i);
+            engine.onEvents(List.of(new HouseEvent.EnergyToggled("e" + i, false)));
+        }
+        assertEquals(3, engine.getActiveAlerts().size());
+        assertEquals(2, notifications.size());
+
+        // The suppressed alert resolves silently
+        context.getEnergyManager().toggleEnergyById("e2");
+        engine.onEvents(List.of(new HouseEvent.EnergyToggled("e2", true)));
+        assertEquals(2, notifications.size());
+
+        // Half a minute refills one token
+        clock.set(30_000);
+        context.getEnergyManager().toggleEnergyById("e3");
+        engine.onEvents(List.of(new HouseEvent.EnergyToggled("e3", false)));
+        assertEquals(3, notifications.size());
+        assertTrue(notifications.get(2).getMessage().contains("1 similar alerts suppressed"));
+    }
+
+    @Test
+    void testRepeatedEventsDoNotDuplicateAlerts() {
+        Battery battery = addBattery("b1", 100);
+        engine.onEvents(List.of(new HouseEvent.Resync()));
+        setCharge(battery, 90);
+        setCharge(battery, 80);
+        engine.onEvents(List.of(new HouseEvent.BatterySetChanged()));
+        assertEquals(1, notifications.size());
+
+        context.getEnergyManager().clearAllBatteries();
+        engine.onEvents(List.of(new HouseEvent.BatterySetChanged()));
+        assertTrue(engine.getActiveAlerts().isEmpty());
+    }
+
+    @Test
+    void testDepletionForecast() {
+        BatteryForecaster forecaster = new BatteryForecaster(context.getDeviceManager(), context.getEnergyManager());
+        engine = new AlertEngine(context.getDeviceManager(), context.getEnergyManager(), context.getLogManager(),
+                forecaster, AlertRules.DEFAULT, clock::get);
+        engine.addListener(notifications::add);
+        Battery battery = addBattery("b1", 900);
+        for (int second = 0; second < 10; second++) {
+            battery.setCurrentCharge(900 - 2 * second);
+            forecaster.sample(second * 1000L);
+        }
+
+        // 882 units left at 2 units per second
+        setCharge(battery, battery.getCurrentCharge());
+        assertEquals(Alert.Type.DEPLETION_FORECAST, notifications.get(0).getType());
+        assertTrue(notifications.get(0).getMessage().contains("7m 21s"));
+
+        // The drain stops; the next tick notices the recovered forecast
+        for (int second = 10; second < 80; second++) {
+            forecaster.sample(second * 1000L);
+        }
+        engine.tick();
+        assertTrue(engine.getActiveAlerts().isEmpty());
+    }
+
+    @Test
+    void testStartedEngineFollowsEventBus() throws InterruptedException {
+        CountDownLatch raised = new CountDownLatch(1);
+        engine.addListener(alert -> raised.countDown());
+        engine.start();
+
+        addBattery("b1", 50);
+        assertTrue(raised.await(5, TimeUnit.SECONDS));
+        assertEquals("b1", engine.getActiveAlerts().get(0).getEntityId());
+    }
+}
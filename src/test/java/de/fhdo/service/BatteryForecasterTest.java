@@ -0,0 +1,94 @@
+package de.fhdo.service;
+
+import de.fhdo.model.Battery;
+import de.fhdo.model.Energy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatteryForecasterTest {
+    private HouseContext context;
+    private BatteryForecaster forecaster;
+    private Battery battery;
+
+    @BeforeEach
+    void setUp(@TempDir Path logDir) {
+        context = HouseContext.create(logDir);
+        forecaster = new BatteryForecaster(context.getDeviceManager(), context.getEnergyManager(), 8);
+        battery = Battery.builder().id("b1").name("Main").capacity(1000).currentCharge(800).maxChargeRate(50).build();
+        context.getEnergyManager().addBattery(battery);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.shutdown();
+    }
+
+    @Test
+    void testObservedDrainPredictsTimeToEmpty() {
+        for (int second = 0; second < 6; second++) {
+            battery.setCurrentCharge(800 - 10 * second);
+            forecaster.sample(second * 1000L);
+        }
+
+        BatteryForecast forecast = forecaster.getForecast("b1");
+        assertTrue(forecast.isObserved());
+        assertEquals(-10, forecast.getRate(), 1e-9);
+        assertEquals(75, forecast.getSecondsToEmpty(), 1e-6);
+        assertFalse(forecast.isFilling());
+    }
+
+    @Test
+    void testSlidingWindowStaysExactOverManySamples() {
+        // Starts flat, then drains; the window only sees the drain
+        for (int second = 0; second < 1000; second++) {
+            battery.setCurrentCharge(second < 900 ? 800 : 800 - 2.5 * (second - 900));
+            forecaster.sample(1_700_000_000_000L + second * 1000L);
+        }
+        assertEquals(-2.5, forecaster.getForecast("b1").getRate(), 1e-9);
+    }
+
+    @Test
+    void testConfiguredRateUntilEnoughHistory() {
+        context.getEnergyManager().addEnergy(Energy.builder().id("e1").name("Grid")
+                .type(Energy.EnergyType.GRID).output(100).isActive(true).build());
+        for (int second = 0; second < 6; second++) {
+            forecaster.sample(second * 1000L);
+        }
+
+        // Starting to charge invalidates the flat history
+        battery.setCharging(true);
+        forecaster.sample(6000);
+        BatteryForecast forecast = forecaster.getForecast("b1");
+        assertFalse(forecast.isObserved());
+        // 50 units per two second tick
+        assertEquals(25, forecast.getRate(), 1e-9);
+        assertEquals(8, forecast.getSecondsToFull(), 1e-9);
+    }
+
+    @Test
+    void testIdleBatteryHasNoForecast() {
+        for (int second = 0; second < 10; second++) {
+            forecaster.sample(second * 1000L);
+        }
+        BatteryForecast forecast = forecaster.getForecast("b1");
+        assertFalse(forecast.isDepleting());
+        assertFalse(forecast.isFilling());
+        assertEquals("-", BatteryForecast.formatSeconds(forecast.getSecondsToEmpty()));
+        assertEquals("1h 05m", BatteryForecast.formatSeconds(3900));
+    }
+
+    @Test
+    void testRemovedBatteriesAreForgotten() {
+        forecaster.sample(0);
+        context.getEnergyManager().clearAllBatteries();
+        forecaster.sample(1000);
+        assertTrue(forecaster.getForecasts().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> forecaster.getForecast("b1"));
+    }
+}
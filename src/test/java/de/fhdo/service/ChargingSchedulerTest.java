@@ -0,0 +1,140 @@
+package de.fhdo.service;
+
+import de.fhdo.model.Battery;
+import de.fhdo.model.Energy;
+import de.fhdo.model.Tariff;
+import de.fhdo.model.profile.PowerProfile;
+import de.fhdo.model.profile.PowerProfiles;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChargingSchedulerTest {
+    /** Midnight of some day, in profile minutes. */
+    private static final long MIDNIGHT = 20_000L * PowerProfile.MINUTES_PER_DAY;
+    private static final Tariff NIGHT_TARIFF = Tariff.parse("0.30;02:00-04:00=0.10");
+
+    private HouseContext context;
+    private EnergyManager energyManager;
+    private final AtomicLong minute = new AtomicLong(MIDNIGHT);
+    private Battery battery;
+    private Energy grid;
+
+    @BeforeEach
+    void setUp(@TempDir Path logDir) {
+        context = HouseContext.create(logDir);
+        energyManager = context.getEnergyManager();
+        battery = Battery.builder().id("b1").name("Main").capacity(1000).currentCharge(0).maxChargeRate(10).build();
+        energyManager.addBattery(battery);
+        grid = Energy.builder().id("grid").name("Grid").type(Energy.EnergyType.GRID).output(100).isActive(false).build();
+        energyManager.addEnergy(grid);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.shutdown();
+    }
+
+    private ChargingScheduler newScheduler() {
+        ChargingScheduler scheduler = new ChargingScheduler(context.getDeviceManager(), energyManager, NIGHT_TARIFF,
+                ChargingScheduler.DEFAULT_HORIZON_SLOTS, minute::get);
+        scheduler.start();
+        return scheduler;
+    }
+
+    @Test
+    void testTariffParsesWindows() {
+        assertEquals(0.30, NIGHT_TARIFF.priceAt(MIDNIGHT + 60));
+        assertEquals(0.10, NIGHT_TARIFF.priceAt(MIDNIGHT + 120));
+        assertEquals(0.30, NIGHT_TARIFF.priceAt(MIDNIGHT + 240));
+        assertEquals(0.10, NIGHT_TARIFF.getMinPrice());
+
+        Tariff wrapping = Tariff.parse("1;23:00-01:00=0.5");
+        assertEquals(0.5, wrapping.priceAt(MIDNIGHT - 30));
+        assertEquals(0.5, wrapping.priceAt(MIDNIGHT + 30));
+        assertThrows(IllegalArgumentException.class, () -> Tariff.parse("1;23:00=0.5"));
+    }
+
+    @Test
+    void testGridChargesInCheapestSlot() {
+        ChargingPlan plan = newScheduler().getPlan();
+
+        // One slot of the grid at 10 per tick covers the deficit of 1000
+        assertEquals(1, plan.getGridSlotCount());
+        assertTrue(plan.slotAt(MIDNIGHT + 120).gridOn());
+        assertFalse(plan.slotAt(MIDNIGHT).gridOn());
+        assertEquals(1000, plan.getDeficit());
+        assertEquals(0, plan.getUncovered());
+    }
+
+    @Test
+    void testSolarSurplusAvoidsGrid() {
+        energyManager.addEnergy(Energy.builder().id("sun").name("Sun").type(Energy.EnergyType.SOLAR).output(50)
+                .isActive(true).build());
+
+        ChargingPlan plan = newScheduler().getPlan();
+
+        assertEquals(0, plan.getGridSlotCount());
+        assertTrue(plan.slotAt(MIDNIGHT).solarCharge() > 0);
+    }
+
+    @Test
+    void testTickFollowsPlan() {
+        ChargingScheduler scheduler = newScheduler();
+        scheduler.setEnabled(true);
+
+        scheduler.tick();
+        assertFalse(grid.isActive());
+        assertFalse(battery.isCharging());
+
+        minute.set(MIDNIGHT + 125);
+        scheduler.tick();
+        assertTrue(grid.isActive());
+        assertTrue(battery.isCharging());
+
+        minute.set(MIDNIGHT + 300);
+        scheduler.tick();
+        assertFalse(grid.isActive());
+        assertFalse(battery.isCharging());
+    }
+
+    @Test
+    void testReplansOnlyWhenNeeded() {
+        ChargingScheduler scheduler = newScheduler();
+        ChargingPlan plan = scheduler.getPlan();
+
+        minute.set(MIDNIGHT + 5);
+        assertSame(plan, scheduler.getPlan());
+        scheduler.onEvents(List.of(new HouseEvent.BatteryChanged("b1", false, 10)));
+        assertSame(plan, scheduler.getPlan(), "Drift within the tolerance keeps the plan");
+
+        scheduler.onEvents(List.of(new HouseEvent.BatteryChanged("b1", false, 500)));
+        ChargingPlan replanned = scheduler.getPlan();
+        assertNotSame(plan, replanned);
+        assertEquals(500, replanned.getDeficit());
+
+        minute.set(MIDNIGHT + ChargingScheduler.SLOT_MINUTES);
+        assertEquals(MIDNIGHT + ChargingScheduler.SLOT_MINUTES, scheduler.getPlan().getStartMinute());
+    }
+
+    @Test
+    void testRollingForecastMatchesFullForecast() {
+        energyManager.addEnergy(Energy.builder().id("sun").name("Sun").type(Energy.EnergyType.SOLAR).output(8)
+                .profile(PowerProfiles.diurnal(6 * 60, 20 * 60)).isActive(true).build());
+        ChargingScheduler rolling = newScheduler();
+        rolling.getPlan();
+        for (int i = 1; i <= 40; i++) {
+            minute.set(MIDNIGHT + i * ChargingScheduler.SLOT_MINUTES);
+            rolling.getPlan();
+        }
+
+        assertEquals(newScheduler().getPlan().getSlots(), rolling.getPlan().getSlots());
+    }
+}
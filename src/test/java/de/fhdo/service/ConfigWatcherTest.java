@@ -0,0 +1,202 @@
+package de.fhdo.service;
+
+import de.fhdo.config.HouseConfig;
+import de.fhdo.model.Battery;
+import de.fhdo.model.Device;
+import de.fhdo.model.Energy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConfigWatcherTest {
+    private static final String BASE_CONFIG = """
+            devices:
+              - name: "Lamp"
+                type: "LIGHTING"
+                power: 60.0
+              - name: "Heater"
+                type: "HEATING"
+                power: 1500.0
+            energies:
+              - name: "Grid"
+                type: "GRID"
+                output: 3000.0
+            batteries:
+              - name: "Main Battery"
+                capacity: 10000.0
+                maxChargeRate: 1000.0
+            """;
+
+    private static final String CHANGED_CONFIG = """
+            devices:
+              - name: "Lamp"
+                type: "LIGHTING"
+                power: 60.0
+              - name: "Heater"
+                type: "HEATING"
+                power: 2000.0
+              - name: "Fridge"
+                type: "APPLIANCE"
+                power: 150.0
+            energies:
+              - name: "Grid"
+                type: "GRID"
+                output: 3000.0
+            batteries:
+              - name: "Main Battery"
+                capacity: 5000.0
+                maxChargeRate: 1000.0
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    private HouseContext context;
+    private Path configFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        context = HouseContext.create(tempDir.resolve("logs"));
+        configFile = tempDir.resolve("house_config.yml");
+        Files.writeString(configFile, BASE_CONFIG);
+        context.applyConfiguration(HouseConfig.loadFromFile(configFile.toString()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.shutdown();
+    }
+
+    @Test
+    void testReconcileAppliesOnlyTheDiff() throws IOException {
+        Device lamp = findDevice("Lamp");
+        context.getDeviceManager().toggleDevice(lamp.getId());
+        Device heater = findDevice("Heater");
+        Battery battery = context.getEnergyManager().getAllBatteries().get(0);
+        battery.setCurrentCharge(8000.0);
+        battery.setCharging(true);
+
+        Files.writeString(configFile, CHANGED_CONFIG);
+        ConfigDiff diff = context.reconcileConfiguration(HouseConfig.loadFromFile(configFile.toString()));
+
+        assertEquals(1, diff.getDevicesAdded());
+        assertEquals(0, diff.getDevicesRemoved());
+        assertEquals(1, diff.getDevicesUpdated());
+        assertEquals(0, diff.getEnergiesUpdated());
+        assertEquals(1, diff.getBatteriesUpdated());
+
+        assertSame(lamp, findDevice("Lamp"));
+        assertTrue(lamp.isActive());
+        assertSame(heater, findDevice("Heater"));
+        assertEquals(2000.0, heater.getPower());
+        assertEquals(3, context.getDeviceManager().getAllDevices().size());
+
+        assertSame(battery, context.getEnergyManager().getBatteryById(battery.getId()));
+        assertTrue(battery.isCharging());
+        assertEquals(5000.0, battery.getCapacity());
+        assertEquals(5000.0, battery.getCurrentCharge());
+
+        battery.setCharging(false);
+        assertTrue(context.reconcileConfiguration(HouseConfig.loadFromFile(configFile.toString())).isEmpty());
+    }
+
+    @Test
+    void testReconcileRemovesEntitiesMissingFromConfig() throws IOException {
+        Files.writeString(configFile, """
+                devices:
+                  - name: "Lamp"
+                    type: "LIGHTING"
+                    power: 60.0
+                energies: []
+                batteries:
+                  - name: "Main Battery"
+                    capacity: 10000.0
+                    maxChargeRate: 1000.0
+                """);
+        ConfigDiff diff = context.reconcileConfiguration(HouseConfig.loadFromFile(configFile.toString()));
+
+        assertEquals(1, diff.getDevicesRemoved());
+        assertEquals(1, diff.getEnergiesRemoved());
+        assertEquals(0, diff.getBatteriesRemoved());
+        assertEquals(1, context.getDeviceManager().getAllDevices().size());
+        assertTrue(context.getEnergyManager().getAllEnergies().isEmpty());
+    }
+
+    @Test
+    void testRestoredProfilesMatchConfiguration() throws IOException {
+        Files.writeString(configFile, """
+                deviceProfiles:
+                  HEATING:
+                    type: DUTY_CYCLE
+                    periodMinutes: 20
+                    dutyCycle: 0.5
+                """ + BASE_CONFIG);
+        HouseConfig config = HouseConfig.loadFromFile(configFile.toString());
+        context.applyConfiguration(config);
+        Path snapshotFile = tempDir.resolve("house.snapshot");
+        new SnapshotManager(snapshotFile, context).writeSnapshot();
+        assertTrue(new SnapshotManager(snapshotFile, context).restoreSnapshot());
+
+        assertTrue(context.reconcileConfiguration(config).isEmpty());
+    }
+
+    @Test
+    void testReloadSwitchesOffRemovedDevices() throws IOException {
+        Device heater = findDevice("Heater");
+        context.getDeviceManager().toggleDevice(heater.getId());
+        Energy grid = context.getEnergyManager().getAllEnergies().get(0);
+        context.getEnergyManager().toggleEnergyById(grid.getId());
+        assertTrue(heater.isActive());
+        assertTrue(grid.isActive());
+
+        Files.writeString(configFile, """
+                devices:
+                  - name: "Lamp"
+                    type: "LIGHTING"
+                    power: 60.0
+                energies: []
+                batteries:
+                  - name: "Main Battery"
+                    capacity: 10000.0
+                    maxChargeRate: 1000.0
+                """);
+        context.reconcileConfiguration(HouseConfig.loadFromFile(configFile.toString()));
+
+        assertFalse(heater.isActive(), "A power loop holding the removed device must stop");
+        assertFalse(grid.isActive());
+    }
+
+    @Test
+    void testWatcherReloadsOnSave() throws Exception {
+        CountDownLatch reloaded = new CountDownLatch(1);
+        AtomicReference<ConfigDiff> applied = new AtomicReference<>();
+        try (ConfigWatcher watcher = new ConfigWatcher(configFile, context, diff -> {
+            applied.set(diff);
+            reloaded.countDown();
+        })) {
+            watcher.start();
+            Files.writeString(configFile, CHANGED_CONFIG);
+
+            assertTrue(reloaded.await(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, applied.get().getDevicesAdded());
+        assertEquals(2000.0, findDevice("Heater").getPower());
+    }
+
+    private Device findDevice(String name) {
+        return context.getDeviceManager().getAllDevices().stream()
+                .filter(device -> device.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+}
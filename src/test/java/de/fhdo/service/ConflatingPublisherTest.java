@@ -0,0 +1,108 @@
+package de.fhdo.service;
+
+import de.fhdo.model.Battery;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConflatingPublisherTest {
+
+    private static class RecordingSubscriber<T> implements Flow.Subscriber<T> {
+        final LinkedBlockingQueue<Object> signals = new LinkedBlockingQueue<>();
+        volatile Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(T item) {
+            signals.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            signals.add(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            signals.add("complete");
+        }
+
+        Object next() throws InterruptedException {
+            return signals.poll(2, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void testSlowSubscriberGetsLatestValuePerKey() throws InterruptedException {
+        ConflatingPublisher<String> publisher = new ConflatingPublisher<>(
+                (Function<String, Object>) item -> item.charAt(0), Runnable::run, () -> {
+        }, null);
+        RecordingSubscriber<String> subscriber = new RecordingSubscriber<>();
+        publisher.subscribe(subscriber);
+
+        publisher.submit("a1");
+        publisher.submit("b1");
+        publisher.submit("a2");
+        publisher.submit("a3");
+        assertTrue(subscriber.signals.isEmpty());
+
+        subscriber.subscription.request(1);
+        assertEquals("a3", subscriber.next());
+        subscriber.subscription.request(5);
+        assertEquals("b1", subscriber.next());
+        assertNull(subscriber.signals.poll());
+
+        publisher.complete();
+        assertEquals("complete", subscriber.next());
+    }
+
+    @Test
+    void testNonPositiveDemandIsAnError() throws InterruptedException {
+        ConflatingPublisher<String> publisher = ConflatingPublisher.latest(Runnable::run, () -> {
+        }, () -> "start");
+        RecordingSubscriber<String> subscriber = new RecordingSubscriber<>();
+        publisher.subscribe(subscriber);
+
+        subscriber.subscription.request(0);
+        assertInstanceOf(IllegalArgumentException.class, subscriber.next());
+        assertFalse(publisher.hasSubscribers());
+    }
+
+    @Test
+    void testTotalsFollowBatteryChanges(@TempDir Path logDir) throws InterruptedException {
+        HouseContext context = HouseContext.create(logDir);
+        EnergyManager energyManager = context.getEnergyManager();
+        RecordingSubscriber<EnergyTotals> subscriber = new RecordingSubscriber<>();
+        energyManager.getTotalsPublisher().subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertEquals(0.0, ((EnergyTotals) subscriber.next()).getBatteryCapacity());
+
+        energyManager.addBattery(Battery.builder()
+                .id("flow-battery")
+                .name("Main")
+                .capacity(500.0)
+                .currentCharge(100.0)
+                .maxChargeRate(50.0)
+                .build());
+
+        EnergyTotals totals = (EnergyTotals) subscriber.next();
+        assertNotNull(totals);
+        assertEquals(500.0, totals.getBatteryCapacity());
+        assertEquals(100.0, totals.getBatteryCharge());
+
+        context.shutdown();
+        assertEquals("complete", subscriber.next());
+    }
+}
@@ -1,9 +1,16 @@
 package de.fhdo.service;
 
 import de.fhdo.model.Device;
+import de.fhdo.model.profile.DutyCycleProfile;
+import de.fhdo.model.profile.PowerProfile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class DeviceManagerTest {
@@ -138,6 +145,165 @@ public class DeviceManagerTest {
         assertEquals(0.0, deviceManager.getCurrentTotalConsumption());
     }
 
+    @Test
+    void testConsumptionFollowsLoadProfiles() {
+        PowerProfile thermostat = new DutyCycleProfile(20, 0.5, 0);
+        Device heater = Device.builder()
+                .id("heater-id")
+                .name("Heater")
+                .type(Device.DeviceType.HEATING)
+                .power(1000.0)
+                .profile(thermostat)
+                .isActive(true)
+                .build();
+        Device lamp = Device.builder()
+                .id("lamp-id")
+                .name("Lamp")
+                .type(Device.DeviceType.LIGHTING)
+                .power(50.0)
+                .isActive(true)
+                .build();
+
+        deviceManager.addDevice(heater);
+        deviceManager.addDevice(lamp);
+
+        assertEquals(1050.0, deviceManager.getConsumptionAt(5));
+        assertEquals(50.0, deviceManager.getConsumptionAt(15));
+
+        deviceManager.toggleDevice(heater.getId());
+        assertEquals(50.0, deviceManager.getConsumptionAt(5));
+
+        deviceManager.removeDevice(lamp.getId());
+        assertEquals(0.0, deviceManager.getConsumptionAt(5));
+    }
+
+    @Test
+    void testAddAndRemoveAllDevices() {
+        List<Device> fleet = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            fleet.add(Device.builder()
+                    .id("bulk-" + i)
+                    .name("Bulk Device " + i)
+                    .type(i % 2 == 0 ? Device.DeviceType.HEATING : Device.DeviceType.LIGHTING)
+                    .power(10.0)
+                    .isActive(true)
+                    .build());
+        }
+
+        deviceManager.addAllDevices(fleet);
+        assertEquals(10, deviceManager.getAllDevices().size());
+        assertEquals(100.0, deviceManager.getCurrentTotalConsumption());
+
+        List<Device> removed = deviceManager.removeAllDevices(device -> device.getType() == Device.DeviceType.HEATING);
+        assertEquals(5, removed.size());
+        assertEquals(5, deviceManager.getAllDevices().size());
+        assertEquals(50.0, deviceManager.getCurrentTotalConsumption());
+    }
+
+    @Test
+    void testReplaceAllDevices() {
+        deviceManager.addDevice(testDevice);
+        Device replacement = Device.builder()
+                .id("replacement-id")
+                .name("Replacement")
+                .type(Device.DeviceType.APPLIANCE)
+                .power(300.0)
+                .isActive(true)
+                .build();
+
+        deviceManager.replaceAllDevices(List.of(replacement));
+
+        assertEquals(List.of(replacement), deviceManager.getAllDevices());
+        assertThrows(IllegalArgumentException.class, () -> deviceManager.getDeviceById(testDevice.getId()));
+        assertEquals(300.0, deviceManager.getCurrentTotalConsumption());
+    }
+
+    @Test
+    void testReplaceAllNeverHidesSurvivingDevice() throws InterruptedException {
+        deviceManager.addDevice(testDevice);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger misses = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                try {
+                    deviceManager.getDeviceById(testDevice.getId());
+                } catch (IllegalArgumentException e) {
+                    misses.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 2000; i++) {
+            deviceManager.replaceAllDevices(List.of(testDevice));
+        }
+        running.set(false);
+        reader.join();
+
+        assertEquals(0, misses.get());
+    }
+
+    @Test
+    void testDevicesKeepInsertionOrder() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            names.add("Device " + i);
+            deviceManager.addDevice(Device.builder()
+                    .id(UUID.randomUUID().toString())
+                    .name("Device " + i)
+                    .type(Device.DeviceType.APPLIANCE)
+                    .power(10.0)
+                    .build());
+        }
+
+        assertEquals(names, deviceManager.getAllDevices().stream().map(Device::getName).toList());
+        assertSame(deviceManager.getAllDevices(), deviceManager.getAllDevices());
+    }
+
+    @Test
+    void testChangesSinceStamp() {
+        deviceManager.addDevice(testDevice);
+        EntityChanges initial = deviceManager.getDeviceChangesSince(-1);
+        assertTrue(initial.isStructural());
+
+        assertTrue(deviceManager.getDeviceChangesSince(initial.getStamp()).isEmpty());
+
+        deviceManager.toggleDevice(testDevice.getId());
+        EntityChanges toggled = deviceManager.getDeviceChangesSince(initial.getStamp());
+        assertFalse(toggled.isStructural());
+        assertEquals(Set.of(testDevice.getId()), toggled.getChangedIds());
+
+        deviceManager.removeDevice(testDevice.getId());
+        assertTrue(deviceManager.getDeviceChangesSince(toggled.getStamp()).isStructural());
+    }
+
+    @Test
+    void testQueryDevicesFiltersAndSorts() {
+        deviceManager.addAllDevices(List.of(
+                Device.builder().id("a").name("Lamp").type(Device.DeviceType.LIGHTING).power(60.0).isActive(true).build(),
+                Device.builder().id("b").name("Heater").type(Device.DeviceType.HEATING).power(2000.0).isActive(true).build(),
+                Device.builder().id("c").name("Fridge").type(Device.DeviceType.APPLIANCE).power(150.0).isActive(false).build(),
+                Device.builder().id("d").name("Oven").type(Device.DeviceType.APPLIANCE).power(3000.0).isActive(true).build()));
+
+        assertEquals(4, deviceManager.queryDevices(DeviceQuery.ALL).size());
+
+        List<Device> appliances = deviceManager.queryDevices(DeviceQuery.builder()
+                .type(Device.DeviceType.APPLIANCE)
+                .sortKey(DeviceQuery.SortKey.POWER)
+                .descending(true)
+                .build());
+        assertEquals(List.of("d", "c"), appliances.stream().map(Device::getId).toList());
+
+        List<Device> activeInRange = deviceManager.queryDevices(DeviceQuery.builder()
+                .active(true)
+                .minPower(100.0)
+                .maxPower(2500.0)
+                .build());
+        assertEquals(List.of("b"), activeInRange.stream().map(Device::getId).toList());
+
+        List<Device> byName = deviceManager.queryDevices(DeviceQuery.builder().sortKey(DeviceQuery.SortKey.NAME).build());
+        assertEquals(List.of("Fridge", "Heater", "Lamp", "Oven"), byName.stream().map(Device::getName).toList());
+    }
+
     @Test
     void testClearAllDevices() {
         deviceManager.addDevice(testDevice);
@@ -0,0 +1,145 @@
+package de.fhdo.service;
+
+import de.fhdo.model.Battery;
+import de.fhdo.model.Device;
+import de.fhdo.model.Energy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EnergyLedgerTest {
+    private static final long HOUR = 3_600_000;
+    private static final long DAY = 24 * HOUR;
+    /** Midnight UTC. */
+    private static final long T0 = 1_700_006_400_000L;
+
+    private HouseContext context;
+    private EnergyLedger ledger;
+
+    @BeforeEach
+    void setUp(@TempDir Path logDir) {
+        context = HouseContext.create(logDir);
+        ledger = new EnergyLedger(context.getDeviceManager(), context.getEnergyManager(), ZoneOffset.UTC);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.shutdown();
+    }
+
+    @Test
+    void testAccrueIntegratesPowerOverTime() {
+        context.getDeviceManager().addDevice(Device.builder().id("heater").name("Heater")
+                .type(Device.DeviceType.HEATING).power(3600).isActive(true).build());
+        context.getDeviceManager().addDevice(Device.builder().id("lamp").name("Lamp")
+                .type(Device.DeviceType.LIGHTING).power(60).isActive(false).build());
+        context.getEnergyManager().addEnergy(Energy.builder().id("grid").name("Grid")
+                .type(Energy.EnergyType.GRID).output(7200).isActive(true).build());
+
+        ledger.accrue(T0);
+        ledger.accrue(T0 + 1000);
+        ledger.accrue(T0 + 3000);
+        // A long gap is not booked
+        ledger.accrue(T0 + 60_000);
+
+        assertEquals(3.0, ledger.getEntry(EnergyLedger.Kind.DEVICE_CONSUMED, "heater", T0).getTotal(), 1e-9);
+        assertEquals(6.0, ledger.getEntry(EnergyLedger.Kind.SOURCE_SUPPLIED, "grid", T0).getTotal(), 1e-9);
+        assertNull(ledger.getEntry(EnergyLedger.Kind.DEVICE_CONSUMED, "lamp", T0));
+    }
+
+    @Test
+    void testHourlyAndDailyRollups() {
+        ledger.record(EnergyLedger.Kind.BATTERY_CHARGED, "b1", "Main", 5, T0 + 10 * 60_000);
+        ledger.record(EnergyLedger.Kind.BATTERY_CHARGED, "b1", "Main", 2, T0 + 50 * 60_000);
+        ledger.record(EnergyLedger.Kind.BATTERY_CHARGED, "b1", "Main", 4, T0 + HOUR + 1);
+
+        double[] hourly = ledger.getHourly(EnergyLedger.Kind.BATTERY_CHARGED, "b1", T0 + HOUR);
+        assertEquals(4, hourly[EnergyLedger.HOURS - 1]);
+        assertEquals(7, hourly[EnergyLedger.HOURS - 2]);
+
+        LedgerEntry entry = ledger.getEntry(EnergyLedger.Kind.BATTERY_CHARGED, "b1", T0 + HOUR);
+        assertEquals(11, entry.getTotal());
+        assertEquals(4, entry.getCurrentHour());
+        assertEquals(11, entry.getToday());
+
+        // The same hour a day later reuses the bucket without carrying yesterday's value
+        ledger.record(EnergyLedger.Kind.BATTERY_CHARGED, "b1", "Main", 1, T0 + DAY + 20 * 60_000);
+        hourly = ledger.getHourly(EnergyLedger.Kind.BATTERY_CHARGED, "b1", T0 + DAY);
+        assertEquals(1, hourly[EnergyLedger.HOURS - 1]);
+
+        double[] daily = ledger.getDaily(EnergyLedger.Kind.BATTERY_CHARGED, "b1", T0 + DAY);
+        assertEquals(1, daily[EnergyLedger.DAYS - 1]);
+        assertEquals(11, daily[EnergyLedger.DAYS - 2]);
+        assertEquals(12, ledger.getEntry(EnergyLedger.Kind.BATTERY_CHARGED, "b1", T0 + DAY).getTotal());
+    }
+
+    @Test
+    void testBatteryBookedInUnitHours() throws InterruptedException {
+        EnergyLedger attached = context.getSystemMonitor().getEnergyLedger();
+        context.getDeviceManager().addDevice(Device.builder().id("heater").name("Heater")
+                .type(Device.DeviceType.HEATING).power(1800).isActive(false).build());
+        context.getEnergyManager().addBattery(Battery.builder().id("b1").name("Main").capacity(10000)
+                .currentCharge(10000).maxChargeRate(100).build());
+
+        context.getEnergyManager().startPower("heater", "b1");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (attached.getEntry(EnergyLedger.Kind.BATTERY_DISCHARGED, "b1") == null
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        context.getDeviceManager().getDeviceById("heater").setActive(false);
+
+        // One tick of 1800 units is 1800 units over two seconds
+        assertEquals(1800 * EnergyManager.TICK_HOURS,
+                attached.getEntry(EnergyLedger.Kind.BATTERY_DISCHARGED, "b1").getTotal(), 1e-9);
+    }
+
+    @Test
+    void testEntriesSortedByTotal() {
+        ledger.record(EnergyLedger.Kind.DEVICE_CONSUMED, "a", "A", 1, T0);
+        ledger.record(EnergyLedger.Kind.DEVICE_CONSUMED, "b", "B", 3, T0);
+        ledger.record(EnergyLedger.Kind.SOURCE_SUPPLIED, "s", "S", 9, T0);
+
+        List<LedgerEntry> entries = ledger.getEntries(EnergyLedger.Kind.DEVICE_CONSUMED, T0);
+        assertEquals(List.of("b", "a"), entries.stream().map(LedgerEntry::getEntityId).toList());
+    }
+
+    @Test
+    void testSaveAndRestore(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("energy.ledger");
+        ledger.record(EnergyLedger.Kind.BATTERY_DISCHARGED, "b1", "Main", 2.5, T0);
+        ledger.record(EnergyLedger.Kind.DEVICE_CONSUMED, "lamp", "Lämpchen", 0.25, T0 + HOUR);
+        ledger.save(file);
+
+        EnergyLedger restored = new EnergyLedger(context.getDeviceManager(), context.getEnergyManager(), ZoneOffset.UTC);
+        assertTrue(restored.restore(file));
+        assertEquals(2.5, restored.getEntry(EnergyLedger.Kind.BATTERY_DISCHARGED, "b1", T0).getToday());
+        LedgerEntry lamp = restored.getEntry(EnergyLedger.Kind.DEVICE_CONSUMED, "lamp", T0 + HOUR);
+        assertEquals("Lämpchen", lamp.getName());
+        assertEquals(0.25, lamp.getCurrentHour());
+        assertFalse(restored.restore(dir.resolve("missing.ledger")));
+    }
+
+    @Test
+    void testCorruptFileIsIOException(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("energy.ledger");
+        ledger.record(EnergyLedger.Kind.DEVICE_CONSUMED, "lamp", "Lamp", 1, T0);
+        ledger.save(file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 100));
+
+        IOException e = assertThrows(IOException.class, () -> ledger.restore(file));
+        assertEquals("Corrupt energy ledger", e.getMessage());
+        assertEquals(1, ledger.getEntry(EnergyLedger.Kind.DEVICE_CONSUMED, "lamp", T0).getTotal());
+    }
+}
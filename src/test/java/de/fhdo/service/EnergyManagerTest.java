@@ -5,8 +5,10 @@ import de.fhdo.model.Battery;
 import de.fhdo.model.Device;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class EnergyManagerTest {
@@ -109,6 +111,40 @@ public class EnergyManagerTest {
         assertTrue(energyManager.getEnergyById(testEnergy.getId()).isActive());
     }
 
+    @Test
+    void testSetEnergyActiveIsIdempotent() {
+        energyManager.addEnergy(testEnergy);
+        boolean active = testEnergy.isActive();
+
+        assertFalse(energyManager.setEnergyActive(testEnergy.getId(), active));
+        assertEquals(active, testEnergy.isActive());
+        assertTrue(energyManager.setEnergyActive(testEnergy.getId(), !active));
+        assertFalse(energyManager.setEnergyActive(testEnergy.getId(), !active));
+        assertEquals(!active, testEnergy.isActive());
+    }
+
+    @Test
+    void testSetEnergyActiveHasOneWinner() throws InterruptedException {
+        energyManager.addEnergy(testEnergy);
+        boolean target = !testEnergy.isActive();
+        AtomicInteger winners = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread(() -> {
+                if (energyManager.setEnergyActive(testEnergy.getId(), target)) {
+                    winners.incrementAndGet();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1, winners.get());
+        assertEquals(target, testEnergy.isActive());
+    }
+
     @Test
     void testStartCharging() throws InterruptedException {
         energyManager.addBattery(testBattery);
@@ -177,6 +213,36 @@ public class EnergyManagerTest {
         assertFalse(battery.isCharging());
     }
 
+    @Test
+    void testBulkEnergyAndBatteryOperations() {
+        Battery spare = Battery.builder()
+                .id("spare-id")
+                .name("Spare Battery")
+                .capacity(2000.0)
+                .currentCharge(0.0)
+                .maxChargeRate(200.0)
+                .isCharging(false)
+                .build();
+
+        energyManager.addAllBatteries(List.of(testBattery, spare));
+        assertEquals(3000.0, energyManager.getCurrentTotalBatteryCapacity());
+
+        List<Battery> removed = energyManager.removeAllBatteries(battery -> battery.getCurrentCharge() == 0.0);
+        assertEquals(List.of(spare), removed);
+        assertEquals(List.of(testBattery), energyManager.getAllBatteries());
+
+        energyManager.addEnergy(testEnergy);
+        Energy grid = Energy.builder()
+                .id("grid-id")
+                .name("Grid")
+                .type(Energy.EnergyType.GRID)
+                .output(3000.0)
+                .isActive(true)
+                .build();
+        energyManager.replaceAllEnergies(List.of(grid));
+        assertEquals(List.of(grid), energyManager.getAllEnergies());
+    }
+
     @Test
     void testClearAllEnergies() {
         energyManager.addEnergy(testEnergy);
@@ -0,0 +1,106 @@
+package de.fhdo.service;
+
+import de.fhdo.model.Device;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventBusTest {
+    private EventBus eventBus;
+
+    @AfterEach
+    void tearDown() {
+        if (eventBus != null) {
+            eventBus.close();
+        }
+    }
+
+    @Test
+    void testLatestEventPerEntityWinsWithinFrame() throws InterruptedException {
+        eventBus = new EventBus(64, 100);
+        LinkedBlockingQueue<List<HouseEvent>> batches = new LinkedBlockingQueue<>();
+        eventBus.subscribe(batches::add);
+
+        eventBus.publish(new HouseEvent.DeviceToggled("a", true));
+        eventBus.publish(new HouseEvent.DeviceToggled("b", true));
+        eventBus.publish(new HouseEvent.DeviceToggled("a", false));
+        eventBus.publish(new HouseEvent.DeviceSetChanged());
+        eventBus.publish(new HouseEvent.DeviceSetChanged());
+
+        List<HouseEvent> batch = batches.poll(2, TimeUnit.SECONDS);
+        assertNotNull(batch);
+        assertEquals(List.of(
+                new HouseEvent.DeviceToggled("a", false),
+                new HouseEvent.DeviceToggled("b", true),
+                new HouseEvent.DeviceSetChanged()), batch);
+    }
+
+    @Test
+    void testOverflowTurnsIntoResync() throws InterruptedException {
+        eventBus = new EventBus(4, 200);
+        CountDownLatch firstBatch = new CountDownLatch(1);
+        List<List<HouseEvent>> batches = new ArrayList<>();
+        eventBus.subscribe(batch -> {
+            synchronized (batches) {
+                batches.add(batch);
+            }
+            firstBatch.countDown();
+        });
+
+        for (int i = 0; i < 10; i++) {
+            eventBus.publish(new HouseEvent.DeviceToggled("device-" + i, true));
+        }
+
+        assertTrue(firstBatch.await(2, TimeUnit.SECONDS));
+        synchronized (batches) {
+            assertEquals(List.of(new HouseEvent.Resync()), batches.get(0));
+        }
+    }
+
+    @Test
+    void testManagersPublishChanges(@TempDir Path logDir) throws InterruptedException {
+        HouseContext context = HouseContext.create(logDir);
+        LinkedBlockingQueue<HouseEvent> events = new LinkedBlockingQueue<>();
+        context.getEventBus().subscribe(events::addAll);
+
+        Device device = Device.builder()
+                .id("bus-device")
+                .name("Lamp")
+                .type(Device.DeviceType.LIGHTING)
+                .power(60.0)
+                .build();
+        context.getDeviceManager().addDevice(device);
+        context.getDeviceManager().toggleDevice(device.getId());
+
+        List<HouseEvent> received = new ArrayList<>();
+        while (received.size() < 2) {
+            HouseEvent event = events.poll(2, TimeUnit.SECONDS);
+            assertNotNull(event, "Missing events, got " + received);
+            received.add(event);
+        }
+        assertTrue(received.contains(new HouseEvent.DeviceSetChanged()));
+        assertTrue(received.contains(new HouseEvent.DeviceToggled("bus-device", true)));
+
+        context.shutdown();
+    }
+
+    @Test
+    void testPublishWithoutSubscribersIsIgnored() {
+        eventBus = new EventBus(2, 10);
+        for (int i = 0; i < 10; i++) {
+            eventBus.publish(new HouseEvent.EnergySetChanged());
+        }
+        LinkedBlockingQueue<List<HouseEvent>> batches = new LinkedBlockingQueue<>();
+        eventBus.subscribe(batches::add);
+        assertTrue(batches.isEmpty());
+    }
+}
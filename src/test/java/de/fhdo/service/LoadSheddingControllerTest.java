@@ -0,0 +1,122 @@
+package de.fhdo.service;
+
+import de.fhdo.model.Battery;
+import de.fhdo.model.Device;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoadSheddingControllerTest {
+    private HouseContext context;
+    private DeviceManager deviceManager;
+    private LoadSheddingController controller;
+    private Battery battery;
+
+    @BeforeEach
+    void setUp(@TempDir Path logDir) {
+        context = HouseContext.create(logDir);
+        deviceManager = context.getDeviceManager();
+        controller = context.getSystemMonitor().getLoadSheddingController();
+        controller.setEnabled(true);
+
+        addDevice("washer", 0, 300);
+        addDevice("lamp", 0, 100);
+        addDevice("fridge", 5, 500);
+        battery = Battery.builder().id("b1").name("Main").capacity(5000).currentCharge(700).maxChargeRate(100).build();
+        context.getEnergyManager().addBattery(battery);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.shutdown();
+    }
+
+    private void addDevice(String id, int priority, double power) {
+        deviceManager.addDevice(Device.builder().id(id).name(id).type(Device.DeviceType.APPLIANCE)
+                .power(power).priority(priority).isActive(true).build());
+    }
+
+    private boolean isActive(String id) {
+        return deviceManager.getDeviceById(id).isActive();
+    }
+
+    @Test
+    void testShedsLowestPriorityAndLargestFirst() {
+        controller.tick();
+
+        assertFalse(isActive("washer"));
+        assertTrue(isActive("lamp"));
+        assertTrue(isActive("fridge"));
+        assertEquals(List.of("washer"), controller.getShedDeviceIds());
+    }
+
+    @Test
+    void testHighPriorityGoesLast() {
+        battery.setCurrentCharge(550);
+        controller.tick();
+
+        assertFalse(isActive("washer"));
+        assertFalse(isActive("lamp"));
+        assertTrue(isActive("fridge"));
+    }
+
+    @Test
+    void testRestoresInPriorityOrderWithMargin() {
+        battery.setCurrentCharge(100);
+        controller.tick();
+        assertTrue(deviceManager.getDevicesByState(true).isEmpty());
+
+        // 500 fits within 90% of 600, the lamp would not
+        battery.setCurrentCharge(600);
+        controller.tick();
+        assertTrue(isActive("fridge"));
+        assertFalse(isActive("lamp"));
+        assertEquals(2, controller.getShedDeviceIds().size());
+
+        battery.setCurrentCharge(2000);
+        controller.tick();
+        assertEquals(3, deviceManager.getDevicesByState(true).size());
+        assertTrue(controller.getShedDeviceIds().isEmpty());
+    }
+
+    @Test
+    void testReserveIsNotSupply() {
+        battery.setCurrentCharge(1000);
+        controller.setReserveRatio(0.1);
+        controller.tick();
+        assertFalse(isActive("washer"));
+        assertThrows(IllegalArgumentException.class, () -> controller.setReserveRatio(1));
+    }
+
+    @Test
+    void testDisabledControllerLeavesDevicesAlone() {
+        controller.setEnabled(false);
+        battery.setCurrentCharge(0);
+        controller.tick();
+        assertEquals(3, deviceManager.getDevicesByState(true).size());
+    }
+
+    @Test
+    void testRestoredDeviceDrawsFromBatteryAgain() throws InterruptedException {
+        battery.setCurrentCharge(100);
+        controller.tick();
+        assertTrue(deviceManager.getDevicesByState(true).isEmpty());
+
+        battery.setCurrentCharge(5000);
+        controller.tick();
+        assertEquals(3, deviceManager.getDevicesByState(true).size());
+
+        // Each restored device draws its first tick right away
+        long deadline = System.currentTimeMillis() + 5000;
+        while (battery.getCurrentCharge() > 4100 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(4100, battery.getCurrentCharge(), 1e-9);
+    }
+}
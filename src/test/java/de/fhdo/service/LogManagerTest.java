@@ -4,9 +4,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.nio.file.Files;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.ZipFile;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -138,4 +143,67 @@ public class LogManagerTest {
             fail("Clear all test failed: " + e.getMessage());
         }
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testTailReadsOnlyLastLines(@TempDir Path tempDir) {
+        LogManager manager = new LogManager(tempDir);
+        Path logFile = tempDir.resolve("system").resolve("tail_test.log");
+        for (int i = 0; i < 3000; i++) {
+            manager.writeToLog(logFile, LocalDateTime.now(), "line " + i);
+        }
+
+        List<String> tail = manager.tail(logFile, 3);
+        assertEquals(3, tail.size());
+        assertTrue(tail.get(0).endsWith("line 2997"));
+        assertTrue(tail.get(2).endsWith("line 2999"));
+        assertEquals(3000, manager.tail(logFile, 5000).size());
+    }
+
+    @Test
+    void testFollowReceivesAppendedLines(@TempDir Path tempDir) {
+        LogManager manager = new LogManager(tempDir);
+        Path logFile = tempDir.resolve("device").resolve("Lamp_" + LocalDate.now().format(manager.DATE_FORMAT) + ".log");
+        manager.logEvent(LogManager.Category.DEVICE, "Lamp", "before");
+
+        List<String> received = new ArrayList<>();
+        try (LogManager.LogSubscription subscription = manager.follow(logFile, 10, received::add)) {
+            manager.logEvent(LogManager.Category.DEVICE, "Lamp", "after");
+            manager.logEvent(LogManager.Category.DEVICE, "Heater", "other file");
+        }
+        manager.logEvent(LogManager.Category.DEVICE, "Lamp", "unsubscribed");
+
+        assertEquals(2, received.size());
+        assertTrue(received.get(0).endsWith("before"));
+        assertTrue(received.get(1).endsWith("after"));
+    }
+
+    @Test
+    void testSlowFollowerDoesNotBlockWriters(@TempDir Path tempDir) throws Exception {
+        LogManager manager = new LogManager(tempDir);
+        Path logFile = tempDir.resolve("device").resolve("slow.log");
+        Path otherFile = tempDir.resolve("battery").resolve("other.log");
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        manager.follow(logFile, 0, line -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        Thread writer = new Thread(() -> manager.writeToLog(logFile, LocalDateTime.now(), "first"));
+        writer.start();
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        // The follower is still busy, yet neither file is locked
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            manager.writeToLog(otherFile, LocalDateTime.now(), "other");
+            manager.follow(logFile, 1, line -> { }).close();
+        });
+        release.countDown();
+        writer.join();
+        assertEquals(1, manager.readLogFile(logFile).size());
+    }
+}
@@ -0,0 +1,69 @@
+package de.fhdo.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PowerHistoryTest {
+
+    @Test
+    void testPollReturnsOnlyNewSamplesInOrder() {
+        PowerHistory history = new PowerHistory(8);
+        PowerHistory.Cursor cursor = history.cursor();
+
+        history.record(100, 1.0, 2.0, 3.0);
+        history.record(200, 4.0, 5.0, 6.0);
+
+        assertEquals(2, cursor.poll());
+        assertFalse(cursor.isSkipped());
+        assertEquals(100, cursor.getTime(0));
+        assertEquals(4.0, cursor.getConsumption(1));
+        assertEquals(5.0, cursor.getGeneration(1));
+        assertEquals(6.0, cursor.getCharge(1));
+
+        assertEquals(0, cursor.poll());
+
+        history.record(300, 7.0, 8.0, 9.0);
+        assertEquals(1, cursor.poll());
+        assertEquals(300, cursor.getTime(0));
+    }
+
+    @Test
+    void testLaggingCursorSkipsOverwrittenSamples() {
+        PowerHistory history = new PowerHistory(4);
+        PowerHistory.Cursor cursor = history.cursor();
+
+        for (int i = 0; i < 10; i++) {
+            history.record(i, i, 0, 0);
+        }
+
+        int count = cursor.poll();
+        assertTrue(cursor.isSkipped());
+        assertTrue(count > 0 && count <= 4);
+        // Whatever survives is the newest samples, oldest first
+        assertEquals(9, cursor.getTime(count - 1));
+        for (int i = 1; i < count; i++) {
+            assertEquals(cursor.getTime(i - 1) + 1, cursor.getTime(i));
+        }
+        assertEquals(10, history.getWritten());
+    }
+
+    @Test
+    void testRewindReplaysHeldSamples() {
+        PowerHistory history = new PowerHistory(4);
+        PowerHistory.Cursor cursor = history.cursor();
+
+        history.record(1, 1, 1, 1);
+        history.record(2, 2, 2, 2);
+        assertEquals(2, cursor.poll());
+
+        cursor.rewind();
+        assertEquals(2, cursor.poll());
+        assertEquals(1, cursor.getTime(0));
+    }
+
+    @Test
+    void testRejectsNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new PowerHistory(0));
+    }
+}
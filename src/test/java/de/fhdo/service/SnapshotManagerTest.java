@@ -0,0 +1,137 @@
+package de.fhdo.service;
+
+import de.fhdo.model.Battery;
+import de.fhdo.model.BatteryModel;
+import de.fhdo.model.Device;
+import de.fhdo.model.Energy;
+import de.fhdo.model.profile.DutyCycleProfile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotManagerTest {
+    @TempDir
+    Path tempDir;
+
+    private HouseContext source;
+    private HouseContext target;
+    private Path snapshotFile;
+
+    @BeforeEach
+    void setUp() {
+        source = HouseContext.create(tempDir.resolve("source-logs"));
+        target = HouseContext.create(tempDir.resolve("target-logs"));
+        snapshotFile = tempDir.resolve("house.snapshot");
+    }
+
+    @AfterEach
+    void tearDown() {
+        source.shutdown();
+        target.shutdown();
+    }
+
+    @Test
+    void testRestoreWithoutSnapshot() throws IOException {
+        assertFalse(new SnapshotManager(snapshotFile, target).restoreSnapshot());
+    }
+
+    @Test
+    void testSnapshotRoundTrip() throws IOException {
+        source.getDeviceManager().addDevice(Device.builder()
+                .id("heater-id")
+                .name("Kitchen Heater")
+                .type(Device.DeviceType.HEATING)
+                .power(1500.0)
+                .priority(7)
+                .profile(new DutyCycleProfile(20, 0.25, 0))
+                .isActive(true)
+                .build());
+        source.getEnergyManager().addEnergy(Energy.builder()
+                .id("grid-id")
+                .name("Grid")
+                .type(Energy.EnergyType.GRID)
+                .output(3000.0)
+                .isActive(false)
+                .build());
+        source.getEnergyManager().addBattery(Battery.builder()
+                .id("battery-id")
+                .name("Main Battery")
+                .capacity(10000.0)
+                .currentCharge(4321.5)
+                .maxChargeRate(1000.0)
+                .isCharging(false)
+                .model(new BatteryModel(0.95, 0.9, 0.01, 0.8, 0.1))
+                .build());
+
+        new SnapshotManager(snapshotFile, source).writeSnapshot();
+        assertTrue(Files.exists(snapshotFile));
+
+        assertTrue(new SnapshotManager(snapshotFile, target).restoreSnapshot());
+
+        Device heater = target.getDeviceManager().getDeviceById("heater-id");
+        assertEquals("Kitchen Heater", heater.getName());
+        assertEquals(Device.DeviceType.HEATING, heater.getType());
+        assertTrue(heater.isActive());
+        assertEquals(1500.0, heater.getPowerAt(0));
+        assertEquals(0.0, heater.getPowerAt(10));
+        assertEquals(7, heater.getPriority());
+
+        Energy grid = target.getEnergyManager().getEnergyById("grid-id");
+        assertFalse(grid.isActive());
+        assertEquals(3000.0, grid.getOutput());
+
+        Battery battery = target.getEnergyManager().getBatteryById("battery-id");
+        assertEquals(4321.5, battery.getCurrentCharge());
+        assertEquals(10000.0, battery.getCapacity());
+        assertEquals(new BatteryModel(0.95, 0.9, 0.01, 0.8, 0.1), battery.getModel());
+    }
+
+    @Test
+    void testRestoredActiveDevicesDrawPower() throws Exception {
+        source.getDeviceManager().addDevice(Device.builder().id("lamp-id").name("Lamp")
+                .type(Device.DeviceType.LIGHTING).power(600.0).isActive(true).build());
+        source.getEnergyManager().addBattery(Battery.builder().id("battery-id").name("Main Battery")
+                .capacity(10000.0).currentCharge(5000.0).maxChargeRate(1000.0).build());
+        new SnapshotManager(snapshotFile, source).writeSnapshot();
+
+        assertTrue(new SnapshotManager(snapshotFile, target).restoreSnapshot());
+
+        Battery battery = target.getEnergyManager().getBatteryById("battery-id");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (battery.getCurrentCharge() >= 5000.0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(battery.getCurrentCharge() < 5000.0);
+    }
+
+    @Test
+    void testRejectsForeignFile() throws IOException {
+        Files.writeString(snapshotFile, "definitely not a snapshot, just some text");
+        assertThrows(IOException.class, () -> new SnapshotManager(snapshotFile, target).restoreSnapshot());
+    }
+
+    @Test
+    void testRejectsDamagedSnapshot() throws IOException {
+        source.getDeviceManager().addDevice(Device.builder().id("lamp-id").name("Lamp")
+                .type(Device.DeviceType.LIGHTING).power(60.0).isActive(true).build());
+        new SnapshotManager(snapshotFile, source).writeSnapshot();
+        byte[] bytes = Files.readAllBytes(snapshotFile);
+
+        byte[] flipped = bytes.clone();
+        flipped[bytes.length / 2] ^= 1;
+        Files.write(snapshotFile, flipped);
+        assertThrows(IOException.class, () -> new SnapshotManager(snapshotFile, target).restoreSnapshot());
+
+        Files.write(snapshotFile, Arrays.copyOf(bytes, bytes.length - 10));
+        assertThrows(IOException.class, () -> new SnapshotManager(snapshotFile, target).restoreSnapshot());
+        assertTrue(target.getDeviceManager().getAllDevices().isEmpty());
+    }
+}
@@ -0,0 +1,143 @@
+package de.fhdo.service;
+
+import de.fhdo.model.Battery;
+import de.fhdo.model.Device;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StateJournalTest {
+    @TempDir
+    Path tempDir;
+
+    private Path journalDir;
+    private HouseContext source;
+    private HouseContext target;
+
+    @BeforeEach
+    void setUp() {
+        journalDir = tempDir.resolve("journal");
+        source = HouseContext.create(tempDir.resolve("source-logs"));
+        target = HouseContext.create(tempDir.resolve("target-logs"));
+        for (HouseContext context : List.of(source, target)) {
+            context.getDeviceManager().addDevice(Device.builder()
+                    .id("lamp-id").name("Lamp").type(Device.DeviceType.LIGHTING).power(60.0).isActive(false).build());
+            context.getEnergyManager().addBattery(Battery.builder()
+                    .id("battery-id").name("Main Battery").capacity(10000.0).currentCharge(0.0)
+                    .maxChargeRate(1000.0).isCharging(false).build());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        source.shutdown();
+        target.shutdown();
+    }
+
+    @Test
+    void testReplayAppliesJournaledChanges() throws Exception {
+        StateJournal journal = startJournal(source);
+        source.getDeviceManager().toggleDevice("lamp-id");
+        Battery battery = source.getEnergyManager().getBatteryById("battery-id");
+        battery.setCurrentCharge(2500.0);
+        journal.recordCharge(battery, 2500.0);
+        journal.flush();
+        journal.close();
+
+        StateJournal reopened = new StateJournal(journalDir, StateJournal.FsyncPolicy.NEVER, 0);
+        assertEquals(2, reopened.getWrittenSequence());
+        assertEquals(2, reopened.replay(0, target.getDeviceManager(), target.getEnergyManager()));
+        assertTrue(target.getDeviceManager().getDeviceById("lamp-id").isActive());
+        assertEquals(2500.0, target.getEnergyManager().getBatteryById("battery-id").getCurrentCharge());
+
+        assertEquals(1, reopened.replay(1, target.getDeviceManager(), target.getEnergyManager()));
+    }
+
+    @Test
+    void testReplayStopsAtTornRecord() throws Exception {
+        StateJournal journal = startJournal(source);
+        source.getDeviceManager().toggleDevice("lamp-id");
+        source.getDeviceManager().toggleDevice("lamp-id");
+        journal.flush();
+        journal.close();
+
+        Path segment = segments().get(0);
+        long size = Files.size(segment);
+        try (var channel = Files.newByteChannel(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        StateJournal reopened = new StateJournal(journalDir, StateJournal.FsyncPolicy.NEVER, 0);
+        assertEquals(1, reopened.getWrittenSequence());
+        assertEquals(1, reopened.replay(0, target.getDeviceManager(), target.getEnergyManager()));
+        assertTrue(target.getDeviceManager().getDeviceById("lamp-id").isActive());
+    }
+
+    @Test
+    void testCheckpointDeletesCoveredSegments() throws Exception {
+        StateJournal journal = startJournal(source);
+        source.getDeviceManager().toggleDevice("lamp-id");
+        journal.flush();
+        journal.checkpoint(journal.getWrittenSequence());
+        Thread.sleep(300);
+        source.getDeviceManager().toggleDevice("lamp-id");
+        journal.flush();
+        journal.close();
+        Thread.sleep(300);
+
+        List<Path> segments = segments();
+        assertEquals(1, segments.size());
+        StateJournal reopened = new StateJournal(journalDir, StateJournal.FsyncPolicy.NEVER, 0);
+        assertEquals(1, reopened.replay(1, target.getDeviceManager(), target.getEnergyManager()));
+        assertFalse(target.getDeviceManager().getDeviceById("lamp-id").isActive());
+    }
+
+    @Test
+    void testContinuesAfterSnapshotWhenJournalIsGone() throws Exception {
+        StateJournal journal = startJournal(source);
+        source.getDeviceManager().toggleDevice("lamp-id");
+        source.getDeviceManager().toggleDevice("lamp-id");
+        journal.flush();
+        Path snapshotFile = tempDir.resolve("house.snapshot");
+        assertEquals(2, new SnapshotManager(snapshotFile, source, journal).writeSnapshot().getJournalSequence());
+        journal.close();
+        for (Path segment : segments()) {
+            Files.delete(segment);
+        }
+
+        StateJournal fresh = new StateJournal(journalDir, StateJournal.FsyncPolicy.ALWAYS, 0);
+        assertTrue(new SnapshotManager(snapshotFile, target, fresh).restoreSnapshot());
+        fresh.start();
+        target.setJournal(fresh);
+        target.getDeviceManager().toggleDevice("lamp-id");
+        fresh.flush();
+        fresh.close();
+
+        assertEquals(3, fresh.getWrittenSequence());
+        StateJournal reopened = new StateJournal(journalDir, StateJournal.FsyncPolicy.NEVER, 0);
+        assertEquals(1, reopened.replay(2, target.getDeviceManager(), target.getEnergyManager()));
+    }
+
+    private StateJournal startJournal(HouseContext context) throws IOException {
+        StateJournal journal = new StateJournal(journalDir, StateJournal.FsyncPolicy.ALWAYS, 0);
+        journal.start();
+        context.setJournal(journal);
+        return journal;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(journalDir)) {
+            return files.sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package de.fhdo.simulation;
+
+import de.fhdo.config.HouseConfig;
+import de.fhdo.service.HouseContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScenarioSweepRunnerTest {
+    @TempDir
+    Path tempDir;
+
+    private HouseConfig baseConfig;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        baseConfig = HouseConfig.loadFromFile("src/test/resources/house_config.yml");
+    }
+
+    @Test
+    void testContextsAreIndependent() {
+        HouseContext first = HouseContext.create(tempDir.resolve("first"));
+        HouseContext second = HouseContext.create(tempDir.resolve("second"));
+
+        first.applyConfiguration(baseConfig);
+
+        assertEquals(1, first.getDeviceManager().getAllDevices().size());
+        assertTrue(second.getDeviceManager().getAllDevices().isEmpty());
+        assertNotSame(first.getEnergyManager(), second.getEnergyManager());
+    }
+
+    @Test
+    void testGridBuildsAllCombinations() {
+        List<Scenario> scenarios = Scenario.grid(baseConfig, new double[]{1000, 5000}, new double[]{0, 500, 1500});
+
+        assertEquals(6, scenarios.size());
+        assertEquals(1000, scenarios.get(0).getConfig().getBatteries().get(0).getCapacity());
+        assertEquals(500, scenarios.get(1).getConfig().getEnergies().get(0).getOutput());
+        assertEquals(10000.0, baseConfig.getBatteries().get(0).getCapacity());
+    }
+
+    @Test
+    void testFractionalValuesGetDistinctNames() {
+        List<Scenario> scenarios = Scenario.grid(baseConfig, new double[]{1000, 1000.5}, new double[]{0.25});
+
+        assertEquals("capacity-1000_solar-0.25", scenarios.get(0).getName());
+        assertEquals("capacity-1000.5_solar-0.25", scenarios.get(1).getName());
+    }
+
+    @Test
+    void testSweepCollectsMetricsPerScenario() {
+        List<Scenario> scenarios = Scenario.grid(baseConfig, new double[]{1000, 5000}, new double[]{0, 1500});
+        ScenarioSweepRunner runner = new ScenarioSweepRunner(new ForkJoinPool(4), tempDir, 60);
+
+        List<ScenarioResult> results = runner.run(scenarios);
+
+        assertEquals(4, results.size());
+        ScenarioResult noSolar = results.get(0);
+        assertEquals("capacity-1000_solar-0", noSolar.getScenarioName());
+        assertEquals(60, noSolar.getTicks());
+        assertEquals(6000.0, noSolar.getTotalConsumed());
+        assertEquals(6000.0, noSolar.getUnmetDemand());
+        assertEquals(0.0, noSolar.getSelfSufficiency());
+
+        ScenarioResult smallBattery = results.get(1);
+        assertEquals(0.0, smallBattery.getUnmetDemand());
+        assertEquals(1000.0, smallBattery.getFinalCharge());
+        assertTrue(smallBattery.getCurtailed() > 0);
+
+        ScenarioResult largeBattery = results.get(3);
+        assertEquals(5000.0, largeBattery.getFinalCharge());
+    }
+
+    @Test
+    void testBatteryModelCountsLosses() {
+        HouseConfig lossy = baseConfig.copy();
+        HouseConfig.BatteryModelConfig model = new HouseConfig.BatteryModelConfig();
+        model.setChargeEfficiency(0.9);
+        model.setSelfDischargePerDay(0.01);
+        lossy.getBatteries().get(0).setModel(model);
+        ScenarioSweepRunner runner = new ScenarioSweepRunner(new ForkJoinPool(2), tempDir, 60);
+
+        List<ScenarioResult> results = runner.run(List.of(new Scenario("lossless", baseConfig), new Scenario("lossy", lossy)));
+
+        ScenarioResult lossless = results.get(0);
+        ScenarioResult withLosses = results.get(1);
+        assertEquals(0.0, lossless.getLosses());
+        assertTrue(withLosses.getLosses() > 0);
+        assertTrue(withLosses.getFinalCharge() < lossless.getFinalCharge());
+    }
+}